@@ -25,6 +25,8 @@ package com.unival.facultyscheduling;
  *     java -jar facultyscheduling.jar
  * </pre>
  */
+import com.unival.facultyscheduling.logging.AsyncLogHandler;
+import com.unival.facultyscheduling.service.PasswordHasher;
 import com.unival.facultyscheduling.view.LoginView;
 import com.unival.facultyscheduling.util.WindowStateManager;
 import javafx.application.Application;
@@ -52,6 +54,9 @@ public class Main extends Application {
      * @param args Command-line arguments.
      */
     public static void main(String[] args) {
+        AsyncLogHandler.install();
+        // Measure the password hashing cost while the login window is being shown
+        PasswordHasher.calibrate();
         launch(args);
     }
 }
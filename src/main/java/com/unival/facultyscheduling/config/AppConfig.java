@@ -30,12 +30,13 @@ public class AppConfig {
         String supabaseUrl = System.getenv("SUPABASE_URL");
         String supabaseKey = System.getenv("SUPABASE_KEY");
         
-        // If environment variables are not set, try to load from properties file
-        if (supabaseUrl == null || supabaseKey == null) {
-            try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
-                properties.load(fis);
-                LOGGER.info("Configuration loaded from properties file");
-            } catch (IOException e) {
+        // Always try the properties file: it holds the credentials when environment variables are not set,
+        // and the optional tuning settings either way
+        try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
+            properties.load(fis);
+            LOGGER.info("Configuration loaded from properties file");
+        } catch (IOException e) {
+            if (supabaseUrl == null || supabaseKey == null) {
                 LOGGER.log(Level.WARNING, "Could not load configuration file: " + e.getMessage());
             }
         }
@@ -74,4 +75,45 @@ public class AppConfig {
     public static String getSupabaseKey() {
         return properties.getProperty("supabase.key");
     }
+
+    /**
+     * Gets an optional setting. A JVM system property with the same name overrides the properties file.
+     * @param key The setting name (e.g. "supabase.http.maxConnections")
+     * @param defaultValue The value to use when the setting is absent
+     * @return The configured value, or the default
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets an optional integer setting.
+     * @param key The setting name
+     * @param defaultValue The value to use when the setting is absent or not a number
+     * @return The configured value, or the default
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Ignoring non-numeric value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets an optional boolean setting.
+     * @param key The setting name
+     * @param defaultValue The value to use when the setting is absent
+     * @return The configured value, or the default
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
 } 
\ No newline at end of file
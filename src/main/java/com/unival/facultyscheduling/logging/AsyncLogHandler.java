@@ -0,0 +1,176 @@
+package com.unival.facultyscheduling.logging;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * AsyncLogHandler moves log output off the calling thread.
+ * <p>
+ * {@link #publish(LogRecord)} only offers the record to a bounded queue (logging.async.queueSize, default 8192) and
+ * returns; a single daemon thread formats the records and passes them to the handlers that were installed on the
+ * root logger before (by default the console). When the queue is full the record is dropped instead of blocking
+ * the caller, and the number of dropped records is reported once the writer catches up.
+ * <p>
+ * Typical Usage:
+ * <pre>
+ *     AsyncLogHandler.install(); // once, at startup
+ * </pre>
+ */
+public final class AsyncLogHandler extends Handler {
+    private static final String APP_LOGGER = "com.unival.facultyscheduling";
+    private static final LogRecord STOP = new LogRecord(Level.OFF, "stop");
+
+    private static AsyncLogHandler installed;
+
+    private final BlockingQueue<LogRecord> queue;
+    private final Handler[] delegates;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    AsyncLogHandler(Handler[] delegates, int capacity) {
+        this.delegates = delegates;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, capacity));
+        this.writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Routes the root logger's output through an asynchronous handler and applies logging.level (e.g. FINE) to the
+     * application's loggers. Does nothing if logging.async.enabled is false or it has already been installed.
+     */
+    public static synchronized void install() {
+        Level level = parseLevel(AppConfig.getString("logging.level", null));
+        Logger root = LogManager.getLogManager().getLogger("");
+        if (level != null) {
+            Logger.getLogger(APP_LOGGER).setLevel(level);
+        }
+        if (installed != null || !AppConfig.getBoolean("logging.async.enabled", true)) {
+            return;
+        }
+        Handler[] delegates = root.getHandlers();
+        for (Handler delegate : delegates) {
+            root.removeHandler(delegate);
+            if (level != null && level.intValue() < delegate.getLevel().intValue()) {
+                // The console handler defaults to INFO; let the logger level decide instead
+                delegate.setLevel(level);
+            }
+        }
+        installed = new AsyncLogHandler(delegates, AppConfig.getInt("logging.async.queueSize", 8192));
+        root.addHandler(installed);
+        Runtime.getRuntime().addShutdownHook(new Thread(installed::close, "log-shutdown"));
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // Plain java.util.logging records infer their caller from the stack on first access, which only gives the
+        // right answer on the logging thread; records from Log carry their source and skip this
+        record.getSourceClassName();
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Handler delegate : delegates) {
+            delegate.flush();
+        }
+    }
+
+    /**
+     * Writes the records still queued, then stops the writer thread and closes the delegate handlers.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler delegate : delegates) {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Gets the number of records dropped because the queue was full.
+     *
+     * @return The count since startup.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<>();
+        long reportedDrops = 0;
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (LogRecord record : batch) {
+                    if (record == STOP) {
+                        flush();
+                        return;
+                    }
+                    write(record);
+                }
+                batch.clear();
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    LogRecord report = new LogRecord(Level.WARNING, "Log queue full; dropped " + (drops - reportedDrops) + " records");
+                    report.setLoggerName(AsyncLogHandler.class.getName());
+                    report.setSourceClassName(AsyncLogHandler.class.getName());
+                    report.setSourceMethodName("drain");
+                    write(report);
+                    reportedDrops = drops;
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(LogRecord record) {
+        for (Handler delegate : delegates) {
+            try {
+                delegate.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Log handler failed", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private static Level parseLevel(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Level.parse(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.unival.facultyscheduling.logging;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Log is a small structured-logging facade over {@link java.util.logging}.
+ * <p>
+ * An entry is an event name followed by key/value pairs, written as {@code event key=value key2="two words"}:
+ * <pre>
+ *     LOG.debug("fetch.response", "endpoint", endpoint, "status", status, "body", Log.body(json));
+ * </pre>
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>Lazy: when the level is disabled a call costs one level check. When it is enabled, the entry is handed
+ *     to the handlers unformatted and only turned into text when a handler reads the message, which with
+ *     {@link AsyncLogHandler} happens on the writer thread rather than on the caller's.</li>
+ *     <li>Redaction: values whose key names a secret (password, salt, hash, token, apikey, authorization, ...)
+ *     are never written, and the same fields are masked inside bodies passed to {@link #body(String)}.</li>
+ *     <li>Body truncation and sampling: {@link #body(String)} keeps at most logging.body.maxChars characters
+ *     (default 512) of a body, and only logging.body.samplePercent percent of bodies (default 100) are written at
+ *     all; the others are logged as their length.</li>
+ * </ul>
+ * <p>
+ * Note: Values are formatted after the call returns, possibly on another thread, so pass immutable values
+ * (strings, numbers, records) rather than objects that the caller will go on modifying.
+ */
+public final class Log {
+    private static final String REDACTED = "[REDACTED]";
+    private static final String[] SECRET_KEYS = {"password", "passwd", "secret", "salt", "hash", "token", "apikey", "api_key", "authorization"};
+    private static final Pattern SECRET_JSON_FIELD = Pattern.compile(
+            "(\"(?:password|passwd|secret|salt|hash|token|access_token|refresh_token|apikey|api_key|authorization)\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*\"?",
+            Pattern.CASE_INSENSITIVE);
+    private static final int BODY_MAX_CHARS = Math.max(0, AppConfig.getInt("logging.body.maxChars", 512));
+    private static final int BODY_SAMPLE_PERCENT = Math.max(0, Math.min(100, AppConfig.getInt("logging.body.samplePercent", 100)));
+
+    private final Logger logger;
+
+    private Log(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Gets the log for a class, backed by the {@link Logger} of the same name.
+     *
+     * @param type The class that logs.
+     * @return The log.
+     */
+    public static Log get(Class<?> type) {
+        return new Log(Logger.getLogger(type.getName()));
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isLoggable(Level.FINE);
+    }
+
+    public void debug(String event, Object... keyValues) {
+        log(Level.FINE, event, null, keyValues);
+    }
+
+    public void info(String event, Object... keyValues) {
+        log(Level.INFO, event, null, keyValues);
+    }
+
+    public void warn(String event, Object... keyValues) {
+        log(Level.WARNING, event, null, keyValues);
+    }
+
+    public void warn(String event, Throwable thrown, Object... keyValues) {
+        log(Level.WARNING, event, thrown, keyValues);
+    }
+
+    public void error(String event, Throwable thrown, Object... keyValues) {
+        log(Level.SEVERE, event, thrown, keyValues);
+    }
+
+    /**
+     * Wraps a response body for logging. The body is truncated, sampled and redacted only if the entry is
+     * actually written.
+     *
+     * @param body The body, or null.
+     * @return A value whose {@code toString()} is the loggable form of the body.
+     */
+    public static Object body(String body) {
+        return new Body(body);
+    }
+
+    private void log(Level level, String event, Throwable thrown, Object[] keyValues) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        StructuredRecord record = new StructuredRecord(level, event, keyValues);
+        record.setLoggerName(logger.getName());
+        // Setting the source explicitly stops LogRecord from walking the stack to infer it
+        record.setSourceClassName(logger.getName());
+        record.setSourceMethodName(event);
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+
+    static boolean isSecret(String key) {
+        String lower = key.toLowerCase(Locale.ROOT);
+        for (String secret : SECRET_KEYS) {
+            if (lower.contains(secret)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A log record whose message is built from the event and key/value pairs the first time it is read.
+     */
+    private static final class StructuredRecord extends LogRecord {
+        private static final long serialVersionUID = 1L;
+        // Not serialized; the formatted message is written instead
+        private final transient Object[] keyValues;
+        private volatile String formatted;
+
+        StructuredRecord(Level level, String event, Object[] keyValues) {
+            super(level, event);
+            this.keyValues = keyValues;
+        }
+
+        @Override
+        public String getMessage() {
+            String message = formatted;
+            if (message == null) {
+                message = format(super.getMessage(), keyValues);
+                formatted = message;
+            }
+            return message;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            getMessage();
+            out.defaultWriteObject();
+        }
+
+        private static String format(String event, Object[] keyValues) {
+            StringBuilder out = new StringBuilder(event);
+            for (int i = 0; i + 1 < keyValues.length; i += 2) {
+                String key = String.valueOf(keyValues[i]);
+                out.append(' ').append(key).append('=');
+                appendValue(out, isSecret(key) ? REDACTED : String.valueOf(keyValues[i + 1]));
+            }
+            if (keyValues.length % 2 != 0) {
+                out.append(' ');
+                appendValue(out, String.valueOf(keyValues[keyValues.length - 1]));
+            }
+            return out.toString();
+        }
+
+        private static void appendValue(StringBuilder out, String value) {
+            boolean quote = value.isEmpty();
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c <= ' ' || c == '"' || c == '=';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> out.append(c);
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    /**
+     * A response body that is truncated, sampled and redacted when it is formatted.
+     */
+    private record Body(String body) {
+        @Override
+        public String toString() {
+            if (body == null) {
+                return "null";
+            }
+            if (BODY_SAMPLE_PERCENT < 100 && ThreadLocalRandom.current().nextInt(100) >= BODY_SAMPLE_PERCENT) {
+                return "<" + body.length() + " chars, not sampled>";
+            }
+            // Only the part that can be written is redacted; a secret cut off at the end is masked up to the cut
+            String text = body.length() > BODY_MAX_CHARS ? body.substring(0, BODY_MAX_CHARS) : body;
+            text = SECRET_JSON_FIELD.matcher(text).replaceAll("$1\"" + REDACTED + "\"");
+            return body.length() > BODY_MAX_CHARS ? text + "...(" + body.length() + " chars)" : text;
+        }
+    }
+}
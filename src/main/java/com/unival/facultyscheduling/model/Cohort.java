@@ -0,0 +1,12 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Cohort represents a group of students who share a timetable.
+ *
+ * @param cohortId     The cohort's ID.
+ * @param name         The cohort's name.
+ * @param departmentId The ID of the department the cohort belongs to.
+ * @param year         The cohort's year of study, or 0 if unknown.
+ */
+public record Cohort(String cohortId, String name, String departmentId, int year) {
+}
@@ -0,0 +1,10 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Department represents an academic department that users, courses and cohorts belong to.
+ *
+ * @param departmentId The department's ID.
+ * @param name         The department's name.
+ */
+public record Department(String departmentId, String name) {
+}
@@ -0,0 +1,23 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Evaluation represents a scheduled assessment such as a quiz, exam or presentation.
+ *
+ * @param evaluationId The evaluation's ID.
+ * @param title        The evaluation's title.
+ * @param description  The evaluation's description.
+ * @param subject      The evaluation's subject.
+ * @param type         The evaluation's type.
+ * @param date         The evaluation's date, e.g. "2025-03-14".
+ * @param startTime    The start time.
+ * @param endTime      The end time.
+ * @param courseId     The course's ID.
+ * @param facultyId    The faculty member's ID.
+ * @param roomId       The room's ID.
+ * @param createdBy    The ID of the user who created the evaluation.
+ * @param isPublished  Whether the evaluation is visible to students.
+ */
+public record Evaluation(String evaluationId, String title, String description, String subject, String type,
+                         String date, String startTime, String endTime, String courseId, String facultyId,
+                         String roomId, String createdBy, boolean isPublished) {
+}
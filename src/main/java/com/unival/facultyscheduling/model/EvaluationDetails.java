@@ -0,0 +1,13 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * EvaluationDetails is an evaluation together with the rows its foreign keys refer to, as returned by a single
+ * embedded-select read. Any related row that is missing is null.
+ *
+ * @param evaluation The evaluation.
+ * @param course     The course being evaluated.
+ * @param faculty    The faculty member responsible.
+ * @param room       The room.
+ */
+public record EvaluationDetails(Evaluation evaluation, Course course, Faculty faculty, Room room) {
+}
@@ -0,0 +1,15 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Faculty represents the teaching profile of a faculty member.
+ *
+ * @param facultyId      The faculty member's ID.
+ * @param name           The faculty member's display name, if the row carries it.
+ * @param departmentId   The ID of the faculty member's department.
+ * @param specialization The faculty member's specialization.
+ * @param officeLocation The faculty member's office location.
+ * @param officeHours    The faculty member's office hours.
+ */
+public record Faculty(String facultyId, String name, String departmentId, String specialization,
+                      String officeLocation, String officeHours) {
+}
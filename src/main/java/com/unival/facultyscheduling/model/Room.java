@@ -0,0 +1,13 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Room represents a teaching room that schedules and evaluations can be held in.
+ *
+ * @param roomId      The room's ID.
+ * @param name        The room's name or number.
+ * @param building    The building the room is in.
+ * @param capacity    The number of seats, or 0 if unknown.
+ * @param isAvailable Whether the room can currently be booked.
+ */
+public record Room(String roomId, String name, String building, int capacity, boolean isAvailable) {
+}
@@ -0,0 +1,35 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * Schedule represents one timetable entry: a course taught by a faculty member to a cohort, in a room and time slot,
+ * for a semester of an academic year.
+ * <p>
+ * Typical Usage:
+ * <pre>
+ *     Schedule draft = Schedule.draft(courseId, facultyId, cohortId, roomId, slotId, "1", "2025-2026");
+ *     List&lt;InsertResult&gt; results = SupabaseClient.createSchedules(List.of(draft));
+ * </pre>
+ *
+ * @param scheduleId   The schedule's ID, or null for a schedule that has not been saved yet.
+ * @param courseId     The course's ID.
+ * @param facultyId    The faculty member's ID.
+ * @param cohortId     The cohort's ID.
+ * @param roomId       The room's ID.
+ * @param slotId       The time slot's ID.
+ * @param semester     The semester.
+ * @param academicYear The academic year.
+ * @param isActive     Whether the schedule is active.
+ */
+public record Schedule(String scheduleId, String courseId, String facultyId, String cohortId, String roomId,
+                       String slotId, String semester, String academicYear, boolean isActive) {
+
+    /**
+     * Creates an active schedule that has not been saved yet.
+     *
+     * @return A schedule without an ID.
+     */
+    public static Schedule draft(String courseId, String facultyId, String cohortId, String roomId, String slotId,
+                                 String semester, String academicYear) {
+        return new Schedule(null, courseId, facultyId, cohortId, roomId, slotId, semester, academicYear, true);
+    }
+}
@@ -0,0 +1,16 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * ScheduleDetails is a schedule together with the rows its foreign keys refer to, as returned by a single
+ * embedded-select read. Any related row that is missing (e.g. a deleted room) is null.
+ *
+ * @param schedule The schedule.
+ * @param course   The scheduled course.
+ * @param room     The room.
+ * @param timeSlot The time slot.
+ * @param cohort   The cohort being taught.
+ * @param faculty  The faculty member teaching.
+ */
+public record ScheduleDetails(Schedule schedule, Course course, Room room, TimeSlot timeSlot, Cohort cohort,
+                              Faculty faculty) {
+}
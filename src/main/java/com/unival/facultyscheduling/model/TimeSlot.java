@@ -0,0 +1,12 @@
+package com.unival.facultyscheduling.model;
+
+/**
+ * TimeSlot represents a recurring weekly teaching period.
+ *
+ * @param slotId    The time slot's ID.
+ * @param dayOfWeek The day of the week, as stored in the database (e.g. "Monday").
+ * @param startTime The start time, e.g. "09:00:00".
+ * @param endTime   The end time, e.g. "10:30:00".
+ */
+public record TimeSlot(String slotId, String dayOfWeek, String startTime, String endTime) {
+}
@@ -0,0 +1,27 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request when the bulkhead for its {@link RequestPriority} has no free permit within
+ * supabase.bulkhead.maxWaitMillis.
+ */
+public class BulkheadFullException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final RequestPriority priority;
+
+    public BulkheadFullException(RequestPriority priority) {
+        super("Too many concurrent " + priority.name().toLowerCase() + " requests to Supabase; try again shortly");
+        this.priority = priority;
+    }
+
+    /**
+     * Gets the priority whose bulkhead was full.
+     *
+     * @return The request priority.
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+}
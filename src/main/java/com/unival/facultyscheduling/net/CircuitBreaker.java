@@ -0,0 +1,89 @@
+package com.unival.facultyscheduling.net;
+
+/**
+ * A consecutive-failure circuit breaker for one endpoint family.
+ * <p>
+ * After {@code failureThreshold} consecutive failures (I/O errors or 5xx responses) the circuit opens and requests
+ * fail immediately with a {@link CircuitOpenException}. Once the open period has elapsed a single probe request is
+ * let through: if it succeeds the circuit closes, otherwise it opens again for another period.
+ */
+public final class CircuitBreaker {
+    /**
+     * The state of a circuit.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String family;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(String family, int failureThreshold, long openMillis) {
+        this.family = family;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    synchronized void acquirePermission() throws CircuitOpenException {
+        if (state == State.OPEN) {
+            long elapsed = System.nanoTime() - openedAt;
+            if (elapsed < openNanos) {
+                throw new CircuitOpenException(family, (openNanos - elapsed) / 1_000_000L);
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                throw new CircuitOpenException(family, 0);
+            }
+            probeInFlight = true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Releases a permission without recording an outcome, e.g. when the caller was interrupted.
+     */
+    synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Gets the endpoint family this breaker guards.
+     *
+     * @return The endpoint family.
+     */
+    public String getFamily() {
+        return family;
+    }
+
+    /**
+     * Gets the current state.
+     *
+     * @return The circuit state.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
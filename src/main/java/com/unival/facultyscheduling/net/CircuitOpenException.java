@@ -0,0 +1,37 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker for its endpoint family is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String family;
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String family, long retryAfterMillis) {
+        super("Supabase endpoint " + family + " is temporarily unavailable; retry in " + Math.max(1, retryAfterMillis / 1000) + "s");
+        this.family = family;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets the endpoint family whose circuit is open.
+     *
+     * @return The endpoint family, e.g. "/rest/v1/schedules".
+     */
+    public String getFamily() {
+        return family;
+    }
+
+    /**
+     * Gets how long until the circuit lets a probe request through.
+     *
+     * @return The remaining open time in milliseconds.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,34 @@
+package com.unival.facultyscheduling.net;
+
+import java.net.http.HttpResponse;
+
+/**
+ * Body handlers for responses that may be sent with a {@code Content-Encoding}.
+ * <p>
+ * {@link SupabaseTransport} advertises {@code Accept-Encoding: gzip} on every request and wraps every body handler
+ * with {@link #decoding(HttpResponse.BodyHandler)}, so callers keep using the standard
+ * {@link HttpResponse.BodyHandlers} and always see the decoded body.
+ */
+public final class CompressedBodyHandlers {
+    private CompressedBodyHandlers() {
+    }
+
+    /**
+     * Wraps a body handler so that gzip-encoded responses are inflated on the fly before reaching it.
+     * Responses without a recognised encoding, and 204 and 304 responses, which have no body whatever their headers
+     * say, are passed through unchanged.
+     *
+     * @param handler The handler for the decoded body.
+     * @return A handler that decodes the response body as it streams in.
+     */
+    public static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> handler) {
+        return responseInfo -> {
+            String encoding = responseInfo.headers().firstValue("Content-Encoding").orElse("").trim();
+            int status = responseInfo.statusCode();
+            if (status != 204 && status != 304 && (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip"))) {
+                return new GzipBodySubscriber<>(handler.apply(responseInfo));
+            }
+            return handler.apply(responseInfo);
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.unival.facultyscheduling.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Endpoints provides helpers for working with Supabase REST endpoint strings such as
+ * "/rest/v1/schedules?faculty_id=eq.42&amp;order=created_at".
+ */
+public final class Endpoints {
+    /** Query parameters that shape a request rather than filter it; their values are part of the template. */
+    private static final Set<String> SHAPE_PARAMS = Set.of("select", "order", "limit", "offset", "on_conflict", "columns");
+
+    private Endpoints() {
+    }
+
+    /**
+     * Normalizes an endpoint so that requests which differ only in query parameter order map to the same string.
+     * Parameters are sorted by name (duplicates keep their relative order) and empty parameters are dropped.
+     * PostgREST treats query parameters as an unordered set, so normalization never changes the result of a request.
+     *
+     * @param endpoint The endpoint path with an optional query string.
+     * @return The normalized endpoint.
+     */
+    public static String normalize(String endpoint) {
+        int queryStart = endpoint.indexOf('?');
+        if (queryStart < 0) {
+            return endpoint;
+        }
+        List<String> params = new ArrayList<>();
+        for (String param : endpoint.substring(queryStart + 1).split("&")) {
+            if (!param.isEmpty()) {
+                params.add(param);
+            }
+        }
+        if (params.isEmpty()) {
+            return endpoint.substring(0, queryStart);
+        }
+        params.sort((a, b) -> name(a).compareTo(name(b)));
+        return endpoint.substring(0, queryStart) + "?" + String.join("&", params);
+    }
+
+    /**
+     * Gets the template of an endpoint: the normalized endpoint with every filter value replaced by "?", keeping the
+     * operator. For example "/rest/v1/schedules?faculty_id=eq.42&amp;order=created_at" has the template
+     * "/rest/v1/schedules?faculty_id=eq.?&amp;order=created_at". Requests with the same template perform the same
+     * query shape and are expected to have similar latency.
+     *
+     * @param endpoint The endpoint path with an optional query string.
+     * @return The endpoint template.
+     */
+    public static String template(String endpoint) {
+        String normalized = normalize(endpoint);
+        int queryStart = normalized.indexOf('?');
+        if (queryStart < 0) {
+            return normalized;
+        }
+        StringBuilder template = new StringBuilder(normalized.length()).append(normalized, 0, queryStart + 1);
+        String[] params = normalized.substring(queryStart + 1).split("&");
+        for (int i = 0; i < params.length; i++) {
+            String param = params[i];
+            if (i > 0) {
+                template.append('&');
+            }
+            String name = name(param);
+            int eq = param.indexOf('=');
+            if (eq < 0 || SHAPE_PARAMS.contains(name)) {
+                template.append(param);
+                continue;
+            }
+            // Keep the PostgREST operator (eq., in., is., ...) and drop the operand
+            int dot = param.indexOf('.', eq);
+            template.append(dot < 0 ? param.substring(0, eq + 1) : param.substring(0, dot + 1)).append('?');
+        }
+        return template.toString();
+    }
+
+    /**
+     * Gets the family an endpoint belongs to: its path up to and including the resource name, without any query.
+     * For example "/rest/v1/schedules?faculty_id=eq.42" and "/rest/v1/schedules?id=eq.7" are both in the family
+     * "/rest/v1/schedules", and "/auth/v1/token?grant_type=password" is in "/auth/v1/token".
+     *
+     * @param endpoint The endpoint path with an optional query string.
+     * @return The endpoint family.
+     */
+    public static String family(String endpoint) {
+        int queryStart = endpoint.indexOf('?');
+        String path = queryStart < 0 ? endpoint : endpoint.substring(0, queryStart);
+        // "/rest/v1/<table>" or "/rest/v1/rpc/<function>"
+        int segments = path.startsWith("/rest/v1/rpc/") ? 4 : 3;
+        int end = 0;
+        for (int i = 0; i < segments; i++) {
+            end = path.indexOf('/', end + 1);
+            if (end < 0) {
+                return path;
+            }
+        }
+        return path.substring(0, end);
+    }
+
+    private static String name(String param) {
+        int eq = param.indexOf('=');
+        return eq < 0 ? param : param.substring(0, eq);
+    }
+}
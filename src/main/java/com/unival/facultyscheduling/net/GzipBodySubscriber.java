@@ -0,0 +1,219 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A body subscriber that inflates a gzip-encoded response as it arrives and forwards the decompressed bytes to a
+ * downstream subscriber.
+ * <p>
+ * Each upstream chunk is inflated into at most a few small buffers and handed on immediately, so neither the
+ * compressed nor the decompressed body is ever held in memory as a whole (unless the downstream subscriber itself
+ * buffers, as {@code ofString()} does). Demand is passed through one-to-one: every upstream item produces exactly
+ * one downstream item, which may be an empty list while the gzip header is still being read.
+ *
+ * @param <T> The downstream body type.
+ */
+final class GzipBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private enum State { HEADER, BODY, TRAILER, DONE, FAILED }
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private Flow.Subscription subscription;
+    private State state = State.HEADER;
+
+    GzipBodySubscriber(HttpResponse.BodySubscriber<T> downstream) {
+        this.downstream = downstream;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        downstream.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (state == State.FAILED) {
+            return;
+        }
+        List<ByteBuffer> decoded = new ArrayList<>();
+        try {
+            for (ByteBuffer item : items) {
+                decode(item, decoded);
+            }
+        } catch (IOException | DataFormatException e) {
+            fail(e);
+            return;
+        }
+        downstream.onNext(decoded);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        inflater.end();
+        if (state != State.FAILED) {
+            state = State.FAILED;
+            downstream.onError(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        inflater.end();
+        if (state == State.FAILED) {
+            return;
+        }
+        // An empty body is not a gzip stream at all; some proxies still label it with the encoding
+        boolean empty = state == State.HEADER && pending.size() == 0;
+        if (state != State.DONE && !empty) {
+            state = State.FAILED;
+            downstream.onError(new EOFException("Truncated gzip response body"));
+            return;
+        }
+        downstream.onComplete();
+    }
+
+    private void decode(ByteBuffer input, List<ByteBuffer> out) throws IOException, DataFormatException {
+        while (input.hasRemaining()) {
+            switch (state) {
+                case HEADER -> readHeader(input);
+                case BODY -> inflate(input, out);
+                case TRAILER -> readTrailer(input);
+                // Anything after the trailer (padding or a second member) is ignored
+                default -> input.position(input.limit());
+            }
+        }
+    }
+
+    private void readHeader(ByteBuffer input) throws IOException {
+        // The header is at most a few hundred bytes; accumulate until it is complete
+        while (input.hasRemaining()) {
+            pending.write(input.get());
+            int headerLength = headerLength(pending.toByteArray());
+            if (headerLength > 0) {
+                pending.reset();
+                state = State.BODY;
+                return;
+            }
+        }
+    }
+
+    private void inflate(ByteBuffer input, List<ByteBuffer> out) throws DataFormatException {
+        inflater.setInput(input);
+        while (!inflater.finished() && !inflater.needsInput()) {
+            int n = inflater.inflate(chunk);
+            if (n > 0) {
+                crc.update(chunk, 0, n);
+                byte[] copy = new byte[n];
+                System.arraycopy(chunk, 0, copy, 0, n);
+                out.add(ByteBuffer.wrap(copy));
+            } else if (inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionaries are not supported in gzip streams");
+            }
+        }
+        if (inflater.finished()) {
+            state = State.TRAILER;
+        }
+    }
+
+    private void readTrailer(ByteBuffer input) throws ZipException {
+        while (input.hasRemaining() && pending.size() < TRAILER_LENGTH) {
+            pending.write(input.get());
+        }
+        if (pending.size() == TRAILER_LENGTH) {
+            byte[] trailer = pending.toByteArray();
+            long expectedCrc = littleEndianInt(trailer, 0);
+            long expectedSize = littleEndianInt(trailer, 4);
+            if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+                throw new ZipException("Corrupt gzip trailer");
+            }
+            state = State.DONE;
+        }
+    }
+
+    private void fail(Exception e) {
+        state = State.FAILED;
+        inflater.end();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        downstream.onError(e);
+    }
+
+    /**
+     * Returns the length of a complete gzip header at the start of the buffer, or -1 if more bytes are needed.
+     */
+    private static int headerLength(byte[] buf) throws ZipException {
+        int len = buf.length;
+        if (len < 10) {
+            return -1;
+        }
+        if ((buf[0] & 0xFF) != 0x1F || (buf[1] & 0xFF) != 0x8B || buf[2] != 8) {
+            throw new ZipException("Not in gzip format");
+        }
+        int flags = buf[3] & 0xFF;
+        int pos = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (len < pos + 2) {
+                return -1;
+            }
+            pos += 2 + ((buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(buf, pos);
+        }
+        if ((flags & FCOMMENT) != 0 && pos > 0) {
+            pos = skipZeroTerminated(buf, pos);
+        }
+        if ((flags & FHCRC) != 0 && pos > 0) {
+            pos += 2;
+        }
+        return pos > 0 && pos <= len ? pos : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] buf, int pos) {
+        if (pos < 0) {
+            return -1;
+        }
+        for (int i = pos; i < buf.length; i++) {
+            if (buf[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long littleEndianInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xFFL)
+                | (buf[offset + 1] & 0xFFL) << 8
+                | (buf[offset + 2] & 0xFFL) << 16
+                | (buf[offset + 3] & 0xFFL) << 24;
+    }
+}
@@ -0,0 +1,175 @@
+package com.unival.facultyscheduling.net;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * HedgePolicy sends a second, identical read when the first one is slower than usual, and uses whichever answers
+ * first.
+ * <p>
+ * For each endpoint template (see {@link Endpoints#template(String)}) it keeps a window of recent latencies. Once
+ * enough samples exist, a read that has not completed within the configured percentile of that window
+ * (supabase.hedging.percentile, default the p95) triggers a hedge. The loser is cancelled as soon as the winner
+ * completes, and the read's latency is recorded from the start of the original request to the winner's answer.
+ * <p>
+ * Hedges are paid for from a per-template token bucket that earns supabase.hedging.budgetPercent of a token per
+ * read (default 5%) up to supabase.hedging.burst tokens, so hedging can never add more than a few percent of
+ * extra load to any endpoint, even when the backend is uniformly slow.
+ */
+public final class HedgePolicy {
+    private static final int WINDOW_SIZE = 256;
+
+    /**
+     * Hedging counters.
+     *
+     * @param reads  Reads that were eligible for hedging.
+     * @param hedges Hedge requests sent.
+     * @param wins   Hedge requests that completed before the original.
+     */
+    public record Stats(long reads, long hedges, long wins) {
+    }
+
+    private final Executor executor;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayMillis;
+    private final double tokensPerRead;
+    private final double burst;
+    private final ConcurrentHashMap<String, EndpointState> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+
+    HedgePolicy(Executor executor) {
+        this.executor = executor;
+        this.percentile = AppConfig.getInt("supabase.hedging.percentile", 95) / 100.0;
+        this.minSamples = AppConfig.getInt("supabase.hedging.minSamples", 20);
+        this.minDelayMillis = AppConfig.getInt("supabase.hedging.minDelayMillis", 20);
+        this.tokensPerRead = AppConfig.getInt("supabase.hedging.budgetPercent", 5) / 100.0;
+        this.burst = AppConfig.getInt("supabase.hedging.burst", 5);
+    }
+
+    /**
+     * Runs a read, hedging it if it is slower than the adaptive threshold for its template.
+     *
+     * @param template The endpoint template used for latency tracking and budgeting.
+     * @param attempt  Starts one attempt of the read; called once, or twice if a hedge is sent. Cancelling the
+     *                 returned future must abort the attempt.
+     * @return A future completing with the first successful result, or the failure if every attempt fails.
+     */
+    <T> CompletableFuture<T> execute(String template, Supplier<CompletableFuture<T>> attempt) {
+        EndpointState state = endpoints.computeIfAbsent(template, t -> new EndpointState());
+        reads.increment();
+        long thresholdMillis = state.admit();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        // Settled by the first attempt to succeed, so a win is counted before anyone can see the result
+        AtomicBoolean won = new AtomicBoolean();
+        long start = System.nanoTime();
+        CompletableFuture<T> primary = attempt.get();
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                if (won.compareAndSet(false, true)) {
+                    result.complete(value);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            // Whichever attempt won, the read took this long; timing a winning hedge from its own start, or only
+            // timing primaries that win, would drag the threshold down and make hedges ever more frequent
+            if (error == null) {
+                state.record(System.nanoTime() - start);
+            }
+            primary.cancel(true);
+        });
+
+        if (thresholdMillis >= 0) {
+            CompletableFuture.delayedExecutor(thresholdMillis, TimeUnit.MILLISECONDS, executor).execute(Tracer.wrap(() -> {
+                if (result.isDone() || !state.tryAcquireHedge()) {
+                    return;
+                }
+                outstanding.incrementAndGet();
+                hedges.increment();
+                CompletableFuture<T> hedge = attempt.get();
+                hedge.whenComplete((value, error) -> {
+                    if (error == null) {
+                        if (won.compareAndSet(false, true)) {
+                            wins.increment();
+                            result.complete(value);
+                        }
+                    } else if (outstanding.decrementAndGet() == 0) {
+                        result.completeExceptionally(error);
+                    }
+                });
+                result.whenComplete((value, error) -> hedge.cancel(true));
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the hedging counters.
+     *
+     * @return The counters since startup.
+     */
+    public Stats getStats() {
+        return new Stats(reads.sum(), hedges.sum(), wins.sum());
+    }
+
+    /**
+     * Latency window and hedge budget of one endpoint template.
+     */
+    private final class EndpointState {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int next;
+        private long thresholdMillis = -1;
+        private boolean dirty;
+        private double tokens = burst;
+
+        /**
+         * Credits the budget for one read and returns the hedge delay, or -1 if there are too few samples yet.
+         */
+        synchronized long admit() {
+            tokens = Math.min(burst, tokens + tokensPerRead);
+            if (count < minSamples) {
+                return -1;
+            }
+            if (dirty) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                long nanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+                thresholdMillis = Math.max(minDelayMillis, TimeUnit.NANOSECONDS.toMillis(nanos));
+                dirty = false;
+            }
+            return thresholdMillis;
+        }
+
+        synchronized boolean tryAcquireHedge() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.unival.facultyscheduling.net;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JsonCodec decodes one JSON object straight from a Jackson streaming parser.
+ * <p>
+ * Decoders read the fields they need and skip the rest, so no intermediate tree (JSONObject, Map) is built for a
+ * row. {@link JsonRowReader} and {@link JsonRowPublisher} apply a codec to every row of a streamed response;
+ * {@link #readList(String, JsonCodec)} does the same for a body that has already been read into a string.
+ *
+ * @param <T> The decoded type.
+ */
+@FunctionalInterface
+public interface JsonCodec<T> {
+
+    /** Decodes rows into {@link JSONObject}, for callers that want the untyped row. */
+    JsonCodec<JSONObject> JSON_OBJECT = JsonCodec::readObject;
+
+    /**
+     * Decodes one object.
+     *
+     * @param parser A parser positioned on the object's {@code START_OBJECT} token. On return it must be positioned
+     *               on the matching {@code END_OBJECT} token.
+     * @return The decoded value.
+     * @throws IOException if the object cannot be read.
+     */
+    T read(JsonParser parser) throws IOException;
+
+    /**
+     * Decodes a JSON array of objects.
+     *
+     * @param json  The JSON text.
+     * @param codec Decodes each element.
+     * @return The decoded elements, in order.
+     * @throws IOException if the text is not a JSON array of objects.
+     */
+    static <T> List<T> readList(String json, JsonCodec<T> codec) throws IOException {
+        try (JsonParser parser = Factory.JSON.createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of rows but got " + first);
+            }
+            List<T> rows = new ArrayList<>();
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a JSON object row but got " + token);
+                }
+                rows.add(codec.read(parser));
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Decodes a single JSON object.
+     *
+     * @param json  The JSON text.
+     * @param codec Decodes the object.
+     * @return The decoded value.
+     * @throws IOException if the text is not a JSON object.
+     */
+    static <T> T readOne(String json, JsonCodec<T> codec) throws IOException {
+        try (JsonParser parser = Factory.JSON.createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object but got " + first);
+            }
+            return codec.read(parser);
+        }
+    }
+
+    /**
+     * Creates a parser over a streamed body.
+     *
+     * @param in The body; it is closed when the parser is closed.
+     * @return A new parser.
+     * @throws IOException if the parser cannot be created.
+     */
+    static JsonParser parser(InputStream in) throws IOException {
+        return Factory.JSON.createParser(in);
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException {
+        JSONObject object = new JSONObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            object.put(name, readValue(parser, parser.nextToken()));
+        }
+        return object;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+                    array.put(readValue(parser, element));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return JSONObject.NULL;
+            default:
+                throw new IOException("Unexpected JSON token " + token);
+        }
+    }
+
+    /**
+     * Holds the shared, thread-safe parser factory.
+     */
+    final class Factory {
+        static final JsonFactory JSON = new JsonFactory();
+
+        private Factory() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * JsonRowPublisher publishes the rows of a JSON array response as they are parsed.
+ * <p>
+ * Every subscription starts its own request. Rows are handed to the subscriber through a bounded buffer: when the
+ * subscriber falls behind, parsing (and therefore reading from the network) pauses until it requests more, so
+ * memory use does not grow with the size of the response. Cancelling the subscription closes the response.
+ *
+ * @param <T> The decoded row type.
+ */
+public final class JsonRowPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Opens the response to publish.
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        JsonRowReader<T> open() throws IOException;
+    }
+
+    private final Source<T> source;
+    private final Executor executor;
+    private final int bufferSize;
+
+    /**
+     * Creates a publisher.
+     *
+     * @param source     Opens a reader over the response; called once per subscription.
+     * @param executor   Runs the parsing loop and delivers rows to the subscriber.
+     * @param bufferSize The maximum number of parsed rows waiting for the subscriber.
+     */
+    public JsonRowPublisher(Source<T> source, Executor executor, int bufferSize) {
+        this.source = source;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        SubmissionPublisher<T> publisher = new SubmissionPublisher<>(executor, bufferSize);
+        publisher.subscribe(subscriber);
+        executor.execute(() -> {
+            try (JsonRowReader<T> rows = source.open()) {
+                // Stop downloading once the subscriber has cancelled
+                while (publisher.hasSubscribers() && rows.hasNext()) {
+                    publisher.submit(rows.next());
+                }
+                publisher.close();
+            } catch (Exception e) {
+                publisher.closeExceptionally(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.unival.facultyscheduling.net;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * JsonRowReader reads the rows of a JSON array response one at a time with the Jackson streaming parser.
+ * <p>
+ * Only the row currently being decoded is held in memory, so reading a table of any size needs the same small
+ * amount of heap, and the first rows are available while the rest of the response is still downloading.
+ * Each row is decoded by a {@link JsonCodec}, either into a model type or, with {@link JsonCodec#JSON_OBJECT}, into
+ * a {@code JSONObject}.
+ * <p>
+ * Note: Read failures are reported as {@link UncheckedIOException}, since {@link Iterator} methods cannot throw
+ * checked exceptions. Closing the reader closes the response stream, which abandons the rest of the download.
+ */
+public final class JsonRowReader<T> implements Iterator<T>, Closeable {
+    private final JsonParser parser;
+    private final JsonCodec<T> codec;
+    private T next;
+    private boolean finished;
+
+    /**
+     * Starts reading a JSON array of objects.
+     *
+     * @param in    The response body; it is closed when the reader is closed.
+     * @param codec Decodes each row.
+     * @throws IOException if the body does not start with a JSON array.
+     */
+    public JsonRowReader(InputStream in, JsonCodec<T> codec) throws IOException {
+        this.parser = JsonCodec.parser(in);
+        this.codec = codec;
+        JsonToken first = parser.nextToken();
+        if (first != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Expected a JSON array of rows but got " + first);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    next = codec.read(parser);
+                } else if (token == JsonToken.END_ARRAY || token == null) {
+                    finished = true;
+                } else {
+                    throw new IOException("Expected a JSON object row but got " + token);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        parser.close();
+    }
+}
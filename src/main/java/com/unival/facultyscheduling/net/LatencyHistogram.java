@@ -0,0 +1,109 @@
+package com.unival.facultyscheduling.net;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records request latencies in log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Latencies are recorded in microseconds. Every power of two is split into {@value #SUB_BUCKETS} equal buckets, so
+ * any recorded value is known to within about 3% from one microsecond up to an hour, using a fixed array of
+ * counters. Recording is lock-free (one atomic increment per value), so many request threads can record at once;
+ * percentiles are computed from a {@link #snapshot()}.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int BUCKET_COUNT = index(MAX_MICROS) + 1;
+
+    /**
+     * Latency summary at one point in time. All latencies are in milliseconds.
+     *
+     * @param count The number of recorded values.
+     * @param mean  The mean latency.
+     * @param p50   The median latency.
+     * @param p90   The 90th percentile latency.
+     * @param p99   The 99th percentile latency.
+     * @param max   The largest recorded latency.
+     */
+    public record Summary(long count, double mean, double p50, double p90, double p99, double max) {
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds; values above an hour are recorded as an hour.
+     */
+    public void record(long nanos) {
+        long micros = Math.min(MAX_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        counts.incrementAndGet(index(micros));
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Summarizes the values recorded so far. Values recorded while the snapshot is taken may or may not be included.
+     *
+     * @return The summary; all zeros if nothing has been recorded.
+     */
+    public Summary snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        if (count == 0) {
+            return new Summary(0, 0, 0, 0, 0, 0);
+        }
+        // A bucket midpoint can lie above the largest value actually recorded in it
+        long max = maxMicros.get();
+        return new Summary(count, toMillis(totalMicros.sum() / (double) count),
+                toMillis(Math.min(max, percentile(copy, count, 0.50))), toMillis(Math.min(max, percentile(copy, count, 0.90))),
+                toMillis(Math.min(max, percentile(copy, count, 0.99))), toMillis(max));
+    }
+
+    /**
+     * Gets the bucket of a value: values below 2 * {@link #SUB_BUCKETS} have their own bucket, larger values keep their
+     * top {@link #SUB_BUCKET_BITS} + 1 bits.
+     */
+    private static int index(long micros) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS - 1);
+        return (shift << SUB_BUCKET_BITS) + (int) (micros >>> shift);
+    }
+
+    /**
+     * Gets the midpoint of the values that fall into a bucket.
+     */
+    private static double midpoint(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return (mantissa << shift) + ((1L << shift) - 1) / 2.0;
+    }
+
+    private static double percentile(long[] counts, long total, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpoint(i);
+            }
+        }
+        return midpoint(counts.length - 1);
+    }
+
+    private static double toMillis(double micros) {
+        return micros / 1000.0;
+    }
+}
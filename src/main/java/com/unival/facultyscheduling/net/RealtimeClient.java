@@ -0,0 +1,460 @@
+package com.unival.facultyscheduling.net;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * RealtimeClient delivers row-level changes of Supabase tables as they happen, so screens and caches can apply
+ * deltas instead of polling or reading whole lists again after every write.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>One WebSocket to Supabase Realtime (Phoenix channel protocol, vsn 1.0.0) shared by all subscriptions, with
+ *     one channel per table joined for Postgres changes. The socket is opened by the first {@link #subscribe} and
+ *     closed channels are left when their last listener goes.</li>
+ *     <li>Heartbeats every realtime.heartbeatSeconds (default 25); a heartbeat left unanswered until the next one
+ *     counts as a dead connection.</li>
+ *     <li>Reconnection with exponential backoff (1s doubling, at most 30s) that joins every channel again. Changes
+ *     made while disconnected are not replayed, so reconnect listeners ({@link #addReconnectListener}) are told to
+ *     read their tables again.</li>
+ *     <li>realtime.url overrides the socket URL, e.g. to test against a local stand-in server; by default it is
+ *     derived from the Supabase URL.</li>
+ * </ul>
+ * Listeners are called on the socket's thread, one change at a time and in the order Supabase sent them; UI code
+ * must hop back with {@code Platform.runLater}.
+ * <p>
+ * Note: The tables must be part of the supabase_realtime publication. A deleted row carries only its primary key
+ * unless the table has {@code replica identity full}.
+ */
+public final class RealtimeClient {
+    private static final Log LOG = Log.get(RealtimeClient.class);
+    private static final String TOPIC_PREFIX = "realtime:";
+    private static final long INITIAL_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * The kind of a row change.
+     */
+    public enum ChangeType {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * One row change.
+     *
+     * @param type            What happened to the row.
+     * @param table           The table, e.g. "comments".
+     * @param record          The row after an insert or update; empty for a delete.
+     * @param oldRecord       The row before an update or delete; for a delete at least its primary key.
+     * @param commitTimestamp When the change was committed, as an ISO timestamp, or null.
+     */
+    public record Change(ChangeType type, String table, JSONObject record, JSONObject oldRecord,
+                         String commitTimestamp) {
+        /**
+         * @return The row after an insert or update, or what is known of the deleted row.
+         */
+        public JSONObject row() {
+            return type == ChangeType.DELETE ? oldRecord : record;
+        }
+    }
+
+    /**
+     * A registered listener; closing it unsubscribes.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static RealtimeClient instance;
+
+    private final boolean enabled;
+    private final URI uri;
+    private final String apiKey;
+    private final long heartbeatMillis;
+    private final SupabaseTransport transport = SupabaseTransport.getInstance();
+    private final Map<String, List<Consumer<Change>>> listeners = new ConcurrentHashMap<>();
+    private final List<Runnable> reconnectListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private WebSocket socket;
+    private boolean connecting;
+    private boolean connectedBefore;
+    private long backoffMillis = INITIAL_BACKOFF_MILLIS;
+    private int nextRef;
+    private String heartbeatRef;
+    private final Map<String, String> joinRefs = new HashMap<>();
+    // WebSocket sends must not overlap, so each one waits for the previous one
+    private CompletableFuture<WebSocket> lastSend = CompletableFuture.completedFuture(null);
+
+    private RealtimeClient() {
+        this(configuredUrl(), AppConfig.getSupabaseKey(),
+                TimeUnit.SECONDS.toMillis(Math.max(1, AppConfig.getInt("realtime.heartbeatSeconds", 25))));
+    }
+
+    /**
+     * Creates a client for a socket URL. Only {@link #getInstance()} and tests create clients.
+     *
+     * @param url             The socket URL without the apikey and vsn parameters, or null to disable realtime.
+     * @param apiKey          The Supabase API key, or null to disable realtime.
+     * @param heartbeatMillis The heartbeat interval.
+     */
+    RealtimeClient(String url, String apiKey, long heartbeatMillis) {
+        this.apiKey = apiKey;
+        this.enabled = url != null && !url.isBlank() && apiKey != null;
+        this.uri = enabled ? URI.create(url + (url.contains("?") ? "&" : "?") + "apikey="
+                + URLEncoder.encode(apiKey, StandardCharsets.UTF_8) + "&vsn=1.0.0") : null;
+        this.heartbeatMillis = heartbeatMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "realtime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            timer.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String configuredUrl() {
+        if (!AppConfig.getBoolean("realtime.enabled", true)) {
+            return null;
+        }
+        String url = AppConfig.getString("realtime.url", null);
+        String supabaseUrl = AppConfig.getSupabaseUrl();
+        if ((url == null || url.isBlank()) && supabaseUrl != null) {
+            url = supabaseUrl.replaceFirst("^http", "ws").replaceAll("/+$", "") + "/realtime/v1/websocket";
+        }
+        return url;
+    }
+
+    /**
+     * Returns the shared client, creating it on first use. It connects on the first subscription.
+     *
+     * @return The application-wide realtime client.
+     */
+    public static synchronized RealtimeClient getInstance() {
+        if (instance == null) {
+            instance = new RealtimeClient();
+        }
+        return instance;
+    }
+
+    /**
+     * Listens for inserts, updates and deletes of a table's rows.
+     *
+     * @param table    The table, e.g. "comments".
+     * @param listener Called for every change, on the socket's thread.
+     * @return The subscription; close it to stop listening. Without realtime configured no change is delivered.
+     */
+    public Subscription subscribe(String table, Consumer<Change> listener) {
+        if (!enabled) {
+            return () -> { };
+        }
+        boolean added;
+        synchronized (this) {
+            List<Consumer<Change>> tableListeners = listeners.computeIfAbsent(table, t -> new CopyOnWriteArrayList<>());
+            added = tableListeners.isEmpty();
+            tableListeners.add(listener);
+            if (socket == null) {
+                if (!connecting) {
+                    connect();
+                }
+            } else if (added) {
+                join(table);
+            }
+        }
+        return () -> unsubscribe(table, listener);
+    }
+
+    /**
+     * Registers a listener called after the connection was lost and has been established again. Changes made in
+     * between were not delivered, so caches should read their tables again.
+     */
+    public void addReconnectListener(Runnable listener) {
+        reconnectListeners.add(listener);
+    }
+
+    public void removeReconnectListener(Runnable listener) {
+        reconnectListeners.remove(listener);
+    }
+
+    /**
+     * Tells whether the socket is open.
+     *
+     * @return True if changes are being received.
+     */
+    public synchronized boolean isConnected() {
+        return socket != null;
+    }
+
+    private synchronized void unsubscribe(String table, Consumer<Change> listener) {
+        List<Consumer<Change>> tableListeners = listeners.get(table);
+        if (tableListeners == null || !tableListeners.remove(listener) || !tableListeners.isEmpty()) {
+            return;
+        }
+        listeners.remove(table);
+        if (socket != null) {
+            send(TOPIC_PREFIX + table, "phx_leave", new JSONObject());
+        }
+    }
+
+    private synchronized void connect() {
+        connecting = true;
+        LOG.debug("realtime.connect", "uri", uri.getHost());
+        transport.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(AppConfig.getInt("supabase.http.connectTimeoutSeconds", 10)))
+                .buildAsync(uri, new SocketListener())
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        LOG.debug("realtime.connect_failed", "error", error.toString());
+                        synchronized (this) {
+                            connecting = false;
+                            reconnectLater();
+                        }
+                    }
+                });
+    }
+
+    private void opened(WebSocket ws) {
+        boolean reconnected;
+        synchronized (this) {
+            socket = ws;
+            connecting = false;
+            backoffMillis = INITIAL_BACKOFF_MILLIS;
+            heartbeatRef = null;
+            joinRefs.clear();
+            lastSend = CompletableFuture.completedFuture(ws);
+            for (String table : listeners.keySet()) {
+                join(table);
+            }
+            reconnected = connectedBefore;
+            connectedBefore = true;
+        }
+        LOG.info(reconnected ? "realtime.reconnected" : "realtime.connected", "tables", listeners.keySet());
+        if (reconnected) {
+            for (Runnable listener : reconnectListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOG.error("realtime.listener_failed", e);
+                }
+            }
+        }
+    }
+
+    private void closed(WebSocket ws, String reason) {
+        synchronized (this) {
+            if (socket != ws) {
+                return;
+            }
+            socket = null;
+            heartbeatRef = null;
+            joinRefs.clear();
+            reconnectLater();
+        }
+        LOG.info("realtime.disconnected", "reason", reason);
+    }
+
+    // Called holding this
+    private void reconnectLater() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long delay = backoffMillis;
+        backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+        timer.schedule(() -> {
+            synchronized (this) {
+                if (socket == null && !connecting && !listeners.isEmpty()) {
+                    connect();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Called holding this
+    private void join(String table) {
+        JSONObject change = new JSONObject().put("event", "*").put("schema", "public").put("table", table);
+        JSONObject config = new JSONObject()
+                .put("broadcast", new JSONObject().put("self", false))
+                .put("presence", new JSONObject().put("key", ""))
+                .put("postgres_changes", List.of(change));
+        String ref = send(TOPIC_PREFIX + table, "phx_join", new JSONObject().put("config", config).put("access_token", apiKey));
+        joinRefs.put(ref, table);
+    }
+
+    private void heartbeat() {
+        WebSocket dead = null;
+        synchronized (this) {
+            if (socket == null) {
+                return;
+            }
+            if (heartbeatRef != null) {
+                dead = socket;
+            } else {
+                heartbeatRef = send("phoenix", "heartbeat", new JSONObject());
+            }
+        }
+        if (dead != null) {
+            LOG.warn("realtime.heartbeat_missed");
+            dead.abort();
+            closed(dead, "heartbeat timeout");
+        }
+    }
+
+    // Called holding this
+    private String send(String topic, String event, JSONObject payload) {
+        String ref = String.valueOf(++nextRef);
+        String text = new JSONObject()
+                .put("topic", topic)
+                .put("event", event)
+                .put("payload", payload)
+                .put("ref", ref)
+                .toString();
+        WebSocket ws = socket;
+        lastSend = lastSend.handle((previous, error) -> null)
+                .thenCompose(ignored -> ws.sendText(text, true))
+                .whenComplete((sent, error) -> {
+                    if (error != null) {
+                        LOG.debug("realtime.send_failed", "event", event, "error", error.toString());
+                        ws.abort();
+                        closed(ws, "send failed");
+                    }
+                });
+        return ref;
+    }
+
+    private void received(String text) {
+        JSONObject message;
+        try {
+            message = new JSONObject(text);
+        } catch (JSONException e) {
+            LOG.debug("realtime.bad_message", "error", e.getMessage());
+            return;
+        }
+        String event = message.optString("event");
+        JSONObject payload = message.optJSONObject("payload", new JSONObject());
+        switch (event) {
+            case "postgres_changes" -> dispatch(payload.optJSONObject("data"));
+            case "phx_reply" -> replied(message.optString("ref"), payload);
+            case "phx_error", "phx_close" -> {
+                String topic = message.optString("topic");
+                if (topic.startsWith(TOPIC_PREFIX)) {
+                    String table = topic.substring(TOPIC_PREFIX.length());
+                    LOG.warn("realtime.channel_closed", "table", table, "event", event);
+                    timer.schedule(() -> rejoin(table), INITIAL_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            default -> LOG.debug("realtime.message", "event", event);
+        }
+    }
+
+    private synchronized void replied(String ref, JSONObject payload) {
+        if (ref.equals(heartbeatRef)) {
+            heartbeatRef = null;
+            return;
+        }
+        String table = joinRefs.remove(ref);
+        if (table == null) {
+            return;
+        }
+        if ("ok".equals(payload.optString("status"))) {
+            LOG.debug("realtime.joined", "table", table);
+        } else {
+            LOG.warn("realtime.join_failed", "table", table, "response", String.valueOf(payload.opt("response")));
+        }
+    }
+
+    private synchronized void rejoin(String table) {
+        if (socket != null && listeners.containsKey(table)) {
+            join(table);
+        }
+    }
+
+    private void dispatch(JSONObject data) {
+        if (data == null) {
+            return;
+        }
+        String table = data.optString("table");
+        ChangeType type;
+        try {
+            type = ChangeType.valueOf(data.optString("type"));
+        } catch (IllegalArgumentException e) {
+            LOG.debug("realtime.unknown_change", "table", table, "type", data.optString("type"));
+            return;
+        }
+        List<Consumer<Change>> tableListeners = listeners.get(table);
+        if (tableListeners == null) {
+            return;
+        }
+        Change change = new Change(type, table,
+                data.optJSONObject("record", new JSONObject()),
+                data.optJSONObject("old_record", new JSONObject()),
+                data.optString("commit_timestamp", null));
+        try (Span span = Tracer.start("realtime.change", "table", table, "type", type)) {
+            for (Consumer<Change> listener : tableListeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    span.error(e);
+                    LOG.error("realtime.listener_failed", e, "table", table);
+                }
+            }
+        }
+    }
+
+    private final class SocketListener implements WebSocket.Listener {
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public void onOpen(WebSocket ws) {
+            opened(ws);
+            ws.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String text = partial.toString();
+                partial.setLength(0);
+                received(text);
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            closed(ws, statusCode + " " + reason);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            closed(ws, error.toString());
+        }
+    }
+}
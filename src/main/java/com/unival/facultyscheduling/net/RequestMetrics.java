@@ -0,0 +1,258 @@
+package com.unival.facultyscheduling.net;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * RequestMetrics is the registry of per-endpoint request metrics kept by {@link SupabaseTransport}.
+ * <p>
+ * Requests are grouped by method and endpoint template (see {@link Endpoints#template(String)}), e.g.
+ * "GET /rest/v1/schedules?faculty_id=eq.?", so every screen's queries show up as a handful of rows no matter which
+ * IDs they ask for. For each template the registry keeps:
+ * <ul>
+ *     <li>a {@link LatencyHistogram} of request latencies, including retries and backoff. For streamed reads the
+ *     latency ends when the response headers arrive;</li>
+ *     <li>counters per response status code, plus a counter of requests that failed without a response;</li>
+ *     <li>request and response body bytes, as sent and received on the wire (before gzip decoding);</li>
+ *     <li>a gauge of requests currently in flight.</li>
+ * </ul>
+ * Recording is lock-free. At most metrics.maxEndpoints templates (default 256) are tracked; requests for further
+ * templates are counted under {@value #OTHER}.
+ */
+public final class RequestMetrics {
+    /** The template under which requests are counted once the template limit is reached. */
+    public static final String OTHER = "(other)";
+
+    /**
+     * Metrics of one endpoint template.
+     *
+     * @param template      The method and endpoint template.
+     * @param latency       The latency summary.
+     * @param statusCounts  The number of responses per status code, in status order.
+     * @param failures      Requests that failed without a response (I/O errors, open circuits, timeouts).
+     * @param bytesSent     Request body bytes sent.
+     * @param bytesReceived Response body bytes received.
+     * @param inFlight      Requests currently in flight.
+     */
+    public record EndpointStats(String template, LatencyHistogram.Summary latency, Map<Integer, Long> statusCounts,
+            long failures, long bytesSent, long bytesReceived, int inFlight) {
+    }
+
+    /**
+     * A consistent-enough view of all endpoint metrics at one point in time.
+     *
+     * @param endpoints The metrics per template, slowest total time first.
+     * @param inFlight  Requests currently in flight across all templates.
+     */
+    public record Snapshot(List<EndpointStats> endpoints, int inFlight) {
+        /**
+         * Exports the snapshot as JSON, one object per template.
+         *
+         * @return The snapshot as a JSON object.
+         */
+        public JSONObject toJson() {
+            JSONArray rows = new JSONArray();
+            for (EndpointStats stats : endpoints) {
+                LatencyHistogram.Summary latency = stats.latency();
+                JSONObject statuses = new JSONObject();
+                stats.statusCounts().forEach((status, count) -> statuses.put(String.valueOf(status), count));
+                rows.put(new JSONObject()
+                        .put("template", stats.template())
+                        .put("count", latency.count())
+                        .put("meanMillis", latency.mean())
+                        .put("p50Millis", latency.p50())
+                        .put("p90Millis", latency.p90())
+                        .put("p99Millis", latency.p99())
+                        .put("maxMillis", latency.max())
+                        .put("statuses", statuses)
+                        .put("failures", stats.failures())
+                        .put("bytesSent", stats.bytesSent())
+                        .put("bytesReceived", stats.bytesReceived())
+                        .put("inFlight", stats.inFlight()));
+            }
+            return new JSONObject().put("inFlight", inFlight).put("endpoints", rows);
+        }
+    }
+
+    /**
+     * Tracks one request from the moment it is handed to the transport until it completes or fails.
+     */
+    public final class Timer {
+        private final String template;
+        private final Endpoint endpoint;
+        private final long start = System.nanoTime();
+
+        private Timer(String template, Endpoint endpoint) {
+            this.template = template;
+            this.endpoint = endpoint;
+            endpoint.inFlight.incrementAndGet();
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * Gets the method and endpoint template the request is counted under.
+         *
+         * @return The template, e.g. "GET /rest/v1/schedules?faculty_id=eq.?".
+         */
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * Records a response.
+         *
+         * @param status The response status code.
+         */
+        public void completed(int status) {
+            endpoint.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            stop();
+        }
+
+        /**
+         * Records a request that ended without a response.
+         */
+        public void failed() {
+            endpoint.failures.increment();
+            stop();
+        }
+
+        /**
+         * Wraps a body handler so that the response body bytes are counted as they arrive.
+         *
+         * @param handler The handler to wrap.
+         * @return A counting handler.
+         */
+        public <T> HttpResponse.BodyHandler<T> counting(HttpResponse.BodyHandler<T> handler) {
+            return responseInfo -> new CountingBodySubscriber<>(handler.apply(responseInfo), endpoint.bytesReceived);
+        }
+
+        private void stop() {
+            endpoint.latency.record(System.nanoTime() - start);
+            endpoint.inFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private final int maxEndpoints;
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    RequestMetrics() {
+        this.maxEndpoints = Math.max(1, AppConfig.getInt("metrics.maxEndpoints", 256));
+    }
+
+    /**
+     * Starts tracking a request.
+     *
+     * @param request The request about to be sent.
+     * @return A timer that must be completed or failed exactly once.
+     */
+    public Timer start(HttpRequest request) {
+        String template = request.method() + " " + Endpoints.template(pathAndQuery(request.uri()));
+        Endpoint endpoint = endpointFor(template);
+        request.bodyPublisher().ifPresent(body -> {
+            if (body.contentLength() > 0) {
+                endpoint.bytesSent.add(body.contentLength());
+            }
+        });
+        return new Timer(template, endpoint);
+    }
+
+    /**
+     * Takes a snapshot of all endpoint metrics.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        List<EndpointStats> stats = new ArrayList<>(endpoints.size());
+        endpoints.forEach((template, endpoint) -> stats.add(endpoint.snapshot(template)));
+        stats.sort(Comparator.comparingDouble((EndpointStats s) -> s.latency().mean() * s.latency().count()).reversed());
+        return new Snapshot(List.copyOf(stats), inFlight.get());
+    }
+
+    private Endpoint endpointFor(String template) {
+        Endpoint endpoint = endpoints.get(template);
+        if (endpoint != null) {
+            return endpoint;
+        }
+        // The limit is approximate under contention, which is fine for keeping the map from growing without bound
+        return endpoints.size() < maxEndpoints
+                ? endpoints.computeIfAbsent(template, t -> new Endpoint())
+                : endpoints.computeIfAbsent(OTHER, t -> new Endpoint());
+    }
+
+    private static String pathAndQuery(URI uri) {
+        String query = uri.getRawQuery();
+        return query == null ? uri.getRawPath() : uri.getRawPath() + "?" + query;
+    }
+
+    /**
+     * The live metrics of one template.
+     */
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder failures = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        EndpointStats snapshot(String template) {
+            Map<Integer, Long> statusCounts = new TreeMap<>();
+            statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+            return new EndpointStats(template, latency.snapshot(), statusCounts, failures.sum(), bytesSent.sum(),
+                    bytesReceived.sum(), inFlight.get());
+        }
+    }
+
+    /**
+     * Passes a response body through unchanged while counting its bytes.
+     */
+    private record CountingBodySubscriber<T>(HttpResponse.BodySubscriber<T> downstream, LongAdder bytes)
+            implements HttpResponse.BodySubscriber<T> {
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            long count = 0;
+            for (ByteBuffer item : items) {
+                count += item.remaining();
+            }
+            bytes.add(count);
+            downstream.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+    }
+}
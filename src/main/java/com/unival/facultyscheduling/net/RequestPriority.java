@@ -0,0 +1,55 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.IOException;
+
+/**
+ * The priority class of a Supabase request, used to place it in a bulkhead.
+ * <p>
+ * Requests are {@link #INTERACTIVE} unless they are issued inside {@link #BACKGROUND}{@code .call(...)}, so work a
+ * user is waiting on never queues behind prefetching or synchronisation. Asynchronous sends capture the priority of
+ * the thread that started them.
+ */
+public enum RequestPriority {
+    /** A request a user is actively waiting on. */
+    INTERACTIVE,
+    /** A request nobody is waiting on, such as prefetching or background synchronisation. */
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    /**
+     * A unit of work that may perform Supabase requests.
+     *
+     * @param <T> The result type.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Gets the priority of requests issued by the current thread.
+     *
+     * @return The current priority.
+     */
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs a task with every request it issues on the current thread tagged with this priority.
+     *
+     * @param task The task to run.
+     * @return The task's result.
+     * @throws IOException if the task fails.
+     */
+    public <T> T call(Task<T> task) throws IOException {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.unival.facultyscheduling.net;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resilience wraps every request sent by {@link SupabaseTransport} with retries, circuit breaking and bulkheads.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>Retries with exponential backoff and full jitter (supabase.retry.*). Idempotent methods are retried on I/O
+ *     errors and on 408/429/502/503/504; POST and PATCH are only retried when the connection could not be opened,
+ *     because the server never saw the request. A Retry-After header takes precedence over the computed delay.</li>
+ *     <li>One {@link CircuitBreaker} per endpoint family (see {@link Endpoints#family(String)}), so an outage of one
+ *     table or function does not block the others (supabase.breaker.*).</li>
+ *     <li>Separate concurrency bulkheads for {@link RequestPriority#INTERACTIVE} and {@link RequestPriority#BACKGROUND}
+ *     requests (supabase.bulkhead.*). A permit is only held while a request is on the wire, never during backoff.</li>
+ * </ul>
+ */
+final class Resilience {
+    private static final Log LOG = Log.get(Resilience.class);
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 429, 502, 503, 504);
+
+    /**
+     * Performs a single exchange with the server.
+     */
+    @FunctionalInterface
+    interface Exchange {
+        <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException;
+    }
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long bulkheadWaitMillis;
+    private final Map<RequestPriority, Semaphore> bulkheads = new EnumMap<>(RequestPriority.class);
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    Resilience() {
+        this.maxAttempts = Math.max(1, AppConfig.getInt("supabase.retry.maxAttempts", 3));
+        this.baseDelayMillis = AppConfig.getInt("supabase.retry.baseDelayMillis", 200);
+        this.maxDelayMillis = AppConfig.getInt("supabase.retry.maxDelayMillis", 5000);
+        this.failureThreshold = AppConfig.getInt("supabase.breaker.failureThreshold", 5);
+        this.openMillis = AppConfig.getInt("supabase.breaker.openSeconds", 30) * 1000L;
+        this.bulkheadWaitMillis = AppConfig.getInt("supabase.bulkhead.maxWaitMillis", 2000);
+        bulkheads.put(RequestPriority.INTERACTIVE, new Semaphore(AppConfig.getInt("supabase.bulkhead.interactive", 8), true));
+        bulkheads.put(RequestPriority.BACKGROUND, new Semaphore(AppConfig.getInt("supabase.bulkhead.background", 4), true));
+    }
+
+    <T> HttpResponse<T> execute(HttpRequest request, HttpResponse.BodyHandler<T> handler, RequestPriority priority,
+            Exchange exchange) throws IOException {
+        CircuitBreaker breaker = breakerFor(request.uri().getPath());
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.method());
+
+        for (int attempt = 1; ; attempt++) {
+            boolean mayRetry = attempt < maxAttempts;
+            long delay;
+            acquire(priority);
+            try {
+                breaker.acquirePermission();
+                try {
+                    HttpResponse<T> response = exchange.send(request, discardingRetryable(handler, idempotent && mayRetry));
+                    int status = response.statusCode();
+                    if (status >= 500) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
+                    if (!idempotent || !mayRetry || !RETRYABLE_STATUSES.contains(status)) {
+                        return response;
+                    }
+                    long wait = retryAfter(response, attempt);
+                    LOG.debug("retry", "method", request.method(), "family", breaker.getFamily(), "status", status, "delayMillis", wait);
+                    delay = wait;
+                } catch (InterruptedException e) {
+                    breaker.onIgnored();
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Request interrupted", e);
+                } catch (IOException e) {
+                    breaker.onFailure();
+                    if (!mayRetry || !isRetryable(e, idempotent)) {
+                        throw e;
+                    }
+                    long wait = backoff(attempt);
+                    LOG.debug("retry", "method", request.method(), "family", breaker.getFamily(), "error", e, "delayMillis", wait);
+                    delay = wait;
+                }
+            } finally {
+                bulkheads.get(priority).release();
+            }
+            sleep(delay);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the circuit breakers created so far, keyed by endpoint family.
+     */
+    Map<String, CircuitBreaker.State> getCircuitStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<>();
+        breakers.forEach((family, breaker) -> states.put(family, breaker.getState()));
+        return states;
+    }
+
+    private CircuitBreaker breakerFor(String path) {
+        return breakers.computeIfAbsent(Endpoints.family(path), family -> new CircuitBreaker(family, failureThreshold, openMillis));
+    }
+
+    private void acquire(RequestPriority priority) throws IOException {
+        try {
+            if (!bulkheads.get(priority).tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new BulkheadFullException(priority);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        }
+    }
+
+    private static boolean isRetryable(IOException e, boolean idempotent) {
+        // Non-idempotent requests are only safe to resend if they never reached the server
+        return idempotent || neverSent(e);
+    }
+
+    /**
+     * Tells whether a request that failed with this error certainly never reached the server: the connection could
+     * not be opened, or the circuit breaker or bulkhead refused it before it was sent.
+     */
+    static boolean neverSent(IOException e) {
+        return e instanceof ConnectException || e instanceof HttpConnectTimeoutException
+                || e instanceof CircuitOpenException || e instanceof BulkheadFullException;
+    }
+
+    /**
+     * Drops the body of a response that is about to be retried, so it is not buffered or left unread.
+     */
+    private static <T> HttpResponse.BodyHandler<T> discardingRetryable(HttpResponse.BodyHandler<T> handler, boolean willRetry) {
+        if (!willRetry) {
+            return handler;
+        }
+        return responseInfo -> RETRYABLE_STATUSES.contains(responseInfo.statusCode())
+                ? HttpResponse.BodySubscribers.replacing(null)
+                : handler.apply(responseInfo);
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private long retryAfter(HttpResponse<?> response, int attempt) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value != null) {
+            try {
+                return Math.min(maxDelayMillis, Long.parseLong(value.trim()) * 1000L);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; fall back to the computed delay
+            }
+        }
+        return backoff(attempt);
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        }
+    }
+}
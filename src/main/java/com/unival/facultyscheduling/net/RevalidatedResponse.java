@@ -0,0 +1,63 @@
+package com.unival.facultyscheduling.net;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import javax.net.ssl.SSLSession;
+
+/**
+ * A 304 Not Modified response presented to callers as a 200 OK carrying the body from {@link ValidatorCache}.
+ * Headers, URI and protocol details are those of the actual 304 exchange.
+ */
+final class RevalidatedResponse implements HttpResponse<String> {
+    private final HttpResponse<String> notModified;
+    private final String body;
+
+    RevalidatedResponse(HttpResponse<String> notModified, String body) {
+        this.notModified = notModified;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return 200;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return notModified.request();
+    }
+
+    @Override
+    public Optional<HttpResponse<String>> previousResponse() {
+        return notModified.previousResponse();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return notModified.headers();
+    }
+
+    @Override
+    public String body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return notModified.sslSession();
+    }
+
+    @Override
+    public URI uri() {
+        return notModified.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return notModified.version();
+    }
+}
@@ -0,0 +1,85 @@
+package com.unival.facultyscheduling.net;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight collapses concurrent calls for the same key into one underlying operation.
+ * <p>
+ * The first caller for a key starts the operation; every caller that arrives while it is still running receives the
+ * same result instead of starting its own. Once the operation completes the key is released, so the next call
+ * starts a fresh one. Results are never cached beyond the lifetime of the in-flight operation.
+ * <p>
+ * Each caller receives its own dependent future, so cancelling one caller's future does not cancel the shared
+ * operation for the others.
+ *
+ * @param <K> The key type, e.g. a normalized request URL.
+ * @param <V> The result type.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the loader for the key unless an identical call is already in flight, in which case its result is shared.
+     *
+     * @param key    The key identifying identical calls.
+     * @param loader Starts the underlying operation; only invoked by the first caller.
+     * @return A future completing with the shared result.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        executed.increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                // Release the key before completing so callers woken by the result cannot join a finished flight
+                inFlight.remove(key, promise);
+                if (error != null) {
+                    promise.completeExceptionally(error);
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+        }
+        return promise.copy();
+    }
+
+    /**
+     * Gets the number of operations actually started.
+     *
+     * @return The count of calls that ran the loader.
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * Gets the number of calls that joined an operation already in flight.
+     *
+     * @return The count of calls served without a new operation.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of operations currently in flight.
+     *
+     * @return The in-flight count.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,428 @@
+package com.unival.facultyscheduling.net;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+
+/**
+ * SupabaseTransport is the single HTTP transport shared by every component that talks to Supabase.
+ * <p>
+ * Before this class existed the application maintained three independent HTTP stacks and some admin actions
+ * created a brand-new client per click, paying a fresh TCP and TLS handshake each time. All requests now go
+ * through one {@link HttpClient} instance.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>HTTP/2 with multiplexing of concurrent requests over a single connection, falling back to HTTP/1.1.</li>
+ *     <li>Bounded, keep-alive connection pool for HTTP/1.1 fallback (supabase.http.maxConnections, supabase.http.keepAliveSeconds).</li>
+ *     <li>Authentication headers computed once and attached to every request.</li>
+ *     <li>Virtual-thread executor for asynchronous sends and completions.</li>
+ *     <li>Conditional GETs (If-None-Match / If-Modified-Since) backed by a {@link ValidatorCache}, so unchanged
+ *     reads cost a 304 instead of a full body.</li>
+ *     <li>gzip transfer encoding negotiated on every request (supabase.http.compression) and inflated while the
+ *     body streams in, see {@link CompressedBodyHandlers}.</li>
+ *     <li>Retries, per-endpoint-family circuit breakers and interactive/background bulkheads around every send,
+ *     see {@link Resilience} and {@link RequestPriority}.</li>
+ *     <li>Streaming row reads ({@link #getRows}, {@link #publishRows}) that parse JSON arrays incrementally with
+ *     Jackson, so memory use does not depend on the size of the response.</li>
+ *     <li>Opt-in hedged reads for latency-sensitive GETs (supabase.hedging.enabled), see {@link HedgePolicy}.</li>
+ *     <li>Latency histograms, status and byte counters and in-flight gauges per endpoint template, see
+ *     {@link RequestMetrics} and {@link #getMetrics()}.</li>
+ *     <li>An "http" trace span per request, a child of the caller's current span, see {@link Tracer}.</li>
+ * </ul>
+ * <p>
+ * Note: The connection pool settings are JDK-wide system properties read when the HTTP client implementation is
+ * first loaded, so this class must be initialised before any other {@link HttpClient} is created.
+ */
+public final class SupabaseTransport {
+    private static final Log LOG = Log.get(SupabaseTransport.class);
+    private static final String NOT_CONFIGURED = "Supabase credentials not configured. Please check your configuration.";
+
+    private static final int ROW_BUFFER_SIZE = 256;
+
+    private static SupabaseTransport instance;
+
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final String supabaseUrl;
+    private final String[] authHeaders;
+    private final Duration requestTimeout;
+    private final boolean compression;
+    private final ValidatorCache validatorCache;
+    private final Resilience resilience;
+    private final HedgePolicy hedgePolicy;
+    private final RequestMetrics metrics = new RequestMetrics();
+
+    private SupabaseTransport() {
+        configureConnectionPool();
+
+        this.supabaseUrl = AppConfig.getSupabaseUrl();
+        String supabaseKey = AppConfig.getSupabaseKey();
+        this.authHeaders = supabaseKey == null ? null
+                : new String[] {"apikey", supabaseKey, "Authorization", "Bearer " + supabaseKey};
+        this.requestTimeout = Duration.ofSeconds(AppConfig.getInt("supabase.http.requestTimeoutSeconds", 30));
+        this.compression = AppConfig.getBoolean("supabase.http.compression", true);
+
+        this.validatorCache = AppConfig.getBoolean("supabase.cache.enabled", true)
+                ? new ValidatorCache(AppConfig.getInt("supabase.cache.maxEntries", 256),
+                        AppConfig.getInt("supabase.cache.maxBodyLength", 4 * 1024 * 1024))
+                : null;
+
+        this.resilience = new Resilience();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(AppConfig.getInt("supabase.http.connectTimeoutSeconds", 10)))
+                .executor(executor)
+                .build();
+        this.hedgePolicy = AppConfig.getBoolean("supabase.hedging.enabled", false) ? new HedgePolicy(executor) : null;
+
+        String metricsFile = AppConfig.getString("metrics.exportFile", null);
+        if (metricsFile != null && !metricsFile.isBlank()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> exportMetricsQuietly(Path.of(metricsFile)), "metrics-export"));
+        }
+    }
+
+    /**
+     * Returns the shared transport, creating it on first use.
+     *
+     * @return The application-wide transport.
+     */
+    public static synchronized SupabaseTransport getInstance() {
+        if (instance == null) {
+            instance = new SupabaseTransport();
+        }
+        return instance;
+    }
+
+    private static void configureConnectionPool() {
+        int maxConnections = AppConfig.getInt("supabase.http.maxConnections", 16);
+        int keepAliveSeconds = AppConfig.getInt("supabase.http.keepAliveSeconds", 60);
+        // Respect explicit -D overrides
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxConnections));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        LOG.debug("connection_pool", "maxConnections", maxConnections, "keepAliveSeconds", keepAliveSeconds);
+    }
+
+    /**
+     * Creates a request builder for a Supabase endpoint with the authentication, JSON content-type and
+     * accept-encoding headers set.
+     *
+     * @param endpoint The endpoint path, including any query string (e.g. "/rest/v1/users?id=eq.1").
+     * @return A request builder; callers choose the method and body.
+     * @throws IOException if the Supabase credentials are not configured.
+     */
+    public HttpRequest.Builder newRequest(String endpoint) throws IOException {
+        if (supabaseUrl == null || authHeaders == null) {
+            throw new IOException(NOT_CONFIGURED);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + endpoint))
+                .timeout(requestTimeout)
+                .headers(authHeaders)
+                .header("Content-Type", "application/json");
+        if (compression) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder;
+    }
+
+    /**
+     * Tells whether a request that failed with this error certainly never reached Supabase, so that even a POST can be
+     * sent again without the risk of storing it twice. Other errors, e.g. a timeout or a connection reset while the
+     * response was awaited, leave the outcome of a non-idempotent request unknown.
+     *
+     * @param e The error thrown by {@link #send(HttpRequest, HttpResponse.BodyHandler)}.
+     * @return true if the connection could not be opened or the circuit breaker or bulkhead refused the request.
+     */
+    public static boolean neverSent(IOException e) {
+        return Resilience.neverSent(e);
+    }
+
+    /**
+     * Sends a request and blocks until the response is available.
+     * A gzip-encoded body is inflated before it reaches the body handler. Transient failures are retried and the
+     * request is subject to the circuit breaker and bulkhead for the current {@link RequestPriority}.
+     *
+     * @param request     The request to send.
+     * @param bodyHandler The handler for the response body.
+     * @return The response.
+     * @throws IOException if the request fails after all retries, the calling thread is interrupted, or the endpoint's
+     *                     circuit is open ({@link CircuitOpenException}).
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        RequestMetrics.Timer timer = metrics.start(request);
+        try (Span span = Tracer.start("http " + timer.getTemplate())) {
+            try {
+                HttpResponse<T> response = resilience.execute(request, timer.counting(CompressedBodyHandlers.decoding(bodyHandler)),
+                        RequestPriority.current(), httpClient::send);
+                timer.completed(response.statusCode());
+                span.tag("status", response.statusCode());
+                return response;
+            } catch (IOException | RuntimeException e) {
+                timer.failed();
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends a request asynchronously, with the same decoding and resilience behaviour as
+     * {@link #send(HttpRequest, HttpResponse.BodyHandler)}. The priority and current trace span of the calling thread
+     * are kept.
+     * Cancelling the returned future aborts the exchange.
+     *
+     * @param request     The request to send.
+     * @param bodyHandler The handler for the response body.
+     * @return A future completing with the response.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        RequestPriority priority = RequestPriority.current();
+        CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
+        // Retries and bulkhead waits block, which is cheap on the virtual-thread executor
+        Future<?> task = executor.submit(Tracer.wrap(() -> {
+            try {
+                future.complete(priority.call(() -> send(request, bodyHandler)));
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        // Interrupting the sending thread makes HttpClient abandon the exchange
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Sends a GET request for a Supabase endpoint and returns the body as a string.
+     * If a previous response carried validators the request is conditional, and a 304 is returned to the caller as
+     * a 200 with the cached body.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @return The response.
+     * @throws IOException if the request fails.
+     */
+    public HttpResponse<String> get(String endpoint) throws IOException {
+        if (validatorCache == null) {
+            return send(newRequest(endpoint).GET().build(), HttpResponse.BodyHandlers.ofString());
+        }
+        String key = Endpoints.normalize(endpoint);
+        ValidatorCache.Entry cached = validatorCache.lookup(key);
+        HttpResponse<String> response = send(conditionalGet(endpoint, cached), HttpResponse.BodyHandlers.ofString());
+        return validatorCache.resolve(key, cached, response);
+    }
+
+    /**
+     * Asynchronously sends a GET request for a Supabase endpoint, revalidating cached bodies like {@link #get(String)}.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @return A future completing with the response.
+     */
+    public CompletableFuture<HttpResponse<String>> getAsync(String endpoint) {
+        try {
+            if (validatorCache == null) {
+                return sendAsync(newRequest(endpoint).GET().build(), HttpResponse.BodyHandlers.ofString());
+            }
+            String key = Endpoints.normalize(endpoint);
+            ValidatorCache.Entry cached = validatorCache.lookup(key);
+            return sendAsync(conditionalGet(endpoint, cached), HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> validatorCache.resolve(key, cached, response));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronously sends a GET request like {@link #getAsync(String)}, hedging it when hedging is enabled: if the
+     * response is slower than usual for the endpoint's template a second identical request is sent and the first
+     * response wins. Use only for interactive reads where tail latency matters.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @return A future completing with the response.
+     */
+    public CompletableFuture<HttpResponse<String>> getHedgedAsync(String endpoint) {
+        if (hedgePolicy == null) {
+            return getAsync(endpoint);
+        }
+        try {
+            String key = Endpoints.normalize(endpoint);
+            ValidatorCache.Entry cached = validatorCache == null ? null : validatorCache.lookup(key);
+            HttpRequest request = conditionalGet(endpoint, cached);
+            return hedgePolicy.execute(Endpoints.template(endpoint), () -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .thenApply(response -> validatorCache == null ? response : validatorCache.resolve(key, cached, response));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Sends an unconditional GET request and returns the decoded body as a stream, so large results can be parsed
+     * as they arrive instead of first being buffered into a string. The caller must close the stream.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @return The response.
+     * @throws IOException if the request fails.
+     */
+    public HttpResponse<InputStream> getStream(String endpoint) throws IOException {
+        return send(newRequest(endpoint).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Sends a GET request and returns a reader that parses the JSON array response row by row as it downloads.
+     * The caller must close the reader.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @param codec    Decodes each row.
+     * @return A reader over the response rows.
+     * @throws IOException if the request fails or the response is not a successful JSON array.
+     */
+    public <T> JsonRowReader<T> getRows(String endpoint, JsonCodec<T> codec) throws IOException {
+        HttpResponse<InputStream> response = getStream(endpoint);
+        InputStream body = response.body();
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            try (body) {
+                throw new IOException("GET " + endpoint + " failed with status " + response.statusCode() + ": "
+                        + new String(body.readNBytes(4096), StandardCharsets.UTF_8));
+            }
+        }
+        try {
+            return new JsonRowReader<>(body, codec);
+        } catch (IOException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a publisher that streams the rows of a JSON array endpoint to subscribers as they are parsed.
+     * Each subscription performs its own request, with the priority of the thread that created the publisher.
+     *
+     * @param endpoint The endpoint path, including any query string.
+     * @param codec    Decodes each row.
+     * @return A cold publisher of rows.
+     */
+    public <T> Flow.Publisher<T> publishRows(String endpoint, JsonCodec<T> codec) {
+        RequestPriority priority = RequestPriority.current();
+        return new JsonRowPublisher<>(() -> priority.call(() -> getRows(endpoint, codec)), Tracer.wrap(executor), ROW_BUFFER_SIZE);
+    }
+
+    private HttpRequest conditionalGet(String endpoint, ValidatorCache.Entry cached) throws IOException {
+        HttpRequest.Builder builder = newRequest(endpoint).GET();
+        if (cached != null) {
+            if (cached.etag() != null) {
+                builder.header("If-None-Match", cached.etag());
+            }
+            if (cached.lastModified() != null) {
+                builder.header("If-Modified-Since", cached.lastModified());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the revalidation cache counters (hits, misses, revalidations).
+     *
+     * @return The cache statistics, or all zeros if the cache is disabled.
+     */
+    public ValidatorCache.Stats getCacheStats() {
+        return validatorCache == null ? new ValidatorCache.Stats(0, 0, 0, 0, 0) : validatorCache.getStats();
+    }
+
+    /**
+     * Gets the hedged-read counters.
+     *
+     * @return The hedging statistics, or all zeros if hedging is disabled.
+     */
+    public HedgePolicy.Stats getHedgeStats() {
+        return hedgePolicy == null ? new HedgePolicy.Stats(0, 0, 0) : hedgePolicy.getStats();
+    }
+
+    /**
+     * Gets a snapshot of the per-endpoint request metrics.
+     *
+     * @return The metrics since startup.
+     */
+    public RequestMetrics.Snapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Writes a snapshot of the per-endpoint request metrics to a file as JSON.
+     *
+     * @param file The file to write; it is replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public void exportMetrics(Path file) throws IOException {
+        Files.writeString(file, getMetrics().toJson().toString(2), StandardCharsets.UTF_8);
+    }
+
+    private void exportMetricsQuietly(Path file) {
+        try {
+            exportMetrics(file);
+        } catch (IOException e) {
+            LOG.warn("metrics.export_failed", e, "file", file);
+        }
+    }
+
+    /**
+     * Gets the state of each endpoint family's circuit breaker.
+     *
+     * @return The circuit states keyed by endpoint family, in family order.
+     */
+    public Map<String, CircuitBreaker.State> getCircuitStates() {
+        return resilience.getCircuitStates();
+    }
+
+    /**
+     * Gets the executor used for asynchronous work; it runs every task on its own virtual thread.
+     *
+     * @return The shared executor.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Creates a WebSocket builder on the shared client, for {@link RealtimeClient}.
+     *
+     * @return A new builder; callers add any headers they need.
+     */
+    public WebSocket.Builder newWebSocketBuilder() {
+        return httpClient.newWebSocketBuilder();
+    }
+
+    /**
+     * Gets the Supabase project URL.
+     *
+     * @return The base URL, or null if not configured.
+     */
+    public String getSupabaseUrl() {
+        return supabaseUrl;
+    }
+}
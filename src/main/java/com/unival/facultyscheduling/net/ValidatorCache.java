@@ -0,0 +1,167 @@
+package com.unival.facultyscheduling.net;
+
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ValidatorCache stores response bodies together with their HTTP validators (ETag and Last-Modified) so that
+ * repeated reads can be revalidated with a conditional GET instead of downloading the full body again.
+ * <p>
+ * Only responses that carry at least one validator are stored. A cached body is served only after the server has
+ * confirmed it with 304 Not Modified; the cache never answers a request on its own, so data is never stale.
+ * Entries are evicted least-recently-used once the configured entry limit is reached.
+ * <p>
+ * Counters:
+ * <ul>
+ *     <li>hits: conditional requests answered with 304, served from the cached body.</li>
+ *     <li>misses: requests sent without validators because nothing was cached for the URL.</li>
+ *     <li>revalidations: conditional requests sent (hits plus those that returned a changed body).</li>
+ * </ul>
+ */
+public final class ValidatorCache {
+
+    /**
+     * A cached body and the validators the server sent with it.
+     *
+     * @param etag         The ETag header value, or null.
+     * @param lastModified The Last-Modified header value, or null.
+     * @param body         The response body.
+     */
+    public record Entry(String etag, String lastModified, String body) {
+    }
+
+    /**
+     * A point-in-time view of the cache counters.
+     *
+     * @param hits          Conditional requests answered with 304.
+     * @param misses        Requests sent without validators.
+     * @param revalidations Conditional requests sent.
+     * @param evictions     Entries dropped to respect the size limit.
+     * @param size          Entries currently cached.
+     */
+    public record Stats(long hits, long misses, long revalidations, long evictions, int size) {
+        /**
+         * Gets the fraction of conditional requests that avoided a body download.
+         *
+         * @return The hit ratio between 0 and 1.
+         */
+        public double revalidationHitRatio() {
+            return revalidations == 0 ? 0.0 : (double) hits / revalidations;
+        }
+    }
+
+    private final int maxEntries;
+    private final int maxBodyLength;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries    The maximum number of URLs to keep.
+     * @param maxBodyLength Bodies longer than this many characters are not cached.
+     */
+    public ValidatorCache(int maxEntries, int maxBodyLength) {
+        this.maxEntries = maxEntries;
+        this.maxBodyLength = maxBodyLength;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ValidatorCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the entry for a key and records whether the next request will be a conditional one.
+     *
+     * @param key The normalized endpoint.
+     * @return The cached entry, or null if the request must be unconditional.
+     */
+    public Entry lookup(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            revalidations.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Resolves a response to a possibly conditional request: a 304 is answered from the cached body, a successful
+     * response with validators replaces the entry, and any other successful response drops it.
+     *
+     * @param key      The normalized endpoint.
+     * @param cached   The entry returned by {@link #lookup(String)}, or null.
+     * @param response The response from the server.
+     * @return The response to hand to the caller, with the cached body substituted on 304.
+     */
+    public HttpResponse<String> resolve(String key, Entry cached, HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            hits.increment();
+            return new RevalidatedResponse(response, cached.body());
+        }
+        if (status == 200) {
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            String body = response.body();
+            synchronized (entries) {
+                if ((etag != null || lastModified != null) && body != null && body.length() <= maxBodyLength) {
+                    entries.put(key, new Entry(etag, lastModified, body));
+                } else {
+                    entries.remove(key);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Removes the entry for a key, e.g. after a write to the same table.
+     *
+     * @param key The normalized endpoint.
+     */
+    public void invalidate(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes every entry whose endpoint path starts with the given prefix, e.g. "/rest/v1/courses".
+     *
+     * @param pathPrefix The endpoint path prefix.
+     */
+    public void invalidatePrefix(String pathPrefix) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.startsWith(pathPrefix));
+        }
+    }
+
+    /**
+     * Gets the current counter values.
+     *
+     * @return A snapshot of the cache statistics.
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), revalidations.sum(), evictions.sum(), size);
+    }
+}
@@ -1,143 +1,207 @@
 package com.unival.facultyscheduling.service;
 
-import com.unival.facultyscheduling.util.SupabaseClient;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.model.Faculty;
+import com.unival.facultyscheduling.model.Schedule;
+import com.unival.facultyscheduling.model.User;
+import com.unival.facultyscheduling.net.Endpoints;
+import com.unival.facultyscheduling.net.JsonCodec;
+import com.unival.facultyscheduling.net.JsonRowPublisher;
+import com.unival.facultyscheduling.net.JsonRowReader;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
 import org.json.JSONObject;
-import org.json.JSONArray;
-import okhttp3.Request;
-import okhttp3.Response;
-import okhttp3.MediaType;
-import okhttp3.RequestBody;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 
 public class AdminService {
-    private final SupabaseClient supabaseClient;
+    private static final Log LOG = Log.get(AdminService.class);
+    private final SupabaseTransport transport;
+    private final LocalReplica replica;
     private static final String ADMIN_ROLE = "admin";
+    private static final int USER_ROW_BUFFER = 256;
+    private final StaleWhileRevalidate<List<User>> userList =
+            new StaleWhileRevalidate<>("users", () -> List.copyOf(loadAll("users", "id", Codecs.USER, User::getId)));
 
     public AdminService() {
-        this.supabaseClient = SupabaseClient.getInstance();
+        this.transport = SupabaseTransport.getInstance();
+        this.replica = LocalReplica.getInstance();
     }
 
     public boolean isUserAdmin(String userId) {
-        try {
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/users?id=eq." + userId)
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .build();
-
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    JSONArray data = new JSONArray(response.body().string());
-                    if (data.length() > 0) {
-                        JSONObject user = data.getJSONObject(0);
-                        return ADMIN_ROLE.equals(user.getString("role"));
-                    }
-                }
+        // A user who logged in here needs no lookup
+        SessionCache.Session session = SessionCache.get(userId);
+        if (session != null) {
+            return session.hasRole(ADMIN_ROLE);
+        }
+        try (Span span = Tracer.start("admin.is_admin")) {
+            HttpResponse<String> response = transport.get("/rest/v1/users?id=eq." + userId);
+            span.tag("status", response.statusCode());
+            if (isSuccessful(response)) {
+                List<User> users = JsonCodec.readList(response.body(), Codecs.USER);
+                return !users.isEmpty() && users.get(0).getRoles().contains(ADMIN_ROLE);
             }
             return false;
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("admin_check.failed", e, "user", userId);
             return false;
         }
     }
 
-    public JSONArray getAllUsers() {
-        try {
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/users")
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .build();
+    public List<User> getAllUsers() {
+        return getAllGuarded("users", "id", Codecs.USER, User::getId);
+    }
 
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    return new JSONArray(response.body().string());
-                }
-            }
-            return new JSONArray();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new JSONArray();
+    public Flow.Publisher<User> publishAllUsers() {
+        String endpoint = "/rest/v1/users?order=id.asc";
+        String local = replica.query(endpoint);
+        if (local != null) {
+            return new JsonRowPublisher<>(() -> new JsonRowReader<>(
+                    new ByteArrayInputStream(local.getBytes(StandardCharsets.UTF_8)), Codecs.USER),
+                    Tracer.wrap(transport.getExecutor()), USER_ROW_BUFFER);
         }
+        return transport.publishRows(endpoint, Codecs.USER);
+    }
+
+    public StaleWhileRevalidate<List<User>> getUserList() {
+        return userList;
+    }
+
+    public KeysetPager<User> getAllUsersPaged(int pageSize) {
+        return new KeysetPager<>("users", "id", null, pageSize, endpoint -> fetchList(endpoint, Codecs.USER), User::getId);
     }
 
     public boolean updateUserRole(String userId, String newRole) {
-        try {
-            JSONObject updateData = new JSONObject();
-            updateData.put("role", newRole);
-
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/users?id=eq." + userId)
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .header("Content-Type", "application/json")
-                .patch(RequestBody.create(updateData.toString().getBytes(), MediaType.parse("application/json")))
-                .build();
+        JSONObject updateData = new JSONObject();
+        updateData.put("role", newRole);
+        SessionCache.invalidate(userId);
+        return patch("/rest/v1/users?id=eq." + userId, updateData);
+    }
 
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                return response.isSuccessful();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+    public List<Faculty> getFacultyList() {
+        return getAllGuarded("faculty", "faculty_id", Codecs.FACULTY, Faculty::facultyId);
+    }
+
+    public List<Schedule> getSchedules() {
+        return getAllGuarded("schedules", "schedule_id", Codecs.SCHEDULE, Schedule::scheduleId);
+    }
+
+    public KeysetPager<Schedule> getSchedulesPaged(int pageSize) {
+        return new KeysetPager<>("schedules", "schedule_id", null, pageSize, endpoint -> fetchList(endpoint, Codecs.SCHEDULE),
+                Schedule::scheduleId);
+    }
+
+    public boolean deleteUser(String userId) {
+        SessionCache.invalidate(userId);
+        return delete("/rest/v1/users?id=eq." + userId);
+    }
+
+    public boolean updateCourse(String courseId, String name, String code, String department) {
+        JSONObject updateData = new JSONObject();
+        updateData.put("name", name);
+        updateData.put("code", code);
+        updateData.put("department", department);
+        return patch("/rest/v1/courses?" + SupabaseClient.COURSE_KEY + "=eq." + courseId, updateData);
     }
 
-    public JSONArray getFacultyList() {
+    public boolean deleteCourse(String courseId) {
+        return delete("/rest/v1/courses?" + SupabaseClient.COURSE_KEY + "=eq." + courseId);
+    }
+
+    private <T> List<T> getAllGuarded(String table, String keyColumn, JsonCodec<T> codec, Function<T, String> keyOf) {
         try {
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/faculty")
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .build();
+            return loadAll(table, keyColumn, codec, keyOf);
+        } catch (IOException e) {
+            LOG.warn("load.failed", e, "table", table);
+            return new ArrayList<>();
+        }
+    }
 
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    return new JSONArray(response.body().string());
-                }
+    private <T> List<T> loadAll(String table, String keyColumn, JsonCodec<T> codec, Function<T, String> keyOf)
+            throws IOException {
+        try (Span span = Tracer.start("admin.load", "table", table)) {
+            try {
+                List<T> rows = KeysetPager.fetchAll(table, keyColumn, endpoint -> fetchList(endpoint, codec), keyOf);
+                span.tag("rows", rows.size());
+                return rows;
+            } catch (IOException e) {
+                span.error(e);
+                throw e;
             }
-            return new JSONArray();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new JSONArray();
         }
     }
 
-    public JSONArray getSchedules() {
-        try {
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/schedule")
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .build();
+    private <T> List<T> fetchList(String endpoint, JsonCodec<T> codec) throws IOException {
+        String local = replica.query(endpoint);
+        if (local != null) {
+            return JsonCodec.readList(local, codec);
+        }
+        // Decode rows straight from the (decompressed) stream; whole tables are never held as one string
+        List<T> rows = new ArrayList<>();
+        try (Span span = Tracer.start("admin.fetch", "endpoint", endpoint);
+             JsonRowReader<T> reader = transport.getRows(endpoint, codec)) {
+            reader.forEachRemaining(rows::add);
+            span.tag("rows", rows.size());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
 
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    return new JSONArray(response.body().string());
-                }
+    private boolean patch(String endpoint, JSONObject updateData) {
+        try (Span span = Tracer.start("admin.patch", "endpoint", endpoint)) {
+            HttpRequest request = transport.newRequest(endpoint)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(updateData.toString()))
+                .build();
+            HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+            span.tag("status", response.statusCode());
+            if (!isSuccessful(response)) {
+                return false;
             }
-            return new JSONArray();
+            replica.applyPatch(endpoint, updateData);
+            invalidateCached(endpoint);
+            return true;
         } catch (IOException e) {
-            e.printStackTrace();
-            return new JSONArray();
+            LOG.warn("patch.failed", e, "endpoint", endpoint);
+            return false;
         }
     }
 
-    public boolean deleteUser(String userId) {
-        try {
-            Request request = new Request.Builder()
-                .url(supabaseClient.getSupabaseUrl() + "/rest/v1/users?id=eq." + userId)
-                .header("apikey", supabaseClient.getSupabaseKey())
-                .header("Authorization", "Bearer " + supabaseClient.getSupabaseKey())
-                .delete()
-                .build();
-
-            try (Response response = supabaseClient.getHttpClient().newCall(request).execute()) {
-                return response.isSuccessful();
+    private boolean delete(String endpoint) {
+        try (Span span = Tracer.start("admin.delete", "endpoint", endpoint)) {
+            HttpRequest request = transport.newRequest(endpoint).DELETE().build();
+            HttpResponse<Void> response = transport.send(request, HttpResponse.BodyHandlers.discarding());
+            span.tag("status", response.statusCode());
+            if (!isSuccessful(response)) {
+                return false;
             }
+            replica.applyDelete(endpoint);
+            invalidateCached(endpoint);
+            return true;
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("delete.failed", e, "endpoint", endpoint);
             return false;
         }
     }
-} 
\ No newline at end of file
+
+    private void invalidateCached(String endpoint) {
+        String table = Endpoints.family(endpoint).substring("/rest/v1/".length());
+        SupabaseClient.invalidateCached(table);
+        if (table.equals("users")) {
+            userList.invalidate();
+        }
+    }
+
+    private static boolean isSuccessful(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+}
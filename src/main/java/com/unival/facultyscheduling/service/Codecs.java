@@ -0,0 +1,266 @@
+package com.unival.facultyscheduling.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.unival.facultyscheduling.model.Cohort;
+import com.unival.facultyscheduling.model.Comment;
+import com.unival.facultyscheduling.model.Course;
+import com.unival.facultyscheduling.model.Department;
+import com.unival.facultyscheduling.model.Evaluation;
+import com.unival.facultyscheduling.model.EvaluationDetails;
+import com.unival.facultyscheduling.model.Faculty;
+import com.unival.facultyscheduling.model.Reaction;
+import com.unival.facultyscheduling.model.Room;
+import com.unival.facultyscheduling.model.Schedule;
+import com.unival.facultyscheduling.model.ScheduleDetails;
+import com.unival.facultyscheduling.model.TimeSlot;
+import com.unival.facultyscheduling.model.User;
+import com.unival.facultyscheduling.net.JsonCodec;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codecs holds the hand-written {@link JsonCodec}s that turn PostgREST rows into model objects.
+ * <p>
+ * Each codec makes a single pass over the row's tokens: the scalar columns it knows are copied into a small array
+ * in a fixed order, and everything else is skipped without being materialised, so field order and extra columns
+ * do not matter and no intermediate JSON tree is built.
+ * <p>
+ * Decoding is lenient: missing columns become null (or 0/false), and primary keys are read from either the
+ * table-specific column (e.g. "course_id") or a plain "id", since both conventions exist in the schema. Embedded
+ * resources are read from the aliases used by the selects in {@link SupabaseClient}.
+ */
+public final class Codecs {
+
+    private static final String[] USER_COLUMNS = {"id", "user_id", "email", "name", "role", "department_id", "password"};
+    private static final String[] DEPARTMENT_COLUMNS = {"department_id", "id", "name"};
+    // Courses are keyed by "id" (see SupabaseClient.COURSE_KEY); "course_id" is only read when there is no id
+    private static final String[] COURSE_COLUMNS = {"id", "course_id", "code", "course_code", "name", "course_name", "department", "department_id"};
+    private static final String[] ROOM_COLUMNS = {"room_id", "id", "name", "room_number", "building", "capacity", "is_available"};
+    private static final String[] TIME_SLOT_COLUMNS = {"slot_id", "id", "day_of_week", "start_time", "end_time"};
+    private static final String[] COHORT_COLUMNS = {"cohort_id", "id", "name", "cohort_name", "department_id", "year"};
+    private static final String[] FACULTY_COLUMNS = {"faculty_id", "id", "name", "department_id", "specialization", "office_location", "office_hours"};
+    private static final String[] SCHEDULE_COLUMNS = {"schedule_id", "id", "course_id", "faculty_id", "cohort_id", "room_id", "slot_id", "semester", "academic_year", "is_active"};
+    private static final String[] EVALUATION_COLUMNS = {"evaluation_id", "id", "title", "description", "subject", "type", "date", "start_time", "end_time", "course_id", "faculty_id", "room_id", "created_by", "is_published"};
+    private static final String[] COMMENT_COLUMNS = {"comment_id", "id", "evaluation_id", "user_id", "parent_comment_id", "text", "is_edited", "created_at", "updated_at"};
+    private static final String[] REACTION_COLUMNS = {"reaction_id", "id", "evaluation_id", "user_id", "comment_id", "reaction_type", "created_at"};
+
+    /** Decodes a user; the password column is skipped. */
+    public static final JsonCodec<User> USER = parser -> user(readRow(parser, USER_COLUMNS, USER_COLUMNS.length - 1, null));
+    /**
+     * Decodes a user together with the stored password hash, for authentication only. A department embedded under
+     * the "department" alias is read as well.
+     */
+    static final JsonCodec<Credentials> CREDENTIALS = parser -> {
+        Department[] department = new Department[1];
+        String[] v = readRow(parser, USER_COLUMNS, USER_COLUMNS.length, (alias, nested) -> alias.equals("department")
+                && store(department, 0, Codecs.DEPARTMENT.read(nested)));
+        return new Credentials(user(v), v[6], department[0]);
+    };
+    public static final JsonCodec<Department> DEPARTMENT = parser -> {
+        String[] v = readRow(parser, DEPARTMENT_COLUMNS, null);
+        return new Department(first(v[0], v[1]), v[2]);
+    };
+    public static final JsonCodec<Course> COURSE = parser -> {
+        String[] v = readRow(parser, COURSE_COLUMNS, null);
+        return new Course(first(v[0], v[1]), first(v[2], v[3]), first(v[4], v[5]), first(v[6], v[7]));
+    };
+    public static final JsonCodec<Room> ROOM = parser -> {
+        String[] v = readRow(parser, ROOM_COLUMNS, null);
+        return new Room(first(v[0], v[1]), first(v[2], v[3]), v[4], toInt(v[5]), toBoolean(v[6], true));
+    };
+    public static final JsonCodec<TimeSlot> TIME_SLOT = parser -> {
+        String[] v = readRow(parser, TIME_SLOT_COLUMNS, null);
+        return new TimeSlot(first(v[0], v[1]), v[2], v[3], v[4]);
+    };
+    public static final JsonCodec<Cohort> COHORT = parser -> {
+        String[] v = readRow(parser, COHORT_COLUMNS, null);
+        return new Cohort(first(v[0], v[1]), first(v[2], v[3]), v[4], toInt(v[5]));
+    };
+    public static final JsonCodec<Faculty> FACULTY = parser -> {
+        String[] v = readRow(parser, FACULTY_COLUMNS, null);
+        return new Faculty(first(v[0], v[1]), v[2], v[3], v[4], v[5], v[6]);
+    };
+    public static final JsonCodec<Schedule> SCHEDULE = parser -> schedule(readRow(parser, SCHEDULE_COLUMNS, null));
+    public static final JsonCodec<Evaluation> EVALUATION = parser -> evaluation(readRow(parser, EVALUATION_COLUMNS, null));
+    public static final JsonCodec<Comment> COMMENT = parser -> {
+        String[] v = readRow(parser, COMMENT_COLUMNS, null);
+        Comment comment = new Comment();
+        comment.commentId = first(v[0], v[1]);
+        comment.evaluationId = v[2];
+        comment.userId = v[3];
+        comment.parentCommentId = v[4];
+        comment.text = v[5] == null ? "" : v[5];
+        comment.isEdited = toBoolean(v[6], false);
+        comment.createdAt = toTimestamp(v[7]);
+        comment.updatedAt = toTimestamp(v[8]);
+        comment.replies = new ArrayList<>();
+        comment.reactions = new ArrayList<>();
+        return comment;
+    };
+    public static final JsonCodec<Reaction> REACTION = parser -> {
+        String[] v = readRow(parser, REACTION_COLUMNS, null);
+        Reaction reaction = new Reaction();
+        reaction.reactionId = first(v[0], v[1]);
+        reaction.evaluationId = v[2];
+        reaction.userId = v[3];
+        reaction.commentId = v[4];
+        reaction.reactionType = v[5];
+        reaction.createdAt = toTimestamp(v[6]);
+        return reaction;
+    };
+
+    /** Decodes a schedule with the course, room, time_slot, cohort and faculty aliases embedded. */
+    public static final JsonCodec<ScheduleDetails> SCHEDULE_DETAILS = parser -> {
+        Object[] related = new Object[5];
+        String[] v = readRow(parser, SCHEDULE_COLUMNS, (alias, nested) -> switch (alias) {
+            case "course" -> store(related, 0, COURSE.read(nested));
+            case "room" -> store(related, 1, ROOM.read(nested));
+            case "time_slot" -> store(related, 2, TIME_SLOT.read(nested));
+            case "cohort" -> store(related, 3, COHORT.read(nested));
+            case "faculty" -> store(related, 4, FACULTY.read(nested));
+            default -> false;
+        });
+        return new ScheduleDetails(schedule(v), (Course) related[0], (Room) related[1], (TimeSlot) related[2],
+                (Cohort) related[3], (Faculty) related[4]);
+    };
+
+    /** Decodes an evaluation with the course, faculty and room aliases embedded. */
+    public static final JsonCodec<EvaluationDetails> EVALUATION_DETAILS = parser -> {
+        Object[] related = new Object[3];
+        String[] v = readRow(parser, EVALUATION_COLUMNS, (alias, nested) -> switch (alias) {
+            case "course" -> store(related, 0, COURSE.read(nested));
+            case "faculty" -> store(related, 1, FACULTY.read(nested));
+            case "room" -> store(related, 2, ROOM.read(nested));
+            default -> false;
+        });
+        return new EvaluationDetails(evaluation(v), (Course) related[0], (Faculty) related[1], (Room) related[2]);
+    };
+
+    /**
+     * A user row together with its stored password hash.
+     *
+     * @param user       The user.
+     * @param password   The stored hash and salt, or null if the row has none.
+     * @param department The embedded department, or null if it was not requested or the user has none.
+     */
+    record Credentials(User user, String password, Department department) {
+    }
+
+    /**
+     * Reads an embedded to-one resource, which PostgREST returns as an object.
+     */
+    @FunctionalInterface
+    private interface Embedded {
+        /**
+         * @return true if the object was consumed, false to have it skipped.
+         */
+        boolean read(String alias, JsonParser parser) throws IOException;
+    }
+
+    private Codecs() {
+    }
+
+    private static String[] readRow(JsonParser parser, String[] columns, Embedded embedded) throws IOException {
+        return readRow(parser, columns, columns.length, embedded);
+    }
+
+    /**
+     * Copies the scalar columns of one object, in the order of {@code columns}, as text.
+     *
+     * @param parser   A parser positioned on the object's START_OBJECT.
+     * @param columns  The columns to keep.
+     * @param count    How many of {@code columns} to keep; later ones are skipped like unknown fields.
+     * @param embedded Reads embedded objects, or null to skip them.
+     * @return The column values; null where a column is absent or null.
+     */
+    private static String[] readRow(JsonParser parser, String[] columns, int count, Embedded embedded) throws IOException {
+        String[] values = new String[count];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                if (embedded == null || !embedded.read(field, parser)) {
+                    parser.skipChildren();
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                int index = indexOf(columns, count, field);
+                if (index >= 0) {
+                    values[index] = parser.getText();
+                }
+            }
+        }
+        return values;
+    }
+
+    private static int indexOf(String[] columns, int count, String field) {
+        for (int i = 0; i < count; i++) {
+            if (columns[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean store(Object[] related, int index, Object value) {
+        related[index] = value;
+        return true;
+    }
+
+    private static User user(String[] v) {
+        List<String> roles = new ArrayList<>(1);
+        if (v[4] != null && !v[4].isEmpty()) {
+            roles.add(v[4]);
+        }
+        return new User(first(v[0], v[1]), v[2], v[3], roles, v[5]);
+    }
+
+    private static Schedule schedule(String[] v) {
+        return new Schedule(first(v[0], v[1]), v[2], v[3], v[4], v[5], v[6], v[7], v[8], toBoolean(v[9], true));
+    }
+
+    private static Evaluation evaluation(String[] v) {
+        return new Evaluation(first(v[0], v[1]), v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9], v[10], v[11],
+                v[12], toBoolean(v[13], false));
+    }
+
+    private static String first(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static int toInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean toBoolean(String value, boolean defaultValue) {
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static LocalDateTime toTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
@@ -2,36 +2,134 @@ package com.unival.facultyscheduling.service;
 
 import com.unival.facultyscheduling.model.Comment;
 import com.unival.facultyscheduling.model.Reaction;
-import okhttp3.*;
+import com.unival.facultyscheduling.net.JsonCodec;
+import com.unival.facultyscheduling.net.RealtimeClient;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
 import org.json.*;
 import java.io.IOException;
+import java.net.http.HttpResponse;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class CommentService {
-    private static final String SUPABASE_URL = "<YOUR_SUPABASE_URL>";
-    private static final String SUPABASE_KEY = "<YOUR_SUPABASE_KEY>";
-    private static final OkHttpClient client = new OkHttpClient();
+    private final SupabaseTransport transport = SupabaseTransport.getInstance();
+    private final LocalReplica replica = LocalReplica.getInstance();
+    private final Outbox outbox = Outbox.getInstance();
+    private final RealtimeClient realtime = RealtimeClient.getInstance();
 
     public List<Comment> getCommentsForEvaluation(String evaluationId) throws IOException {
-        // TODO: Implement GET /comments?evaluation_id=eq.{evaluationId}&order=created_at
-        return new ArrayList<>();
+        try (Span span = Tracer.start("comments.load", "evaluation", evaluationId)) {
+            List<Comment> rows = getList("/rest/v1/comments?evaluation_id=eq." + evaluationId + "&order=created_at", Codecs.COMMENT);
+
+            // Build the reply tree: rows arrive oldest first, so replies keep their posting order
+            Map<String, Comment> byId = new LinkedHashMap<>();
+            for (Comment comment : rows) {
+                byId.put(comment.commentId, comment);
+            }
+            List<Comment> topLevel = new ArrayList<>();
+            for (Comment comment : byId.values()) {
+                Comment parent = comment.parentCommentId == null ? null : byId.get(comment.parentCommentId);
+                if (parent == null) {
+                    topLevel.add(comment);
+                } else {
+                    parent.replies.add(comment);
+                }
+            }
+            span.tag("comments", rows.size());
+            return topLevel;
+        }
     }
 
     public void addComment(Comment comment) throws IOException {
-        // TODO: Implement POST /comments
+        JSONObject json = new JSONObject();
+        json.put("evaluation_id", comment.evaluationId);
+        json.put("user_id", comment.userId);
+        json.put("text", comment.text);
+        if (comment.parentCommentId != null) {
+            json.put("parent_comment_id", comment.parentCommentId);
+        }
+        comment.commentId = post("comments", "comment_id", json);
     }
 
     public List<Reaction> getReactionsForEvaluation(String evaluationId) throws IOException {
-        // TODO: Implement GET /reactions?evaluation_id=eq.{evaluationId}&comment_id=is.null
-        return new ArrayList<>();
+        return getList("/rest/v1/reactions?evaluation_id=eq." + evaluationId + "&comment_id=is.null", Codecs.REACTION);
     }
 
     public List<Reaction> getReactionsForComment(String commentId) throws IOException {
-        // TODO: Implement GET /reactions?comment_id=eq.{commentId}
-        return new ArrayList<>();
+        return getList("/rest/v1/reactions?comment_id=eq." + commentId, Codecs.REACTION);
     }
 
     public void addReaction(Reaction reaction) throws IOException {
-        // TODO: Implement POST /reactions
+        JSONObject json = new JSONObject();
+        json.put("evaluation_id", reaction.evaluationId);
+        json.put("user_id", reaction.userId);
+        json.put("reaction_type", reaction.reactionType);
+        if (reaction.commentId != null) {
+            json.put("comment_id", reaction.commentId);
+        }
+        reaction.reactionId = post("reactions", "reaction_id", json);
+    }
+
+    /**
+     * Listens for comments and reactions of an evaluation being added, edited or removed by anyone. Deletes are
+     * passed on for every evaluation, since a deleted row may carry nothing but its ID.
+     *
+     * @param evaluationId The evaluation.
+     * @param listener     Called on the realtime thread for each change of the comments or reactions table.
+     * @return The subscription; close it when the screen goes away.
+     */
+    public RealtimeClient.Subscription watchEvaluation(String evaluationId, Consumer<RealtimeClient.Change> listener) {
+        Consumer<RealtimeClient.Change> filtered = change -> {
+            if (change.type() == RealtimeClient.ChangeType.DELETE
+                    || evaluationId.equals(change.record().optString("evaluation_id", null))) {
+                listener.accept(change);
+            }
+        };
+        RealtimeClient.Subscription comments = realtime.subscribe("comments", filtered);
+        RealtimeClient.Subscription reactions = realtime.subscribe("reactions", filtered);
+        return () -> {
+            comments.close();
+            reactions.close();
+        };
+    }
+
+    public static Comment toComment(JSONObject row) throws IOException {
+        return JsonCodec.readOne(row.toString(), Codecs.COMMENT);
+    }
+
+    public static Reaction toReaction(JSONObject row) throws IOException {
+        return JsonCodec.readOne(row.toString(), Codecs.REACTION);
+    }
+
+    private <T> List<T> getList(String endpoint, JsonCodec<T> codec) throws IOException {
+        try (Span span = Tracer.start("comments.fetch", "endpoint", endpoint)) {
+            // The replica also holds the comments and reactions still waiting in the outbox
+            String local = replica.query(endpoint);
+            if (local != null) {
+                span.tag("source", "replica");
+                return JsonCodec.readList(local, codec);
+            }
+            HttpResponse<String> response = transport.get(endpoint);
+            if (response.statusCode() != 200) {
+                throw new IOException("Request failed with status " + response.statusCode() + ": " + response.body());
+            }
+            return Tracer.call("comments.decode", () -> JsonCodec.readList(response.body(), codec));
+        }
+    }
+
+    /**
+     * Commits an insert to the outbox. A reply or reaction to a comment that is still pending refers to the
+     * comment's local ID, so the outbox sends it after the comment.
+     *
+     * @return The local ID the row carries until it has been sent.
+     */
+    private String post(String table, String keyColumn, JSONObject json) throws IOException {
+        try (Span span = Tracer.start("comments.post", "table", table)) {
+            String localId = outbox.enqueue(table, keyColumn, json).getLocalId();
+            span.tag("localId", localId);
+            return localId;
+        }
     }
-} 
\ No newline at end of file
+}
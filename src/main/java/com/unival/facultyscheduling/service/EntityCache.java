@@ -0,0 +1,407 @@
+package com.unival.facultyscheduling.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * EntityCache keeps rows looked up by primary key (a course, a room, a cohort...) so that screens resolving the same
+ * few references over and over, such as a list of schedules sharing twenty rooms, only read each row once.
+ * <p>
+ * Entries are keyed by (table, id) and bounded by a maximum count. Admission and eviction follow W-TinyLFU:
+ * <ul>
+ *     <li>A new entry first lands in a small LRU window (1% of the capacity), so bursts of new keys are kept for a
+ *     moment without flushing the rest of the cache.</li>
+ *     <li>When the window overflows, its oldest entry competes with the oldest entry of the main area, and the one
+ *     requested more often recently is kept. Frequencies are estimated by a count-min sketch of 4-bit counters that
+ *     are halved periodically, so past popularity fades.</li>
+ *     <li>The main area is a segmented LRU: entries requested again while in probation move to a protected segment
+ *     (80% of the main area), which a scan of one-off lookups cannot evict.</li>
+ * </ul>
+ * Entries also expire after a fixed time to live, and can be invalidated by key, by table or all at once. A load
+ * that started before an invalidation is returned to its caller but not cached.
+ * <p>
+ * Lookups read a concurrent map without locking. The policy bookkeeping of a hit is skipped rather than waited for
+ * while another thread holds the policy lock, which only makes the recency and frequency estimates slightly coarser.
+ */
+public final class EntityCache {
+
+    /**
+     * A point-in-time view of the cache counters.
+     *
+     * @param hits        Lookups answered from the cache.
+     * @param misses      Lookups that had to load the row.
+     * @param evictions   Entries dropped, or refused admission, to respect the size limit.
+     * @param expirations Entries dropped because their time to live had passed.
+     * @param size        Entries currently cached.
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+        /**
+         * Gets the fraction of lookups answered from the cache.
+         *
+         * @return The hit ratio between 0 and 1.
+         */
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private record Key(String table, String id) {
+    }
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private static final class Node {
+        final Key key;
+        volatile Object value;
+        volatile long expiresAt;
+        Segment segment;
+        Node prev;
+        Node next;
+
+        Node(Key key) {
+            this.key = key;
+        }
+    }
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final int windowMax;
+    private final int protectedMax;
+    private final ConcurrentHashMap<Key, Node> data = new ConcurrentHashMap<>();
+    // Guards the segments and the sketch
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSegment = new AccessOrder();
+    private final FrequencySketch sketch;
+    // Bumped by every invalidation; loads that started before one are not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize The maximum number of entries; 0 disables caching.
+     * @param ttl         How long an entry is served after it was loaded.
+     */
+    public EntityCache(int maximumSize, Duration ttl) {
+        this.maximumSize = Math.max(0, maximumSize);
+        this.ttlNanos = ttl.toNanos();
+        this.windowMax = Math.max(1, this.maximumSize / 100);
+        this.protectedMax = (this.maximumSize - windowMax) * 4 / 5;
+        this.sketch = new FrequencySketch(Math.max(1, this.maximumSize));
+    }
+
+    /**
+     * Gets a row from the cache, or loads it. Null results (no such row) are not cached.
+     *
+     * @param table  The table, e.g. "rooms".
+     * @param id     The primary key.
+     * @param loader Loads the row on a miss.
+     * @return A future completing with the row, or null if it does not exist.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getAsync(String table, String id, Supplier<CompletableFuture<T>> loader) {
+        if (maximumSize == 0 || id == null) {
+            return loader.get();
+        }
+        Key key = new Key(table, id);
+        Node node = data.get(key);
+        if (node != null && node.expiresAt - System.nanoTime() > 0) {
+            hits.increment();
+            if (policyLock.tryLock()) {
+                try {
+                    onAccess(node);
+                } finally {
+                    policyLock.unlock();
+                }
+            }
+            return CompletableFuture.completedFuture((T) node.value);
+        }
+        misses.increment();
+        if (node != null) {
+            expirations.increment();
+            remove(node);
+        }
+        long loadGeneration = generation.get();
+        return loader.get().thenApply(value -> {
+            if (value != null) {
+                put(key, value, loadGeneration);
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Removes one row, e.g. after it was updated or deleted.
+     *
+     * @param table The table.
+     * @param id    The primary key.
+     */
+    public void invalidate(String table, String id) {
+        generation.incrementAndGet();
+        Node node = id == null ? null : data.get(new Key(table, id));
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Removes every row of a table, e.g. after an update whose filter may match several rows.
+     *
+     * @param table The table.
+     */
+    public void invalidateTable(String table) {
+        generation.incrementAndGet();
+        for (Node node : data.values()) {
+            if (node.key.table().equals(table)) {
+                remove(node);
+            }
+        }
+    }
+
+    /**
+     * Removes every row.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (Node node : data.values()) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Gets the current counter values.
+     *
+     * @return A snapshot of the cache statistics.
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), data.size());
+    }
+
+    private void put(Key key, Object value, long loadGeneration) {
+        policyLock.lock();
+        try {
+            // Checked under the lock, which every removal by an invalidation also takes
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            Node node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                node.expiresAt = System.nanoTime() + ttlNanos;
+                onAccess(node);
+                return;
+            }
+            node = new Node(key);
+            node.value = value;
+            node.expiresAt = System.nanoTime() + ttlNanos;
+            node.segment = Segment.WINDOW;
+            data.put(key, node);
+            window.addLast(node);
+            sketch.increment(key);
+            if (window.size > windowMax) {
+                admit(window.first());
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the oldest window entry into the main area if there is room, or if it is requested more often than the
+     * main area's eviction victim; otherwise drops it.
+     */
+    private void admit(Node candidate) {
+        window.remove(candidate);
+        if (probation.size + protectedSegment.size < maximumSize - windowMax) {
+            candidate.segment = Segment.PROBATION;
+            probation.addLast(candidate);
+            return;
+        }
+        Node victim = probation.size > 0 ? probation.first() : protectedSegment.first();
+        if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            unlink(victim);
+            data.remove(victim.key, victim);
+            candidate.segment = Segment.PROBATION;
+            probation.addLast(candidate);
+        } else {
+            data.remove(candidate.key, candidate);
+            candidate.segment = null;
+        }
+        evictions.increment();
+    }
+
+    private void onAccess(Node node) {
+        if (node.segment == null) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.segment) {
+            case WINDOW -> window.moveToLast(node);
+            case PROTECTED -> protectedSegment.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.addLast(node);
+                if (protectedSegment.size > protectedMax) {
+                    Node demoted = protectedSegment.first();
+                    protectedSegment.remove(demoted);
+                    demoted.segment = Segment.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+        }
+    }
+
+    private void remove(Node node) {
+        policyLock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.segment == null) {
+            return;
+        }
+        switch (node.segment) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedSegment.remove(node);
+        }
+        node.segment = null;
+    }
+
+    /**
+     * A doubly-linked list of nodes from least to most recently used.
+     */
+    private static final class AccessOrder {
+        private Node head;
+        private Node tail;
+        int size;
+
+        Node first() {
+            return head;
+        }
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, four per key, packed sixteen to a long. After ten times the cache's
+     * capacity increments every counter is halved, so the estimates favour recent popularity.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            this.table = new long[length];
+            this.sampleSize = 10 * capacity;
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = offsetOf(hash, i);
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            // Halving rounds odd counters down; each key spans four counters
+            additions = (additions - (odd >>> 2)) >>> 1;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int offsetOf(int hash, int i) {
+            // Each key uses a different counter of the 16 in each long for each of its four hashes
+            return (((hash >>> (i << 3)) & 3) << 2) + (i << 4);
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
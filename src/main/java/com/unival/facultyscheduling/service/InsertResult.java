@@ -0,0 +1,28 @@
+package com.unival.facultyscheduling.service;
+
+/**
+ * The outcome of inserting one row as part of a bulk insert such as {@link SupabaseClient#createSchedules}.
+ *
+ * @param index The row's position in the list passed to the bulk insert.
+ * @param id    The ID assigned to the inserted row, or null if the row was not inserted.
+ * @param error The reason the row was not inserted, or null on success.
+ */
+public record InsertResult(int index, String id, String error) {
+
+    static InsertResult inserted(int index, String id) {
+        return new InsertResult(index, id, null);
+    }
+
+    static InsertResult failed(int index, String error) {
+        return new InsertResult(index, null, error);
+    }
+
+    /**
+     * Checks whether the row was inserted.
+     *
+     * @return true if the row was inserted.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,236 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * KeysetPager reads a table page by page using keyset pagination.
+ * <p>
+ * Each page is requested as {@code order=<key>.asc&limit=<pageSize>&<key>=gt.<last key of the previous page>}, so
+ * every page costs the database an index range scan no matter how deep into the table it is, and rows inserted or
+ * deleted while paging never cause rows to be skipped or repeated (unlike offset paging).
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>{@link #pages()}: iterates over pages, fetching each one only when it is requested.</li>
+ *     <li>{@link #iterator()}: iterates over individual rows across pages.</li>
+ *     <li>{@link #fetchAll}: the unbounded-query guard used by the getAll* methods. Tables are always read page by
+ *     page; tables larger than supabase.query.maxRows (default 5000) are logged (supabase.query.unboundedPolicy=page,
+ *     the default) or refused (unboundedPolicy=refuse).</li>
+ *     <li>Page sizes never exceed supabase.query.serverMaxRows (default 1000, PostgREST's max-rows on Supabase),
+ *     since the server silently truncates larger responses.</li>
+ * </ul>
+ * <p>
+ * Note: The iterators report request failures as {@link UncheckedIOException}, since {@link Iterator} methods
+ * cannot throw checked exceptions.
+ *
+ * @param <T> The decoded row type.
+ */
+public final class KeysetPager<T> implements Iterable<T> {
+    private static final Log LOG = Log.get(KeysetPager.class);
+
+    // PostgREST's db-max-rows; a response never holds more rows, whatever limit was asked for
+    private static final int SERVER_MAX_ROWS = Math.max(1, AppConfig.getInt("supabase.query.serverMaxRows", 1000));
+    /** The page size used by the getAll* methods and by callers that do not choose one. */
+    public static final int DEFAULT_PAGE_SIZE =
+            Math.max(1, Math.min(AppConfig.getInt("supabase.query.pageSize", 1000), SERVER_MAX_ROWS));
+    private static final int MAX_UNPAGED_ROWS = Math.max(1, AppConfig.getInt("supabase.query.maxRows", 5000));
+    private static final boolean REFUSE_UNBOUNDED = "refuse".equalsIgnoreCase(AppConfig.getString("supabase.query.unboundedPolicy", "page"));
+
+    /**
+     * Fetches one page of rows.
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        List<T> fetch(String endpoint) throws IOException;
+    }
+
+    private final String table;
+    private final String keyColumn;
+    private final String filter;
+    private final int pageSize;
+    private final PageFetcher<T> fetcher;
+    private final Function<T, String> keyOf;
+
+    /**
+     * Creates a pager over a table.
+     *
+     * @param table     The table name, e.g. "schedules".
+     * @param keyColumn The primary key column to order and page by; it must be unique.
+     * @param filter    Additional PostgREST query parameters (e.g. "department_id=eq.3"), or null.
+     * @param pageSize  The maximum number of rows per request; larger sizes are lowered to
+     *                  supabase.query.serverMaxRows, so that a page cut short by the server is not taken for the last.
+     * @param fetcher   Performs the page requests.
+     * @param keyOf     Reads the key column from a decoded row.
+     */
+    public KeysetPager(String table, String keyColumn, String filter, int pageSize, PageFetcher<T> fetcher,
+                       Function<T, String> keyOf) {
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.filter = filter;
+        this.pageSize = Math.max(1, Math.min(pageSize, SERVER_MAX_ROWS));
+        this.fetcher = fetcher;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Reads a whole table, guarding against a single unbounded request.
+     * <p>
+     * The table is always read in pages of {@link #DEFAULT_PAGE_SIZE} rows, since a single request could be cut
+     * short by the server's row cap without any sign of it. A table of more than supabase.query.maxRows rows is
+     * read and logged, or, if the unbounded policy is "refuse", fails with an {@link IOException} before any page is
+     * read: a one-row request just past the limit tells whether the table is larger.
+     *
+     * @param table     The table name.
+     * @param keyColumn The primary key column.
+     * @param fetcher   Performs the requests.
+     * @param keyOf     Reads the key column from a decoded row.
+     * @return All rows of the table, ordered by key.
+     * @throws IOException if a request fails or the table is too large and the policy is "refuse".
+     */
+    public static <T> List<T> fetchAll(String table, String keyColumn, PageFetcher<T> fetcher,
+                                       Function<T, String> keyOf) throws IOException {
+        KeysetPager<T> pager = new KeysetPager<>(table, keyColumn, null, DEFAULT_PAGE_SIZE, fetcher, keyOf);
+        if (REFUSE_UNBOUNDED && !fetcher.fetch(pager.rowAfterLimitEndpoint()).isEmpty()) {
+            throw new IOException("Refusing to load more than " + MAX_UNPAGED_ROWS + " rows from " + table
+                    + "; use a paged read instead");
+        }
+        Iterator<List<T>> pages = pager.pages();
+        List<T> rows = new ArrayList<>();
+        try {
+            while (pages.hasNext()) {
+                List<T> page = pages.next();
+                if (rows.size() <= MAX_UNPAGED_ROWS && rows.size() + page.size() > MAX_UNPAGED_ROWS) {
+                    // Rows inserted since the probe can still take a refused read over the limit; it is then paged
+                    LOG.info("unbounded_read.paging", "table", table, "maxRows", MAX_UNPAGED_ROWS, "pageSize", pager.pageSize);
+                }
+                rows.addAll(page);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    /**
+     * Iterates over the pages of the table. Each call to {@code next()} performs one request.
+     *
+     * @return An iterator over non-empty pages.
+     */
+    public Iterator<List<T>> pages() {
+        return new Iterator<>() {
+            private String cursor;
+            private List<T> next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        List<T> page = fetcher.fetch(pageEndpoint(cursor));
+                        // A short page is the last one; skip the extra request that would return nothing
+                        done = page.size() < pageSize;
+                        if (!page.isEmpty()) {
+                            next = page;
+                            cursor = lastKey(page);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> page = next;
+                next = null;
+                return page;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the rows of the table, fetching the next page when the current one is exhausted.
+     *
+     * @return An iterator over rows in key order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<List<T>> pages = pages();
+        return new Iterator<>() {
+            private List<T> page = Collections.emptyList();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index >= page.size()) {
+                    if (!pages.hasNext()) {
+                        return false;
+                    }
+                    page = pages.next();
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+
+    /**
+     * Builds the endpoint for the page following the given key.
+     *
+     * @param after The last key of the previous page, or null for the first page.
+     * @return The endpoint path with query string.
+     */
+    String pageEndpoint(String after) {
+        StringBuilder endpoint = new StringBuilder("/rest/v1/").append(table).append('?');
+        if (filter != null && !filter.isEmpty()) {
+            endpoint.append(filter).append('&');
+        }
+        endpoint.append("order=").append(keyColumn).append(".asc&limit=").append(pageSize);
+        if (after != null) {
+            endpoint.append('&').append(keyColumn).append("=gt.").append(URLEncoder.encode(after, StandardCharsets.UTF_8));
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * Builds the endpoint reading the row just past supabase.query.maxRows, which exists only in a larger table.
+     */
+    String rowAfterLimitEndpoint() {
+        StringBuilder endpoint = new StringBuilder("/rest/v1/").append(table).append('?');
+        if (filter != null && !filter.isEmpty()) {
+            endpoint.append(filter).append('&');
+        }
+        return endpoint.append("order=").append(keyColumn).append(".asc&limit=1&offset=").append(MAX_UNPAGED_ROWS).toString();
+    }
+
+    private String lastKey(List<T> page) throws IOException {
+        String key = keyOf.apply(page.get(page.size() - 1));
+        if (key == null) {
+            throw new IOException("Cannot page: rows have no " + keyColumn + " column");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,659 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.net.JsonCodec;
+import com.unival.facultyscheduling.net.JsonRowReader;
+import com.unival.facultyscheduling.net.RealtimeClient;
+import com.unival.facultyscheduling.net.RequestPriority;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * LocalReplica keeps a persistent local copy of the tables the application reads, so that reads are answered from
+ * memory and keep working while Supabase is unreachable.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>{@link #query(String)}: answers a PostgREST read (filters, order, limit/offset and to-one embeds, see
+ *     {@link ReplicaQuery}) from the replica. {@link SupabaseClient} and {@link AdminService} call it before going
+ *     to the network; reads it cannot answer, or of tables that have not been synchronized yet, go to Supabase.</li>
+ *     <li>Background synchronization: every replica.syncIntervalSeconds (default 60) each table is brought up to
+ *     date at {@link RequestPriority#BACKGROUND} priority. A failed sync keeps the previous copy, so the application
+ *     continues on the last known data.</li>
+ *     <li>Incremental synchronization: between full reads only the rows whose replica.delta.changedColumn (default
+ *     updated_at) moved past the table's watermark are fetched, together with the delete tombstones recorded in
+ *     replica.delta.tombstoneTable, and applied in one step (see {@link ReplicaDelta}), so a refresh costs time in
+ *     proportion to what changed rather than to the table size. Every replica.fullSyncIntervalMinutes (default 60)
+ *     a table is read in full with keyset paging, which also catches deletes when there is no tombstone table.
+ *     Tables without the column are always read in full.</li>
+ *     <li>Persistence: each table is written to replica.dir (default ~/.unival/replica) after it changes and loaded
+ *     on startup, so a restart without a network still has data.</li>
+ *     <li>Read-your-writes: successful inserts, updates and deletes are applied to the replica straight away by
+ *     {@link #applyInsert}, {@link #applyPatch} and {@link #applyDelete}.</li>
+ *     <li>Realtime changes: inserts, updates and deletes of schedules, evaluations, comments and reactions made
+ *     anywhere are applied as they arrive from {@link RealtimeClient}; after a reconnect every table is synchronized
+ *     again, since changes made in between were missed.</li>
+ * </ul>
+ * <p>
+ * Note: Password hashes are never downloaded or stored; the users table is read with an explicit column list
+ * (replica.users.columns) that leaves out the password, and authentication always asks Supabase. The replica can be switched off with replica.enabled=false.
+ */
+public final class LocalReplica {
+    private static final Log LOG = Log.get(LocalReplica.class);
+    private static final String REST_PREFIX = "/rest/v1/";
+    private static final String PASSWORD_COLUMN = "password";
+    private static final String TOMBSTONE_TABLE_COLUMN = "table_name";
+    private static final String TOMBSTONE_KEY_COLUMN = "row_key";
+    private static final String TOMBSTONE_TIME_COLUMN = "deleted_at";
+    private static final String TOMBSTONE_ID_COLUMN = "tombstone_id";
+    private static final List<String> REALTIME_TABLES = List.of("schedules", "evaluations", "comments", "reactions");
+
+    /**
+     * The synchronization state of one table.
+     *
+     * @param table    The table name.
+     * @param rows     The number of rows held locally.
+     * @param syncedAt When the table was last synchronized, in epoch milliseconds, or 0 if it never was.
+     */
+    public record TableStatus(String table, int rows, long syncedAt) {
+    }
+
+    private static LocalReplica instance;
+
+    private final boolean enabled;
+    private final Map<String, ReplicaTable> tables = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+    private volatile boolean reachable = true;
+    private final boolean deltaEnabled;
+    private final String changedColumn;
+    private final String userColumns;
+    private final String tombstoneTable;
+    private final Duration overlap;
+    private final long fullSyncIntervalMillis;
+    // Tables without the change timestamp column, which are always read in full
+    private final Set<String> fullOnly = ConcurrentHashMap.newKeySet();
+    private volatile boolean tombstonesAvailable = true;
+
+    private LocalReplica() {
+        this(AppConfig.getBoolean("replica.enabled", true), Path.of(AppConfig.getString("replica.dir",
+                Path.of(System.getProperty("user.home"), ".unival", "replica").toString())), true);
+    }
+
+    /**
+     * Creates a replica kept in a directory that is only synchronized by {@link #syncAll()}, without the scheduled
+     * synchronization and realtime changes, e.g. to check synchronization against a stand-in server.
+     */
+    LocalReplica(Path dir) {
+        this(true, dir, false);
+    }
+
+    private LocalReplica(boolean enabled, Path dir, boolean background) {
+        this.enabled = enabled;
+        this.deltaEnabled = AppConfig.getBoolean("replica.delta.enabled", true);
+        this.changedColumn = AppConfig.getString("replica.delta.changedColumn", "updated_at");
+        this.userColumns = AppConfig.getString("replica.users.columns", "id,email,name,role,department_id,year");
+        String tombstones = AppConfig.getString("replica.delta.tombstoneTable", "tombstones");
+        this.tombstoneTable = tombstones == null || tombstones.isBlank() ? null : tombstones.trim();
+        this.overlap = Duration.ofSeconds(Math.max(0, AppConfig.getInt("replica.delta.overlapSeconds", 5)));
+        this.fullSyncIntervalMillis = TimeUnit.MINUTES.toMillis(Math.max(1, AppConfig.getInt("replica.fullSyncIntervalMinutes", 60)));
+        addTable(dir, "users", "id", "user_id");
+        addTable(dir, "departments", "department_id", "department_id");
+        addTable(dir, "courses", SupabaseClient.COURSE_KEY, "course_id");
+        addTable(dir, "rooms", "room_id", "room_id");
+        addTable(dir, "time_slots", "slot_id", "slot_id");
+        addTable(dir, "cohorts", "cohort_id", "cohort_id");
+        addTable(dir, "schedules", "schedule_id", "schedule_id");
+        addTable(dir, "evaluations", "evaluation_id", "evaluation_id");
+        addTable(dir, "comments", "comment_id", "comment_id");
+        addTable(dir, "reactions", "reaction_id", "reaction_id");
+        // Schedule and evaluation details embed faculty rows
+        addTable(dir, "faculty", "faculty_id", "faculty_id");
+
+        if (!enabled) {
+            this.scheduler = null;
+            return;
+        }
+        for (ReplicaTable table : tables.values()) {
+            try {
+                table.load();
+            } catch (IOException e) {
+                LOG.warn("replica.load_failed", e, "table", table.getName());
+            }
+        }
+        if (!background) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, AppConfig.getInt("replica.syncIntervalSeconds", 60));
+        scheduler.scheduleWithFixedDelay(this::syncAll, 0, interval, TimeUnit.SECONDS);
+
+        RealtimeClient realtime = RealtimeClient.getInstance();
+        for (String table : REALTIME_TABLES) {
+            realtime.subscribe(table, this::applyChange);
+        }
+        realtime.addReconnectListener(() -> scheduler.execute(this::syncAll));
+    }
+
+    /**
+     * Returns the shared replica, loading it from disk and starting its synchronization on first use.
+     *
+     * @return The application-wide replica.
+     */
+    public static synchronized LocalReplica getInstance() {
+        if (instance == null) {
+            instance = new LocalReplica();
+        }
+        return instance;
+    }
+
+    private void addTable(Path dir, String name, String keyColumn, String referenceColumn) {
+        tables.put(name, new ReplicaTable(name, keyColumn, referenceColumn, dir.resolve(name + ".json")));
+    }
+
+    /**
+     * Answers a read from the replica.
+     *
+     * @param endpoint The REST endpoint, e.g. "/rest/v1/schedules?faculty_id=eq.42".
+     * @return The response body as a JSON array, or null if the read must go to Supabase.
+     */
+    public String query(String endpoint) {
+        if (!enabled) {
+            return null;
+        }
+        ReplicaQuery query = ReplicaQuery.parse(endpoint);
+        if (query == null) {
+            return null;
+        }
+        ReplicaTable table = availableTable(query.table());
+        if (table == null) {
+            return null;
+        }
+        for (ReplicaQuery.Embed embed : query.embeds()) {
+            if (availableTable(embed.table()) == null) {
+                return null;
+            }
+        }
+        try (Span span = Tracer.start("replica.query", "table", query.table())) {
+            List<JSONObject> rows = table.select(query.filters());
+            if (!query.embeds().isEmpty()) {
+                rows = embed(rows, query.embeds());
+            }
+            rows = query.shape(rows);
+            span.tag("rows", rows.size());
+            StringBuilder json = new StringBuilder(rows.size() * 128 + 2).append('[');
+            for (int i = 0; i < rows.size(); i++) {
+                json.append(i == 0 ? "" : ",").append(rows.get(i));
+            }
+            return json.append(']').toString();
+        }
+    }
+
+    /**
+     * Checks whether a table has been loaded or synchronized, so that reads of it are answered locally.
+     *
+     * @param table The table name.
+     * @return true if the replica holds the table.
+     */
+    public boolean isAvailable(String table) {
+        return enabled && availableTable(table) != null;
+    }
+
+    /**
+     * Gets the synchronization state of every replicated table.
+     *
+     * @return One status per table.
+     */
+    public List<TableStatus> getStatus() {
+        List<TableStatus> status = new ArrayList<>(tables.size());
+        for (ReplicaTable table : tables.values()) {
+            status.add(new TableStatus(table.getName(), table.size(), table.getSyncedAt()));
+        }
+        return status;
+    }
+
+    /**
+     * Tells whether the last synchronization attempt reached Supabase.
+     *
+     * @return false while the replica is serving data Supabase could not refresh.
+     */
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    /**
+     * Applies rows returned by a successful insert ({@code Prefer: return=representation}).
+     *
+     * @param path The insert path, e.g. "/rest/v1/schedules".
+     * @param body The response body: the inserted rows as a JSON array.
+     */
+    public void applyInsert(String path, String body) {
+        ReplicaTable table = enabled ? tables.get(tableName(path)) : null;
+        if (table == null || body == null) {
+            return;
+        }
+        try {
+            JSONArray rows = new JSONArray(body);
+            for (int i = 0; i < rows.length(); i++) {
+                table.upsert(stripped(table, rows.getJSONObject(i)));
+            }
+            saveLater(table);
+        } catch (JSONException e) {
+            LOG.debug("replica.insert_skipped", "path", path, "error", e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a successful update to the rows matching the endpoint's filters.
+     *
+     * @param endpoint The PATCH endpoint, e.g. "/rest/v1/users?id=eq.1".
+     * @param changes  The columns that were changed.
+     */
+    public void applyPatch(String endpoint, JSONObject changes) {
+        ReplicaQuery query = enabled ? ReplicaQuery.parse(endpoint) : null;
+        ReplicaTable table = query == null ? null : tables.get(query.table());
+        if (table == null) {
+            return;
+        }
+        if (table.update(query.filters(), stripped(table, ReplicaTable.copy(changes))) > 0) {
+            saveLater(table);
+        }
+    }
+
+    /**
+     * Applies a successful delete to the rows matching the endpoint's filters.
+     *
+     * @param endpoint The DELETE endpoint, e.g. "/rest/v1/courses?id=eq.3".
+     */
+    public void applyDelete(String endpoint) {
+        ReplicaQuery query = enabled ? ReplicaQuery.parse(endpoint) : null;
+        ReplicaTable table = query == null ? null : tables.get(query.table());
+        if (table == null) {
+            return;
+        }
+        if (table.delete(query.filters()) > 0) {
+            saveLater(table);
+        }
+    }
+
+    /**
+     * Applies a change received from {@link RealtimeClient}.
+     */
+    private void applyChange(RealtimeClient.Change change) {
+        ReplicaTable table = tables.get(change.table());
+        if (table == null) {
+            return;
+        }
+        if (change.type() != RealtimeClient.ChangeType.DELETE) {
+            table.upsert(stripped(table, ReplicaTable.copy(change.record())));
+        } else {
+            JSONObject old = change.oldRecord();
+            String column = old.has(table.getKeyColumn()) ? table.getKeyColumn() : "id";
+            if (old.isNull(column) || table.delete(List.of(
+                    new ReplicaQuery.Filter(column, "eq", List.of(ReplicaQuery.text(old.get(column)))))) == 0) {
+                return;
+            }
+        }
+        saveLater(table);
+    }
+
+    /**
+     * Shows a row that has been committed to the {@link Outbox} but not yet stored by Supabase. The row keeps its
+     * local ID until {@link #confirm} or {@link #unpin} is called, and survives synchronizations in the meantime.
+     */
+    void pin(String tableName, JSONObject row) {
+        ReplicaTable table = enabled ? tables.get(tableName) : null;
+        if (table != null) {
+            table.pin(stripped(table, row));
+        }
+    }
+
+    /**
+     * Replaces a pinned row by the row Supabase stored.
+     */
+    void confirm(String tableName, String localId, JSONObject stored) {
+        ReplicaTable table = enabled ? tables.get(tableName) : null;
+        if (table != null) {
+            table.unpin(localId);
+            table.upsert(stripped(table, ReplicaTable.copy(stored)));
+            saveLater(table);
+        }
+    }
+
+    /**
+     * Removes a pinned row whose write was dropped.
+     */
+    void unpin(String tableName, String localId) {
+        ReplicaTable table = enabled ? tables.get(tableName) : null;
+        if (table != null) {
+            table.unpin(localId);
+        }
+    }
+
+    /**
+     * Synchronizes the given tables now, in parallel, unless they have been synchronized already. Used to warm the
+     * replica for a user who just logged in, before the first background round has reached their tables.
+     *
+     * @param names The tables; names that are not replicated are ignored.
+     * @return A future completing when every table has been read, or has failed to be; failures are logged.
+     */
+    public CompletableFuture<Void> prefetch(Collection<String> names) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> reads = new ArrayList<>();
+        for (String name : names) {
+            ReplicaTable table = tables.get(name);
+            if (table == null || table.getSyncedAt() > 0) {
+                continue;
+            }
+            reads.add(CompletableFuture.runAsync(Tracer.wrap("replica.prefetch", () -> {
+                table.getSyncLock().lock();
+                try {
+                    // A background round may have read the table while this waited
+                    if (table.getSyncedAt() == 0) {
+                        RequestPriority.BACKGROUND.call(() -> {
+                            syncLocked(table);
+                            return null;
+                        });
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOG.debug("replica.prefetch_failed", "table", name, "error", e.toString());
+                } finally {
+                    table.getSyncLock().unlock();
+                }
+            }), SupabaseTransport.getInstance().getExecutor()));
+        }
+        return CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Synchronizes every table now, on the calling thread.
+     */
+    public void syncAll() {
+        try (Span span = Tracer.start("replica.sync")) {
+            boolean anyReached = false;
+            for (ReplicaTable table : tables.values()) {
+                try {
+                    sync(table);
+                    anyReached = true;
+                    failing.remove(table.getName());
+                } catch (IOException | RuntimeException e) {
+                    span.error(e);
+                    // Log when a table starts failing rather than on every interval of an outage
+                    if (failing.add(table.getName())) {
+                        LOG.warn("replica.sync_failed", e, "table", table.getName());
+                    } else {
+                        LOG.debug("replica.sync_failed", "table", table.getName(), "error", e.toString());
+                    }
+                    if (!anyReached && e instanceof IOException) {
+                        // Supabase looks unreachable; the remaining tables would fail the same way
+                        break;
+                    }
+                }
+            }
+            if (anyReached != reachable) {
+                LOG.info(anyReached ? "replica.online" : "replica.offline");
+            }
+            reachable = anyReached;
+        }
+    }
+
+    private void sync(ReplicaTable table) throws IOException {
+        // Reads of one table never overlap, or an older read could replace the result of a newer one
+        table.getSyncLock().lock();
+        try {
+            syncLocked(table);
+        } finally {
+            table.getSyncLock().unlock();
+        }
+    }
+
+    private void syncLocked(ReplicaTable table) throws IOException {
+        long now = System.currentTimeMillis();
+        boolean fullDue = table.getFullSyncedAt() == 0 || now - table.getFullSyncedAt() >= fullSyncIntervalMillis;
+        if (deltaEnabled && !fullDue && !fullOnly.contains(table.getName())) {
+            try {
+                syncChanges(table, now);
+                return;
+            } catch (IOException e) {
+                if (!isSchemaError(e)) {
+                    throw e;
+                }
+                fullOnly.add(table.getName());
+                LOG.info("replica.delta_unsupported", "table", table.getName(), "column", changedColumn, "error", e.getMessage());
+            }
+        }
+        try {
+            syncFull(table);
+        } catch (IOException e) {
+            String columns = columnsOf(table);
+            if (columns == null || !columns.endsWith("," + changedColumn) || !isSchemaError(e)) {
+                throw e;
+            }
+            // The explicit column list asked for a change timestamp the table does not have
+            fullOnly.add(table.getName());
+            LOG.info("replica.delta_unsupported", "table", table.getName(), "column", changedColumn, "error", e.getMessage());
+            syncFull(table);
+        }
+    }
+
+    /**
+     * Reads the rows changed and deleted since the table's watermarks and applies them in one step.
+     */
+    private void syncChanges(ReplicaTable table, long now) throws IOException {
+        try (Span span = Tracer.start("replica.sync_changes", "table", table.getName())) {
+            ReplicaDelta.Watermark tombstoneWatermark = table.getTombstoneWatermark();
+            List<String> deleted = new ArrayList<>();
+            ReplicaDelta tombstones = tombstones(table);
+            if (tombstones != null) {
+                try {
+                    ReplicaDelta.Changes read = RequestPriority.BACKGROUND.call(() -> tombstones.read(table.getTombstoneWatermark()));
+                    for (JSONObject tombstone : read.rows()) {
+                        String key = ReplicaQuery.text(tombstone.get(TOMBSTONE_KEY_COLUMN));
+                        // Tombstones are read again from before the watermark; one older than the row it names is
+                        // of an earlier row with the same key, deleted before this one was inserted
+                        if (!table.changedAfter(key, changedColumn, ReplicaQuery.text(tombstone.get(TOMBSTONE_TIME_COLUMN)))) {
+                            deleted.add(key);
+                        }
+                    }
+                    tombstoneWatermark = read.watermark();
+                } catch (IOException e) {
+                    tombstonesUnavailable(e);
+                }
+            }
+            ReplicaDelta.Changes changes = RequestPriority.BACKGROUND.call(() -> changes(table).read(table.getWatermark()));
+            List<JSONObject> changed = new ArrayList<>(changes.rows().size());
+            for (JSONObject row : changes.rows()) {
+                changed.add(stripped(table, row));
+            }
+            int count = table.applyChanges(changed, deleted, changes.watermark(), tombstoneWatermark, now);
+            span.tag("changed", changed.size());
+            span.tag("deleted", deleted.size());
+            if (count > 0) {
+                LOG.debug("replica.changes_applied", "table", table.getName(), "changed", changed.size(), "deleted", deleted.size());
+            }
+            table.saveIfDirty();
+        }
+    }
+
+    private void syncFull(ReplicaTable table) throws IOException {
+        try (Span span = Tracer.start("replica.sync_table", "table", table.getName())) {
+            SupabaseTransport transport = SupabaseTransport.getInstance();
+            String keyColumn = table.getKeyColumn();
+            String columns = columnsOf(table);
+            KeysetPager<JSONObject> pager = new KeysetPager<>(table.getName(), keyColumn,
+                    columns == null ? null : "select=" + columns,
+                    KeysetPager.DEFAULT_PAGE_SIZE, endpoint -> fetchRows(transport, endpoint),
+                    row -> row.isNull(keyColumn) ? null : ReplicaQuery.text(row.get(keyColumn)));
+            long started = System.currentTimeMillis();
+            // Tombstones up to here describe deletes the full read already reflects
+            ReplicaDelta.Watermark tombstoneWatermark = null;
+            ReplicaDelta tombstones = fullOnly.contains(table.getName()) ? null : tombstones(table);
+            if (tombstones != null) {
+                try {
+                    tombstoneWatermark = RequestPriority.BACKGROUND.call(tombstones::latest);
+                } catch (IOException e) {
+                    tombstonesUnavailable(e);
+                }
+            }
+            List<JSONObject> rows = RequestPriority.BACKGROUND.call(() -> {
+                List<JSONObject> all = new ArrayList<>();
+                try {
+                    for (Iterator<List<JSONObject>> pages = pager.pages(); pages.hasNext(); ) {
+                        for (JSONObject row : pages.next()) {
+                            all.add(stripped(table, row));
+                        }
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                return all;
+            });
+            table.replaceAll(rows, started, deltaEnabled ? changes(table).latestOf(rows) : null, tombstoneWatermark);
+            span.tag("rows", rows.size());
+            table.saveIfDirty();
+        }
+    }
+
+    private ReplicaDelta changes(ReplicaTable table) {
+        SupabaseTransport transport = SupabaseTransport.getInstance();
+        return new ReplicaDelta(table.getName(), changedColumn, table.getKeyColumn(), columnsOf(table), null,
+                KeysetPager.DEFAULT_PAGE_SIZE, overlap, endpoint -> fetchRows(transport, endpoint));
+    }
+
+    /**
+     * @return A reader of the table's delete tombstones, or null if there is no tombstone table.
+     */
+    private ReplicaDelta tombstones(ReplicaTable table) {
+        if (!deltaEnabled || tombstoneTable == null || !tombstonesAvailable) {
+            return null;
+        }
+        SupabaseTransport transport = SupabaseTransport.getInstance();
+        return new ReplicaDelta(tombstoneTable, TOMBSTONE_TIME_COLUMN, TOMBSTONE_ID_COLUMN, null,
+                TOMBSTONE_TABLE_COLUMN + "=eq." + table.getName(), KeysetPager.DEFAULT_PAGE_SIZE, overlap,
+                endpoint -> fetchRows(transport, endpoint));
+    }
+
+    private void tombstonesUnavailable(IOException e) throws IOException {
+        if (!isSchemaError(e)) {
+            throw e;
+        }
+        // Deletes are then only seen by full synchronizations and realtime changes
+        tombstonesAvailable = false;
+        LOG.info("replica.tombstones_unavailable", "table", tombstoneTable, "error", e.getMessage());
+    }
+
+    /**
+     * Tells whether a request failed because a column or table does not exist, rather than for a transient reason.
+     */
+    private static boolean isSchemaError(IOException e) {
+        String message = String.valueOf(e.getMessage());
+        return message.contains("42703") || message.contains("42P01")
+                || message.contains("PGRST204") || message.contains("PGRST205");
+    }
+
+    private static List<JSONObject> fetchRows(SupabaseTransport transport, String endpoint) throws IOException {
+        List<JSONObject> rows = new ArrayList<>();
+        try (JsonRowReader<JSONObject> reader = transport.getRows(endpoint, JsonCodec.JSON_OBJECT)) {
+            reader.forEachRemaining(rows::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    private List<JSONObject> embed(List<JSONObject> rows, List<ReplicaQuery.Embed> embeds) {
+        List<JSONObject> embedded = new ArrayList<>(rows.size());
+        for (JSONObject row : rows) {
+            // Rows are shared with the table, so embeds go on a copy
+            JSONObject copy = ReplicaTable.copy(row);
+            for (ReplicaQuery.Embed embed : embeds) {
+                ReplicaTable target = tables.get(embed.table());
+                Object reference = row.opt(target.getReferenceColumn());
+                JSONObject referenced = reference == null || reference == JSONObject.NULL
+                        ? null : target.findReferenced(ReplicaQuery.text(reference));
+                copy.put(embed.alias(), referenced == null ? JSONObject.NULL : referenced);
+            }
+            embedded.add(copy);
+        }
+        return embedded;
+    }
+
+    private ReplicaTable availableTable(String name) {
+        ReplicaTable table = tables.get(name);
+        return table != null && table.getSyncedAt() > 0 ? table : null;
+    }
+
+    /**
+     * Gets the columns to read from a table, so that secrets are not downloaded at all.
+     *
+     * @return A PostgREST column list, or null to read every column.
+     */
+    private String columnsOf(ReplicaTable table) {
+        if (!table.getName().equals("users")) {
+            return null;
+        }
+        // Deltas and the watermark of a full read need the change timestamp as well
+        return deltaEnabled && !fullOnly.contains(table.getName()) ? userColumns + "," + changedColumn : userColumns;
+    }
+
+    private static JSONObject stripped(ReplicaTable table, JSONObject row) {
+        if (table.getName().equals("users")) {
+            row.remove(PASSWORD_COLUMN);
+        }
+        return row;
+    }
+
+    /**
+     * Writes a table on the sync thread, so that callers (often the FX thread) never wait for the disk.
+     */
+    private void saveLater(ReplicaTable table) {
+        Runnable save = () -> {
+            try {
+                table.saveIfDirty();
+            } catch (IOException e) {
+                LOG.warn("replica.save_failed", e, "table", table.getName());
+            }
+        };
+        if (scheduler == null) {
+            save.run();
+        } else {
+            scheduler.execute(save);
+        }
+    }
+
+    private static String tableName(String path) {
+        if (!path.startsWith(REST_PREFIX)) {
+            return null;
+        }
+        int query = path.indexOf('?');
+        return query < 0 ? path.substring(REST_PREFIX.length()) : path.substring(REST_PREFIX.length(), query);
+    }
+}
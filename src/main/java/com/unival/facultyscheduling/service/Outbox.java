@@ -0,0 +1,863 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Outbox is the durable write-behind queue for inserts of schedules, evaluations, comments and reactions.
+ * <p>
+ * A write is committed locally first: it is appended to an on-disk journal (outbox.file, default
+ * ~/.unival/outbox.jsonl) and forced to disk, and the row is shown in the {@link LocalReplica} under a local ID
+ * ({@value #LOCAL_ID_PREFIX} followed by the write's idempotency key). The caller gets control back at once. A
+ * background worker then sends pending writes to Supabase:
+ * <ul>
+ *     <li>Coalescing: pending writes to the same table with the same columns are sent as one array insert of up to
+ *     outbox.batchSize rows (default 100). A batch rejected because of its data is retried row by row so that only
+ *     the offending rows fail.</li>
+ *     <li>Ordering: a write that refers to another write's local ID, such as a reply or a reaction to a comment that
+ *     is still pending, waits until that write has been sent, and the local ID is then replaced by the real one.
+ *     Writes that do not refer to each other are independent: one that fails or is backing off holds back only
+ *     the writes that depend on it.</li>
+ *     <li>Retries: while Supabase is unreachable or failing, writes stay pending and are retried with exponential
+ *     backoff. Writes rejected by Supabase become failed and can be retried or discarded by the user.</li>
+ *     <li>Replay: the journal is read on startup, so writes that were pending or failed when the application
+ *     stopped are sent after a restart. The journal is compacted whenever it holds no unsent writes.</li>
+ *     <li>Idempotency: every write has a unique key, stored in outbox.idempotencyColumn (default idempotency_key,
+ *     added with a unique constraint by the migration 20261017000000_outbox_idempotency_key.sql). Inserts ignore
+ *     duplicates of the key, so a write whose response was lost is retried without being inserted twice. With the
+ *     column disabled, a write whose outcome is unknown (the request may have reached Supabase, but no answer
+ *     did, or the application stopped while it was being sent) is never resent automatically: it becomes failed,
+ *     and the user decides whether to retry it.</li>
+ * </ul>
+ * State changes are reported to listeners on the worker thread; UI code must hop back with
+ * {@code Platform.runLater}.
+ */
+public final class Outbox {
+    private static final Log LOG = Log.get(Outbox.class);
+    /** The prefix of the IDs that pending rows carry until Supabase has assigned their real ID. */
+    public static final String LOCAL_ID_PREFIX = "local-";
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final String DEFAULT_IDEMPOTENCY_COLUMN = "idempotency_key";
+    // Gateway errors: the proxy lost the answer, so the insert behind it may or may not have been committed
+    private static final Set<Integer> UNKNOWN_OUTCOME_STATUSES = Set.of(502, 504);
+    private static final String UNKNOWN_OUTCOME = "Outcome unknown, the row may already be stored; check before retrying";
+
+    /**
+     * The state of a write.
+     */
+    public enum State {
+        /** Committed locally and waiting to be sent. */
+        PENDING,
+        /** Stored by Supabase. */
+        SENT,
+        /** Rejected by Supabase; waits for {@link #retry(String)} or {@link #discard(String)}. */
+        FAILED,
+        /** Dropped by {@link #discard(String)}. */
+        DISCARDED
+    }
+
+    /**
+     * One journaled write.
+     */
+    public static final class Entry {
+        private final String key;
+        private final String table;
+        private final String keyColumn;
+        private final String localId;
+        private final String createdAt;
+        // Replaced, never modified, so that readers see a consistent row without holding the outbox lock
+        private volatile JSONObject row;
+        private volatile State state = State.PENDING;
+        private volatile String serverId;
+        private volatile String error;
+        private int attempts;
+        private long retryAt;
+        // Journaled as sending and not yet sent or failed; only tracked without an idempotency column
+        private boolean inFlight;
+        private final CompletableFuture<JSONObject> completion = new CompletableFuture<>();
+
+        private Entry(String key, String table, String keyColumn, String createdAt, JSONObject row) {
+            this.key = key;
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.localId = LOCAL_ID_PREFIX + key;
+            this.createdAt = createdAt;
+            this.row = row;
+        }
+
+        /**
+         * @return The idempotency key of the write.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * @return The ID the row has locally until it has been sent.
+         */
+        public String getLocalId() {
+            return localId;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return The ID Supabase assigned, or null until the write has been sent.
+         */
+        public String getServerId() {
+            return serverId;
+        }
+
+        /**
+         * @return Why the write failed, or null.
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Gets a future that completes with the stored row once Supabase has accepted the write. It completes
+         * exceptionally if the write is rejected or discarded.
+         *
+         * @return The completion of the write.
+         */
+        public CompletableFuture<JSONObject> getCompletion() {
+            return completion;
+        }
+
+        /**
+         * @return A copy of the columns being inserted.
+         */
+        public JSONObject getRow() {
+            return ReplicaTable.copy(row);
+        }
+
+        /**
+         * @return The row as it is shown locally until it has been sent: with its local ID and creation time.
+         */
+        JSONObject localRow() {
+            JSONObject local = ReplicaTable.copy(row);
+            local.put(keyColumn, localId);
+            if (!local.has("created_at")) {
+                local.put("created_at", createdAt);
+            }
+            return local;
+        }
+    }
+
+    private static Outbox instance;
+
+    private final Path file;
+    private final int batchSize;
+    private final long flushDelayMillis;
+    private final String idempotencyColumn;
+    private final LocalReplica replica = LocalReplica.getInstance();
+    private final SupabaseTransport transport = SupabaseTransport.getInstance();
+    private final ScheduledExecutorService worker;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final List<Consumer<Entry>> listeners = new CopyOnWriteArrayList<>();
+    // Unsent writes (pending and failed), in the order they were made
+    private final Map<String, Entry> live = new LinkedHashMap<>();
+    private final Map<String, Entry> byLocalId = new HashMap<>();
+    private FileChannel journal;
+
+    private Outbox() {
+        this(Path.of(AppConfig.getString("outbox.file",
+                        Path.of(System.getProperty("user.home"), ".unival", "outbox.jsonl").toString())),
+                AppConfig.getInt("outbox.batchSize", 100),
+                AppConfig.getInt("outbox.flushDelayMillis", 50),
+                AppConfig.getString("outbox.idempotencyColumn", DEFAULT_IDEMPOTENCY_COLUMN),
+                AppConfig.getInt("outbox.retryIntervalSeconds", 5));
+    }
+
+    /**
+     * Opens an outbox on a journal and replays it. Only {@link #getInstance()} and tests create outboxes.
+     */
+    Outbox(Path file, int batchSize, long flushDelayMillis, String idempotencyColumn, long retryIntervalSeconds) {
+        this.file = file;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushDelayMillis = Math.max(0, flushDelayMillis);
+        this.idempotencyColumn = idempotencyColumn == null || idempotencyColumn.isBlank() ? null : idempotencyColumn.trim();
+        try {
+            replay();
+        } catch (IOException e) {
+            LOG.error("outbox.replay_failed", e, "file", file);
+        }
+        this.worker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "outbox-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, retryIntervalSeconds);
+        worker.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+        synchronized (this) {
+            if (!live.isEmpty()) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * Returns the shared outbox, replaying its journal on first use.
+     *
+     * @return The application-wide outbox.
+     */
+    public static synchronized Outbox getInstance() {
+        if (instance == null) {
+            instance = new Outbox();
+        }
+        return instance;
+    }
+
+    /**
+     * Commits an insert locally and queues it for Supabase.
+     *
+     * @param table     The table, e.g. "comments".
+     * @param keyColumn The table's primary key column; the pending row carries its local ID there.
+     * @param row       The columns to insert; local IDs of other pending writes make it wait for them.
+     * @return The journaled write.
+     * @throws IOException if the journal cannot be written; the write is then not committed.
+     */
+    Entry enqueue(String table, String keyColumn, JSONObject row) throws IOException {
+        Entry entry = new Entry(UUID.randomUUID().toString(), table, keyColumn,
+                OffsetDateTime.now(ZoneOffset.UTC).toString(), ReplicaTable.copy(row));
+        try (Span span = Tracer.start("outbox.enqueue", "table", table)) {
+            synchronized (this) {
+                append(new JSONObject()
+                        .put("op", "add")
+                        .put("key", entry.key)
+                        .put("table", table)
+                        .put("keyColumn", keyColumn)
+                        .put("at", entry.createdAt)
+                        .put("row", entry.row));
+                live.put(entry.key, entry);
+                byLocalId.put(entry.localId, entry);
+                span.tag("pending", live.size());
+            }
+        }
+        replica.pin(table, entry.localRow());
+        scheduleFlush();
+        return entry;
+    }
+
+    /**
+     * Gets the state of a row that has not been stored by Supabase yet.
+     *
+     * @param id A row ID, e.g. a comment's commentId.
+     * @return PENDING or FAILED for a local ID of an unsent write, or null for any other ID.
+     */
+    public State getState(String id) {
+        if (id == null || !id.startsWith(LOCAL_ID_PREFIX)) {
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = byLocalId.get(id);
+            return entry == null ? null : entry.state;
+        }
+    }
+
+    /**
+     * Gets the writes that have not been stored yet.
+     *
+     * @return The pending and failed writes, oldest first.
+     */
+    public synchronized List<Entry> getUnsent() {
+        return new ArrayList<>(live.values());
+    }
+
+    /**
+     * Gets the rows of a table that are committed locally but not yet sent; failed writes are left out, as Supabase
+     * has already refused them.
+     *
+     * @param table The table, e.g. "schedules".
+     * @return The pending rows as they are shown locally, oldest first.
+     */
+    synchronized List<JSONObject> getPendingRows(String table) {
+        List<JSONObject> rows = new ArrayList<>();
+        for (Entry entry : live.values()) {
+            if (entry.state == State.PENDING && entry.table.equals(table)) {
+                rows.add(entry.localRow());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Queues a failed write again.
+     *
+     * @param localId The write's local ID.
+     */
+    public void retry(String localId) {
+        Entry entry;
+        synchronized (this) {
+            entry = byLocalId.get(localId);
+            if (entry == null || entry.state != State.FAILED) {
+                return;
+            }
+            entry.state = State.PENDING;
+            entry.error = null;
+            entry.attempts = 0;
+            entry.retryAt = 0;
+            appendQuietly(new JSONObject().put("op", "retry").put("key", entry.key));
+        }
+        notifyListeners(entry);
+        scheduleFlush();
+    }
+
+    /**
+     * Drops an unsent write, and every write that refers to it, e.g. the replies to a discarded comment.
+     *
+     * @param localId The write's local ID.
+     */
+    public void discard(String localId) {
+        List<Entry> discarded = new ArrayList<>();
+        synchronized (this) {
+            Entry entry = byLocalId.get(localId);
+            if (entry == null) {
+                return;
+            }
+            collectDependents(entry, discarded);
+            for (Entry dropped : discarded) {
+                appendQuietly(new JSONObject().put("op", "discard").put("key", dropped.key));
+                live.remove(dropped.key);
+                byLocalId.remove(dropped.localId);
+                dropped.state = State.DISCARDED;
+            }
+        }
+        for (Entry dropped : discarded) {
+            replica.unpin(dropped.table, dropped.localId);
+            dropped.completion.completeExceptionally(new CancellationException("Write discarded"));
+            notifyListeners(dropped);
+        }
+    }
+
+    /**
+     * Registers a listener for state changes of writes.
+     *
+     * @param listener Called on the worker thread whenever a write is sent, fails, is retried or is discarded.
+     */
+    public void addListener(Consumer<Entry> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Entry> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sends every pending write that is due now, on the calling thread.
+     */
+    public void flush() {
+        // One flush at a time, or two could send the same writes
+        synchronized (flushLock) {
+            List<List<Entry>> batches;
+            synchronized (this) {
+                batches = planBatches(System.currentTimeMillis());
+            }
+            if (batches.isEmpty()) {
+                return;
+            }
+            try {
+                Tracer.run("outbox.flush", () -> batches.forEach(this::send), "batches", batches.size());
+            } catch (RuntimeException e) {
+                LOG.error("outbox.flush_failed", e);
+            }
+            synchronized (this) {
+                if (live.isEmpty()) {
+                    compactQuietly();
+                }
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            // The short delay lets a burst of writes go out as one batch
+            worker.schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Groups the due writes into batches of one table and column set, in the order they were made. A write that
+     * refers to an unsent write is left for a later round, so it never reaches Supabase before the row it refers to.
+     */
+    private List<List<Entry>> planBatches(long now) {
+        Map<String, List<Entry>> batches = new LinkedHashMap<>();
+        for (Entry entry : live.values()) {
+            if (entry.state != State.PENDING || entry.retryAt > now || waitsForUnsent(entry)) {
+                continue;
+            }
+            List<Entry> batch = batches.computeIfAbsent(entry.table + new TreeSet<>(entry.row.keySet()), k -> new ArrayList<>());
+            if (batch.size() < batchSize) {
+                batch.add(entry);
+            }
+        }
+        return new ArrayList<>(batches.values());
+    }
+
+    private boolean waitsForUnsent(Entry entry) {
+        for (String column : entry.row.keySet()) {
+            Object value = entry.row.get(column);
+            if (value instanceof String text && text.startsWith(LOCAL_ID_PREFIX) && byLocalId.containsKey(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void send(List<Entry> batch) {
+        String table = batch.get(0).table;
+        JSONArray body = new JSONArray();
+        for (Entry entry : batch) {
+            JSONObject row = ReplicaTable.copy(entry.row);
+            if (idempotencyColumn != null) {
+                row.put(idempotencyColumn, entry.key);
+            }
+            body.put(row);
+        }
+        String path = "/rest/v1/" + table + (idempotencyColumn == null ? "" : "?on_conflict=" + idempotencyColumn);
+        HttpRequest request;
+        try {
+            request = transport.newRequest(path)
+                    .header("Prefer", idempotencyColumn == null
+                            ? "return=representation" : "return=representation,resolution=ignore-duplicates")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+        } catch (IOException e) {
+            backOff(batch, e.toString());
+            return;
+        }
+        if (idempotencyColumn == null) {
+            markInFlight(batch);
+        }
+        try (Span span = Tracer.start("outbox.send", "table", table, "rows", batch.size())) {
+            HttpResponse<String> response;
+            try {
+                response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                if (idempotencyColumn == null && !SupabaseTransport.neverSent(e)) {
+                    markUnknown(batch, e.toString());
+                } else {
+                    backOff(batch, e.toString());
+                }
+                return;
+            }
+            int status = response.statusCode();
+            if (status == 200 || status == 201) {
+                try {
+                    markSent(batch, storedRows(table, batch, response.body()));
+                } catch (IOException | JSONException e) {
+                    if (idempotencyColumn == null) {
+                        // Stored, but the rows cannot be told apart; sending them again would store them twice
+                        markUnknown(batch, e.toString());
+                    } else {
+                        backOff(batch, e.toString());
+                    }
+                }
+            } else if (status == 400 || status == 409 || status == 422) {
+                if (batch.size() > 1) {
+                    // The batch was rejected as a whole; send the rows one by one so that only the offending ones fail
+                    for (Entry entry : batch) {
+                        send(List.of(entry));
+                    }
+                } else {
+                    markFailed(batch.get(0), "HTTP " + status + ": " + response.body());
+                }
+            } else {
+                span.tag("status", status);
+                if (idempotencyColumn == null && UNKNOWN_OUTCOME_STATUSES.contains(status)) {
+                    markUnknown(batch, "HTTP " + status);
+                } else {
+                    backOff(batch, "HTTP " + status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches the rows in an insert response to the writes of the batch: by idempotency key if there is a key
+     * column, otherwise by position. Rows that already existed are not returned when duplicates are ignored, so
+     * they are read back by key.
+     */
+    private List<JSONObject> storedRows(String table, List<Entry> batch, String body) throws IOException {
+        JSONArray rows = new JSONArray(body);
+        List<JSONObject> stored = new ArrayList<>(batch.size());
+        if (idempotencyColumn == null) {
+            if (rows.length() != batch.size()) {
+                throw new IOException("Insert into " + table + " returned " + rows.length() + " rows for " + batch.size());
+            }
+            for (int i = 0; i < rows.length(); i++) {
+                stored.add(rows.getJSONObject(i));
+            }
+            return stored;
+        }
+        Map<String, JSONObject> byKey = new HashMap<>();
+        collectByKey(rows, byKey);
+        List<String> missing = new ArrayList<>();
+        for (Entry entry : batch) {
+            if (!byKey.containsKey(entry.key)) {
+                missing.add(entry.key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            String endpoint = "/rest/v1/" + table + "?" + idempotencyColumn + "=in.("
+                    + URLEncoder.encode(String.join(",", missing), StandardCharsets.UTF_8) + ")";
+            HttpResponse<String> response = transport.get(endpoint);
+            if (response.statusCode() != 200) {
+                throw new IOException("GET " + endpoint + " failed with status " + response.statusCode());
+            }
+            collectByKey(new JSONArray(response.body()), byKey);
+        }
+        for (Entry entry : batch) {
+            JSONObject row = byKey.get(entry.key);
+            if (row == null) {
+                throw new IOException("Insert into " + table + " did not store write " + entry.key);
+            }
+            stored.add(row);
+        }
+        return stored;
+    }
+
+    private void collectByKey(JSONArray rows, Map<String, JSONObject> byKey) {
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.getJSONObject(i);
+            byKey.put(row.optString(idempotencyColumn), row);
+        }
+    }
+
+    private void markSent(List<Entry> batch, List<JSONObject> stored) {
+        List<JSONObject> repinned = new ArrayList<>();
+        List<Entry> repinnedEntries = new ArrayList<>();
+        synchronized (this) {
+            StringBuilder records = new StringBuilder();
+            for (int i = 0; i < batch.size(); i++) {
+                Entry entry = batch.get(i);
+                JSONObject row = stored.get(i);
+                Object id = row.opt(entry.keyColumn);
+                entry.serverId = id == null || id == JSONObject.NULL ? row.optString("id", null) : ReplicaQuery.text(id);
+                entry.state = State.SENT;
+                live.remove(entry.key);
+                byLocalId.remove(entry.localId);
+                records.append(new JSONObject().put("op", "sent").put("key", entry.key).put("id", entry.serverId)).append('\n');
+                // Writes that referred to the pending row now refer to the stored one
+                for (Entry dependent : live.values()) {
+                    if (substitute(dependent, entry.localId, entry.serverId)) {
+                        repinnedEntries.add(dependent);
+                    }
+                }
+            }
+            appendQuietly(records.toString());
+            for (Entry dependent : repinnedEntries) {
+                repinned.add(dependent.localRow());
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            replica.confirm(entry.table, entry.localId, stored.get(i));
+            entry.completion.complete(stored.get(i));
+            notifyListeners(entry);
+        }
+        for (int i = 0; i < repinnedEntries.size(); i++) {
+            replica.pin(repinnedEntries.get(i).table, repinned.get(i));
+        }
+        LOG.debug("outbox.sent", "table", batch.get(0).table, "rows", batch.size());
+    }
+
+    private void markFailed(Entry entry, String error) {
+        LOG.warn("outbox.rejected", "table", entry.table, "key", entry.key, "error", Log.body(error));
+        fail(entry, error, "Insert into " + entry.table + " was rejected: " + error);
+    }
+
+    /**
+     * Fails writes that may or may not have been stored, so that they are not sent again without the user's say.
+     */
+    private void markUnknown(List<Entry> batch, String error) {
+        LOG.warn("outbox.outcome_unknown", "table", batch.get(0).table, "rows", batch.size(), "error", error);
+        for (Entry entry : batch) {
+            fail(entry, UNKNOWN_OUTCOME + " (" + error + ")", "Insert into " + entry.table + " may not have been stored: " + error);
+        }
+    }
+
+    private void fail(Entry entry, String error, String message) {
+        synchronized (this) {
+            entry.state = State.FAILED;
+            entry.error = error;
+            entry.inFlight = false;
+            appendQuietly(new JSONObject().put("op", "failed").put("key", entry.key).put("error", error));
+        }
+        entry.completion.completeExceptionally(new IOException(message));
+        notifyListeners(entry);
+    }
+
+    /**
+     * Journals that writes are about to be sent, so that a restart in the middle of the request does not send them
+     * again.
+     */
+    private void markInFlight(List<Entry> batch) {
+        synchronized (this) {
+            StringBuilder records = new StringBuilder();
+            for (Entry entry : batch) {
+                entry.inFlight = true;
+                records.append(new JSONObject().put("op", "sending").put("key", entry.key)).append('\n');
+            }
+            appendQuietly(records.toString());
+        }
+    }
+
+    private void backOff(List<Entry> batch, String error) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            StringBuilder records = new StringBuilder();
+            for (Entry entry : batch) {
+                if (entry.inFlight) {
+                    // The request certainly did not store the row, so it is safe to send again after a restart
+                    entry.inFlight = false;
+                    records.append(new JSONObject().put("op", "unsent").put("key", entry.key)).append('\n');
+                }
+                entry.attempts++;
+                entry.retryAt = now + Math.min(MAX_BACKOFF_MILLIS, 500L << Math.min(entry.attempts - 1, 16));
+            }
+            if (!records.isEmpty()) {
+                appendQuietly(records.toString());
+            }
+        }
+        LOG.debug("outbox.retry_later", "table", batch.get(0).table, "rows", batch.size(), "error", error);
+    }
+
+    private static boolean substitute(Entry entry, String localId, String serverId) {
+        JSONObject row = null;
+        for (String column : entry.row.keySet()) {
+            if (localId.equals(entry.row.opt(column))) {
+                row = row == null ? ReplicaTable.copy(entry.row) : row;
+                row.put(column, serverId);
+            }
+        }
+        if (row != null) {
+            entry.row = row;
+        }
+        return row != null;
+    }
+
+    private void collectDependents(Entry entry, List<Entry> into) {
+        into.add(entry);
+        for (Entry other : live.values()) {
+            if (!into.contains(other) && other.row.toString().contains("\"" + entry.localId + "\"")) {
+                collectDependents(other, into);
+            }
+        }
+    }
+
+    private void notifyListeners(Entry entry) {
+        for (Consumer<Entry> listener : listeners) {
+            try {
+                listener.accept(entry);
+            } catch (RuntimeException e) {
+                LOG.warn("outbox.listener_failed", e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the unsent writes from the journal, then rewrites it with only those writes.
+     */
+    private synchronized void replay() throws IOException {
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        replayRecord(new JSONObject(line));
+                    } catch (JSONException e) {
+                        // A record torn by a crash can only be the last one, and its write was never acknowledged
+                        LOG.warn("outbox.torn_record", "file", file);
+                    }
+                }
+            }
+        }
+        for (Entry entry : live.values()) {
+            if (entry.inFlight && entry.state == State.PENDING) {
+                entry.state = State.FAILED;
+                entry.error = UNKNOWN_OUTCOME + " (the application stopped while it was being sent)";
+            }
+        }
+        compact();
+        for (Entry entry : live.values()) {
+            replica.pin(entry.table, entry.localRow());
+        }
+        if (!live.isEmpty()) {
+            LOG.info("outbox.replayed", "unsent", live.size());
+        }
+    }
+
+    private void replayRecord(JSONObject record) {
+        Entry entry = live.get(record.optString("key"));
+        switch (record.optString("op")) {
+            case "add" -> {
+                Entry added = new Entry(record.getString("key"), record.getString("table"),
+                        record.getString("keyColumn"), record.optString("at", null),
+                        record.getJSONObject("row"));
+                live.put(added.key, added);
+                byLocalId.put(added.localId, added);
+            }
+            case "sent" -> {
+                if (entry != null) {
+                    live.remove(entry.key);
+                    byLocalId.remove(entry.localId);
+                    String serverId = record.optString("id", null);
+                    if (serverId != null) {
+                        for (Entry dependent : live.values()) {
+                            substitute(dependent, entry.localId, serverId);
+                        }
+                    }
+                }
+            }
+            case "sending" -> {
+                if (entry != null) {
+                    entry.inFlight = true;
+                }
+            }
+            case "unsent" -> {
+                if (entry != null) {
+                    entry.inFlight = false;
+                }
+            }
+            case "failed" -> {
+                if (entry != null) {
+                    entry.state = State.FAILED;
+                    entry.error = record.optString("error", null);
+                    entry.inFlight = false;
+                }
+            }
+            case "retry" -> {
+                if (entry != null) {
+                    entry.state = State.PENDING;
+                    entry.error = null;
+                }
+            }
+            case "discard" -> {
+                if (entry != null) {
+                    live.remove(entry.key);
+                    byLocalId.remove(entry.localId);
+                }
+            }
+            default -> LOG.warn("outbox.unknown_record", "op", record.optString("op"));
+        }
+    }
+
+    /**
+     * Replaces the journal with one that holds only the unsent writes, as they are now.
+     */
+    private void compact() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Entry entry : live.values()) {
+                out.write(new JSONObject()
+                        .put("op", "add")
+                        .put("key", entry.key)
+                        .put("table", entry.table)
+                        .put("keyColumn", entry.keyColumn)
+                        .put("at", entry.createdAt)
+                        .put("row", entry.row) + "\n");
+                if (entry.state == State.FAILED) {
+                    out.write(new JSONObject().put("op", "failed").put("key", entry.key).put("error", entry.error) + "\n");
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            LOG.warn("outbox.compact_failed", e, "file", file);
+        }
+    }
+
+    /**
+     * Appends records to the journal and forces them to disk before returning.
+     */
+    private void append(Object records) throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        String text = records.toString();
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.endsWith("\n") ? text : text + "\n");
+        while (bytes.hasRemaining()) {
+            journal.write(bytes);
+        }
+        journal.force(false);
+    }
+
+    private void appendQuietly(Object records) {
+        try {
+            append(records);
+        } catch (IOException e) {
+            // The write is still tracked in memory; at worst it is sent again after a restart
+            LOG.warn("outbox.journal_failed", e, "file", file);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher hashes and verifies passwords with PBKDF2-HMAC-SHA256 on a dedicated, bounded pool of threads.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>Hashes are stored as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} (salt and hash in Base64), so each
+ *     hash is verified with the iteration count it was created with.</li>
+ *     <li>The iteration count for new hashes is auth.hash.iterations, or, when that is not set, calibrated once so
+ *     that one hash takes about auth.hash.targetMillis (default 200) on this machine, never fewer than
+ *     auth.hash.minIterations (default 100000).</li>
+ *     <li>Hashing runs on auth.hash.threads platform threads (default: the number of processors) with at most
+ *     auth.hash.queueSize (default 256) waiting; further requests fail at once instead of piling up, so a login
+ *     rush degrades into quick "try again" errors rather than unbounded latency.</li>
+ *     <li>Passwords stored by earlier versions as Base64(SHA-256(password + salt)) followed by the salt are still
+ *     verified, and {@link #needsRehash} reports them (and hashes with fewer iterations than today's) so they can be
+ *     upgraded after a successful login.</li>
+ * </ul>
+ * <p>
+ * Note: This class is designed for static utility use and is not intended to be instantiated.
+ */
+public final class PasswordHasher {
+    private static final Log LOG = Log.get(PasswordHasher.class);
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    // Base64 of a SHA-256 digest, which the legacy format puts before the salt
+    private static final int LEGACY_HASH_LENGTH = 44;
+    private static final int CALIBRATION_ITERATIONS = 20_000;
+    private static final SecureRandom secureRandom = new SecureRandom();
+    private static final ThreadPoolExecutor executor = newExecutor();
+    private static final CompletableFuture<Integer> iterations = new CompletableFuture<>();
+    // Guarded by iterations
+    private static boolean calibrating;
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Determines the iteration count for new hashes, if that has not happened yet. Call this at startup so that the
+     * first login does not wait for the calibration.
+     *
+     * @return A future completing with the iteration count.
+     */
+    public static CompletableFuture<Integer> calibrate() {
+        synchronized (iterations) {
+            if (iterations.isDone() || calibrating) {
+                return iterations.copy();
+            }
+            int configured = AppConfig.getInt("auth.hash.iterations", 0);
+            if (configured > 0) {
+                iterations.complete(configured);
+                return iterations.copy();
+            }
+            try {
+                executor.execute(Tracer.wrap(PasswordHasher::measure));
+                calibrating = true;
+            } catch (RejectedExecutionException e) {
+                // Only possible if the queue is already full; the next call tries again
+                LOG.warn("hash.calibration_deferred");
+            }
+            return iterations.copy();
+        }
+    }
+
+    /**
+     * Hashes a new password with a fresh salt.
+     *
+     * @param password The plain text password.
+     * @return A future completing with the encoded hash, or exceptionally with an {@link IOException} if too many
+     *         hashes are already waiting.
+     */
+    public static CompletableFuture<String> hashAsync(String password) {
+        return calibrate().thenCompose(count -> submit(() -> {
+            byte[] salt = new byte[SALT_BYTES];
+            secureRandom.nextBytes(salt);
+            Base64.Encoder base64 = Base64.getEncoder();
+            return PREFIX + count + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(pbkdf2(password, salt, count));
+        }));
+    }
+
+    /**
+     * Checks a password against a stored hash, in the current or the legacy format.
+     *
+     * @param password The plain text password.
+     * @param stored   The stored hash.
+     * @return A future completing with true if the password matches, false if it does not or the stored value is
+     *         not a hash in a known format, or exceptionally with an {@link IOException} if too many hashes are
+     *         already waiting.
+     */
+    public static CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        if (stored == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return submit(() -> {
+            if (stored.startsWith(PREFIX)) {
+                String[] parts = stored.split("\\$");
+                if (parts.length != 4) {
+                    return false;
+                }
+                try {
+                    Base64.Decoder base64 = Base64.getDecoder();
+                    return MessageDigest.isEqual(base64.decode(parts[3]),
+                            pbkdf2(password, base64.decode(parts[2]), Integer.parseInt(parts[1])));
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+            if (stored.length() <= LEGACY_HASH_LENGTH) {
+                return false;
+            }
+            String salt = stored.substring(LEGACY_HASH_LENGTH);
+            byte[] expected = stored.substring(0, LEGACY_HASH_LENGTH).getBytes(StandardCharsets.US_ASCII);
+            byte[] actual = Base64.getEncoder().encode(sha256((password + salt).getBytes()));
+            return MessageDigest.isEqual(expected, actual);
+        });
+    }
+
+    /**
+     * Checks whether a stored hash should be replaced after a successful login: legacy SHA-256 hashes, and hashes
+     * with fewer iterations than new ones get.
+     *
+     * @param stored The stored hash.
+     * @return true if the password should be hashed again.
+     */
+    public static boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        Integer current = iterations.getNow(null);
+        if (current == null) {
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < current;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Blocks until a hashing future completes, translating its failure into the checked exception of the sync API.
+     */
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Password hashing failed", cause);
+        }
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(Tracer.wrap(() -> Tracer.call("password.hash", task::get)), executor);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("hash.rejected", "queued", executor.getQueue().size());
+            return CompletableFuture.failedFuture(new IOException("Too many logins in progress, please try again"));
+        }
+    }
+
+    private static void measure() {
+        int target = AppConfig.getInt("auth.hash.targetMillis", 200);
+        int min = AppConfig.getInt("auth.hash.minIterations", 100_000);
+        byte[] salt = new byte[SALT_BYTES];
+        long best = Long.MAX_VALUE;
+        try {
+            // The first rounds also warm up the JIT; the fastest one is the steady-state cost
+            for (int i = 0; i < 5; i++) {
+                long started = System.nanoTime();
+                pbkdf2("calibration", salt, CALIBRATION_ITERATIONS);
+                best = Math.min(best, System.nanoTime() - started);
+            }
+        } catch (RuntimeException e) {
+            LOG.error("hash.calibration_failed", e);
+            iterations.complete(min);
+            return;
+        }
+        long scaled = (long) CALIBRATION_ITERATIONS * target * 1_000_000L / Math.max(1, best);
+        int count = (int) Math.max(min, Math.min(Integer.MAX_VALUE, scaled / 1000 * 1000));
+        LOG.info("hash.calibrated", "iterations", count, "targetMillis", target,
+                "micros_per_1000", best / CALIBRATION_ITERATIONS);
+        iterations.complete(count);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int count) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, count, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        int threads = Math.max(1, AppConfig.getInt("auth.hash.threads", Runtime.getRuntime().availableProcessors()));
+        int queueSize = Math.max(1, AppConfig.getInt("auth.hash.queueSize", 256));
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,192 @@
+package com.unival.facultyscheduling.service;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+ * ReplicaDelta reads the rows of a table that changed since a watermark, for {@link LocalReplica}.
+ * <p>
+ * A watermark is the (change timestamp, primary key) of the last row seen. Rows are requested ordered by both
+ * columns and paged with the pair as a keyset cursor, so rows sharing a timestamp are neither skipped nor repeated
+ * across pages. Each read starts a little before the watermark (replica.delta.overlapSeconds): a timestamp is set
+ * when a transaction starts but the row only becomes visible when it commits, so a slow transaction can commit rows
+ * older than a watermark that has already moved on. Rows read twice are simply applied twice.
+ * <p>
+ * Rows whose change timestamp is null are never returned; they are picked up by the periodic full synchronization.
+ */
+final class ReplicaDelta {
+    /**
+     * The position of the last change seen.
+     *
+     * @param at  The change timestamp, as returned by Supabase.
+     * @param key The primary key of the row, as text.
+     */
+    record Watermark(String at, String key) {
+    }
+
+    /**
+     * The result of a read.
+     *
+     * @param rows      The changed rows, oldest change first.
+     * @param watermark The watermark to continue from next time.
+     */
+    record Changes(List<JSONObject> rows, Watermark watermark) {
+    }
+
+    private final String table;
+    private final String changedColumn;
+    private final String keyColumn;
+    private final String columns;
+    private final String filter;
+    private final int pageSize;
+    private final Duration overlap;
+    private final KeysetPager.PageFetcher<JSONObject> fetcher;
+
+    /**
+     * @param table         The table, e.g. "schedules".
+     * @param changedColumn The column holding when a row last changed, e.g. "updated_at".
+     * @param keyColumn     The primary key column, used to break ties between rows changed at the same time.
+     * @param columns       The columns to read (e.g. "id,email,updated_at"), or null to read every column; it must
+     *                      include the change and key columns.
+     * @param filter        Additional PostgREST query parameters (e.g. "table_name=eq.users"), or null.
+     * @param pageSize      The maximum number of rows per request.
+     * @param overlap       How far before the watermark each read starts.
+     * @param fetcher       Performs the requests.
+     */
+    ReplicaDelta(String table, String changedColumn, String keyColumn, String columns, String filter, int pageSize,
+                 Duration overlap, KeysetPager.PageFetcher<JSONObject> fetcher) {
+        this.table = table;
+        this.changedColumn = changedColumn;
+        this.keyColumn = keyColumn;
+        this.columns = columns;
+        this.filter = filter;
+        this.pageSize = Math.max(1, pageSize);
+        this.overlap = overlap;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Reads every row changed since a watermark.
+     *
+     * @param since The watermark of the previous read, or null to read every row with a change timestamp.
+     * @return The changed rows and the new watermark, which is never before {@code since}.
+     * @throws IOException if a request fails.
+     */
+    Changes read(Watermark since) throws IOException {
+        List<JSONObject> rows = new ArrayList<>();
+        String endpoint = since == null ? baseEndpoint()
+                : baseEndpoint() + "&" + changedColumn + "=gte." + encode(rewind(since.at()));
+        while (true) {
+            List<JSONObject> page = fetcher.fetch(endpoint);
+            rows.addAll(page);
+            // A short page is the last one; skip the extra request that would return nothing
+            if (page.size() < pageSize) {
+                break;
+            }
+            Watermark tail = watermarkOf(page.get(page.size() - 1));
+            if (tail == null) {
+                break;
+            }
+            endpoint = baseEndpoint() + "&or=" + encode("(" + changedColumn + ".gt." + quote(tail.at()) + ",and("
+                    + changedColumn + ".eq." + quote(tail.at()) + "," + keyColumn + ".gt." + quote(tail.key()) + "))");
+        }
+        Watermark watermark = since;
+        for (JSONObject row : rows) {
+            watermark = later(watermark, watermarkOf(row));
+        }
+        return new Changes(rows, watermark);
+    }
+
+    /**
+     * Reads the watermark of the most recent change without reading the rows, e.g. to skip the tombstones of
+     * deletes that a full synchronization has already seen.
+     *
+     * @return The watermark, or null if no row has a change timestamp.
+     * @throws IOException if the request fails.
+     */
+    Watermark latest() throws IOException {
+        List<JSONObject> last = fetcher.fetch("/rest/v1/" + table + "?select=" + changedColumn + "," + keyColumn
+                + (filter == null ? "" : "&" + filter) + "&" + changedColumn + "=not.is.null"
+                + "&order=" + changedColumn + ".desc," + keyColumn + ".desc&limit=1");
+        return last.isEmpty() ? null : watermarkOf(last.get(0));
+    }
+
+    /**
+     * Finds the watermark of a set of rows, e.g. the rows of a full synchronization.
+     *
+     * @return The latest (change timestamp, key) among the rows, or null if none has a change timestamp.
+     */
+    Watermark latestOf(Iterable<JSONObject> rows) {
+        Watermark watermark = null;
+        for (JSONObject row : rows) {
+            watermark = later(watermark, watermarkOf(row));
+        }
+        return watermark;
+    }
+
+    private String baseEndpoint() {
+        return "/rest/v1/" + table + "?select=" + (columns == null ? "*" : columns) + (filter == null ? "" : "&" + filter)
+                + "&" + changedColumn + "=not.is.null"
+                + "&order=" + changedColumn + ".asc," + keyColumn + ".asc&limit=" + pageSize;
+    }
+
+    private Watermark watermarkOf(JSONObject row) {
+        if (row.isNull(changedColumn) || row.isNull(keyColumn)) {
+            return null;
+        }
+        return new Watermark(ReplicaQuery.text(row.get(changedColumn)), ReplicaQuery.text(row.get(keyColumn)));
+    }
+
+    private String rewind(String at) {
+        try {
+            return OffsetDateTime.parse(at).minus(overlap).toString();
+        } catch (DateTimeParseException e) {
+            return at;
+        }
+    }
+
+    private static Watermark later(Watermark a, Watermark b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        int c = compareTimes(a.at(), b.at());
+        if (c == 0) {
+            c = compareKeys(a.key(), b.key());
+        }
+        return c >= 0 ? a : b;
+    }
+
+    /**
+     * Compares two change timestamps as instants, or as text if either is not an ISO timestamp with an offset.
+     */
+    static int compareTimes(String a, String b) {
+        try {
+            return OffsetDateTime.parse(a).compareTo(OffsetDateTime.parse(b));
+        } catch (DateTimeParseException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private static int compareKeys(String a, String b) {
+        try {
+            return Long.compare(Long.parseLong(a), Long.parseLong(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,337 @@
+package com.unival.facultyscheduling.service;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.json.JSONObject;
+
+/**
+ * ReplicaQuery is the subset of the PostgREST query language that {@link LocalReplica} can answer locally.
+ * <p>
+ * Supported: filters with eq, neq, gt, gte, lt, lte, is (null, true, false) and in; order (several columns,
+ * asc/desc, nullsfirst/nullslast); limit and offset; and a select of "*", plain columns and to-one embeds of the
+ * form {@code alias:table(*)}. Anything else (or, not, like, nested column lists, ...) makes {@link #parse(String)}
+ * return null, and the request goes to Supabase instead.
+ */
+final class ReplicaQuery {
+    private static final String REST_PREFIX = "/rest/v1/";
+    private static final Set<String> OPERATORS = Set.of("eq", "neq", "gt", "gte", "lt", "lte", "is", "in");
+
+    /**
+     * One filter, e.g. {@code faculty_id=eq.42}.
+     */
+    record Filter(String column, String operator, List<String> operands) {
+        boolean matches(JSONObject row) {
+            Object value = row.opt(column);
+            boolean isNull = value == null || value == JSONObject.NULL;
+            return switch (operator) {
+                case "is" -> switch (operands.get(0)) {
+                    case "null" -> isNull;
+                    case "true" -> Boolean.TRUE.equals(value);
+                    case "false" -> Boolean.FALSE.equals(value);
+                    default -> false;
+                };
+                case "in" -> !isNull && operands.contains(text(value));
+                case "eq" -> !isNull && text(value).equals(operands.get(0));
+                case "neq" -> !isNull && !text(value).equals(operands.get(0));
+                default -> {
+                    if (isNull) {
+                        yield false;
+                    }
+                    int c = compare(value, operands.get(0));
+                    yield switch (operator) {
+                        case "gt" -> c > 0;
+                        case "gte" -> c >= 0;
+                        case "lt" -> c < 0;
+                        default -> c <= 0;
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * One to-one embed, e.g. {@code course:courses(*)}.
+     */
+    record Embed(String alias, String table) {
+    }
+
+    private record Order(String column, boolean descending, boolean nullsFirst) {
+    }
+
+    private final String table;
+    private final List<Filter> filters;
+    private final List<Order> orders;
+    private final List<String> columns;
+    private final List<Embed> embeds;
+    private final int limit;
+    private final int offset;
+
+    private ReplicaQuery(String table, List<Filter> filters, List<Order> orders, List<String> columns,
+                         List<Embed> embeds, int limit, int offset) {
+        this.table = table;
+        this.filters = filters;
+        this.orders = orders;
+        this.columns = columns;
+        this.embeds = embeds;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /**
+     * Parses a REST endpoint.
+     *
+     * @param endpoint The endpoint, e.g. "/rest/v1/schedules?faculty_id=eq.42&amp;order=semester".
+     * @return The query, or null if the endpoint is not a table read this class can answer.
+     */
+    static ReplicaQuery parse(String endpoint) {
+        if (!endpoint.startsWith(REST_PREFIX)) {
+            return null;
+        }
+        int queryStart = endpoint.indexOf('?');
+        String table = queryStart < 0 ? endpoint.substring(REST_PREFIX.length()) : endpoint.substring(REST_PREFIX.length(), queryStart);
+        if (table.isEmpty() || table.contains("/")) {
+            return null;
+        }
+        List<Filter> filters = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        List<String> columns = null;
+        List<Embed> embeds = new ArrayList<>();
+        int limit = -1;
+        int offset = 0;
+        if (queryStart >= 0) {
+            for (String param : endpoint.substring(queryStart + 1).split("&")) {
+                if (param.isEmpty()) {
+                    continue;
+                }
+                int eq = param.indexOf('=');
+                if (eq < 0) {
+                    return null;
+                }
+                String name = decode(param.substring(0, eq));
+                String value = decode(param.substring(eq + 1));
+                try {
+                    switch (name) {
+                        case "select" -> {
+                            columns = new ArrayList<>();
+                            if (!parseSelect(value, columns, embeds)) {
+                                return null;
+                            }
+                        }
+                        case "order" -> {
+                            if (!parseOrder(value, orders)) {
+                                return null;
+                            }
+                        }
+                        case "limit" -> limit = Integer.parseInt(value);
+                        case "offset" -> offset = Integer.parseInt(value);
+                        default -> {
+                            Filter filter = parseFilter(name, value);
+                            if (filter == null) {
+                                return null;
+                            }
+                            filters.add(filter);
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return new ReplicaQuery(table, filters, orders, columns, embeds, limit, offset);
+    }
+
+    String table() {
+        return table;
+    }
+
+    List<Filter> filters() {
+        return filters;
+    }
+
+    List<Embed> embeds() {
+        return embeds;
+    }
+
+    /**
+     * Sorts, pages and projects matching rows. Embedded resources must already have been added to the rows.
+     *
+     * @param rows The rows that passed the filters.
+     * @return The rows of the response, in order.
+     */
+    List<JSONObject> shape(List<JSONObject> rows) {
+        List<JSONObject> result = new ArrayList<>(rows);
+        if (!orders.isEmpty()) {
+            result.sort(comparator());
+        }
+        int from = Math.min(result.size(), Math.max(0, offset));
+        int to = limit < 0 ? result.size() : Math.min(result.size(), from + limit);
+        result = result.subList(from, to);
+        if (columns == null || columns.contains("*")) {
+            return result;
+        }
+        List<JSONObject> projected = new ArrayList<>(result.size());
+        for (JSONObject row : result) {
+            JSONObject copy = new JSONObject();
+            for (String column : columns) {
+                copy.put(column, row.opt(column) == null ? JSONObject.NULL : row.opt(column));
+            }
+            for (Embed embed : embeds) {
+                copy.put(embed.alias(), row.opt(embed.alias()) == null ? JSONObject.NULL : row.opt(embed.alias()));
+            }
+            projected.add(copy);
+        }
+        return projected;
+    }
+
+    private Comparator<JSONObject> comparator() {
+        Comparator<JSONObject> comparator = null;
+        for (Order order : orders) {
+            Comparator<JSONObject> next = (a, b) -> {
+                Object x = a.opt(order.column());
+                Object y = b.opt(order.column());
+                boolean xNull = x == null || x == JSONObject.NULL;
+                boolean yNull = y == null || y == JSONObject.NULL;
+                if (xNull || yNull) {
+                    int c = Boolean.compare(xNull, yNull);
+                    return order.nullsFirst() ? -c : c;
+                }
+                int c = compare(x, text(y));
+                return order.descending() ? -c : c;
+            };
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static boolean parseSelect(String value, List<String> columns, List<Embed> embeds) {
+        for (String item : value.split(",")) {
+            item = item.trim();
+            int paren = item.indexOf('(');
+            if (paren < 0) {
+                if (item.isEmpty() || item.contains(":") || item.contains("->")) {
+                    return false;
+                }
+                columns.add(item);
+                continue;
+            }
+            // Only whole to-one resources: alias:table(*) or table(*)
+            if (!item.endsWith("(*)")) {
+                return false;
+            }
+            String head = item.substring(0, paren);
+            int colon = head.indexOf(':');
+            String alias = colon < 0 ? head : head.substring(0, colon);
+            String target = colon < 0 ? head : head.substring(colon + 1);
+            if (alias.isEmpty() || target.isEmpty() || target.contains("!")) {
+                return false;
+            }
+            embeds.add(new Embed(alias, target));
+        }
+        return true;
+    }
+
+    private static boolean parseOrder(String value, List<Order> orders) {
+        for (String item : value.split(",")) {
+            String[] parts = item.split("\\.");
+            boolean descending = false;
+            Boolean nullsFirst = null;
+            for (int i = 1; i < parts.length; i++) {
+                switch (parts[i]) {
+                    case "asc" -> descending = false;
+                    case "desc" -> descending = true;
+                    case "nullsfirst" -> nullsFirst = true;
+                    case "nullslast" -> nullsFirst = false;
+                    default -> {
+                        return false;
+                    }
+                }
+            }
+            // PostgreSQL sorts nulls as larger than any value unless told otherwise
+            orders.add(new Order(parts[0], descending, nullsFirst != null ? nullsFirst : descending));
+        }
+        return true;
+    }
+
+    private static Filter parseFilter(String column, String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0 || column.contains(".")) {
+            return null;
+        }
+        String operator = value.substring(0, dot);
+        String operand = value.substring(dot + 1);
+        if (!OPERATORS.contains(operator)) {
+            return null;
+        }
+        if (!operator.equals("in")) {
+            return new Filter(column, operator, List.of(unquote(operand)));
+        }
+        if (!operand.startsWith("(") || !operand.endsWith(")")) {
+            return null;
+        }
+        return new Filter(column, operator, splitList(operand.substring(1, operand.length() - 1)));
+    }
+
+    /**
+     * Splits the items of an in list; an item in double quotes may contain commas, and a backslash escapes the
+     * next character, e.g. {@code "Smith, J",Lee} holds two names.
+     */
+    private static List<String> splitList(String list) {
+        List<String> items = new ArrayList<>();
+        StringBuilder item = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < list.length(); i++) {
+            char c = list.charAt(i);
+            if (c == '\\' && i + 1 < list.length()) {
+                item.append(list.charAt(++i));
+            } else if (c == '"') {
+                quoted = !quoted;
+                wasQuoted = true;
+            } else if (c == ',' && !quoted) {
+                items.add(wasQuoted ? item.toString() : item.toString().trim());
+                item.setLength(0);
+                wasQuoted = false;
+            } else if (quoted || !Character.isWhitespace(c) || !item.isEmpty()) {
+                item.append(c);
+            }
+        }
+        items.add(wasQuoted ? item.toString() : item.toString().trim());
+        return items;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    static String text(Object value) {
+        return value instanceof String s ? s : String.valueOf(value);
+    }
+
+    /**
+     * Compares a column value with an operand: numerically if both are numbers, otherwise as text, which orders
+     * ISO timestamps, dates and UUIDs the way the database does.
+     */
+    private static int compare(Object value, String operand) {
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).compareTo(new BigDecimal(operand));
+            } catch (NumberFormatException ignored) {
+                // Fall through to a text comparison
+            }
+        }
+        return text(value).compareTo(operand);
+    }
+}
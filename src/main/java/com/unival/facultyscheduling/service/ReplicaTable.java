@@ -0,0 +1,400 @@
+package com.unival.facultyscheduling.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * ReplicaTable holds the local copy of one Supabase table for {@link LocalReplica}.
+ * <p>
+ * Rows are kept in memory by primary key, with hash indexes on the columns used in eq filters built on first use
+ * and dropped whenever the table changes. The table is persisted to one JSON file, replaced atomically, together
+ * with the watermarks of its incremental synchronization (see {@link ReplicaDelta}).
+ * <p>
+ * Rows are never modified once they are in the table; changes replace them with a changed copy. Rows returned by
+ * {@link #select(List)} can therefore be read and serialized without holding the table's lock.
+ */
+final class ReplicaTable {
+    private final String name;
+    private final String keyColumn;
+    private final String referenceColumn;
+    private final Path file;
+    private final Map<String, JSONObject> rows = new LinkedHashMap<>();
+    private final Map<String, Map<String, List<JSONObject>>> indexes = new HashMap<>();
+    // Rows of writes not yet stored by Supabase; they survive full synchronizations and are not persisted
+    private final Map<String, JSONObject> pinned = new LinkedHashMap<>();
+    private long syncedAt;
+    private long fullSyncedAt;
+    private ReplicaDelta.Watermark watermark;
+    private ReplicaDelta.Watermark tombstoneWatermark;
+    private boolean dirty;
+    // Held while the table is read from Supabase, never while its rows are read locally. A lock rather than a
+    // monitor, so that a virtual thread waiting on the network does not pin its carrier thread
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    /**
+     * @param name            The table name.
+     * @param keyColumn       The primary key column; rows without it are keyed by "id".
+     * @param referenceColumn The column other tables use to refer to this one, e.g. "course_id" for courses; it is
+     *                        used to resolve embeds.
+     * @param file            The file the table is persisted to.
+     */
+    ReplicaTable(String name, String keyColumn, String referenceColumn, Path file) {
+        this.name = name;
+        this.keyColumn = keyColumn;
+        this.referenceColumn = referenceColumn;
+        this.file = file;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getKeyColumn() {
+        return keyColumn;
+    }
+
+    String getReferenceColumn() {
+        return referenceColumn;
+    }
+
+    ReentrantLock getSyncLock() {
+        return syncLock;
+    }
+
+    /**
+     * @return When the table was last synchronized in full, in epoch milliseconds, or 0 if it never was.
+     */
+    synchronized long getSyncedAt() {
+        return syncedAt;
+    }
+
+    /**
+     * @return When the table was last read in full, in epoch milliseconds, or 0 if it never was.
+     */
+    synchronized long getFullSyncedAt() {
+        return fullSyncedAt;
+    }
+
+    /**
+     * @return The last change applied, or null if changes cannot be read incrementally yet.
+     */
+    synchronized ReplicaDelta.Watermark getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return The last delete tombstone applied, or null if none was.
+     */
+    synchronized ReplicaDelta.Watermark getTombstoneWatermark() {
+        return tombstoneWatermark;
+    }
+
+    synchronized int size() {
+        return rows.size();
+    }
+
+    /**
+     * Finds the rows matching all filters, using an index for the first eq filter if there is one.
+     */
+    synchronized List<JSONObject> select(List<ReplicaQuery.Filter> filters) {
+        Collection<JSONObject> candidates = rows.values();
+        for (ReplicaQuery.Filter filter : filters) {
+            if (filter.operator().equals("eq")) {
+                candidates = index(filter.column()).getOrDefault(filter.operands().get(0), List.of());
+                break;
+            }
+        }
+        List<JSONObject> matches = new ArrayList<>();
+        for (JSONObject row : candidates) {
+            if (matchesAll(row, filters)) {
+                matches.add(row);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Tells whether the row with a key changed after a point in time, e.g. was inserted again after a delete.
+     *
+     * @param changedColumn The column holding when a row last changed.
+     * @param at            The point in time, as returned by Supabase.
+     */
+    synchronized boolean changedAfter(String key, String changedColumn, String at) {
+        JSONObject row = rows.get(key);
+        return row != null && !row.isNull(changedColumn)
+                && ReplicaDelta.compareTimes(ReplicaQuery.text(row.get(changedColumn)), at) > 0;
+    }
+
+    /**
+     * Finds the row another row refers to, by this table's reference column or, failing that, its "id".
+     */
+    synchronized JSONObject findReferenced(String value) {
+        List<JSONObject> found = index(referenceColumn).get(value);
+        if (found == null || found.isEmpty()) {
+            found = index("id").get(value);
+        }
+        return found == null || found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Replaces the whole table with freshly fetched rows.
+     *
+     * @param watermark          The latest change among the rows, or null.
+     * @param tombstoneWatermark The latest delete tombstone when the read started, or null.
+     */
+    synchronized void replaceAll(List<JSONObject> fresh, long now, ReplicaDelta.Watermark watermark,
+                                 ReplicaDelta.Watermark tombstoneWatermark) {
+        rows.clear();
+        for (JSONObject row : fresh) {
+            rows.put(keyOf(row), row);
+        }
+        rows.putAll(pinned);
+        indexes.clear();
+        syncedAt = now;
+        fullSyncedAt = now;
+        this.watermark = watermark;
+        this.tombstoneWatermark = tombstoneWatermark;
+        dirty = true;
+    }
+
+    /**
+     * Applies one incremental synchronization in a single step, so readers see the table either before or after
+     * it. Deletes are applied first, so a row deleted and inserted again with the same key is kept.
+     *
+     * @param changed            The rows changed since the last watermark; they replace the rows with their key.
+     * @param deletedKeys        The keys of the rows deleted since the last tombstone watermark.
+     * @param watermark          The new watermark.
+     * @param tombstoneWatermark The new tombstone watermark.
+     * @return The number of rows changed or removed.
+     */
+    synchronized int applyChanges(List<JSONObject> changed, List<String> deletedKeys, ReplicaDelta.Watermark watermark,
+                                  ReplicaDelta.Watermark tombstoneWatermark, long now) {
+        int count = 0;
+        for (String key : deletedKeys) {
+            if (!pinned.containsKey(key) && rows.remove(key) != null) {
+                count++;
+            }
+        }
+        for (JSONObject row : changed) {
+            rows.put(keyOf(row), row);
+            count++;
+        }
+        if (count > 0) {
+            indexes.clear();
+        }
+        if (count > 0 || !Objects.equals(watermark, this.watermark)
+                || !Objects.equals(tombstoneWatermark, this.tombstoneWatermark)) {
+            dirty = true;
+        }
+        this.watermark = watermark;
+        this.tombstoneWatermark = tombstoneWatermark;
+        syncedAt = now;
+        return count;
+    }
+
+    /**
+     * Inserts a row, or merges its columns into the row with the same key.
+     */
+    synchronized void upsert(JSONObject row) {
+        String key = keyOf(row);
+        JSONObject existing = rows.get(key);
+        rows.put(key, existing == null ? row : merged(existing, row));
+        indexes.clear();
+        dirty = true;
+    }
+
+    /**
+     * Adds or replaces a row that is only known locally until its write has been sent.
+     */
+    synchronized void pin(JSONObject row) {
+        String key = keyOf(row);
+        pinned.put(key, row);
+        rows.put(key, row);
+        indexes.clear();
+    }
+
+    /**
+     * Removes a locally known row.
+     *
+     * @param key The row's local key.
+     */
+    synchronized void unpin(String key) {
+        if (pinned.remove(key) != null) {
+            rows.remove(key);
+            indexes.clear();
+        }
+    }
+
+    /**
+     * Applies a change to every row matching the filters.
+     *
+     * @return The number of rows changed.
+     */
+    synchronized int update(List<ReplicaQuery.Filter> filters, JSONObject changes) {
+        int count = 0;
+        for (Map.Entry<String, JSONObject> entry : rows.entrySet()) {
+            if (matchesAll(entry.getValue(), filters)) {
+                entry.setValue(merged(entry.getValue(), changes));
+                count++;
+            }
+        }
+        if (count > 0) {
+            indexes.clear();
+            dirty = true;
+        }
+        return count;
+    }
+
+    /**
+     * Removes every row matching the filters.
+     *
+     * @return The number of rows removed.
+     */
+    synchronized int delete(List<ReplicaQuery.Filter> filters) {
+        int before = rows.size();
+        rows.values().removeIf(row -> matchesAll(row, filters));
+        int count = before - rows.size();
+        if (count > 0) {
+            indexes.clear();
+            dirty = true;
+        }
+        return count;
+    }
+
+    /**
+     * Loads the table from its file, if the file exists.
+     */
+    synchronized void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JSONObject saved = new JSONObject(new JSONTokener(in));
+            JSONArray savedRows = saved.getJSONArray("rows");
+            rows.clear();
+            for (int i = 0; i < savedRows.length(); i++) {
+                JSONObject row = savedRows.getJSONObject(i);
+                rows.put(keyOf(row), row);
+            }
+            indexes.clear();
+            syncedAt = saved.optLong("syncedAt");
+            fullSyncedAt = saved.optLong("fullSyncedAt");
+            watermark = readWatermark(saved.optJSONObject("watermark"));
+            tombstoneWatermark = readWatermark(saved.optJSONObject("tombstoneWatermark"));
+            dirty = false;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt replica file " + file, e);
+        }
+    }
+
+    /**
+     * Writes the table to its file if it changed since it was last written. The file is written next to the old
+     * one and moved over it, so a crash never leaves a half-written table behind.
+     */
+    synchronized void saveIfDirty() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write("{\"table\":" + JSONObject.quote(name) + ",\"syncedAt\":" + syncedAt
+                    + ",\"fullSyncedAt\":" + fullSyncedAt
+                    + ",\"watermark\":" + writeWatermark(watermark)
+                    + ",\"tombstoneWatermark\":" + writeWatermark(tombstoneWatermark) + ",\"rows\":[");
+            boolean first = true;
+            for (Map.Entry<String, JSONObject> entry : rows.entrySet()) {
+                if (pinned.containsKey(entry.getKey())) {
+                    continue;
+                }
+                JSONObject row = entry.getValue();
+                if (!first) {
+                    out.write(",\n");
+                }
+                row.write(out);
+                first = false;
+            }
+            out.write("]}\n");
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    private static ReplicaDelta.Watermark readWatermark(JSONObject saved) {
+        return saved == null ? null : new ReplicaDelta.Watermark(saved.getString("at"), saved.getString("key"));
+    }
+
+    private static String writeWatermark(ReplicaDelta.Watermark watermark) {
+        return watermark == null ? "null" : new JSONObject().put("at", watermark.at()).put("key", watermark.key()).toString();
+    }
+
+    private String keyOf(JSONObject row) {
+        Object key = row.opt(keyColumn);
+        if (key == null || key == JSONObject.NULL) {
+            key = row.opt("id");
+        }
+        return key == null || key == JSONObject.NULL ? "#" + System.identityHashCode(row) : ReplicaQuery.text(key);
+    }
+
+    /**
+     * Copies a row; column values that are themselves objects or arrays are shared, not copied.
+     */
+    static JSONObject copy(JSONObject row) {
+        JSONObject copy = new JSONObject();
+        for (String column : row.keySet()) {
+            copy.put(column, row.get(column));
+        }
+        return copy;
+    }
+
+    private static JSONObject merged(JSONObject row, JSONObject changes) {
+        JSONObject merged = copy(row);
+        for (String column : changes.keySet()) {
+            merged.put(column, changes.get(column));
+        }
+        return merged;
+    }
+
+    private Map<String, List<JSONObject>> index(String column) {
+        return indexes.computeIfAbsent(column, c -> {
+            Map<String, List<JSONObject>> index = new HashMap<>();
+            for (JSONObject row : rows.values()) {
+                Object value = row.opt(c);
+                if (value != null && value != JSONObject.NULL) {
+                    index.computeIfAbsent(ReplicaQuery.text(value), v -> new ArrayList<>(1)).add(row);
+                }
+            }
+            return index;
+        });
+    }
+
+    private static boolean matchesAll(JSONObject row, List<ReplicaQuery.Filter> filters) {
+        for (ReplicaQuery.Filter filter : filters) {
+            if (!filter.matches(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
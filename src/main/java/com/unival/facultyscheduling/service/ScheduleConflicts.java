@@ -0,0 +1,77 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.model.Schedule;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ScheduleConflicts is the double-booking rule of the create_schedule_checked database function
+ * (supabase/migrations), for stand-ins of Supabase that do not have it and for schedules still pending in the
+ * {@link Outbox}.
+ * <p>
+ * A new schedule conflicts with an active schedule of the same time slot, semester and academic year that uses the
+ * same room, faculty member or cohort. Conflicts are listed once per clashing resource, ordered by kind (room,
+ * faculty, cohort) and then by schedule ID, exactly as the function returns them.
+ * <p>
+ * Note: This class is designed for static utility use and is not intended to be instantiated.
+ */
+public final class ScheduleConflicts {
+    private static final Comparator<ScheduleInsertResult.Conflict> ORDER =
+            Comparator.comparing(ScheduleInsertResult.Conflict::kind)
+                    .thenComparing(conflict -> String.valueOf(conflict.existing().scheduleId()));
+
+    private ScheduleConflicts() {
+    }
+
+    /**
+     * Finds the existing schedules a new schedule would double-book.
+     *
+     * @param draft    The schedule to insert.
+     * @param existing The schedules to check against; any rows, as only those in the draft's slot and term count.
+     * @return The conflicts, empty if the draft can be inserted.
+     */
+    public static List<ScheduleInsertResult.Conflict> find(Schedule draft, Collection<Schedule> existing) {
+        List<ScheduleInsertResult.Conflict> conflicts = new ArrayList<>();
+        for (Schedule other : existing) {
+            if (!other.isActive() || draft.slotId() == null || !draft.slotId().equals(other.slotId())
+                    || !Objects.equals(draft.semester(), other.semester())
+                    || !Objects.equals(draft.academicYear(), other.academicYear())) {
+                continue;
+            }
+            if (draft.roomId() != null && draft.roomId().equals(other.roomId())) {
+                conflicts.add(new ScheduleInsertResult.Conflict(ScheduleInsertResult.Kind.ROOM, other));
+            }
+            if (draft.facultyId() != null && draft.facultyId().equals(other.facultyId())) {
+                conflicts.add(new ScheduleInsertResult.Conflict(ScheduleInsertResult.Kind.FACULTY, other));
+            }
+            if (draft.cohortId() != null && draft.cohortId().equals(other.cohortId())) {
+                conflicts.add(new ScheduleInsertResult.Conflict(ScheduleInsertResult.Kind.COHORT, other));
+            }
+        }
+        conflicts.sort(ORDER);
+        return conflicts;
+    }
+
+    /**
+     * Builds the query for the only schedules a new schedule can conflict with.
+     *
+     * @param draft The schedule to insert.
+     * @return The endpoint reading the active schedules of the draft's slot, semester and academic year.
+     */
+    static String candidatesEndpoint(Schedule draft) {
+        return "/rest/v1/schedules?slot_id=" + equalTo(draft.slotId()) + "&semester=" + equalTo(draft.semester())
+                + "&academic_year=" + equalTo(draft.academicYear()) + "&is_active=eq.true";
+    }
+
+    /**
+     * Builds a PostgREST filter matching a value; a null value only matches nulls, as in {@link #find}.
+     */
+    private static String equalTo(String value) {
+        return value == null ? "is.null" : "eq." + URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.model.Schedule;
+import java.util.List;
+
+/**
+ * The outcome of {@link SupabaseClient#createScheduleChecked}: either the inserted schedule, or the existing
+ * schedules it would have double-booked.
+ *
+ * @param schedule  The inserted schedule, or null if it was rejected.
+ * @param conflicts The reasons the schedule was rejected; empty on success.
+ */
+public record ScheduleInsertResult(Schedule schedule, List<Conflict> conflicts) {
+
+    /**
+     * The resource that two schedules in the same slot, semester and academic year would both use.
+     */
+    public enum Kind { ROOM, FACULTY, COHORT }
+
+    /**
+     * One clash with an existing schedule. A schedule clashing on several resources is reported once per resource.
+     *
+     * @param kind     The resource booked twice.
+     * @param existing The active schedule already holding it.
+     */
+    public record Conflict(Kind kind, Schedule existing) {
+    }
+
+    public ScheduleInsertResult {
+        conflicts = List.copyOf(conflicts);
+    }
+
+    static ScheduleInsertResult inserted(Schedule schedule) {
+        return new ScheduleInsertResult(schedule, List.of());
+    }
+
+    static ScheduleInsertResult rejected(List<Conflict> conflicts) {
+        return new ScheduleInsertResult(null, conflicts);
+    }
+
+    /**
+     * Checks whether the schedule was inserted.
+     *
+     * @return true if the schedule was inserted.
+     */
+    public boolean isSuccess() {
+        return schedule != null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.model.User;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionCache remembers who has logged in, so that later identity checks such as
+ * {@link AdminService#isUserAdmin(String)} are answered in memory instead of reading the user again.
+ * <p>
+ * A session holds the user's ID, roles and department as resolved by {@link SupabaseClient#authenticateUser}. It is
+ * kept for auth.session.ttlMinutes (default 30) after login, and dropped earlier when the user's role is changed,
+ * the user is deleted, or they log out. The most recent login is also the current session of this application.
+ * <p>
+ * Note: This class is designed for static utility use and is not intended to be instantiated.
+ */
+public final class SessionCache {
+    private static final long TTL_NANOS = AppConfig.getInt("auth.session.ttlMinutes", 30) * 60_000_000_000L;
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private static volatile Session current;
+
+    /**
+     * An authenticated user's identity.
+     *
+     * @param userId         The user's ID.
+     * @param email          The user's email.
+     * @param roles          The user's roles, e.g. ["faculty"].
+     * @param departmentId   The ID of the user's department, or null.
+     * @param departmentName The name of the user's department, as shown on the dashboards.
+     * @param createdAt      When the user logged in, as {@link System#nanoTime()}.
+     */
+    public record Session(String userId, String email, List<String> roles, String departmentId,
+                          String departmentName, long createdAt) {
+
+        /**
+         * Checks whether the user has a role, ignoring case.
+         *
+         * @param role The role, e.g. "admin".
+         * @return true if the user has the role.
+         */
+        public boolean hasRole(String role) {
+            for (String r : roles) {
+                if (r.equalsIgnoreCase(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private SessionCache() {
+    }
+
+    /**
+     * Starts a session for a user who has just been authenticated, replacing any earlier one of theirs.
+     *
+     * @param user         The authenticated user, with the department name as its department.
+     * @param departmentId The ID of the user's department, or null.
+     * @return The new session.
+     */
+    static Session start(User user, String departmentId) {
+        Session session = new Session(user.getId(), user.getEmail(), List.copyOf(user.getRoles()), departmentId,
+                user.getDepartment(), System.nanoTime());
+        if (session.userId() != null) {
+            sessions.put(session.userId(), session);
+        }
+        current = session;
+        return session;
+    }
+
+    /**
+     * Gets a user's session.
+     *
+     * @param userId The user's ID.
+     * @return The session, or null if the user has not logged in or the session has expired.
+     */
+    public static Session get(String userId) {
+        Session session = userId == null ? null : sessions.get(userId);
+        if (session != null && System.nanoTime() - session.createdAt() > TTL_NANOS) {
+            sessions.remove(userId, session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Gets the session of the most recent login.
+     *
+     * @return The current session, or null if nobody is logged in or it has expired.
+     */
+    public static Session current() {
+        Session session = current;
+        return session == null ? null : get(session.userId());
+    }
+
+    /**
+     * Drops a user's session, e.g. after their role changed; their next identity check reads the user again.
+     *
+     * @param userId The user's ID.
+     */
+    public static void invalidate(String userId) {
+        if (userId != null) {
+            sessions.remove(userId);
+        }
+    }
+
+    /**
+     * Ends the current session when its user logs out.
+     */
+    public static void end() {
+        Session session = current;
+        current = null;
+        if (session != null) {
+            invalidate(session.userId());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.model.Cohort;
+import com.unival.facultyscheduling.model.User;
+import com.unival.facultyscheduling.net.RequestPriority;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SessionPrefetch loads the data a user's dashboard needs right after they log in, in parallel with building the
+ * dashboard, so that the first navigation to Schedule or Courses is answered from the caches.
+ * <p>
+ * Core Features:
+ * <ul>
+ *     <li>Role-aware plan: departments, rooms, time slots and courses for everyone; cohorts, schedules,
+ *     evaluations and faculty for faculty members and students.</li>
+ *     <li>Tables of the plan that the {@link LocalReplica} has not synchronized yet are read now, each in its own
+ *     request, instead of waiting for their turn in the background round.</li>
+ *     <li>The user's own reads (a faculty member's schedules and evaluations, a student's department cohorts and
+ *     their schedules) are then issued once, so they are answered by the replica, or, with the replica switched
+ *     off, leave fresh validators in the transport's cache.</li>
+ *     <li>Every request runs at {@link RequestPriority#BACKGROUND} priority, so it never delays what the user
+ *     clicks on meanwhile. Failures are logged and otherwise ignored; a screen then simply reads on first use.</li>
+ * </ul>
+ * <p>
+ * Note: This class is designed for static utility use and is not intended to be instantiated.
+ */
+public final class SessionPrefetch {
+    private static final Log LOG = Log.get(SessionPrefetch.class);
+    private static final List<String> REFERENCE_TABLES = List.of("departments", "rooms", "time_slots", "courses");
+    private static final List<String> TEACHING_TABLES = List.of("cohorts", "schedules", "evaluations", "faculty");
+
+    private SessionPrefetch() {
+    }
+
+    /**
+     * Starts prefetching for a user who has just been authenticated. Returns at once.
+     *
+     * @param user The authenticated user, as returned by {@link SupabaseClient#authenticateUser}.
+     * @return A future completing when the prefetch has finished; it never completes exceptionally.
+     */
+    public static CompletableFuture<Void> start(User user) {
+        String role = user.getRoles() == null || user.getRoles().isEmpty() ? "" : user.getRoles().get(0).toLowerCase();
+        Set<String> tables = new LinkedHashSet<>(REFERENCE_TABLES);
+        if (role.equals("faculty") || role.equals("student")) {
+            tables.addAll(TEACHING_TABLES);
+        }
+        try (Span span = Tracer.start("session.prefetch", "role", role, "tables", tables.size())) {
+            long started = System.nanoTime();
+            List<RequestPriority.Task<?>> reads = userReads(user, role);
+            CompletableFuture<Void> done = LocalReplica.getInstance().prefetch(tables)
+                    .thenCompose(Tracer.wrap("session.prefetch.reads", ignored -> CompletableFuture.allOf(reads.stream()
+                            .map(read -> CompletableFuture.runAsync(Tracer.wrap(() -> run(read)),
+                                    SupabaseTransport.getInstance().getExecutor()))
+                            .toArray(CompletableFuture[]::new))))
+                    .handle((ignored, error) -> {
+                        LOG.debug("prefetch.done", "user", user.getId(), "role", role,
+                                "millis", (System.nanoTime() - started) / 1_000_000);
+                        return null;
+                    });
+            return span.endWhenDone(done);
+        }
+    }
+
+    private static List<RequestPriority.Task<?>> userReads(User user, String role) {
+        List<RequestPriority.Task<?>> reads = new ArrayList<>();
+        String userId = user.getId();
+        if (userId == null) {
+            return reads;
+        }
+        if (role.equals("faculty")) {
+            reads.add(() -> SupabaseClient.getScheduleDetailsByFaculty(userId));
+            reads.add(() -> SupabaseClient.getEvaluationDetailsByFaculty(userId));
+        } else if (role.equals("student")) {
+            // The user's department was replaced by its name at login; the session kept its ID
+            SessionCache.Session session = SessionCache.get(userId);
+            String departmentId = session == null ? null : session.departmentId();
+            if (departmentId != null) {
+                reads.add(() -> {
+                    for (Cohort cohort : SupabaseClient.getCohortsByDepartment(departmentId)) {
+                        SupabaseClient.getScheduleDetailsByCohort(cohort.cohortId());
+                    }
+                    return null;
+                });
+            }
+        }
+        return reads;
+    }
+
+    private static void run(RequestPriority.Task<?> read) {
+        try {
+            RequestPriority.BACKGROUND.call(read);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("prefetch.read_failed", "error", e.toString());
+        }
+    }
+}
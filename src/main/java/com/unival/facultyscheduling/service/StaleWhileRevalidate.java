@@ -0,0 +1,161 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.net.SupabaseTransport;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * StaleWhileRevalidate keeps the last result of a list read, such as every course, so that a screen can show it at
+ * once and have it replaced when a fresh read completes, instead of blocking until the read returns.
+ * <p>
+ * Each instance serves one endpoint and is configured by name:
+ * <ul>
+ *     <li>supabase.swr.&lt;name&gt;.maxStalenessSeconds (default supabase.swr.maxStalenessSeconds, 600): how old a
+ *     result may be and still be shown while it is refreshed; older results are not shown at all.</li>
+ *     <li>supabase.swr.freshSeconds (default 5): results younger than this are served without a refresh, so
+ *     switching back and forth between screens does not repeat the read.</li>
+ * </ul>
+ * At most one refresh runs at a time; callers arriving meanwhile share it. A refresh that fails leaves the last
+ * result in place and is logged. {@link #invalidate()} drops the last result after a write; a refresh that
+ * started before it is returned to {@link #revalidate()} callers but neither kept nor passed to onFresh.
+ *
+ * @param <T> The result type, e.g. a list of courses. Results are shared between callers and must not be modified.
+ */
+public final class StaleWhileRevalidate<T> {
+    private static final Log LOG = Log.get(StaleWhileRevalidate.class);
+
+    /**
+     * Reads a fresh result; called on a virtual thread.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    private record Snapshot<T>(T value, long loadedAt) {
+    }
+
+    private final String name;
+    private final Loader<T> loader;
+    private final long maxStalenessNanos;
+    private final long freshNanos;
+    private volatile Snapshot<T> last;
+    // Guarded by this
+    private CompletableFuture<T> refreshing;
+    private long generation;
+
+    /**
+     * Creates the cache of one endpoint.
+     *
+     * @param name   The endpoint's name in the configuration, e.g. "courses".
+     * @param loader Reads a fresh result.
+     */
+    public StaleWhileRevalidate(String name, Loader<T> loader) {
+        this.name = name;
+        this.loader = loader;
+        int maxStalenessSeconds = AppConfig.getInt("supabase.swr." + name + ".maxStalenessSeconds",
+                AppConfig.getInt("supabase.swr.maxStalenessSeconds", 600));
+        this.maxStalenessNanos = maxStalenessSeconds * 1_000_000_000L;
+        this.freshNanos = AppConfig.getInt("supabase.swr.freshSeconds", 5) * 1_000_000_000L;
+    }
+
+    /**
+     * Gets the last known result at once, and refreshes it in the background unless it is fresh.
+     *
+     * @param onFresh Called with the refreshed result, on a virtual thread; UI code must hop back with
+     *                {@code Platform.runLater}. Not called if the last result was fresh or the refresh failed.
+     * @return The last known result, or null if there is none recent enough to show; the caller should then show a
+     *         placeholder until onFresh is called.
+     */
+    public T get(Consumer<T> onFresh) {
+        Snapshot<T> snapshot = last;
+        long age = snapshot == null ? Long.MAX_VALUE : System.nanoTime() - snapshot.loadedAt();
+        if (age >= freshNanos) {
+            long requested;
+            CompletableFuture<T> refresh;
+            synchronized (this) {
+                requested = generation;
+                refresh = revalidate();
+            }
+            // A write made while the refresh ran may not be in its result, which must then not replace the screen
+            refresh.thenAccept(value -> {
+                if (isCurrent(requested)) {
+                    onFresh.accept(value);
+                }
+            });
+        }
+        return age <= maxStalenessNanos ? snapshot.value() : null;
+    }
+
+    /**
+     * Gets the last known result without refreshing it.
+     *
+     * @return The last known result, or null if there is none recent enough to show.
+     */
+    public T peek() {
+        Snapshot<T> snapshot = last;
+        return snapshot != null && System.nanoTime() - snapshot.loadedAt() <= maxStalenessNanos ? snapshot.value() : null;
+    }
+
+    /**
+     * Starts a refresh, or joins the one in progress.
+     *
+     * @return A future completing with the fresh result, or exceptionally if the read failed.
+     */
+    public synchronized CompletableFuture<T> revalidate() {
+        if (refreshing != null) {
+            return refreshing.copy();
+        }
+        long started = generation;
+        CompletableFuture<T> refresh = CompletableFuture.supplyAsync(Tracer.wrap(() -> {
+            try {
+                return Tracer.call("swr.refresh", loader::load, "endpoint", name);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }), SupabaseTransport.getInstance().getExecutor());
+        refreshing = refresh;
+        refresh.whenComplete((value, error) -> {
+            synchronized (this) {
+                if (refreshing == refresh) {
+                    refreshing = null;
+                }
+                if (error == null && generation == started) {
+                    last = new Snapshot<>(value, System.nanoTime());
+                }
+            }
+            if (error != null) {
+                LOG.warn("swr.refresh_failed", error, "endpoint", name);
+            }
+        });
+        return refresh.copy();
+    }
+
+    /**
+     * Stores a result read by other means, e.g. a listing that was streamed into a table.
+     *
+     * @param value The fresh result.
+     */
+    public synchronized void put(T value) {
+        last = new Snapshot<>(value, System.nanoTime());
+    }
+
+    /**
+     * Drops the last result, e.g. after a write that changed it. A refresh in progress is no longer joined, so the
+     * next read starts one that sees the write.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        last = null;
+        refreshing = null;
+    }
+
+    private synchronized boolean isCurrent(long requested) {
+        return generation == requested;
+    }
+}
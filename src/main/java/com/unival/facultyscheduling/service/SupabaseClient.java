@@ -4,21 +4,33 @@ package com.unival.facultyscheduling.service;
  * SupabaseClient provides static utility methods for interacting with the Supabase backend in the UniVAL system.
  * <p>
  * This class encapsulates HTTP communication, authentication, and user management logic for the application.
- * It includes secure password hashing with salt, user authentication, registration, and data fetching using the Java 11+ HttpClient API.
+ * It includes salted password hashing, user authentication, registration, and data fetching over the shared {@link SupabaseTransport}.
  * <p>
  * Core Features:
  * <ul>
- *     <li>Secure password hashing using SHA-256 and cryptographically secure random salts.</li>
- *     <li>HTTP communication with Supabase endpoints using Java's HttpClient.</li>
- *     <li>User authentication and registration with robust error handling and logging.</li>
+ *     <li>Password hashing with salted PBKDF2 on the bounded {@link PasswordHasher} pool; legacy SHA-256 hashes are
+ *     verified and upgraded at the next login.</li>
+ *     <li>HTTP communication with Supabase endpoints through the shared, pooled {@link SupabaseTransport}.</li>
+ *     <li>Coalescing of concurrent identical GET requests into a single network call.</li>
+ *     <li>Offline-first reads: reads of replicated tables are answered by the {@link LocalReplica} once it has
+ *     synchronized them, and successful writes are applied to it immediately.</li>
+ *     <li>Write-behind inserts: createSchedule, createEvaluation, addComment and addReaction commit to the durable
+ *     {@link Outbox} and return at once; their async variants complete when Supabase has stored the row.</li>
+ *     <li>User authentication and registration with robust error handling and logging. A login reads the user
+ *     and their department in one request and records the session in the {@link SessionCache}.</li>
+ *     <li>By-id lookups (getCourseById, getRoomById, getCohortById, getDepartmentById, getScheduleById) are served
+ *     from a bounded {@link EntityCache}; updates and realtime changes of the cached tables invalidate it.</li>
+ *     <li>Stale-while-revalidate listing of all courses ({@link #getCourseList()}), for screens that should show
+ *     the last known rows at once.</li>
+ *     <li>Typed results: rows are decoded into model objects by the streaming {@link Codecs}, never by pattern
+ *     matching on the raw JSON.</li>
  *     <li>Logging of key operations for debugging and traceability.</li>
  * </ul>
  * <p>
  * Methods:
  * <ul>
- *     <li>hashPassword: Hashes a password with a salt using SHA-256 and encodes it in Base64.</li>
- *     <li>generateSalt: Generates a cryptographically secure random salt for password hashing.</li>
  *     <li>fetchData: Fetches data from a specified Supabase endpoint.</li>
+ *     <li>streamData: Streams the decoded rows of an endpoint as they are parsed, for large tables.</li>
  *     <li>registerUser: Registers a new user with the provided details.</li>
  *     <li>authenticateUser: Authenticates a user with the provided email and password.</li>
  *     <li>registerFaculty: Registers a faculty member with additional faculty-specific information.</li>
@@ -42,114 +54,274 @@ package com.unival.facultyscheduling.service;
  *     <li>getScheduleById: Retrieves a schedule by its ID from the Supabase backend.</li>
  *     <li>getSchedulesByFaculty: Retrieves schedules by faculty from the Supabase backend.</li>
  *     <li>getSchedulesByCohort: Retrieves schedules by cohort from the Supabase backend.</li>
+ *     <li>getScheduleDetailsByFaculty / getScheduleDetailsByCohort: Retrieve schedules with their course, room, time
+ *     slot, cohort and faculty embedded, in a single request.</li>
  *     <li>createSchedule: Creates a new schedule with the provided details.</li>
+ *     <li>createScheduleChecked: Creates a schedule unless it double-books a room, faculty member or cohort, checked
+ *     and inserted atomically by a database function.</li>
+ *     <li>createSchedules: Inserts many schedules with chunked, parallel array inserts and reports per-row results.</li>
  *     <li>createEvaluation: Creates a new evaluation with the provided details.</li>
  *     <li>getEvaluationsByFaculty: Retrieves evaluations by faculty from the Supabase backend.</li>
  *     <li>getEvaluationsByCourse: Retrieves evaluations by course from the Supabase backend.</li>
+ *     <li>getEvaluationDetailsByFaculty / getEvaluationDetailsByCourse: Retrieve evaluations with their course, faculty
+ *     and room embedded, in a single request.</li>
  *     <li>addComment: Adds a comment to an evaluation with the provided details.</li>
  *     <li>getCommentsByEvaluation: Retrieves comments by evaluation from the Supabase backend.</li>
  *     <li>addReaction: Adds a reaction to an evaluation with the provided details.</li>
  *     <li>getReactionsByEvaluation: Retrieves reactions by evaluation from the Supabase backend.</li>
  *     <li>getAllFaculty: Retrieves all faculty members from the Supabase backend.</li>
+ *     <li>getAllCoursesPaged / getAllSchedulesPaged / getAllFacultyPaged: Iterate over a table with keyset pagination.</li>
+ *     <li>getEntityCacheStats: Reports the hit rate and evictions of the by-id lookup cache.</li>
+ * </ul>
+ * <p>
+ * Asynchronous API:
+ * <ul>
+ *     <li>Every public method above has an {@code *Async} counterpart (e.g. fetchDataAsync, getAllSchedulesAsync,
+ *     createScheduleAsync) returning a {@link CompletableFuture} instead of blocking the caller.</li>
+ *     <li>Single-request operations are built on {@link SupabaseTransport#sendAsync}; multi-step operations such as
+ *     authenticateUserAsync run the blocking flow on a virtual thread.</li>
+ *     <li>Failures complete the future exceptionally with an {@link IOException} wrapped in a {@link CompletionException}.</li>
+ *     <li>Futures complete on virtual threads, never on the JavaFX Application Thread; UI code must hop back with
+ *     {@code Platform.runLater}.</li>
+ *     <li>getSchedulesByCohort, getEvaluationsByFaculty and getCommentsByEvaluation (and their async variants) use
+ *     hedged reads when supabase.hedging.enabled is set, see {@link SupabaseTransport#getHedgedAsync}.</li>
  * </ul>
  * <p>
  * Note: This class is designed for static utility use and is not intended to be instantiated.
  * It expects valid configuration in {@link AppConfig} for Supabase URL and API key.
  */
 import com.unival.facultyscheduling.config.AppConfig;
-import java.net.URI;
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.tracing.Span;
+import com.unival.facultyscheduling.tracing.Tracer;
+import com.unival.facultyscheduling.model.Cohort;
+import com.unival.facultyscheduling.model.Comment;
+import com.unival.facultyscheduling.model.Course;
+import com.unival.facultyscheduling.model.Department;
+import com.unival.facultyscheduling.model.Evaluation;
+import com.unival.facultyscheduling.model.EvaluationDetails;
+import com.unival.facultyscheduling.model.Faculty;
+import com.unival.facultyscheduling.model.Reaction;
+import com.unival.facultyscheduling.model.Room;
+import com.unival.facultyscheduling.model.Schedule;
+import com.unival.facultyscheduling.model.ScheduleDetails;
+import com.unival.facultyscheduling.model.TimeSlot;
+import com.unival.facultyscheduling.model.User;
+import com.unival.facultyscheduling.net.Endpoints;
+import com.unival.facultyscheduling.net.JsonCodec;
+import com.unival.facultyscheduling.net.RealtimeClient;
+import com.unival.facultyscheduling.net.SingleFlight;
+import com.unival.facultyscheduling.net.SupabaseTransport;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.io.IOException;
-import java.util.logging.Logger;
-import java.util.logging.Level;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.util.Base64;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 public class SupabaseClient {
-    private static final Logger LOGGER = Logger.getLogger(SupabaseClient.class.getName());
-    private static final HttpClient client = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
-    private static final SecureRandom secureRandom = new SecureRandom();
+    private static final Log LOG = Log.get(SupabaseClient.class);
+    private static final SupabaseTransport transport = SupabaseTransport.getInstance();
+    // Concurrent GETs for the same normalized endpoint share one network call
+    private static final SingleFlight<String, String> inFlightGets = new SingleFlight<>();
+    // Reads of replicated tables are answered locally once the table has been synchronized
+    private static final LocalReplica replica = LocalReplica.getInstance();
+    // Rows looked up by primary key, which list screens resolve over and over
+    private static final EntityCache entities = new EntityCache(
+            AppConfig.getBoolean("supabase.entityCache.enabled", true) ? AppConfig.getInt("supabase.entityCache.maxEntries", 2000) : 0,
+            Duration.ofSeconds(AppConfig.getInt("supabase.entityCache.ttlSeconds", 300)));
+    /**
+     * The primary key column of courses, used by every course lookup, listing and write; unlike most tables, which
+     * are keyed by a table-specific column, courses are keyed by a plain "id", which other tables refer to as
+     * course_id.
+     */
+    static final String COURSE_KEY = "id";
+    /** PostgREST select embedding every row a schedule refers to; the aliases are read by {@link Codecs}. */
+    private static final String SCHEDULE_DETAILS_SELECT =
+            "select=*,course:courses(*),room:rooms(*),time_slot:time_slots(*),cohort:cohorts(*),faculty:faculty(*)";
+    /** PostgREST select embedding every row an evaluation refers to. */
+    private static final String EVALUATION_DETAILS_SELECT =
+            "select=*,course:courses(*),faculty:faculty(*),room:rooms(*)";
+    /** PostgREST select embedding a user's department, so that login takes a single request. */
+    private static final String USER_DEPARTMENT_SELECT = "select=*,department:departments(department_id,name)";
+    // Cleared when the database has no users-departments foreign key to embed through
+    private static volatile boolean embedDepartment = AppConfig.getBoolean("auth.embedDepartment", true);
+    /** Conflict-checked schedule insert, see supabase/migrations. */
+    private static final String SCHEDULE_RPC = "/rest/v1/rpc/create_schedule_checked";
+    private static final String SCHEDULE_MIGRATION = "supabase/migrations/20261016000000_create_schedule_checked.sql";
+    // Only an explicit setting switches to the check on this side; a missing function is an error, not a fallback
+    private static final boolean scheduleRpc = AppConfig.getBoolean("supabase.scheduleRpc.enabled", true);
+    // Serializes conflict checks made on this side when the function is not used
+    private static final ReentrantLock scheduleInsertLock = new ReentrantLock();
+    private static final int BULK_CHUNK_SIZE = Math.max(1, AppConfig.getInt("supabase.bulk.chunkSize", 500));
+    private static final int BULK_PARALLELISM = AppConfig.getInt("supabase.bulk.parallelism", 4);
+    private static final StaleWhileRevalidate<List<Course>> courseList =
+            new StaleWhileRevalidate<>("courses", () -> List.copyOf(getAllCourses()));
+
+    static {
+        // Other clients edit these tables while the application runs (admins change courses, rooms, cohorts and
+        // faculty, and anyone books schedules), so their cached rows are dropped as soon as a change arrives
+        RealtimeClient realtime = RealtimeClient.getInstance();
+        Map<String, String> cachedTables = Map.of(
+                "schedules", "schedule_id",
+                "courses", COURSE_KEY,
+                "rooms", "room_id",
+                "cohorts", "cohort_id",
+                "faculty", "faculty_id",
+                "departments", "department_id");
+        cachedTables.forEach((table, keyColumn) -> realtime.subscribe(table, change -> {
+            JSONObject row = change.row();
+            entities.invalidate(table, row.has(keyColumn) ? row.optString(keyColumn) : row.optString("id", null));
+            if (table.equals("courses")) {
+                courseList.invalidate();
+            }
+        }));
+        realtime.addReconnectListener(() -> {
+            cachedTables.keySet().forEach(entities::invalidateTable);
+            courseList.invalidate();
+        });
+    }
 
     /**
-     * Hashes a password with the provided salt using SHA-256 and encodes the result in Base64.
+     * Fetches data from a specified Supabase endpoint.
+     * Concurrent calls for the same endpoint (ignoring query parameter order) share a single request.
      *
-     * @param password The plain text password to hash.
-     * @param salt     The cryptographically secure random salt.
-     * @return The hashed password as a Base64-encoded string.
-     * @throws RuntimeException if the hashing algorithm is not available.
+     * @param endpoint The endpoint to fetch data from.
+     * @return The response body as a string.
+     * @throws IOException if the request fails.
      */
-    private static String hashPassword(String password, String salt) {
-        try {
-            LOGGER.info("Hashing password with salt: " + salt);
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String input = password + salt;
-            LOGGER.info("Input string to hash: " + input);
-            byte[] hash = digest.digest(input.getBytes());
-            String result = Base64.getEncoder().encodeToString(hash);
-            LOGGER.info("Generated hash: " + result);
-            return result;
-        } catch (NoSuchAlgorithmException e) {
-            LOGGER.log(Level.SEVERE, "Error hashing password", e);
-            throw new RuntimeException("Error hashing password", e);
-        }
+    public static String fetchData(String endpoint) throws IOException {
+        return await(fetchDataAsync(endpoint));
     }
 
     /**
-     * Generates a cryptographically secure random salt for password hashing.
+     * Asynchronously fetches data from a specified Supabase endpoint using {@link SupabaseTransport#sendAsync}.
+     * Concurrent calls for the same endpoint (ignoring query parameter order) share a single request.
      *
-     * @return A Base64-encoded random salt string.
+     * @param endpoint The endpoint to fetch data from.
+     * @return A future completing with the response body as a string.
      */
-    private static String generateSalt() {
-        byte[] salt = new byte[16];
-        secureRandom.nextBytes(salt);
-        return Base64.getEncoder().encodeToString(salt);
+    public static CompletableFuture<String> fetchDataAsync(String endpoint) {
+        return fetchAsync(endpoint, false);
     }
 
     /**
-     * Fetches data from a specified Supabase endpoint.
+     * Streams the rows of an endpoint to a subscriber while the response is still downloading, instead of
+     * buffering the whole body into a string. Use this for large tables that are rendered incrementally.
      *
-     * @param endpoint The endpoint to fetch data from.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param endpoint The endpoint to fetch rows from; it must return a JSON array.
+     * @param codec    Decodes each row, e.g. one of the {@link Codecs}.
+     * @return A publisher of rows; each subscription performs its own request.
      */
-    public static String fetchData(String endpoint) throws IOException {
+    public static <T> Flow.Publisher<T> streamData(String endpoint, JsonCodec<T> codec) {
+        return transport.publishRows(endpoint, codec);
+    }
+
+    /**
+     * Fetches rows from an endpoint and decodes each one.
+     *
+     * @param endpoint The endpoint to fetch rows from.
+     * @param codec    Decodes one row.
+     * @return The decoded rows.
+     * @throws IOException if the request fails or the response is not a JSON array.
+     */
+    private static <T> List<T> fetchList(String endpoint, JsonCodec<T> codec) throws IOException {
+        return await(fetchListAsync(endpoint, codec));
+    }
+
+    /**
+     * Asynchronously fetches rows from an endpoint and decodes each one.
+     *
+     * @param endpoint The endpoint to fetch rows from.
+     * @param codec    Decodes one row.
+     * @return A future completing with the decoded rows, or exceptionally if the response is not a JSON array.
+     */
+    private static <T> CompletableFuture<List<T>> fetchListAsync(String endpoint, JsonCodec<T> codec) {
+        return fetchAsync(endpoint, false).thenApply(Tracer.wrap("supabase.decode", json -> decodeRows(endpoint, json, codec)));
+    }
+
+    /**
+     * Asynchronously fetches rows from a latency-sensitive endpoint, hedging the request when hedging is enabled
+     * (see {@link SupabaseTransport#getHedgedAsync}).
+     */
+    private static <T> CompletableFuture<List<T>> fetchListHedgedAsync(String endpoint, JsonCodec<T> codec) {
+        return fetchAsync(endpoint, true).thenApply(Tracer.wrap("supabase.decode", json -> decodeRows(endpoint, json, codec)));
+    }
+
+    /**
+     * Asynchronously fetches a single row, such as a lookup by primary key.
+     *
+     * @return A future completing with the first row, or null if there is none.
+     */
+    private static <T> CompletableFuture<T> fetchOneAsync(String endpoint, JsonCodec<T> codec) {
+        return fetchListAsync(endpoint, codec).thenApply(rows -> rows.isEmpty() ? null : rows.get(0));
+    }
+
+    /**
+     * Reads a whole table through the unbounded-query guard.
+     *
+     * @param table     The table name.
+     * @param keyColumn The primary key column used for paging.
+     * @param codec     Decodes one row.
+     * @param keyOf     Reads the key column from a decoded row.
+     * @return The decoded rows.
+     * @throws IOException if a request fails or the guard refuses the read.
+     */
+    private static <T> List<T> fetchAllGuarded(String table, String keyColumn, JsonCodec<T> codec,
+                                               Function<T, String> keyOf) throws IOException {
+        return KeysetPager.fetchAll(table, keyColumn, endpoint -> fetchList(endpoint, codec), keyOf);
+    }
+
+    private static <T> KeysetPager<T> pager(String table, String keyColumn, int pageSize, JsonCodec<T> codec,
+                                            Function<T, String> keyOf) {
+        return new KeysetPager<>(table, keyColumn, null, pageSize, endpoint -> fetchList(endpoint, codec), keyOf);
+    }
+
+    private static <T> List<T> decodeRows(String endpoint, String json, JsonCodec<T> codec) {
+        // PostgREST reports errors as a JSON object rather than an array
+        if (json == null || !json.stripLeading().startsWith("[")) {
+            throw new CompletionException(new IOException("Unexpected response from " + endpoint + ": " + json));
+        }
         try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
+            return JsonCodec.readList(json, codec);
+        } catch (IOException e) {
+            throw new CompletionException(new IOException("Malformed response from " + endpoint, e));
+        }
+    }
+
+    private static CompletableFuture<String> fetchAsync(String endpoint, boolean hedged) {
+        try (Span span = Tracer.start("supabase.fetch", "endpoint", endpoint)) {
+            String local = replica.query(endpoint);
+            if (local != null) {
+                span.tag("source", "replica");
+                return CompletableFuture.completedFuture(local);
             }
-            
-            String fullUrl = supabaseUrl + endpoint;
-            LOGGER.info("Fetching data from: " + fullUrl);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(fullUrl))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            LOGGER.info("Response status: " + response.statusCode());
-            LOGGER.info("Response body: " + response.body());
-            
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
+            return span.endWhenDone(inFlightGets.execute(Endpoints.normalize(endpoint), () -> {
+                LOG.debug("fetch", "endpoint", endpoint, "hedged", hedged);
+                return (hedged ? transport.getHedgedAsync(endpoint) : transport.getAsync(endpoint))
+                        .thenApply(response -> {
+                            LOG.debug("fetch.response", "endpoint", endpoint, "status", response.statusCode(),
+                                    "body", Log.body(response.body()));
+                            return response.body();
+                        });
+            }));
         }
     }
 
@@ -160,202 +332,169 @@ public class SupabaseClient {
      * @param email    The user's email.
      * @param password The user's password.
      * @param role     The user's role.
-     * @param department The user's department.
+     * @param department The name of the user's department.
      * @param year     The user's year.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The created user, with the department name as its department.
+     * @throws IOException if the department does not exist or the request fails.
      */
-    public static String registerUser(String name, String email, String password, String role, String department, int year) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-
-            LOGGER.info("=== Starting Registration Process ===");
-            
-            // Generate salt and hash password
-            String salt = generateSalt();
-            LOGGER.info("Generated salt: " + salt);
-            
-            String hashedPassword = hashPassword(password, salt);
-            LOGGER.info("Generated hash: " + hashedPassword);
-            
-            String passwordToStore = hashedPassword + salt;
-            LOGGER.info("Final password to store: " + passwordToStore);
-
-            // First, get all departments and find the matching one
-            LOGGER.info("Looking up department: " + department);
-            
-            // Construct the URL for department lookup
-            String encodedDepartment = URLEncoder.encode(department, "UTF-8");
-            String departmentEndpoint = String.format("/rest/v1/departments?name=eq.%s", encodedDepartment);
-            LOGGER.info("Department endpoint: " + departmentEndpoint);
-            
-            HttpRequest deptRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + departmentEndpoint))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> deptResponse = client.send(deptRequest, HttpResponse.BodyHandlers.ofString());
-            LOGGER.info("Department lookup response code: " + deptResponse.statusCode());
-            LOGGER.info("Department lookup response: " + deptResponse.body());
-
-            if (deptResponse.body().equals("[]")) {
-                // If exact match fails, try getting all departments to log what's available
-                String allDepts = fetchData("/rest/v1/departments");
-                LOGGER.info("Available departments: " + allDepts);
-                throw new IOException("Department not found: " + department);
-            }
-
-            // Extract department ID from response
-            Pattern deptPattern = Pattern.compile("\"department_id\":\"([^\"]+)\"");
-            Matcher deptMatcher = deptPattern.matcher(deptResponse.body());
-            
-            String departmentId;
-            if (deptMatcher.find()) {
-                departmentId = deptMatcher.group(1);
-                LOGGER.info("Found department ID: " + departmentId);
-            } else {
-                LOGGER.warning("Could not extract department ID from response: " + deptResponse.body());
-                throw new IOException("Could not extract department ID from response");
-            }
+    public static User registerUser(String name, String email, String password, String role, String department, int year) throws IOException {
+        LOG.debug("register.start", "email", email, "role", role, "department", department);
+        
+        // Hash the password with a fresh salt on the hashing pool
+        String passwordToStore = PasswordHasher.await(PasswordHasher.hashAsync(password));
+
+        // Look up the department by name
+        String encodedDepartment = URLEncoder.encode(department, StandardCharsets.UTF_8);
+        List<Department> departments = fetchList("/rest/v1/departments?name=eq." + encodedDepartment, Codecs.DEPARTMENT);
+        if (departments.isEmpty() || departments.get(0).departmentId() == null) {
+            throw new IOException("Department not found: " + department);
+        }
+        String departmentId = departments.get(0).departmentId();
+        LOG.debug("register.department", "name", department, "id", departmentId);
+
+        // Create user record
+        JSONObject userJson = new JSONObject();
+        userJson.put("name", name);
+        userJson.put("email", email);
+        userJson.put("password", passwordToStore);
+        userJson.put("role", role);
+        userJson.put("department_id", departmentId);
+        userJson.put("year", year);
+
+        HttpResponse<String> userResponse = transport.send(buildInsertRequest("/rest/v1/users", userJson.toString()),
+                HttpResponse.BodyHandlers.ofString());
+        LOG.debug("register.response", "email", email, "status", userResponse.statusCode());
+
+        if (userResponse.statusCode() != 201) {
+            throw new IOException("Failed to create user: " + userResponse.body());
+        }
 
-            // Create user record
-            String userJson = String.format(
-                "{\"name\":\"%s\",\"email\":\"%s\",\"password\":\"%s\",\"role\":\"%s\",\"department_id\":\"%s\",\"year\":%d}",
-                name, email, passwordToStore, role, departmentId, year
-            );
-
-            HttpRequest userRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/users"))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .POST(HttpRequest.BodyPublishers.ofString(userJson))
-                    .build();
-
-            HttpResponse<String> userResponse = client.send(userRequest, HttpResponse.BodyHandlers.ofString());
-            LOGGER.info("User creation response code: " + userResponse.statusCode());
-            LOGGER.info("User creation response: " + userResponse.body());
-
-            if (userResponse.statusCode() != 201) {
-                throw new IOException("Failed to create user: " + userResponse.body());
-            }
+        User user = decodeInserted("/rest/v1/users", userResponse.body(), Codecs.USER);
+        replica.applyInsert("/rest/v1/users", userResponse.body());
+        user.setDepartment(departments.get(0).name());
+        return user;
+    }
 
-            return userResponse.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
-        }
+    /**
+     * Asynchronously registers a new user. The department lookup and insert run sequentially on a virtual thread.
+     *
+     * @return A future completing with the created user.
+     * @see #registerUser(String, String, String, String, String, int)
+     */
+    public static CompletableFuture<User> registerUserAsync(String name, String email, String password, String role,
+                                                            String department, int year) {
+        return supplyAsync(() -> registerUser(name, email, password, role, department, year));
     }
 
     /**
      * Authenticates a user with the provided email and password.
+     * <p>
+     * The user row is read with its department embedded, so a login takes one request; when the database has no
+     * relationship to embed through, the department is looked up separately (and served by the entity cache after
+     * the first login). A successful login starts a {@link SessionCache} session for the user.
      *
      * @param email    The user's email.
      * @param password The user's password.
-     * @return The user's information as a comma-separated string, or null if authentication fails.
+     * @return The authenticated user, with the department name as its department, or null if authentication fails.
      * @throws IOException if the request fails.
      */
-    public static String authenticateUser(String email, String password) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                LOGGER.severe("Supabase credentials not configured");
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-
-            LOGGER.info("=== Starting Authentication Process ===");
-            LOGGER.info("Attempting to authenticate user: " + email);
-            
-            // Get user record
-            String encodedEmail = URLEncoder.encode(email, "UTF-8");
-            String endpoint = "/rest/v1/users?email=eq." + encodedEmail;
-            LOGGER.info("Fetching user with endpoint: " + endpoint);
-            
-            HttpRequest userRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + endpoint))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(userRequest, HttpResponse.BodyHandlers.ofString());
-            LOGGER.info("User lookup response code: " + response.statusCode());
-            LOGGER.info("User lookup response: " + response.body());
-
-            if (response.statusCode() != 200 || response.body().equals("[]")) {
-                LOGGER.warning("User not found or invalid response");
-                return null;
-            }
+    public static User authenticateUser(String email, String password) throws IOException {
+        LOG.debug("auth.start", "email", email);
+        
+        // Get user record, with the department's name embedded
+        String endpoint = "/rest/v1/users?email=eq." + URLEncoder.encode(email, StandardCharsets.UTF_8) + "&limit=1";
+        HttpResponse<String> response = embedDepartment
+                ? transport.get(endpoint + "&" + USER_DEPARTMENT_SELECT) : null;
+        if (response != null && response.statusCode() == 400 && response.body() != null
+                && response.body().contains("PGRST200")) {
+            // PostgREST does not know the users-departments relationship; look the department up separately
+            LOG.info("auth.embed_unavailable", "body", Log.body(response.body()));
+            embedDepartment = false;
+            response = null;
+        }
+        if (response == null) {
+            response = transport.get(endpoint);
+        }
+        if (response.statusCode() != 200) {
+            LOG.warn("auth.lookup_failed", "email", email, "status", response.statusCode(), "body", Log.body(response.body()));
+            return null;
+        }
+        List<Codecs.Credentials> matches = JsonCodec.readList(response.body(), Codecs.CREDENTIALS);
+        if (matches.isEmpty()) {
+            LOG.info("auth.rejected", "email", email, "reason", "unknown user");
+            return null;
+        }
+        Codecs.Credentials credentials = matches.get(0);
 
-            // Extract user information
-            Pattern userPattern = Pattern.compile("\"name\":\"([^\"]+)\",.*\"role\":\"([^\"]+)\",.*\"department_id\":\"([^\"]+)\"");
-            Matcher userMatcher = userPattern.matcher(response.body());
+        String storedPassword = credentials.password();
+        if (storedPassword == null || storedPassword.isEmpty()) {
+            LOG.warn("auth.rejected", "email", email, "reason", "no usable stored password");
+            return null;
+        }
 
-            if (!userMatcher.find()) {
-                LOGGER.warning("Could not extract user information from response");
-                return null;
-            }
+        // Verify on the hashing pool; legacy SHA-256 hashes are still accepted
+        if (!PasswordHasher.await(PasswordHasher.verifyAsync(password, storedPassword))) {
+            LOG.info("auth.rejected", "email", email, "reason", "password mismatch");
+            return null;
+        }
+        if (PasswordHasher.needsRehash(storedPassword)) {
+            upgradePasswordHash(credentials.user().getId(), password);
+        }
 
-            String storedName = userMatcher.group(1);
-            String storedRole = userMatcher.group(2);
-            String departmentId = userMatcher.group(3);
+        // Replace the department ID with its name for display
+        User user = credentials.user();
+        String departmentId = user.getDepartment();
+        Department department = credentials.department();
+        if (department == null && departmentId != null) {
+            department = getDepartmentById(departmentId);
+        }
+        user.setDepartment(department != null && department.name() != null ? department.name() : "Unknown Department");
 
-            // Extract stored password and salt
-            Pattern passwordPattern = Pattern.compile("\"password\":\"([^\"]+)\"");
-            Matcher passwordMatcher = passwordPattern.matcher(response.body());
+        SessionCache.start(user, departmentId);
+        LOG.info("auth.success", "user", user.getId());
+        return user;
+    }
 
-            if (!passwordMatcher.find()) {
-                LOGGER.warning("Could not extract password from response");
-                return null;
+    /**
+     * Replaces a user's legacy or weaker password hash after a successful login, in the background. A failure only
+     * means the upgrade is tried again at the next login.
+     */
+    private static void upgradePasswordHash(String userId, String password) {
+        if (userId == null) {
+            return;
+        }
+        String endpoint = "/rest/v1/users?id=eq." + userId;
+        PasswordHasher.hashAsync(password).thenCompose(Tracer.wrap("auth.rehash", hash -> {
+            try {
+                HttpRequest request = transport.newRequest(endpoint)
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(new JSONObject().put("password", hash).toString()))
+                        .build();
+                return transport.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-
-            String storedPasswordAndSalt = passwordMatcher.group(1);
-            
-            // Split stored password into hash and salt
-            String storedHash = storedPasswordAndSalt.substring(0, 44); // Base64 SHA-256 is 44 characters
-            String storedSalt = storedPasswordAndSalt.substring(44);
-
-            // Hash the provided password with the stored salt
-            String hashedPassword = hashPassword(password, storedSalt);
-
-            // Compare the hashes
-            if (!hashedPassword.equals(storedHash)) {
-                LOGGER.warning("Password mismatch");
-                return null;
+        })).whenComplete((response, error) -> {
+            if (error != null || response.statusCode() >= 300) {
+                LOG.warn("auth.rehash_failed", error, "user", userId, "status", response == null ? null : response.statusCode());
+            } else {
+                LOG.debug("auth.rehashed", "user", userId);
             }
+        });
+    }
 
-            // Get department name
-            String deptResponse = fetchData("/rest/v1/departments?department_id=eq." + departmentId);
-            Pattern deptNamePattern = Pattern.compile("\"name\":\"([^\"]+)\"");
-            Matcher deptNameMatcher = deptNamePattern.matcher(deptResponse);
-
-            String departmentName = deptNameMatcher.find() ? deptNameMatcher.group(1) : "Unknown Department";
-
-            // Return user information as comma-separated string
-            String userInfo = String.format("%s,%s,%s", storedName, storedRole, departmentName);
-            LOGGER.info("Authentication successful. User info: " + userInfo);
-            return userInfo;
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
-        }
+    /**
+     * Asynchronously authenticates a user. The lookup and hash comparison run on a virtual thread.
+     *
+     * @return A future completing with the authenticated user, or null if authentication fails.
+     * @see #authenticateUser(String, String)
+     */
+    public static CompletableFuture<User> authenticateUserAsync(String email, String password) {
+        return supplyAsync(() -> authenticateUser(email, password));
     }
 
     /**
      * Registers a faculty member with additional faculty-specific information.
+     * If the faculty details cannot be saved the user is still registered, and the failure is logged.
      *
      * @param name             The faculty member's name.
      * @param email            The faculty member's email.
@@ -367,32 +506,42 @@ public class SupabaseClient {
      * @param qualification    The faculty member's qualification.
      * @param experienceYears  The faculty member's experience years.
      * @param researchInterests The faculty member's research interests.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The created user.
+     * @throws IOException if the user cannot be registered.
      */
-    public static String registerFaculty(String name, String email, String password, String departmentId, 
-                                        String specialization, String officeLocation, String officeHours,
-                                        String qualification, Integer experienceYears, String researchInterests) throws IOException {
+    public static User registerFaculty(String name, String email, String password, String departmentId, 
+                                       String specialization, String officeLocation, String officeHours,
+                                       String qualification, Integer experienceYears, String researchInterests) throws IOException {
         // First register the user
-        String userResponse = registerUser(name, email, password, "faculty", departmentId, 0);
+        User user = registerUser(name, email, password, "faculty", departmentId, 0);
         
         try {
-            // Extract user_id from the response using regex
-            String userId = extractUserId(userResponse);
-            if (userId != null) {
-                // Update the faculty record with additional information
-                return updateFacultyInfo(userId, specialization, officeLocation, officeHours, 
-                                       qualification, experienceYears, researchInterests);
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Error parsing user response: " + e.getMessage());
+            // Update the faculty record with additional information
+            updateFacultyInfo(user.getId(), specialization, officeLocation, officeHours,
+                    qualification, experienceYears, researchInterests);
+        } catch (IOException e) {
+            LOG.warn("register.details_failed", e, "user", user.getId(), "table", "faculty");
         }
         
-        return userResponse;
+        return user;
     }
     
+    /**
+     * Asynchronously registers a faculty member.
+     *
+     * @return A future completing with the created user.
+     * @see #registerFaculty(String, String, String, String, String, String, String, String, Integer, String)
+     */
+    public static CompletableFuture<User> registerFacultyAsync(String name, String email, String password, String departmentId,
+                                                               String specialization, String officeLocation, String officeHours,
+                                                               String qualification, Integer experienceYears, String researchInterests) {
+        return supplyAsync(() -> registerFaculty(name, email, password, departmentId, specialization, officeLocation,
+                officeHours, qualification, experienceYears, researchInterests));
+    }
+
     /**
      * Registers a student with additional student-specific information.
+     * If the student details cannot be saved the user is still registered, and the failure is logged.
      *
      * @param name             The student's name.
      * @param email            The student's email.
@@ -405,30 +554,39 @@ public class SupabaseClient {
      * @param gpa              The student's GPA.
      * @param expectedGraduationDate The student's expected graduation date.
      * @param advisorId        The student's advisor ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The created user.
+     * @throws IOException if the user cannot be registered.
      */
-    public static String registerStudent(String name, String email, String password, String departmentId, 
-                                        int year, String enrollmentNumber, String major, String minor,
-                                        Double gpa, String expectedGraduationDate, String advisorId) throws IOException {
+    public static User registerStudent(String name, String email, String password, String departmentId, 
+                                       int year, String enrollmentNumber, String major, String minor,
+                                       Double gpa, String expectedGraduationDate, String advisorId) throws IOException {
         // First register the user
-        String userResponse = registerUser(name, email, password, "student", departmentId, year);
+        User user = registerUser(name, email, password, "student", departmentId, year);
         
         try {
-            // Extract user_id from the response using regex
-            String userId = extractUserId(userResponse);
-            if (userId != null) {
-                // Update the student record with additional information
-                return updateStudentInfo(userId, enrollmentNumber, major, minor, gpa, 
-                                       expectedGraduationDate, advisorId);
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Error parsing user response: " + e.getMessage());
+            // Update the student record with additional information
+            updateStudentInfo(user.getId(), enrollmentNumber, major, minor, gpa,
+                    expectedGraduationDate, advisorId);
+        } catch (IOException e) {
+            LOG.warn("register.details_failed", e, "user", user.getId(), "table", "students");
         }
         
-        return userResponse;
+        return user;
     }
     
+    /**
+     * Asynchronously registers a student.
+     *
+     * @return A future completing with the created user.
+     * @see #registerStudent(String, String, String, String, int, String, String, String, Double, String, String)
+     */
+    public static CompletableFuture<User> registerStudentAsync(String name, String email, String password, String departmentId,
+                                                               int year, String enrollmentNumber, String major, String minor,
+                                                               Double gpa, String expectedGraduationDate, String advisorId) {
+        return supplyAsync(() -> registerStudent(name, email, password, departmentId, year, enrollmentNumber, major,
+                minor, gpa, expectedGraduationDate, advisorId));
+    }
+
     /**
      * Updates faculty information for a specified faculty member.
      *
@@ -439,44 +597,19 @@ public class SupabaseClient {
      * @param qualification    The faculty member's qualification.
      * @param experienceYears  The faculty member's experience years.
      * @param researchInterests The faculty member's research interests.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @throws IOException if the request fails or is rejected.
      */
-    private static String updateFacultyInfo(String facultyId, String specialization, String officeLocation, 
+    private static void updateFacultyInfo(String facultyId, String specialization, String officeLocation, 
                                           String officeHours, String qualification, Integer experienceYears, 
                                           String researchInterests) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"specialization\":\"").append(specialization).append("\",");
-            jsonBuilder.append("\"office_location\":\"").append(officeLocation).append("\",");
-            jsonBuilder.append("\"office_hours\":\"").append(officeHours).append("\",");
-            jsonBuilder.append("\"qualification\":\"").append(qualification).append("\",");
-            jsonBuilder.append("\"experience_years\":").append(experienceYears).append(",");
-            jsonBuilder.append("\"research_interests\":\"").append(researchInterests).append("\"");
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/faculty?faculty_id=eq." + facultyId))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .PUT(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
-        }
+        JSONObject json = new JSONObject();
+        json.put("specialization", nullable(specialization));
+        json.put("office_location", nullable(officeLocation));
+        json.put("office_hours", nullable(officeHours));
+        json.put("qualification", nullable(qualification));
+        json.put("experience_years", nullable(experienceYears));
+        json.put("research_interests", nullable(researchInterests));
+        sendUpdate("/rest/v1/faculty?faculty_id=eq." + facultyId, json);
     }
     
     /**
@@ -489,376 +622,850 @@ public class SupabaseClient {
      * @param gpa              The student's GPA.
      * @param expectedGraduationDate The student's expected graduation date.
      * @param advisorId        The student's advisor ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @throws IOException if the request fails or is rejected.
      */
-    private static String updateStudentInfo(String studentId, String enrollmentNumber, String major, String minor,
+    private static void updateStudentInfo(String studentId, String enrollmentNumber, String major, String minor,
                                           Double gpa, String expectedGraduationDate, String advisorId) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"enrollment_number\":\"").append(enrollmentNumber).append("\",");
-            jsonBuilder.append("\"major\":\"").append(major).append("\",");
-            jsonBuilder.append("\"minor\":\"").append(minor).append("\",");
-            jsonBuilder.append("\"gpa\":").append(gpa).append(",");
-            jsonBuilder.append("\"expected_graduation_date\":\"").append(expectedGraduationDate).append("\",");
-            jsonBuilder.append("\"advisor_id\":\"").append(advisorId).append("\"");
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/students?student_id=eq." + studentId))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .PUT(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
+        JSONObject json = new JSONObject();
+        json.put("enrollment_number", nullable(enrollmentNumber));
+        json.put("major", nullable(major));
+        json.put("minor", nullable(minor));
+        json.put("gpa", nullable(gpa));
+        json.put("expected_graduation_date", nullable(expectedGraduationDate));
+        json.put("advisor_id", nullable(advisorId));
+        sendUpdate("/rest/v1/students?student_id=eq." + studentId, json);
+    }
+
+    private static void sendUpdate(String endpoint, JSONObject json) throws IOException {
+        HttpRequest request = transport.newRequest(endpoint)
+                .PUT(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+        HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IOException("Update of " + endpoint + " failed with status " + response.statusCode() + ": " + response.body());
         }
+        replica.applyPatch(endpoint, json);
+        invalidateCached(Endpoints.family(endpoint).substring("/rest/v1/".length()));
     }
 
     /**
-     * Retrieves all departments from the Supabase backend.
+     * Drops the cached rows of a table after a write to it: its by-id lookups, and its listing if it has one.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param table The table that was written, e.g. "courses".
      */
-    public static String getAllDepartments() throws IOException {
-        String endpoint = "/rest/v1/departments";
-        return fetchData(endpoint);
+    static void invalidateCached(String table) {
+        entities.invalidateTable(table);
+        if (table.equals("courses")) {
+            courseList.invalidate();
+        }
     }
 
     /**
-     * Retrieves a department by its ID from the Supabase backend.
+     * Retrieves all departments from the Supabase backend.
      *
-     * @param departmentId The department's ID.
-     * @return The response body as a string.
+     * @return The departments.
      * @throws IOException if the request fails.
      */
-    public static String getDepartmentById(String departmentId) throws IOException {
-        String endpoint = "/rest/v1/departments?department_id=eq." + departmentId;
-        return fetchData(endpoint);
+    public static List<Department> getAllDepartments() throws IOException {
+        return fetchList("/rest/v1/departments", Codecs.DEPARTMENT);
     }
 
     /**
-     * Retrieves all courses from the Supabase backend.
+     * Asynchronously retrieves all departments from the Supabase backend.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the departments.
      */
-    public static String getAllCourses() throws IOException {
-        String endpoint = "/rest/v1/courses";
-        return fetchData(endpoint);
+    public static CompletableFuture<List<Department>> getAllDepartmentsAsync() {
+        return fetchListAsync("/rest/v1/departments", Codecs.DEPARTMENT);
     }
 
     /**
-     * Retrieves a course by its ID from the Supabase backend.
+     * Retrieves a department by its ID from the Supabase backend.
      *
-     * @param courseId The course's ID.
-     * @return The response body as a string.
+     * @param departmentId The department's ID.
+     * @return The department, or null if it does not exist.
      * @throws IOException if the request fails.
      */
-    public static String getCourseById(String courseId) throws IOException {
-        String endpoint = "/rest/v1/courses?course_id=eq." + courseId;
-        return fetchData(endpoint);
+    public static Department getDepartmentById(String departmentId) throws IOException {
+        return await(getDepartmentByIdAsync(departmentId));
     }
 
     /**
-     * Retrieves courses by department from the Supabase backend.
+     * Asynchronously retrieves a department by its ID from the Supabase backend.
      *
      * @param departmentId The department's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the department, or null if it does not exist.
      */
-    public static String getCoursesByDepartment(String departmentId) throws IOException {
-        String endpoint = "/rest/v1/courses?department_id=eq." + departmentId;
-        return fetchData(endpoint);
+    public static CompletableFuture<Department> getDepartmentByIdAsync(String departmentId) {
+        return entities.getAsync("departments", departmentId, () -> fetchOneAsync("/rest/v1/departments?department_id=eq." + departmentId, Codecs.DEPARTMENT));
     }
 
     /**
-     * Retrieves all rooms from the Supabase backend.
+     * Retrieves all courses from the Supabase backend.
+     * Large tables are subject to the unbounded-query guard, see {@link KeysetPager#fetchAll}.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The courses.
+     * @throws IOException if the request fails, or the table is too large and the guard refuses to load it.
      */
-    public static String getAllRooms() throws IOException {
-        String endpoint = "/rest/v1/rooms";
-        return fetchData(endpoint);
+    public static List<Course> getAllCourses() throws IOException {
+        return fetchAllGuarded("courses", COURSE_KEY, Codecs.COURSE, Course::getId);
     }
 
     /**
-     * Retrieves a room by its ID from the Supabase backend.
+     * Asynchronously retrieves all courses from the Supabase backend.
      *
-     * @param roomId The room's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the courses.
      */
-    public static String getRoomById(String roomId) throws IOException {
-        String endpoint = "/rest/v1/rooms?room_id=eq." + roomId;
-        return fetchData(endpoint);
+    public static CompletableFuture<List<Course>> getAllCoursesAsync() {
+        return supplyAsync(SupabaseClient::getAllCourses);
     }
 
     /**
-     * Retrieves available rooms from the Supabase backend.
+     * Gets the stale-while-revalidate cache of all courses: its {@link StaleWhileRevalidate#get} returns the last
+     * known courses at once and passes the fresh ones to a callback. Configured as supabase.swr.courses.*.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The shared course listing.
      */
-    public static String getAvailableRooms() throws IOException {
-        String endpoint = "/rest/v1/rooms?is_available=eq.true";
-        return fetchData(endpoint);
+    public static StaleWhileRevalidate<List<Course>> getCourseList() {
+        return courseList;
     }
 
     /**
-     * Retrieves all time slots from the Supabase backend.
+     * Reads all courses page by page using keyset pagination on id.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param pageSize The maximum number of rows per request.
+     * @return A pager whose iterators fetch each page on demand.
      */
-    public static String getAllTimeSlots() throws IOException {
-        String endpoint = "/rest/v1/time_slots";
-        return fetchData(endpoint);
+    public static KeysetPager<Course> getAllCoursesPaged(int pageSize) {
+        return pager("courses", COURSE_KEY, pageSize, Codecs.COURSE, Course::getId);
     }
 
     /**
-     * Retrieves time slots by day of the week from the Supabase backend.
+     * Retrieves a course by its ID from the Supabase backend.
      *
-     * @param dayOfWeek The day of the week.
-     * @return The response body as a string.
+     * @param courseId The course's ID.
+     * @return The course, or null if it does not exist.
      * @throws IOException if the request fails.
      */
-    public static String getTimeSlotsByDay(String dayOfWeek) throws IOException {
-        String endpoint = "/rest/v1/time_slots?day_of_week=eq." + dayOfWeek;
-        return fetchData(endpoint);
+    public static Course getCourseById(String courseId) throws IOException {
+        return await(getCourseByIdAsync(courseId));
     }
 
     /**
-     * Retrieves all cohorts from the Supabase backend.
+     * Asynchronously retrieves a course by its ID from the Supabase backend.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param courseId The course's ID.
+     * @return A future completing with the course, or null if it does not exist.
      */
-    public static String getAllCohorts() throws IOException {
-        String endpoint = "/rest/v1/cohorts";
-        return fetchData(endpoint);
+    public static CompletableFuture<Course> getCourseByIdAsync(String courseId) {
+        // Course is mutable, so callers get their own copy of the cached instance
+        return entities.getAsync("courses", courseId,
+                        () -> fetchOneAsync("/rest/v1/courses?" + COURSE_KEY + "=eq." + courseId, Codecs.COURSE))
+                .thenApply(course -> course == null ? null
+                        : new Course(course.getId(), course.getCode(), course.getName(), course.getDepartment()));
     }
 
     /**
-     * Retrieves a cohort by its ID from the Supabase backend.
+     * Retrieves courses by department from the Supabase backend.
      *
-     * @param cohortId The cohort's ID.
-     * @return The response body as a string.
+     * @param departmentId The department's ID.
+     * @return The department's courses.
      * @throws IOException if the request fails.
      */
-    public static String getCohortById(String cohortId) throws IOException {
-        String endpoint = "/rest/v1/cohorts?cohort_id=eq." + cohortId;
-        return fetchData(endpoint);
+    public static List<Course> getCoursesByDepartment(String departmentId) throws IOException {
+        return fetchList("/rest/v1/courses?department_id=eq." + departmentId, Codecs.COURSE);
     }
 
     /**
-     * Retrieves cohorts by department from the Supabase backend.
+     * Asynchronously retrieves courses by department from the Supabase backend.
      *
      * @param departmentId The department's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the department's courses.
      */
-    public static String getCohortsByDepartment(String departmentId) throws IOException {
-        String endpoint = "/rest/v1/cohorts?department_id=eq." + departmentId;
-        return fetchData(endpoint);
+    public static CompletableFuture<List<Course>> getCoursesByDepartmentAsync(String departmentId) {
+        return fetchListAsync("/rest/v1/courses?department_id=eq." + departmentId, Codecs.COURSE);
     }
 
     /**
-     * Retrieves all schedules from the Supabase backend.
+     * Retrieves all rooms from the Supabase backend.
      *
-     * @return The response body as a string.
+     * @return The rooms.
      * @throws IOException if the request fails.
      */
-    public static String getAllSchedules() throws IOException {
-        String endpoint = "/rest/v1/schedules";
-        return fetchData(endpoint);
+    public static List<Room> getAllRooms() throws IOException {
+        return fetchList("/rest/v1/rooms", Codecs.ROOM);
     }
 
     /**
-     * Retrieves a schedule by its ID from the Supabase backend.
+     * Asynchronously retrieves all rooms from the Supabase backend.
      *
-     * @param scheduleId The schedule's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the rooms.
      */
-    public static String getScheduleById(String scheduleId) throws IOException {
-        String endpoint = "/rest/v1/schedules?schedule_id=eq." + scheduleId;
-        return fetchData(endpoint);
+    public static CompletableFuture<List<Room>> getAllRoomsAsync() {
+        return fetchListAsync("/rest/v1/rooms", Codecs.ROOM);
     }
 
     /**
-     * Retrieves schedules by faculty from the Supabase backend.
+     * Retrieves a room by its ID from the Supabase backend.
      *
-     * @param facultyId The faculty's ID.
-     * @return The response body as a string.
+     * @param roomId The room's ID.
+     * @return The room, or null if it does not exist.
      * @throws IOException if the request fails.
      */
-    public static String getSchedulesByFaculty(String facultyId) throws IOException {
-        String endpoint = "/rest/v1/schedules?faculty_id=eq." + facultyId;
-        return fetchData(endpoint);
+    public static Room getRoomById(String roomId) throws IOException {
+        return await(getRoomByIdAsync(roomId));
     }
 
     /**
-     * Retrieves schedules by cohort from the Supabase backend.
+     * Asynchronously retrieves a room by its ID from the Supabase backend.
      *
-     * @param cohortId The cohort's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param roomId The room's ID.
+     * @return A future completing with the room, or null if it does not exist.
      */
-    public static String getSchedulesByCohort(String cohortId) throws IOException {
-        String endpoint = "/rest/v1/schedules?cohort_id=eq." + cohortId;
-        return fetchData(endpoint);
+    public static CompletableFuture<Room> getRoomByIdAsync(String roomId) {
+        return entities.getAsync("rooms", roomId, () -> fetchOneAsync("/rest/v1/rooms?room_id=eq." + roomId, Codecs.ROOM));
     }
 
     /**
-     * Creates a new schedule with the provided details.
+     * Retrieves available rooms from the Supabase backend.
      *
-     * @param courseId     The course's ID.
-     * @param facultyId    The faculty's ID.
-     * @param cohortId     The cohort's ID.
-     * @param roomId       The room's ID.
-     * @param slotId       The time slot's ID.
-     * @param semester     The semester.
-     * @param academicYear The academic year.
-     * @return The response body as a string.
+     * @return The available rooms.
      * @throws IOException if the request fails.
      */
-    public static String createSchedule(String courseId, String facultyId, String cohortId, 
-                                      String roomId, String slotId, String semester, 
-                                      String academicYear) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"course_id\":\"").append(courseId).append("\",");
-            jsonBuilder.append("\"faculty_id\":\"").append(facultyId).append("\",");
-            jsonBuilder.append("\"cohort_id\":\"").append(cohortId).append("\",");
-            jsonBuilder.append("\"room_id\":\"").append(roomId).append("\",");
-            jsonBuilder.append("\"slot_id\":\"").append(slotId).append("\",");
-            jsonBuilder.append("\"semester\":\"").append(semester).append("\",");
-            jsonBuilder.append("\"academic_year\":\"").append(academicYear).append("\",");
-            jsonBuilder.append("\"is_active\":true");
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/schedules"))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
-        }
+    public static List<Room> getAvailableRooms() throws IOException {
+        return fetchList("/rest/v1/rooms?is_available=eq.true", Codecs.ROOM);
     }
 
     /**
-     * Creates a new evaluation with the provided details.
+     * Asynchronously retrieves available rooms from the Supabase backend.
      *
-     * @param title          The evaluation's title.
-     * @param description    The evaluation's description.
-     * @param subject        The evaluation's subject.
-     * @param type           The evaluation's type.
-     * @param date           The evaluation's date.
-     * @param startTime      The evaluation's start time.
-     * @param endTime        The evaluation's end time.
-     * @param courseId       The course's ID.
-     * @param facultyId      The faculty's ID.
-     * @param roomId         The room's ID.
-     * @param createdBy      The creator's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the available rooms.
      */
-    public static String createEvaluation(String title, String description, String subject, String type,
-                                        String date, String startTime, String endTime, String courseId,
-                                        String facultyId, String roomId, String createdBy) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"title\":\"").append(title).append("\",");
-            jsonBuilder.append("\"description\":\"").append(description).append("\",");
-            jsonBuilder.append("\"subject\":\"").append(subject).append("\",");
-            jsonBuilder.append("\"type\":\"").append(type).append("\",");
-            jsonBuilder.append("\"date\":\"").append(date).append("\",");
-            jsonBuilder.append("\"start_time\":\"").append(startTime).append("\",");
-            jsonBuilder.append("\"end_time\":\"").append(endTime).append("\",");
-            jsonBuilder.append("\"course_id\":\"").append(courseId).append("\",");
-            jsonBuilder.append("\"faculty_id\":\"").append(facultyId).append("\",");
-            jsonBuilder.append("\"room_id\":\"").append(roomId).append("\",");
-            jsonBuilder.append("\"created_by\":\"").append(createdBy).append("\",");
-            jsonBuilder.append("\"is_published\":false");
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/evaluations"))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
-        }
+    public static CompletableFuture<List<Room>> getAvailableRoomsAsync() {
+        return fetchListAsync("/rest/v1/rooms?is_available=eq.true", Codecs.ROOM);
     }
 
     /**
-     * Retrieves evaluations by faculty from the Supabase backend.
+     * Retrieves all time slots from the Supabase backend.
      *
-     * @param facultyId The faculty's ID.
-     * @return The response body as a string.
+     * @return The time slots.
      * @throws IOException if the request fails.
      */
-    public static String getEvaluationsByFaculty(String facultyId) throws IOException {
-        String endpoint = "/rest/v1/evaluations?faculty_id=eq." + facultyId;
-        return fetchData(endpoint);
+    public static List<TimeSlot> getAllTimeSlots() throws IOException {
+        return fetchList("/rest/v1/time_slots", Codecs.TIME_SLOT);
     }
 
     /**
-     * Retrieves evaluations by course from the Supabase backend.
+     * Asynchronously retrieves all time slots from the Supabase backend.
      *
-     * @param courseId The course's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return A future completing with the time slots.
      */
-    public static String getEvaluationsByCourse(String courseId) throws IOException {
-        String endpoint = "/rest/v1/evaluations?course_id=eq." + courseId;
-        return fetchData(endpoint);
+    public static CompletableFuture<List<TimeSlot>> getAllTimeSlotsAsync() {
+        return fetchListAsync("/rest/v1/time_slots", Codecs.TIME_SLOT);
+    }
+
+    /**
+     * Retrieves time slots by day of the week from the Supabase backend.
+     *
+     * @param dayOfWeek The day of the week.
+     * @return The day's time slots.
+     * @throws IOException if the request fails.
+     */
+    public static List<TimeSlot> getTimeSlotsByDay(String dayOfWeek) throws IOException {
+        return fetchList("/rest/v1/time_slots?day_of_week=eq." + dayOfWeek, Codecs.TIME_SLOT);
+    }
+
+    /**
+     * Asynchronously retrieves time slots by day of the week from the Supabase backend.
+     *
+     * @param dayOfWeek The day of the week.
+     * @return A future completing with the day's time slots.
+     */
+    public static CompletableFuture<List<TimeSlot>> getTimeSlotsByDayAsync(String dayOfWeek) {
+        return fetchListAsync("/rest/v1/time_slots?day_of_week=eq." + dayOfWeek, Codecs.TIME_SLOT);
+    }
+
+    /**
+     * Retrieves all cohorts from the Supabase backend.
+     *
+     * @return The cohorts.
+     * @throws IOException if the request fails.
+     */
+    public static List<Cohort> getAllCohorts() throws IOException {
+        return fetchList("/rest/v1/cohorts", Codecs.COHORT);
+    }
+
+    /**
+     * Asynchronously retrieves all cohorts from the Supabase backend.
+     *
+     * @return A future completing with the cohorts.
+     */
+    public static CompletableFuture<List<Cohort>> getAllCohortsAsync() {
+        return fetchListAsync("/rest/v1/cohorts", Codecs.COHORT);
+    }
+
+    /**
+     * Retrieves a cohort by its ID from the Supabase backend.
+     *
+     * @param cohortId The cohort's ID.
+     * @return The cohort, or null if it does not exist.
+     * @throws IOException if the request fails.
+     */
+    public static Cohort getCohortById(String cohortId) throws IOException {
+        return await(getCohortByIdAsync(cohortId));
+    }
+
+    /**
+     * Asynchronously retrieves a cohort by its ID from the Supabase backend.
+     *
+     * @param cohortId The cohort's ID.
+     * @return A future completing with the cohort, or null if it does not exist.
+     */
+    public static CompletableFuture<Cohort> getCohortByIdAsync(String cohortId) {
+        return entities.getAsync("cohorts", cohortId, () -> fetchOneAsync("/rest/v1/cohorts?cohort_id=eq." + cohortId, Codecs.COHORT));
+    }
+
+    /**
+     * Retrieves cohorts by department from the Supabase backend.
+     *
+     * @param departmentId The department's ID.
+     * @return The department's cohorts.
+     * @throws IOException if the request fails.
+     */
+    public static List<Cohort> getCohortsByDepartment(String departmentId) throws IOException {
+        return fetchList("/rest/v1/cohorts?department_id=eq." + departmentId, Codecs.COHORT);
+    }
+
+    /**
+     * Asynchronously retrieves cohorts by department from the Supabase backend.
+     *
+     * @param departmentId The department's ID.
+     * @return A future completing with the department's cohorts.
+     */
+    public static CompletableFuture<List<Cohort>> getCohortsByDepartmentAsync(String departmentId) {
+        return fetchListAsync("/rest/v1/cohorts?department_id=eq." + departmentId, Codecs.COHORT);
+    }
+
+    /**
+     * Retrieves all schedules from the Supabase backend.
+     * Large tables are subject to the unbounded-query guard, see {@link KeysetPager#fetchAll}.
+     *
+     * @return The schedules.
+     * @throws IOException if the request fails, or the table is too large and the guard refuses to load it.
+     */
+    public static List<Schedule> getAllSchedules() throws IOException {
+        return fetchAllGuarded("schedules", "schedule_id", Codecs.SCHEDULE, Schedule::scheduleId);
+    }
+
+    /**
+     * Asynchronously retrieves all schedules from the Supabase backend.
+     *
+     * @return A future completing with the schedules.
+     */
+    public static CompletableFuture<List<Schedule>> getAllSchedulesAsync() {
+        return supplyAsync(SupabaseClient::getAllSchedules);
+    }
+
+    /**
+     * Reads all schedules page by page using keyset pagination on schedule_id.
+     *
+     * @param pageSize The maximum number of rows per request.
+     * @return A pager whose iterators fetch each page on demand.
+     */
+    public static KeysetPager<Schedule> getAllSchedulesPaged(int pageSize) {
+        return pager("schedules", "schedule_id", pageSize, Codecs.SCHEDULE, Schedule::scheduleId);
+    }
+
+    /**
+     * Retrieves a schedule by its ID from the Supabase backend.
+     *
+     * @param scheduleId The schedule's ID.
+     * @return The schedule, or null if it does not exist.
+     * @throws IOException if the request fails.
+     */
+    public static Schedule getScheduleById(String scheduleId) throws IOException {
+        return await(getScheduleByIdAsync(scheduleId));
+    }
+
+    /**
+     * Asynchronously retrieves a schedule by its ID from the Supabase backend.
+     *
+     * @param scheduleId The schedule's ID.
+     * @return A future completing with the schedule, or null if it does not exist.
+     */
+    public static CompletableFuture<Schedule> getScheduleByIdAsync(String scheduleId) {
+        return entities.getAsync("schedules", scheduleId, () -> fetchOneAsync("/rest/v1/schedules?schedule_id=eq." + scheduleId, Codecs.SCHEDULE));
+    }
+
+    /**
+     * Retrieves schedules by faculty from the Supabase backend.
+     *
+     * @param facultyId The faculty's ID.
+     * @return The faculty member's schedules.
+     * @throws IOException if the request fails.
+     */
+    public static List<Schedule> getSchedulesByFaculty(String facultyId) throws IOException {
+        return fetchList("/rest/v1/schedules?faculty_id=eq." + facultyId, Codecs.SCHEDULE);
+    }
+
+    /**
+     * Asynchronously retrieves schedules by faculty from the Supabase backend.
+     *
+     * @param facultyId The faculty's ID.
+     * @return A future completing with the faculty member's schedules.
+     */
+    public static CompletableFuture<List<Schedule>> getSchedulesByFacultyAsync(String facultyId) {
+        return fetchListAsync("/rest/v1/schedules?faculty_id=eq." + facultyId, Codecs.SCHEDULE);
+    }
+
+    /**
+     * Retrieves schedules by cohort from the Supabase backend.
+     *
+     * @param cohortId The cohort's ID.
+     * @return The cohort's schedules.
+     * @throws IOException if the request fails.
+     */
+    public static List<Schedule> getSchedulesByCohort(String cohortId) throws IOException {
+        return await(fetchListHedgedAsync("/rest/v1/schedules?cohort_id=eq." + cohortId, Codecs.SCHEDULE));
+    }
+
+    /**
+     * Asynchronously retrieves schedules by cohort from the Supabase backend.
+     *
+     * @param cohortId The cohort's ID.
+     * @return A future completing with the cohort's schedules.
+     */
+    public static CompletableFuture<List<Schedule>> getSchedulesByCohortAsync(String cohortId) {
+        return fetchListHedgedAsync("/rest/v1/schedules?cohort_id=eq." + cohortId, Codecs.SCHEDULE);
+    }
+
+    /**
+     * Retrieves a faculty member's schedules with their course, room, time slot, cohort and faculty embedded,
+     * using a single request instead of one lookup per foreign key.
+     *
+     * @param facultyId The faculty's ID.
+     * @return The schedules with their related rows.
+     * @throws IOException if the request fails.
+     */
+    public static List<ScheduleDetails> getScheduleDetailsByFaculty(String facultyId) throws IOException {
+        return await(getScheduleDetailsByFacultyAsync(facultyId));
+    }
+
+    /**
+     * Asynchronously retrieves a faculty member's schedules with their related rows embedded.
+     *
+     * @param facultyId The faculty's ID.
+     * @return A future completing with the schedules with their related rows.
+     */
+    public static CompletableFuture<List<ScheduleDetails>> getScheduleDetailsByFacultyAsync(String facultyId) {
+        return fetchListAsync("/rest/v1/schedules?faculty_id=eq." + facultyId + "&" + SCHEDULE_DETAILS_SELECT, Codecs.SCHEDULE_DETAILS);
+    }
+
+    /**
+     * Retrieves a cohort's schedules with their course, room, time slot, cohort and faculty embedded,
+     * using a single request instead of one lookup per foreign key.
+     *
+     * @param cohortId The cohort's ID.
+     * @return The schedules with their related rows.
+     * @throws IOException if the request fails.
+     */
+    public static List<ScheduleDetails> getScheduleDetailsByCohort(String cohortId) throws IOException {
+        return await(getScheduleDetailsByCohortAsync(cohortId));
+    }
+
+    /**
+     * Asynchronously retrieves a cohort's schedules with their related rows embedded.
+     *
+     * @param cohortId The cohort's ID.
+     * @return A future completing with the schedules with their related rows.
+     */
+    public static CompletableFuture<List<ScheduleDetails>> getScheduleDetailsByCohortAsync(String cohortId) {
+        return fetchListHedgedAsync("/rest/v1/schedules?cohort_id=eq." + cohortId + "&" + SCHEDULE_DETAILS_SELECT, Codecs.SCHEDULE_DETAILS);
+    }
+
+    /**
+     * Creates a new schedule with the provided details.
+     *
+     * @param courseId     The course's ID.
+     * @param facultyId    The faculty's ID.
+     * @param cohortId     The cohort's ID.
+     * @param roomId       The room's ID.
+     * @param slotId       The time slot's ID.
+     * @param semester     The semester.
+     * @param academicYear The academic year.
+     * @return The schedule as committed locally, with a local ID until the {@link Outbox} has sent it.
+     * @throws IOException if the write cannot be journaled.
+     */
+    public static Schedule createSchedule(String courseId, String facultyId, String cohortId, 
+                                          String roomId, String slotId, String semester, 
+                                          String academicYear) throws IOException {
+        String json = buildScheduleJson(courseId, facultyId, cohortId, roomId, slotId, semester, academicYear);
+        return decodeLocal(enqueueInsert("schedules", "schedule_id", json), Codecs.SCHEDULE);
+    }
+
+    /**
+     * Asynchronously creates a new schedule with the provided details.
+     *
+     * @return A future completing with the created schedule once Supabase has stored it.
+     * @see #createSchedule(String, String, String, String, String, String, String)
+     */
+    public static CompletableFuture<Schedule> createScheduleAsync(String courseId, String facultyId, String cohortId,
+                                                                  String roomId, String slotId, String semester,
+                                                                  String academicYear) {
+        String json = buildScheduleJson(courseId, facultyId, cohortId, roomId, slotId, semester, academicYear);
+        return insertConfirmedAsync("schedules", "schedule_id", json, Codecs.SCHEDULE);
+    }
+
+    /**
+     * Creates a new schedule unless its room, faculty member or cohort is already booked in the same time slot,
+     * semester and academic year.
+     * <p>
+     * The check and the insert run in the create_schedule_checked database function (supabase/migrations), in one
+     * transaction and one request, so two concurrent bookings of a slot cannot both succeed and no schedules are
+     * downloaded. If the function is not installed the call fails, naming the migration to apply. Only when
+     * supabase.scheduleRpc.enabled is false are the schedules of the slot read and checked with
+     * {@link ScheduleConflicts} before inserting instead; that check is only atomic within this application.
+     * <p>
+     * Schedules made with {@link #createSchedule} that are still pending in the {@link Outbox} are not in the
+     * database yet, so the draft is first checked against them on this side and rejected if it clashes with one.
+     *
+     * @param courseId     The course's ID.
+     * @param facultyId    The faculty's ID.
+     * @param cohortId     The cohort's ID.
+     * @param roomId       The room's ID.
+     * @param slotId       The time slot's ID.
+     * @param semester     The semester.
+     * @param academicYear The academic year.
+     * @return The created schedule, or the existing schedules it conflicts with.
+     * @throws IOException if the request fails, or the create_schedule_checked migration has not been applied.
+     */
+    public static ScheduleInsertResult createScheduleChecked(String courseId, String facultyId, String cohortId,
+                                                             String roomId, String slotId, String semester,
+                                                             String academicYear) throws IOException {
+        return await(createScheduleCheckedAsync(courseId, facultyId, cohortId, roomId, slotId, semester, academicYear));
+    }
+
+    /**
+     * Asynchronously creates a new schedule unless it conflicts with an existing one.
+     *
+     * @return A future completing with the created schedule, or the existing schedules it conflicts with.
+     * @see #createScheduleChecked(String, String, String, String, String, String, String)
+     */
+    public static CompletableFuture<ScheduleInsertResult> createScheduleCheckedAsync(String courseId, String facultyId,
+                                                                                    String cohortId, String roomId,
+                                                                                    String slotId, String semester,
+                                                                                    String academicYear) {
+        Schedule draft = Schedule.draft(courseId, facultyId, cohortId, roomId, slotId, semester, academicYear);
+        return supplyAsync(() -> insertScheduleChecked(draft, scheduleRpc));
+    }
+
+    /**
+     * Inserts a schedule unless it conflicts with an existing or pending one.
+     *
+     * @param draft The schedule to insert.
+     * @param rpc   Whether to check and insert with create_schedule_checked, as supabase.scheduleRpc.enabled
+     *              chooses for {@link #createScheduleChecked}; tests use both ways.
+     * @return The created schedule, or the existing schedules it conflicts with.
+     * @throws IOException if a request fails.
+     */
+    static ScheduleInsertResult insertScheduleChecked(Schedule draft, boolean rpc) throws IOException {
+        try (Span span = Tracer.start("supabase.schedule_checked", "slot", draft.slotId())) {
+            List<ScheduleInsertResult.Conflict> pending = pendingConflicts(draft);
+            ScheduleInsertResult result = !pending.isEmpty() ? ScheduleInsertResult.rejected(pending)
+                    : rpc ? insertScheduleByRpc(draft) : insertScheduleLocally(draft);
+            span.tag("conflicts", result.conflicts().size());
+            if (!result.isSuccess()) {
+                LOG.info("schedule.rejected", "slot", draft.slotId(), "conflicts", result.conflicts().size());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Checks the draft against the schedules still waiting in the outbox, which neither the database function nor a
+     * read of the slot can see. Failed writes do not count: Supabase refused them, so they book nothing unless the
+     * user retries them, and a retried one is pending again.
+     */
+    private static List<ScheduleInsertResult.Conflict> pendingConflicts(Schedule draft) {
+        List<Schedule> pending = new ArrayList<>();
+        for (JSONObject row : Outbox.getInstance().getPendingRows("schedules")) {
+            pending.add(decodeRow(row, Codecs.SCHEDULE));
+        }
+        return ScheduleConflicts.find(draft, pending);
+    }
+
+    /**
+     * Calls create_schedule_checked.
+     *
+     * @throws IOException if the call fails, e.g. because the function is not installed.
+     */
+    private static ScheduleInsertResult insertScheduleByRpc(Schedule draft) throws IOException {
+        JSONObject params = new JSONObject();
+        JSONObject row = toScheduleJson(draft);
+        for (String column : List.of("course_id", "faculty_id", "cohort_id", "room_id", "slot_id", "semester", "academic_year")) {
+            params.put("p_" + column, row.get(column));
+        }
+        HttpRequest request = transport.newRequest(SCHEDULE_RPC)
+                .POST(HttpRequest.BodyPublishers.ofString(params.toString()))
+                .build();
+        HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404 && response.body() != null && response.body().contains("PGRST202")) {
+            // PostgREST has no such function
+            throw new IOException(SCHEDULE_RPC + " is not installed: the migration " + SCHEDULE_MIGRATION
+                    + " has not been applied (or set supabase.scheduleRpc.enabled=false)");
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Call of " + SCHEDULE_RPC + " failed with status " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            JSONObject body = new JSONObject(response.body());
+            JSONObject inserted = body.optJSONObject("schedule");
+            if (inserted != null) {
+                replica.applyInsert("/rest/v1/schedules", "[" + inserted + "]");
+                return ScheduleInsertResult.inserted(decodeRow(inserted, Codecs.SCHEDULE));
+            }
+            JSONArray rejected = body.optJSONArray("conflicts");
+            List<ScheduleInsertResult.Conflict> conflicts = new ArrayList<>();
+            for (int i = 0; rejected != null && i < rejected.length(); i++) {
+                JSONObject conflict = rejected.getJSONObject(i);
+                conflicts.add(new ScheduleInsertResult.Conflict(
+                        ScheduleInsertResult.Kind.valueOf(conflict.getString("kind").toUpperCase(Locale.ROOT)),
+                        decodeRow(conflict.getJSONObject("schedule"), Codecs.SCHEDULE)));
+            }
+            if (conflicts.isEmpty()) {
+                throw new IOException(SCHEDULE_RPC + " returned neither a schedule nor conflicts");
+            }
+            return ScheduleInsertResult.rejected(conflicts);
+        } catch (JSONException | IllegalArgumentException | UncheckedIOException e) {
+            throw new IOException("Unexpected response from " + SCHEDULE_RPC + ": " + Log.body(response.body()), e);
+        }
+    }
+
+    /**
+     * Reads the schedules of the draft's slot and term, checks them with {@link ScheduleConflicts} and inserts the
+     * draft if there is no conflict, holding a lock so that bookings made by this application do not interleave.
+     */
+    private static ScheduleInsertResult insertScheduleLocally(Schedule draft) throws IOException {
+        scheduleInsertLock.lock();
+        try {
+            // Read from Supabase rather than the replica, which may lag behind other clients' bookings
+            String endpoint = ScheduleConflicts.candidatesEndpoint(draft);
+            HttpResponse<String> existing = transport.get(endpoint);
+            if (existing.statusCode() != 200) {
+                throw new IOException("Read of " + endpoint + " failed with status " + existing.statusCode() + ": " + existing.body());
+            }
+            List<ScheduleInsertResult.Conflict> conflicts =
+                    ScheduleConflicts.find(draft, JsonCodec.readList(existing.body(), Codecs.SCHEDULE));
+            if (!conflicts.isEmpty()) {
+                return ScheduleInsertResult.rejected(conflicts);
+            }
+            HttpResponse<String> response = transport.send(
+                    buildInsertRequest("/rest/v1/schedules", toScheduleJson(draft).toString()), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IOException("Failed to create schedule: " + response.body());
+            }
+            Schedule schedule = decodeInserted("/rest/v1/schedules", response.body(), Codecs.SCHEDULE);
+            replica.applyInsert("/rest/v1/schedules", response.body());
+            return ScheduleInsertResult.inserted(schedule);
+        } finally {
+            scheduleInsertLock.unlock();
+        }
+    }
+
+    private static String buildScheduleJson(String courseId, String facultyId, String cohortId,
+                                            String roomId, String slotId, String semester, String academicYear) {
+        return toScheduleJson(Schedule.draft(courseId, facultyId, cohortId, roomId, slotId, semester, academicYear)).toString();
+    }
+
+    private static JSONObject toScheduleJson(Schedule schedule) {
+        // Every row of an array insert must have the same keys, so absent values are sent as explicit nulls
+        JSONObject json = new JSONObject();
+        json.put("course_id", nullable(schedule.courseId()));
+        json.put("faculty_id", nullable(schedule.facultyId()));
+        json.put("cohort_id", nullable(schedule.cohortId()));
+        json.put("room_id", nullable(schedule.roomId()));
+        json.put("slot_id", nullable(schedule.slotId()));
+        json.put("semester", nullable(schedule.semester()));
+        json.put("academic_year", nullable(schedule.academicYear()));
+        json.put("is_active", schedule.isActive());
+        return json;
+    }
+
+    private static Object nullable(Object value) {
+        return value == null ? JSONObject.NULL : value;
+    }
+
+    /**
+     * Inserts many schedules, e.g. when publishing a semester timetable.
+     * <p>
+     * Schedules are sent as JSON-array inserts of up to supabase.bulk.chunkSize rows (default 500), with up to
+     * supabase.bulk.parallelism chunks in flight at once (default 4). PostgREST inserts each chunk atomically, so
+     * when a chunk is rejected because of its data (400, 409 or 422) it is split in half and retried until the
+     * offending rows are isolated; every other row is still inserted.
+     *
+     * @param schedules The schedules to insert; their scheduleId is ignored.
+     * @return One result per schedule, in the same order, with the new schedule ID or the reason it was rejected.
+     * @throws IOException if the calling thread is interrupted while waiting for the chunks.
+     */
+    public static List<InsertResult> createSchedules(List<Schedule> schedules) throws IOException {
+        JSONObject[] rows = new JSONObject[schedules.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = toScheduleJson(schedules.get(i));
+        }
+        return insertAll("/rest/v1/schedules?select=schedule_id", "schedule_id", rows);
+    }
+
+    /**
+     * Asynchronously inserts many schedules.
+     *
+     * @param schedules The schedules to insert.
+     * @return A future completing with one result per schedule.
+     * @see #createSchedules(List)
+     */
+    public static CompletableFuture<List<InsertResult>> createSchedulesAsync(List<Schedule> schedules) {
+        return supplyAsync(() -> createSchedules(schedules));
+    }
+
+    /**
+     * Creates a new evaluation with the provided details.
+     *
+     * @param title          The evaluation's title.
+     * @param description    The evaluation's description.
+     * @param subject        The evaluation's subject.
+     * @param type           The evaluation's type.
+     * @param date           The evaluation's date.
+     * @param startTime      The evaluation's start time.
+     * @param endTime        The evaluation's end time.
+     * @param courseId       The course's ID.
+     * @param facultyId      The faculty's ID.
+     * @param roomId         The room's ID.
+     * @param createdBy      The creator's ID.
+     * @return The evaluation as committed locally, with a local ID until the {@link Outbox} has sent it.
+     * @throws IOException if the write cannot be journaled.
+     */
+    public static Evaluation createEvaluation(String title, String description, String subject, String type,
+                                              String date, String startTime, String endTime, String courseId,
+                                              String facultyId, String roomId, String createdBy) throws IOException {
+        String json = buildEvaluationJson(title, description, subject, type, date, startTime, endTime,
+                courseId, facultyId, roomId, createdBy);
+        return decodeLocal(enqueueInsert("evaluations", "evaluation_id", json), Codecs.EVALUATION);
+    }
+
+    /**
+     * Asynchronously creates a new evaluation with the provided details.
+     *
+     * @return A future completing with the created evaluation once Supabase has stored it.
+     * @see #createEvaluation(String, String, String, String, String, String, String, String, String, String, String)
+     */
+    public static CompletableFuture<Evaluation> createEvaluationAsync(String title, String description, String subject, String type,
+                                                                  String date, String startTime, String endTime, String courseId,
+                                                                  String facultyId, String roomId, String createdBy) {
+        String json = buildEvaluationJson(title, description, subject, type, date, startTime, endTime,
+                courseId, facultyId, roomId, createdBy);
+        return insertConfirmedAsync("evaluations", "evaluation_id", json, Codecs.EVALUATION);
+    }
+
+    private static String buildEvaluationJson(String title, String description, String subject, String type,
+                                              String date, String startTime, String endTime, String courseId,
+                                              String facultyId, String roomId, String createdBy) {
+        JSONObject json = new JSONObject();
+        json.put("title", nullable(title));
+        json.put("description", nullable(description));
+        json.put("subject", nullable(subject));
+        json.put("type", nullable(type));
+        json.put("date", nullable(date));
+        json.put("start_time", nullable(startTime));
+        json.put("end_time", nullable(endTime));
+        json.put("course_id", nullable(courseId));
+        json.put("faculty_id", nullable(facultyId));
+        json.put("room_id", nullable(roomId));
+        json.put("created_by", nullable(createdBy));
+        json.put("is_published", false);
+        return json.toString();
+    }
+
+    /**
+     * Retrieves evaluations by faculty from the Supabase backend.
+     *
+     * @param facultyId The faculty's ID.
+     * @return The faculty member's evaluations.
+     * @throws IOException if the request fails.
+     */
+    public static List<Evaluation> getEvaluationsByFaculty(String facultyId) throws IOException {
+        return await(fetchListHedgedAsync("/rest/v1/evaluations?faculty_id=eq." + facultyId, Codecs.EVALUATION));
+    }
+
+    /**
+     * Asynchronously retrieves evaluations by faculty from the Supabase backend.
+     *
+     * @param facultyId The faculty's ID.
+     * @return A future completing with the faculty member's evaluations.
+     */
+    public static CompletableFuture<List<Evaluation>> getEvaluationsByFacultyAsync(String facultyId) {
+        return fetchListHedgedAsync("/rest/v1/evaluations?faculty_id=eq." + facultyId, Codecs.EVALUATION);
+    }
+
+    /**
+     * Retrieves evaluations by course from the Supabase backend.
+     *
+     * @param courseId The course's ID.
+     * @return The course's evaluations.
+     * @throws IOException if the request fails.
+     */
+    public static List<Evaluation> getEvaluationsByCourse(String courseId) throws IOException {
+        return fetchList("/rest/v1/evaluations?course_id=eq." + courseId, Codecs.EVALUATION);
+    }
+
+    /**
+     * Asynchronously retrieves evaluations by course from the Supabase backend.
+     *
+     * @param courseId The course's ID.
+     * @return A future completing with the course's evaluations.
+     */
+    public static CompletableFuture<List<Evaluation>> getEvaluationsByCourseAsync(String courseId) {
+        return fetchListAsync("/rest/v1/evaluations?course_id=eq." + courseId, Codecs.EVALUATION);
+    }
+
+    /**
+     * Retrieves a faculty member's evaluations with their course, faculty and room embedded, in a single request.
+     *
+     * @param facultyId The faculty's ID.
+     * @return The evaluations with their related rows.
+     * @throws IOException if the request fails.
+     */
+    public static List<EvaluationDetails> getEvaluationDetailsByFaculty(String facultyId) throws IOException {
+        return await(getEvaluationDetailsByFacultyAsync(facultyId));
+    }
+
+    /**
+     * Asynchronously retrieves a faculty member's evaluations with their related rows embedded.
+     *
+     * @param facultyId The faculty's ID.
+     * @return A future completing with the evaluations with their related rows.
+     */
+    public static CompletableFuture<List<EvaluationDetails>> getEvaluationDetailsByFacultyAsync(String facultyId) {
+        return fetchListHedgedAsync("/rest/v1/evaluations?faculty_id=eq." + facultyId + "&" + EVALUATION_DETAILS_SELECT, Codecs.EVALUATION_DETAILS);
+    }
+
+    /**
+     * Retrieves a course's evaluations with their course, faculty and room embedded, in a single request.
+     *
+     * @param courseId The course's ID.
+     * @return The evaluations with their related rows.
+     * @throws IOException if the request fails.
+     */
+    public static List<EvaluationDetails> getEvaluationDetailsByCourse(String courseId) throws IOException {
+        return await(getEvaluationDetailsByCourseAsync(courseId));
+    }
+
+    /**
+     * Asynchronously retrieves a course's evaluations with their related rows embedded.
+     *
+     * @param courseId The course's ID.
+     * @return A future completing with the evaluations with their related rows.
+     */
+    public static CompletableFuture<List<EvaluationDetails>> getEvaluationDetailsByCourseAsync(String courseId) {
+        return fetchListAsync("/rest/v1/evaluations?course_id=eq." + courseId + "&" + EVALUATION_DETAILS_SELECT, Codecs.EVALUATION_DETAILS);
     }
 
     /**
@@ -868,56 +1475,55 @@ public class SupabaseClient {
      * @param userId       The user's ID.
      * @param text         The comment's text.
      * @param parentCommentId The parent comment's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @return The comment as committed locally, with a local ID until the {@link Outbox} has sent it.
+     * @throws IOException if the write cannot be journaled.
      */
-    public static String addComment(String evaluationId, String userId, String text, String parentCommentId) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
-            }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"evaluation_id\":\"").append(evaluationId).append("\",");
-            jsonBuilder.append("\"user_id\":\"").append(userId).append("\",");
-            jsonBuilder.append("\"text\":\"").append(text).append("\"");
-            
-            if (parentCommentId != null) {
-                jsonBuilder.append(",\"parent_comment_id\":\"").append(parentCommentId).append("\"");
-            }
-            
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/comments"))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
+    public static Comment addComment(String evaluationId, String userId, String text, String parentCommentId) throws IOException {
+        return decodeLocal(enqueueInsert("comments", "comment_id",
+                buildCommentJson(evaluationId, userId, text, parentCommentId)), Codecs.COMMENT);
+    }
+
+    /**
+     * Asynchronously adds a comment to an evaluation.
+     *
+     * @return A future completing with the created comment once Supabase has stored it.
+     * @see #addComment(String, String, String, String)
+     */
+    public static CompletableFuture<Comment> addCommentAsync(String evaluationId, String userId, String text, String parentCommentId) {
+        return insertConfirmedAsync("comments", "comment_id",
+                buildCommentJson(evaluationId, userId, text, parentCommentId), Codecs.COMMENT);
+    }
+
+    private static String buildCommentJson(String evaluationId, String userId, String text, String parentCommentId) {
+        JSONObject json = new JSONObject();
+        json.put("evaluation_id", nullable(evaluationId));
+        json.put("user_id", nullable(userId));
+        json.put("text", nullable(text));
+        if (parentCommentId != null) {
+            json.put("parent_comment_id", parentCommentId);
         }
+        return json.toString();
     }
 
     /**
      * Retrieves comments by evaluation from the Supabase backend.
      *
      * @param evaluationId The evaluation's ID.
-     * @return The response body as a string.
+     * @return The evaluation's comments.
      * @throws IOException if the request fails.
      */
-    public static String getCommentsByEvaluation(String evaluationId) throws IOException {
-        String endpoint = "/rest/v1/comments?evaluation_id=eq." + evaluationId;
-        return fetchData(endpoint);
+    public static List<Comment> getCommentsByEvaluation(String evaluationId) throws IOException {
+        return await(fetchListHedgedAsync("/rest/v1/comments?evaluation_id=eq." + evaluationId, Codecs.COMMENT));
+    }
+
+    /**
+     * Asynchronously retrieves comments by evaluation from the Supabase backend.
+     *
+     * @param evaluationId The evaluation's ID.
+     * @return A future completing with the evaluation's comments.
+     */
+    public static CompletableFuture<List<Comment>> getCommentsByEvaluationAsync(String evaluationId) {
+        return fetchListHedgedAsync("/rest/v1/comments?evaluation_id=eq." + evaluationId, Codecs.COMMENT);
     }
 
     /**
@@ -926,76 +1532,286 @@ public class SupabaseClient {
      * @param evaluationId The evaluation's ID.
      * @param userId       The user's ID.
      * @param reactionType The reaction's type.
-     * @return The response body as a string.
+     * @return The reaction as committed locally, with a local ID until the {@link Outbox} has sent it.
+     * @throws IOException if the write cannot be journaled.
+     */
+    public static Reaction addReaction(String evaluationId, String userId, String reactionType) throws IOException {
+        return decodeLocal(enqueueInsert("reactions", "reaction_id",
+                buildReactionJson(evaluationId, userId, reactionType)), Codecs.REACTION);
+    }
+
+    /**
+     * Asynchronously adds a reaction to an evaluation.
+     *
+     * @return A future completing with the created reaction once Supabase has stored it.
+     * @see #addReaction(String, String, String)
+     */
+    public static CompletableFuture<Reaction> addReactionAsync(String evaluationId, String userId, String reactionType) {
+        return insertConfirmedAsync("reactions", "reaction_id",
+                buildReactionJson(evaluationId, userId, reactionType), Codecs.REACTION);
+    }
+
+    private static String buildReactionJson(String evaluationId, String userId, String reactionType) {
+        JSONObject json = new JSONObject();
+        json.put("evaluation_id", nullable(evaluationId));
+        json.put("user_id", nullable(userId));
+        json.put("reaction_type", nullable(reactionType));
+        return json.toString();
+    }
+
+    /**
+     * Retrieves reactions by evaluation from the Supabase backend.
+     *
+     * @param evaluationId The evaluation's ID.
+     * @return The evaluation's reactions.
      * @throws IOException if the request fails.
      */
-    public static String addReaction(String evaluationId, String userId, String reactionType) throws IOException {
-        try {
-            String supabaseUrl = AppConfig.getSupabaseUrl();
-            String supabaseKey = AppConfig.getSupabaseKey();
-            
-            if (supabaseUrl == null || supabaseKey == null) {
-                throw new IOException("Supabase credentials not configured. Please check your configuration.");
+    public static List<Reaction> getReactionsByEvaluation(String evaluationId) throws IOException {
+        return fetchList("/rest/v1/reactions?evaluation_id=eq." + evaluationId, Codecs.REACTION);
+    }
+
+    /**
+     * Asynchronously retrieves reactions by evaluation from the Supabase backend.
+     *
+     * @param evaluationId The evaluation's ID.
+     * @return A future completing with the evaluation's reactions.
+     */
+    public static CompletableFuture<List<Reaction>> getReactionsByEvaluationAsync(String evaluationId) {
+        return fetchListAsync("/rest/v1/reactions?evaluation_id=eq." + evaluationId, Codecs.REACTION);
+    }
+
+    /**
+     * Retrieves all faculty members from the Supabase backend.
+     * Large tables are subject to the unbounded-query guard, see {@link KeysetPager#fetchAll}.
+     *
+     * @return The faculty members.
+     * @throws IOException if the request fails, or the table is too large and the guard refuses to load it.
+     */
+    public static List<Faculty> getAllFaculty() throws IOException {
+        return fetchAllGuarded("faculty", "faculty_id", Codecs.FACULTY, Faculty::facultyId);
+    }
+
+    /**
+     * Asynchronously retrieves all faculty members from the Supabase backend.
+     *
+     * @return A future completing with the faculty members.
+     */
+    public static CompletableFuture<List<Faculty>> getAllFacultyAsync() {
+        return supplyAsync(SupabaseClient::getAllFaculty);
+    }
+
+    /**
+     * Reads all faculty members page by page using keyset pagination on faculty_id.
+     *
+     * @param pageSize The maximum number of rows per request.
+     * @return A pager whose iterators fetch each page on demand.
+     */
+    public static KeysetPager<Faculty> getAllFacultyPaged(int pageSize) {
+        return pager("faculty", "faculty_id", pageSize, Codecs.FACULTY, Faculty::facultyId);
+    }
+
+    /**
+     * Gets the counters of the cache behind the by-id lookups, e.g. to check its hit rate.
+     *
+     * @return A snapshot of the entity cache statistics.
+     */
+    public static EntityCache.Stats getEntityCacheStats() {
+        return entities.getStats();
+    }
+
+    /**
+     * Builds a POST request that inserts a row into the given table and returns the created representation.
+     *
+     * @param path The REST path of the table (e.g. "/rest/v1/schedules").
+     * @param json The JSON body to insert.
+     * @return The prepared request.
+     * @throws IOException if the Supabase credentials are not configured.
+     */
+    private static HttpRequest buildInsertRequest(String path, String json) throws IOException {
+        return transport.newRequest(path)
+                .header("Prefer", "return=representation")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /**
+     * Inserts rows in parallel chunks and collects a result for every row.
+     *
+     * @param path     The REST path of the table, optionally with a select limiting the returned columns.
+     * @param idColumn The primary key column to report for inserted rows.
+     * @param rows     The rows to insert.
+     * @return One result per row, in order.
+     * @throws IOException if the calling thread is interrupted.
+     */
+    private static List<InsertResult> insertAll(String path, String idColumn, JSONObject[] rows) throws IOException {
+        InsertResult[] results = new InsertResult[rows.length];
+        Semaphore permits = new Semaphore(Math.max(1, BULK_PARALLELISM));
+        List<Future<?>> chunks = new ArrayList<>();
+        try (Span span = Tracer.start("supabase.bulk_insert", "path", path, "rows", rows.length)) {
+            for (int start = 0; start < rows.length; start += BULK_CHUNK_SIZE) {
+                int from = start;
+                int to = Math.min(rows.length, start + BULK_CHUNK_SIZE);
+                permits.acquire();
+                chunks.add(transport.getExecutor().submit(Tracer.wrap(() -> {
+                    try {
+                        insertChunk(path, idColumn, rows, from, to, results);
+                    } finally {
+                        permits.release();
+                    }
+                })));
+            }
+            span.tag("chunks", chunks.size());
+            for (Future<?> chunk : chunks) {
+                chunk.get();
             }
-            
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            jsonBuilder.append("\"evaluation_id\":\"").append(evaluationId).append("\",");
-            jsonBuilder.append("\"user_id\":\"").append(userId).append("\",");
-            jsonBuilder.append("\"reaction_type\":\"").append(reactionType).append("\"");
-            jsonBuilder.append("}");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(supabaseUrl + "/rest/v1/reactions"))
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBuilder.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
         } catch (InterruptedException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
             Thread.currentThread().interrupt();
-            throw new IOException("Request interrupted", e);
+            throw new IOException("Bulk insert interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Bulk insert failed", e.getCause());
+        }
+        long failed = Arrays.stream(results).filter(result -> !result.isSuccess()).count();
+        LOG.info("bulk_insert", "path", path, "inserted", rows.length - failed, "failed", failed);
+        return Arrays.asList(results);
+    }
+
+    private static void insertChunk(String path, String idColumn, JSONObject[] rows, int from, int to, InsertResult[] results) {
+        JSONArray body = new JSONArray();
+        for (int i = from; i < to; i++) {
+            body.put(rows[i]);
+        }
+        try {
+            HttpResponse<String> response = transport.send(buildInsertRequest(path, body.toString()), HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status == 200 || status == 201) {
+                JSONArray inserted = new JSONArray(response.body());
+                // The response only carries the IDs, so the replica gets the sent rows with their new IDs
+                JSONArray stored = new JSONArray();
+                for (int i = from; i < to; i++) {
+                    JSONObject row = inserted.optJSONObject(i - from);
+                    results[i] = InsertResult.inserted(i, row == null ? null : row.optString(idColumn, null));
+                    if (row != null && row.has(idColumn)) {
+                        stored.put(new JSONObject(rows[i], JSONObject.getNames(rows[i])).put(idColumn, row.get(idColumn)));
+                    }
+                }
+                replica.applyInsert(path, stored.toString());
+                return;
+            }
+            if ((status == 400 || status == 409 || status == 422) && to - from > 1) {
+                // The chunk was rejected as a whole; narrow down the rows responsible
+                int mid = (from + to) >>> 1;
+                insertChunk(path, idColumn, rows, from, mid, results);
+                insertChunk(path, idColumn, rows, mid, to, results);
+                return;
+            }
+            failChunk(from, to, results, "HTTP " + status + ": " + response.body());
+        } catch (IOException | JSONException e) {
+            failChunk(from, to, results, e.getMessage());
+        }
+    }
+
+    private static void failChunk(int from, int to, InsertResult[] results, String error) {
+        for (int i = from; i < to; i++) {
+            results[i] = InsertResult.failed(i, error);
         }
     }
 
     /**
-     * Retrieves reactions by evaluation from the Supabase backend.
+     * Commits an insert to the {@link Outbox}; it is sent to Supabase in the background.
      *
-     * @param evaluationId The evaluation's ID.
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param table     The table name.
+     * @param keyColumn The table's primary key column.
+     * @param json      The JSON body to insert.
+     * @return The journaled write.
+     * @throws IOException if the write cannot be journaled.
      */
-    public static String getReactionsByEvaluation(String evaluationId) throws IOException {
-        String endpoint = "/rest/v1/reactions?evaluation_id=eq." + evaluationId;
-        return fetchData(endpoint);
+    private static Outbox.Entry enqueueInsert(String table, String keyColumn, String json) throws IOException {
+        return Outbox.getInstance().enqueue(table, keyColumn, new JSONObject(json));
     }
 
     /**
-     * Retrieves all faculty members from the Supabase backend.
+     * Commits an insert to the {@link Outbox} and waits, without blocking a thread, until Supabase has stored it.
+     */
+    private static <T> CompletableFuture<T> insertConfirmedAsync(String table, String keyColumn, String json,
+                                                                JsonCodec<T> codec) {
+        try {
+            return enqueueInsert(table, keyColumn, json).getCompletion()
+                    .thenApply(row -> decodeRow(row, codec));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T decodeLocal(Outbox.Entry entry, JsonCodec<T> codec) {
+        return decodeRow(entry.localRow(), codec);
+    }
+
+    private static <T> T decodeRow(JSONObject row, JsonCodec<T> codec) {
+        try {
+            return JsonCodec.readList("[" + row + "]", codec).get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the representation returned by an insert with {@code Prefer: return=representation}, which PostgREST
+     * sends as an array holding the created row.
+     */
+    private static <T> T decodeInserted(String path, String body, JsonCodec<T> codec) throws IOException {
+        List<T> rows = JsonCodec.readList(body, codec);
+        if (rows.isEmpty()) {
+            throw new IOException("Insert into " + path + " returned no row");
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Runs a blocking, multi-request operation on a virtual thread.
      *
-     * @return The response body as a string.
-     * @throws IOException if the request fails.
+     * @param task The operation to run.
+     * @return A future completing with the operation's result, or exceptionally with a {@link CompletionException}
+     *         wrapping the {@link IOException} it threw.
      */
-    public static String getAllFaculty() throws IOException {
-        String endpoint = "/rest/v1/faculty";
-        return fetchData(endpoint);
+    private static <T> CompletableFuture<T> supplyAsync(IOSupplier<T> task) {
+        return CompletableFuture.supplyAsync(Tracer.wrap(() -> {
+            try {
+                return task.get();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }), transport.getExecutor());
     }
 
     /**
-     * Extracts the user ID from a JSON response.
+     * Blocks until a future completes, translating its failure back into the checked exception of the sync API.
      *
-     * @param jsonResponse The JSON response.
-     * @return The user ID, or null if not found.
+     * @param future The future to wait for.
+     * @return The future's result.
+     * @throws IOException if the underlying request failed or the calling thread is interrupted.
      */
-    private static String extractUserId(String jsonResponse) {
-        Pattern pattern = Pattern.compile("\"user\":\\{\"id\":\"([^\"]+)\"");
-        Matcher matcher = pattern.matcher(jsonResponse);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            // Wrap rather than rethrow: a coalesced failure is shared by every waiting caller
+            throw new IOException(cause.getMessage(), cause);
         }
-        return null;
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+        T get() throws IOException;
     }
 }
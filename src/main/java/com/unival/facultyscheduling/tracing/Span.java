@@ -0,0 +1,163 @@
+package com.unival.facultyscheduling.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Span is one timed step of a traced action, such as a button click, a service call, an HTTP request or an FX
+ * update.
+ * <p>
+ * Spans are created with {@link Tracer#start(String, Object...)}, which makes the new span the current span of the
+ * calling thread until it is closed, so it must be used with try-with-resources. Every span created while another
+ * is current becomes its child; all spans under the same root share a trace ID.
+ * <p>
+ * A span that covers asynchronous work is handed to {@link #endWhenDone(CompletableFuture)}: closing it then only
+ * restores the thread's previous span, and the span itself ends when the future completes.
+ */
+public final class Span implements AutoCloseable {
+    /** The span returned while tracing is disabled; it records nothing. */
+    static final Span NOOP = new Span(null, "", 0, 0, 0, false);
+
+    private final Span previous;
+    private final String name;
+    private final long traceId;
+    private final long spanId;
+    private final long parentId;
+    private final long startNanos;
+    private final long threadId;
+    private final String threadName;
+    private final boolean recording;
+    private final Map<String, Object> tags = new LinkedHashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile long durationNanos = -1;
+    private volatile boolean deferred;
+
+    Span(Span previous, String name, long traceId, long spanId, long parentId, boolean recording) {
+        this.previous = previous;
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.recording = recording;
+        this.startNanos = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        this.threadId = thread.threadId();
+        this.threadName = thread.getName();
+    }
+
+    /**
+     * Adds an attribute to the span, e.g. the endpoint or the number of rows.
+     *
+     * @param key   The attribute name.
+     * @param value The attribute value; it is converted to a string when the span is exported.
+     * @return This span.
+     */
+    public Span tag(String key, Object value) {
+        if (recording) {
+            synchronized (tags) {
+                tags.put(key, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param error The failure.
+     * @return This span.
+     */
+    public Span error(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return tag("error", cause.toString());
+    }
+
+    /**
+     * Ends the span when a future completes instead of when it is closed.
+     *
+     * @param future The asynchronous work this span covers.
+     * @return The same future.
+     */
+    public <T> CompletableFuture<T> endWhenDone(CompletableFuture<T> future) {
+        if (!recording) {
+            return future;
+        }
+        deferred = true;
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                error(error);
+            }
+            end();
+        });
+        return future;
+    }
+
+    /**
+     * Restores the span that was current before this one was started and, unless the span was handed to
+     * {@link #endWhenDone(CompletableFuture)}, ends it.
+     */
+    @Override
+    public void close() {
+        if (!recording) {
+            return;
+        }
+        Tracer.restore(previous);
+        if (!deferred) {
+            end();
+        }
+    }
+
+    private void end() {
+        if (ended.compareAndSet(false, true)) {
+            durationNanos = System.nanoTime() - startNanos;
+            Tracer.finished(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return The parent's span ID, or 0 for a root span.
+     */
+    public long getParentId() {
+        return parentId;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return The duration, or -1 while the span is still open.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    Map<String, Object> getTags() {
+        synchronized (tags) {
+            return new LinkedHashMap<>(tags);
+        }
+    }
+}
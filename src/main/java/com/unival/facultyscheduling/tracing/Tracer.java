@@ -0,0 +1,329 @@
+package com.unival.facultyscheduling.tracing;
+
+import com.unival.facultyscheduling.config.AppConfig;
+import com.unival.facultyscheduling.logging.Log;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.json.JSONObject;
+
+/**
+ * Tracer is a lightweight in-process tracer that shows which requests, parsing and FX updates a user action caused,
+ * and how long each step took.
+ * <p>
+ * The current {@link Span} is kept per thread. Work that moves to another thread keeps its parent by being wrapped
+ * before it is handed over:
+ * <pre>
+ *     try (Span span = Tracer.start("ui.comment.post")) {
+ *         new Thread(Tracer.wrap(() -> {
+ *             commentService.addComment(comment);
+ *             Platform.runLater(Tracer.wrap("fx.comments.render", () -> render(comments)));
+ *         })).start();
+ *     }
+ * </pre>
+ * Code that does not tag its span can use {@link #run} or {@link #call} instead of try-with-resources.
+ * {@link com.unival.facultyscheduling.net.SupabaseTransport} and the services already propagate the current span to
+ * their worker threads, so a span started around a call into them becomes the parent of every HTTP span it causes.
+ * <p>
+ * Finished spans are kept in a bounded buffer (tracing.maxSpans, default 10000; the oldest are dropped first) and
+ * can be exported with {@link #export(Path)} in the Chrome trace event format, which chrome://tracing and
+ * Perfetto open directly. If tracing.exportFile is set, the buffer is exported there when the application exits.
+ * Tracing can be switched off with tracing.enabled=false, which makes every call a no-op.
+ */
+public final class Tracer {
+    private static final Log LOG = Log.get(Tracer.class);
+    private static final boolean ENABLED = AppConfig.getBoolean("tracing.enabled", true);
+    private static final int MAX_SPANS = Math.max(1, AppConfig.getInt("tracing.maxSpans", 10000));
+    private static final long EPOCH_NANOS = System.nanoTime();
+    private static final long EPOCH_MICROS = System.currentTimeMillis() * 1000;
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final Span[] FINISHED = new Span[MAX_SPANS];
+    private static int next;
+    private static long finishedCount;
+
+    static {
+        String exportFile = AppConfig.getString("tracing.exportFile", null);
+        if (ENABLED && exportFile != null && !exportFile.isBlank()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    export(Path.of(exportFile));
+                } catch (IOException e) {
+                    LOG.warn("trace.export_failed", e, "file", exportFile);
+                }
+            }, "trace-export"));
+        }
+    }
+
+    /**
+     * The body of {@link #call}, which may throw a checked exception.
+     */
+    @FunctionalInterface
+    public interface SpanTask<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private Tracer() {
+    }
+
+    /**
+     * Starts a span as a child of the current span (or as a new root) and makes it current until it is closed.
+     *
+     * @param name A short, low-cardinality name; the part before the first '.' or space is used as its category.
+     * @param tags Attribute names and values, alternating.
+     * @return The span; close it with try-with-resources on the same thread.
+     */
+    public static Span start(String name, Object... tags) {
+        if (!ENABLED) {
+            return Span.NOOP;
+        }
+        Span parent = CURRENT.get();
+        long id = IDS.incrementAndGet();
+        Span span = new Span(parent, name, parent == null ? id : parent.getTraceId(), id,
+                parent == null ? 0 : parent.getSpanId(), true);
+        for (int i = 0; i + 1 < tags.length; i += 2) {
+            span.tag(String.valueOf(tags[i]), tags[i + 1]);
+        }
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Runs a task in its own span, for code that has nothing to tag on the span once it has started.
+     *
+     * @param name The span name.
+     * @param task The task.
+     * @param tags Attribute names and values, alternating.
+     */
+    public static void run(String name, Runnable task, Object... tags) {
+        Span span = start(name, tags);
+        try {
+            task.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Computes a result in its own span, like {@link #run(String, Runnable, Object...)}.
+     *
+     * @param name The span name.
+     * @param task Computes the result; its checked exception is passed through.
+     * @param tags Attribute names and values, alternating.
+     * @return The task's result.
+     * @throws E if the task throws it.
+     */
+    public static <T, E extends Exception> T call(String name, SpanTask<T, E> task, Object... tags) throws E {
+        Span span = start(name, tags);
+        try {
+            return task.call();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Gets the current span of the calling thread.
+     *
+     * @return The current span, or null if there is none.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps a task so that it runs with the span that is current now as its parent, on whichever thread runs it.
+     *
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public static Runnable wrap(Runnable task) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(parent);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so that it runs in its own span, a child of the span that is current now. Use this for
+     * {@code Platform.runLater} so that FX updates show up in the action's trace.
+     *
+     * @param name The span name.
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public static Runnable wrap(String name, Runnable task) {
+        if (!ENABLED) {
+            return task;
+        }
+        return wrap(() -> run(name, task));
+    }
+
+    /**
+     * Wraps a supplier like {@link #wrap(Runnable)}.
+     *
+     * @param supplier The supplier.
+     * @return The wrapped supplier.
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return supplier;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(parent);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a function so that each call runs in its own span, a child of the span that is current now. Use this
+     * for completion stages such as decoding a response.
+     *
+     * @param name     The span name.
+     * @param function The function.
+     * @return The wrapped function.
+     */
+    public static <T, R> Function<T, R> wrap(String name, Function<T, R> function) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return function;
+        }
+        return value -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(parent);
+            try {
+                return call(name, () -> function.apply(value));
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor so that every task runs with the span that was current when it was submitted.
+     *
+     * @param executor The executor.
+     * @return The wrapped executor.
+     */
+    public static Executor wrap(Executor executor) {
+        return ENABLED ? task -> executor.execute(wrap(task)) : executor;
+    }
+
+    /**
+     * Gets the finished spans still held in the buffer, oldest first.
+     *
+     * @return A copy of the buffered spans.
+     */
+    public static List<Span> getFinishedSpans() {
+        synchronized (FINISHED) {
+            int size = (int) Math.min(finishedCount, MAX_SPANS);
+            List<Span> spans = new ArrayList<>(size);
+            int start = size < MAX_SPANS ? 0 : next;
+            for (int i = 0; i < size; i++) {
+                spans.add(FINISHED[(start + i) % MAX_SPANS]);
+            }
+            return spans;
+        }
+    }
+
+    /**
+     * Writes the buffered spans to a file in the Chrome trace event format: one complete ("X") event per span with
+     * its trace, span and parent IDs and tags as arguments, plus the names of the threads they ran on.
+     *
+     * @param file The file to write; it is replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void export(Path file) throws IOException {
+        List<Span> spans = getFinishedSpans();
+        Map<Long, String> threads = new HashMap<>();
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            boolean first = true;
+            for (Span span : spans) {
+                threads.putIfAbsent(span.getThreadId(), span.getThreadName());
+                JSONObject args = new JSONObject()
+                        .put("traceId", Long.toHexString(span.getTraceId()))
+                        .put("spanId", Long.toHexString(span.getSpanId()));
+                if (span.getParentId() != 0) {
+                    args.put("parentId", Long.toHexString(span.getParentId()));
+                }
+                span.getTags().forEach((key, value) -> args.put(key, String.valueOf(value)));
+                JSONObject event = new JSONObject()
+                        .put("name", span.getName())
+                        .put("cat", category(span.getName()))
+                        .put("ph", "X")
+                        .put("ts", EPOCH_MICROS + (span.getStartNanos() - EPOCH_NANOS) / 1000)
+                        .put("dur", Math.max(1, span.getDurationNanos() / 1000))
+                        .put("pid", 1)
+                        .put("tid", span.getThreadId())
+                        .put("args", args);
+                out.write(first ? "" : ",\n");
+                out.write(event.toString());
+                first = false;
+            }
+            for (Map.Entry<Long, String> thread : threads.entrySet()) {
+                JSONObject event = new JSONObject()
+                        .put("name", "thread_name")
+                        .put("ph", "M")
+                        .put("pid", 1)
+                        .put("tid", thread.getKey())
+                        .put("args", new JSONObject().put("name", thread.getValue()));
+                out.write(first ? "" : ",\n");
+                out.write(event.toString());
+                first = false;
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    static void restore(Span span) {
+        if (span == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span);
+        }
+    }
+
+    static void finished(Span span) {
+        synchronized (FINISHED) {
+            FINISHED[next] = span;
+            next = (next + 1) % MAX_SPANS;
+            finishedCount++;
+        }
+    }
+
+    private static String category(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == '.' || name.charAt(i) == ' ') {
+                return name.substring(0, i);
+            }
+        }
+        return name;
+    }
+}
@@ -14,6 +14,8 @@ package com.unival.facultyscheduling.view;
  *     <li>Header displaying the current user and navigation controls.</li>
  *     <li>Dynamic content area for showing users, courses, reports, and settings.</li>
  *     <li>Integration with AdminService and SupabaseClient for backend data operations.</li>
+ *     <li>The users and courses sections show the last known rows at once and refresh them in the background.</li>
+ *     <li>The dashboard lists the schedules and evaluations Supabase refused, with Retry and Discard.</li>
  *     <li>Dialog management for editing users and courses.</li>
  *     <li>Window state management for preserving UI state across sessions.</li>
  * </ul>
@@ -33,6 +35,7 @@ package com.unival.facultyscheduling.view;
  * Note: This class is tightly coupled with the JavaFX platform and expects proper initialization of the JavaFX runtime.
  */
 import com.unival.facultyscheduling.util.WindowStateManager;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -44,18 +47,28 @@ import javafx.scene.Node;
 import javafx.scene.paint.Color;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.shape.Circle;
+import com.unival.facultyscheduling.logging.Log;
 import com.unival.facultyscheduling.model.User;
 import com.unival.facultyscheduling.model.Course;
+import com.unival.facultyscheduling.net.LatencyHistogram;
+import com.unival.facultyscheduling.net.RequestMetrics;
+import com.unival.facultyscheduling.net.SupabaseTransport;
 import com.unival.facultyscheduling.service.AdminService;
+import com.unival.facultyscheduling.service.LocalReplica;
+import com.unival.facultyscheduling.service.SessionCache;
+import com.unival.facultyscheduling.service.StaleWhileRevalidate;
 import com.unival.facultyscheduling.service.SupabaseClient;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import java.util.ArrayList;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Flow;
 
 public class AdminDashboardView {
+    private static final Log LOG = Log.get(AdminDashboardView.class);
+    private static final int USER_BATCH_SIZE = 200;
     private Stage stage;
     private Scene scene;
     private String userName;
@@ -63,6 +76,7 @@ public class AdminDashboardView {
     private VBox contentArea;
     private AdminService adminService; // Delay initialization
     private List<User> userList = new ArrayList<>();
+    private volatile Flow.Subscription usersSubscription;
     private List<Course> courseList = new ArrayList<>();
 
     public AdminDashboardView(Stage stage, String userName) {
@@ -177,6 +191,7 @@ public class AdminDashboardView {
         logoutBtn.setOnMouseEntered(e -> logoutBtn.setStyle("-fx-background-color: #297373; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand;"));
         logoutBtn.setOnMouseExited(e -> logoutBtn.setStyle("-fx-background-color: #FF8552; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand;"));
         logoutBtn.setOnAction(e -> {
+            SessionCache.end();
             LoginView loginView = new LoginView(stage);
             loginView.show();
         });
@@ -207,6 +222,9 @@ public class AdminDashboardView {
 
         contentArea.getChildren().add(statsGrid);
 
+        // Schedules and evaluations that Supabase refused, until they are retried or discarded
+        contentArea.getChildren().add(new UnsentWritesBox("Unsent changes", Set.of("schedules", "evaluations")));
+
         // Quick actions section
         VBox quickActions = new VBox(15);
         quickActions.setPadding(new Insets(20));
@@ -380,23 +398,71 @@ public class AdminDashboardView {
         usersTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         userList.clear();
-        if (isOfflineAdmin()) {
+        // The offline admin sees replicated users when there are any, and sample rows otherwise
+        if (isOfflineAdmin() && !LocalReplica.getInstance().isAvailable("users")) {
             userList.add(new User("1", "admin@example.com", "Admin User", List.of("Admin"), "Administration"));
             userList.add(new User("2", "faculty@example.com", "Faculty User", List.of("Faculty"), "Computer Science"));
             userList.add(new User("3", "student@example.com", "Student User", List.of("Student"), "Mathematics"));
         } else {
             if (adminService == null) adminService = new AdminService();
-            JSONArray usersJson = adminService.getAllUsers();
-            for (int i = 0; i < usersJson.length(); i++) {
-                JSONObject obj = usersJson.getJSONObject(i);
-                String id = obj.optString("id");
-                String email = obj.optString("email");
-                String name = obj.optString("name");
-                List<String> roles = new ArrayList<>();
-                String role = obj.optString("role");
-                if (!role.isEmpty()) roles.add(role);
-                String department = obj.optString("department_id");
-                userList.add(new User(id, email, name, roles, department));
+            if (usersSubscription != null) usersSubscription.cancel();
+            usersSubscription = null;
+            StaleWhileRevalidate<List<User>> users = adminService.getUserList();
+            if (users.peek() != null) {
+                // Show the last known users at once and swap in the fresh ones when they arrive
+                List<User> known = users.get(fresh -> Platform.runLater(() -> {
+                    if (usersSubscription != null || !contentArea.getChildren().contains(usersTable)) return;
+                    userList.clear();
+                    userList.addAll(fresh);
+                    usersTable.getItems().setAll(fresh);
+                }));
+                if (known != null) userList.addAll(known);
+            } else {
+                // Rows are added in batches as they arrive, so the table fills while the download continues
+                adminService.publishAllUsers().subscribe(new Flow.Subscriber<User>() {
+                    private final List<User> batch = new ArrayList<>();
+                    private Flow.Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        usersSubscription = subscription;
+                        subscription.request(USER_BATCH_SIZE);
+                    }
+
+                    @Override
+                    public void onNext(User user) {
+                        batch.add(user);
+                        if (batch.size() >= USER_BATCH_SIZE) {
+                            flush(false);
+                            subscription.request(USER_BATCH_SIZE);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        flush(false);
+                        LOG.warn("users.stream_failed", throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        flush(true);
+                    }
+
+                    private void flush(boolean complete) {
+                        List<User> rows = new ArrayList<>(batch);
+                        batch.clear();
+                        Platform.runLater(() -> {
+                            // Ignore rows from a listing that has since been replaced
+                            if (usersSubscription != subscription) return;
+                            userList.addAll(rows);
+                            usersTable.getItems().addAll(rows);
+                            // The next visit shows this listing at once while it is refreshed
+                            if (complete) users.put(List.copyOf(userList));
+                        });
+                    }
+                });
             }
         }
         usersTable.getItems().setAll(userList);
@@ -467,20 +533,24 @@ public class AdminDashboardView {
         coursesList.getChildren().add(listTitle);
 
         courseList.clear();
-        if (isOfflineAdmin()) {
+        if (isOfflineAdmin() && !LocalReplica.getInstance().isAvailable("courses")) {
             courseList.add(new Course("1", "CS101", "Introduction to Programming", "Computer Science"));
             courseList.add(new Course("2", "MATH201", "Calculus II", "Mathematics"));
             courseList.add(new Course("3", "PHY101", "Physics Fundamentals", "Physics"));
         } else {
-            try {
-                JSONArray coursesJson = new JSONArray(SupabaseClient.getAllCourses());
-                for (int i = 0; i < coursesJson.length(); i++) {
-                    JSONObject obj = coursesJson.getJSONObject(i);
-                    Course course = new Course(obj.optString("id"), obj.optString("code"), obj.optString("name"), obj.optString("department"));
-                    courseList.add(course);
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            // The last known courses are shown at once; the fresh ones replace them when they arrive
+            List<Course> known = SupabaseClient.getCourseList().get(fresh -> Platform.runLater(() -> {
+                if (!contentArea.getChildren().contains(coursesList)) return;
+                courseList.clear();
+                courseList.addAll(fresh);
+                showCourseItems(coursesList, listTitle);
+            }));
+            if (known != null) {
+                courseList.addAll(known);
+            } else {
+                Text loading = new Text("Loading courses...");
+                loading.setStyle("-fx-font-size: 14px; -fx-fill: #6c757d;");
+                coursesList.getChildren().add(loading);
             }
         }
         for (Course course : courseList) {
@@ -489,6 +559,13 @@ public class AdminDashboardView {
         contentArea.getChildren().add(coursesList);
     }
 
+    private void showCourseItems(VBox coursesList, Text listTitle) {
+        coursesList.getChildren().setAll(listTitle);
+        for (Course course : courseList) {
+            addCourseItemWithActions(coursesList, course);
+        }
+    }
+
     private void addCourseItemWithActions(VBox container, Course course) {
         HBox courseItem = new HBox(15);
         courseItem.setPadding(new Insets(10));
@@ -511,23 +588,10 @@ public class AdminDashboardView {
         Button deleteButton = createActionButton("Delete");
         deleteButton.setStyle("-fx-background-color: #dc3545; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 5px 15px; -fx-background-radius: 5;");
         deleteButton.setOnAction(e -> {
-            try {
-                String supabaseUrl = com.unival.facultyscheduling.config.AppConfig.getSupabaseUrl();
-                String supabaseKey = com.unival.facultyscheduling.config.AppConfig.getSupabaseKey();
-                java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(supabaseUrl + "/rest/v1/courses?id=eq." + course.getId()))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .DELETE()
-                    .build();
-                java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-                java.net.http.HttpResponse<String> response = client.send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
-                if (response.statusCode() == 204) {
-                    courseList.remove(course);
-                    showCoursesContent();
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            if (adminService == null) adminService = new AdminService();
+            if (adminService.deleteCourse(course.getId())) {
+                courseList.remove(course);
+                showCoursesContent();
             }
         });
         courseItem.getChildren().addAll(courseInfo, spacer, editButton, deleteButton);
@@ -545,28 +609,9 @@ public class AdminDashboardView {
         dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
         dialog.setResultConverter(btn -> btn == ButtonType.OK ? new Course(course.getId(), codeField.getText(), nameField.getText(), deptField.getText()) : null);
         dialog.showAndWait().ifPresent(updatedCourse -> {
-            try {
-                JSONObject json = new JSONObject();
-                json.put("name", updatedCourse.getName());
-                json.put("code", updatedCourse.getCode());
-                json.put("department", updatedCourse.getDepartment());
-                String supabaseUrl = com.unival.facultyscheduling.config.AppConfig.getSupabaseUrl();
-                String supabaseKey = com.unival.facultyscheduling.config.AppConfig.getSupabaseKey();
-                java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(supabaseUrl + "/rest/v1/courses?id=eq." + updatedCourse.getId()))
-                    .header("apikey", supabaseKey)
-                    .header("Authorization", "Bearer " + supabaseKey)
-                    .header("Content-Type", "application/json")
-                    .header("Prefer", "return=representation")
-                    .method("PATCH", java.net.http.HttpRequest.BodyPublishers.ofString(json.toString()))
-                    .build();
-                java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-                java.net.http.HttpResponse<String> response = client.send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
-                if (response.statusCode() == 200) {
-                    showCoursesContent();
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            if (adminService == null) adminService = new AdminService();
+            if (adminService.updateCourse(updatedCourse.getId(), updatedCourse.getName(), updatedCourse.getCode(), updatedCourse.getDepartment())) {
+                showCoursesContent();
             }
         });
     }
@@ -616,15 +661,25 @@ public class AdminDashboardView {
             try {
                 String reportTypeValue = reportType.getValue();
                 if (reportTypeValue == null) reportTypeValue = "User Activity Report";
-                JSONArray reportData = new JSONArray();
+                List<String> reportItems = new ArrayList<>();
                 if (reportTypeValue.equals("User Activity Report")) {
-                    reportData = adminService.getAllUsers();
+                    for (User user : adminService.getAllUsers()) {
+                        reportItems.add(user.getName() != null ? user.getName() : Objects.toString(user.getEmail(), ""));
+                    }
                 } else if (reportTypeValue.equals("Course Enrollment Report")) {
-                    reportData = new JSONArray(SupabaseClient.getAllCourses());
+                    for (Course course : SupabaseClient.getAllCourses()) {
+                        reportItems.add(Objects.toString(course.getName(), ""));
+                    }
+                } else if (reportTypeValue.equals("System Usage Report")) {
+                    for (RequestMetrics.EndpointStats stats : SupabaseTransport.getInstance().getMetrics().endpoints()) {
+                        LatencyHistogram.Summary latency = stats.latency();
+                        reportItems.add(String.format("%s: %d requests, p50 %.0f ms, p99 %.0f ms, %d failed, %d KB received",
+                                stats.template(), latency.count(), latency.p50(), latency.p99(), stats.failures(),
+                                stats.bytesReceived() / 1024));
+                    }
                 }
-                for (int i = 0; i < reportData.length(); i++) {
-                    JSONObject obj = reportData.getJSONObject(i);
-                    addReportItem(recentReports, reportTypeValue, obj.optString("name", obj.optString("email", "")), "View");
+                for (String item : reportItems) {
+                    addReportItem(recentReports, reportTypeValue, item, "View");
                 }
             } catch (Exception ex) {
                 ex.printStackTrace();
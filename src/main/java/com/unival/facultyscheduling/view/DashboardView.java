@@ -7,6 +7,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.application.Platform;
+import com.unival.facultyscheduling.service.SessionCache;
 
 public abstract class DashboardView {
     protected Stage stage;
@@ -57,6 +58,7 @@ public abstract class DashboardView {
             Button logoutButton = new Button("Logout");
             logoutButton.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 20;");
             logoutButton.setOnAction(e -> Platform.runLater(() -> {
+                SessionCache.end();
                 LoginView loginView = new LoginView(stage);
                 loginView.show();
             }));
@@ -9,9 +9,11 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import java.io.IOException;
 import java.time.*;
 import java.time.format.*;
 import java.util.*;
+import java.util.function.Consumer;
 import com.calendarfx.view.CalendarView;
 import com.calendarfx.model.Calendar;
 import com.calendarfx.model.CalendarSource;
@@ -19,7 +21,10 @@ import com.calendarfx.model.Entry;
 import javafx.scene.control.Tooltip;
 import com.unival.facultyscheduling.model.Comment;
 import com.unival.facultyscheduling.model.Reaction;
+import com.unival.facultyscheduling.net.RealtimeClient;
 import com.unival.facultyscheduling.service.CommentService;
+import com.unival.facultyscheduling.service.Outbox;
+import com.unival.facultyscheduling.tracing.Tracer;
 
 public class FacultyCalendarView {
     private Stage stage;
@@ -32,6 +37,19 @@ public class FacultyCalendarView {
     private Calendar evaluationCalendar;
     private VBox commentSection;
     private CommentService commentService = new CommentService();
+    // Comments and reaction bars on screen, kept current by realtime changes; used on the FX thread
+    private final Map<String, CommentNode> commentNodes = new HashMap<>();
+    private final List<ReactionBar> reactionBars = new ArrayList<>();
+    private final List<RealtimeClient.Subscription> subscriptions = new ArrayList<>();
+    private final Consumer<Outbox.Entry> outboxListener = entry -> {
+        if (entry.getState() == Outbox.State.SENT && entry.getServerId() != null) {
+            javafx.application.Platform.runLater(Tracer.wrap("fx.comments.confirmed", () -> confirmed(entry)));
+        } else if (entry.getTable().equals("reactions")) {
+            // A reaction was refused, retried or discarded
+            javafx.application.Platform.runLater(Tracer.wrap("fx.reactions.sync_state",
+                    () -> reactionBars.forEach(bar -> bar.syncStateChanged(entry.getLocalId(), entry.getState()))));
+        }
+    };
 
     public FacultyCalendarView(Stage stage, String userName, String userRole, String userDepartment) {
         this.stage = stage;
@@ -104,6 +122,8 @@ public class FacultyCalendarView {
         });
         
         controls.getChildren().addAll(backButton);
+        // Evaluations and schedules that Supabase refused wait for the user here
+        controls.getChildren().add(new UnsentWritesBox("Unsent changes", Set.of("schedules", "evaluations")));
         root.setRight(controls);
     }
     
@@ -323,6 +343,12 @@ public class FacultyCalendarView {
 
     public void show() {
         scene = new Scene(root);
+        // Stop listening once another screen replaces this one
+        scene.windowProperty().addListener((obs, oldWindow, newWindow) -> {
+            if (newWindow == null) {
+                closeSubscriptions();
+            }
+        });
         stage.setScene(scene);
         stage.show();
     }
@@ -336,7 +362,7 @@ public class FacultyCalendarView {
         section.getChildren().add(title);
 
         // Reaction bar for evaluation
-        HBox evalReactions = createReactionBar(null, evaluationId, userId);
+        HBox evalReactions = createReactionBar(null, evaluationId, userId).box;
         section.getChildren().add(evalReactions);
 
         // Comments area
@@ -344,12 +370,21 @@ public class FacultyCalendarView {
         commentsBox.setPadding(new Insets(10, 0, 10, 0));
         section.getChildren().add(commentsBox);
 
+        // Comments and reactions posted by anyone arrive as changes and are applied in place
+        subscriptions.add(commentService.watchEvaluation(evaluationId,
+                change -> applyChange(change, commentsBox, userId, evaluationId)));
+        Outbox.getInstance().addListener(outboxListener);
+
         // Fetch and display comments asynchronously
-        new Thread(() -> {
+        new Thread(Tracer.wrap(() -> {
             try {
                 List<Comment> comments = commentService.getCommentsForEvaluation(evaluationId);
-                javafx.application.Platform.runLater(() -> {
+                javafx.application.Platform.runLater(Tracer.wrap("fx.comments.render", () -> {
                     commentsBox.getChildren().clear();
+                    for (CommentNode node : commentNodes.values()) {
+                        reactionBars.remove(node.reactions());
+                    }
+                    commentNodes.clear();
                     if (comments.isEmpty()) {
                         Label placeholder = new Label("No comments yet. Be the first to comment!");
                         commentsBox.getChildren().add(placeholder);
@@ -358,15 +393,15 @@ public class FacultyCalendarView {
                             commentsBox.getChildren().add(renderComment(comment, userId, evaluationId, 0));
                         }
                     }
-                });
+                }));
             } catch (Exception ex) {
-                javafx.application.Platform.runLater(() -> {
+                javafx.application.Platform.runLater(Tracer.wrap("fx.comments.error", () -> {
                     commentsBox.getChildren().clear();
                     Label error = new Label("Failed to load comments.");
                     commentsBox.getChildren().add(error);
-                });
+                }));
             }
-        }).start();
+        })).start();
 
         // Add new comment box
         HBox addBox = new HBox(8);
@@ -382,30 +417,21 @@ public class FacultyCalendarView {
                 newComment.userId = userId;
                 newComment.text = text;
                 newComment.parentCommentId = null; // Top-level comment
-                new Thread(() -> {
+                newComment.replies = new ArrayList<>();
+                new Thread(Tracer.wrap("ui.comment.post", () -> {
                     try {
                         commentService.addComment(newComment);
-                        // Refresh comments after posting
-                        List<Comment> comments = commentService.getCommentsForEvaluation(evaluationId);
-                        javafx.application.Platform.runLater(() -> {
-                            commentsBox.getChildren().clear();
+                        javafx.application.Platform.runLater(Tracer.wrap("fx.comments.add", () -> {
                             commentField.clear();
-                            if (comments.isEmpty()) {
-                                Label placeholder = new Label("No comments yet. Be the first to comment!");
-                                commentsBox.getChildren().add(placeholder);
-                            } else {
-                                for (Comment comment : comments) {
-                                    commentsBox.getChildren().add(renderComment(comment, userId, evaluationId, 0));
-                                }
-                            }
-                        });
+                            showComment(newComment, commentsBox, userId, evaluationId);
+                        }));
                     } catch (Exception ex) {
-                        javafx.application.Platform.runLater(() -> {
+                        javafx.application.Platform.runLater(Tracer.wrap("fx.comments.error", () -> {
                             Label error = new Label("Failed to post comment.");
                             commentsBox.getChildren().add(error);
-                        });
+                        }));
                     }
-                }).start();
+                })).start();
             }
         });
         addBox.getChildren().addAll(commentField, addBtn);
@@ -441,32 +467,35 @@ public class FacultyCalendarView {
                     reply.userId = userId;
                     reply.text = replyText;
                     reply.parentCommentId = comment.commentId;
-                    new Thread(() -> {
+                    reply.replies = new ArrayList<>();
+                    new Thread(Tracer.wrap("ui.comment.reply", () -> {
                         try {
                             commentService.addComment(reply);
-                            // Refresh comments after posting
-                            List<Comment> comments = commentService.getCommentsForEvaluation(evaluationId);
-                            javafx.application.Platform.runLater(() -> {
-                                // Find the root VBox (commentSection) and refresh
-                                VBox parentSection = (VBox) box.getParent().getParent();
-                                parentSection.getChildren().clear();
-                                parentSection.getChildren().add(createCommentSection(evaluationId, userId));
-                            });
+                            javafx.application.Platform.runLater(Tracer.wrap("fx.comments.add", () -> {
+                                box.getChildren().remove(replyBox);
+                                showComment(reply, null, userId, evaluationId);
+                            }));
                         } catch (Exception ex) {
-                            javafx.application.Platform.runLater(() -> {
+                            javafx.application.Platform.runLater(Tracer.wrap("fx.comments.error", () -> {
                                 Label error = new Label("Failed to post reply.");
                                 box.getChildren().add(error);
-                            });
+                            }));
                         }
-                    }).start();
+                    })).start();
                 }
             });
         });
         actions.getChildren().add(replyBtn);
         // Reaction bar for comment
-        HBox commentReactions = createReactionBar(comment.commentId, evaluationId, userId);
-        actions.getChildren().add(commentReactions);
+        ReactionBar commentReactions = createReactionBar(comment.commentId, evaluationId, userId);
+        actions.getChildren().add(commentReactions.box);
         box.getChildren().addAll(author, text, actions);
+        commentNodes.put(comment.commentId, new CommentNode(comment, box, text, commentReactions, depth));
+        // Comments still in the outbox show whether they are on their way or were rejected
+        Outbox.State syncState = Outbox.getInstance().getState(comment.commentId);
+        if (syncState != null) {
+            box.getChildren().add(createSyncStatus(comment.commentId));
+        }
         // Render replies recursively
         if (comment.replies != null) {
             for (Comment reply : comment.replies) {
@@ -476,13 +505,158 @@ public class FacultyCalendarView {
         return box;
     }
 
-    private HBox createReactionBar(String commentId, String evaluationId, String userId) {
-        HBox bar = new HBox(6);
+    /**
+     * Applies a realtime change of the comments or reactions table. Called on the realtime thread.
+     */
+    private void applyChange(RealtimeClient.Change change, VBox commentsBox, String userId, String evaluationId) {
+        boolean isComment = change.table().equals("comments");
+        try {
+            if (change.type() == RealtimeClient.ChangeType.DELETE) {
+                String id = change.oldRecord().optString(isComment ? "comment_id" : "reaction_id",
+                        change.oldRecord().optString("id", null));
+                if (id == null) {
+                    return;
+                }
+                javafx.application.Platform.runLater(Tracer.wrap("fx.comments.change", () -> {
+                    if (isComment) {
+                        removeComment(id);
+                    } else {
+                        reactionBars.forEach(bar -> bar.remove(id));
+                    }
+                }));
+            } else if (isComment) {
+                Comment comment = CommentService.toComment(change.record());
+                javafx.application.Platform.runLater(Tracer.wrap("fx.comments.change",
+                        () -> showComment(comment, commentsBox, userId, evaluationId)));
+            } else {
+                Reaction reaction = CommentService.toReaction(change.record());
+                javafx.application.Platform.runLater(Tracer.wrap("fx.reactions.change",
+                        () -> reactionBars.forEach(bar -> bar.put(reaction))));
+            }
+        } catch (IOException ex) {
+            // A row that cannot be decoded is skipped; the next load of the section shows it
+        }
+    }
+
+    /**
+     * Adds a comment under its parent, or updates its text if it is already shown.
+     *
+     * @param commentsBox The top-level comment list, or null for a reply whose parent is shown.
+     */
+    private void showComment(Comment comment, VBox commentsBox, String userId, String evaluationId) {
+        CommentNode existing = commentNodes.get(comment.commentId);
+        if (existing != null) {
+            existing.comment().text = comment.text;
+            existing.text().setText(comment.text);
+            return;
+        }
+        CommentNode parent = comment.parentCommentId == null ? null : commentNodes.get(comment.parentCommentId);
+        if (parent != null) {
+            parent.comment().replies.add(comment);
+            parent.box().getChildren().add(renderComment(comment, userId, evaluationId, parent.depth() + 1));
+        } else if (commentsBox != null) {
+            // Drop the "no comments yet" placeholder
+            commentsBox.getChildren().removeIf(Label.class::isInstance);
+            commentsBox.getChildren().add(renderComment(comment, userId, evaluationId, 0));
+        }
+    }
+
+    private void removeComment(String commentId) {
+        CommentNode node = commentNodes.remove(commentId);
+        if (node == null) {
+            return;
+        }
+        reactionBars.remove(node.reactions());
+        if (node.box().getParent() instanceof Pane parent) {
+            parent.getChildren().remove(node.box());
+        }
+    }
+
+    /**
+     * Moves a comment or reaction that was just stored by Supabase from its local ID to its real one. The same
+     * row may already have arrived as a realtime change under the real ID; it is then shown only once.
+     */
+    private void confirmed(Outbox.Entry entry) {
+        String localId = entry.getLocalId();
+        String serverId = entry.getServerId();
+        if (entry.getTable().equals("comments")) {
+            CommentNode node = commentNodes.remove(localId);
+            if (node != null) {
+                node.comment().commentId = serverId;
+                CommentNode duplicate = commentNodes.put(serverId, node);
+                if (duplicate != null && duplicate != node) {
+                    reactionBars.remove(duplicate.reactions());
+                    if (duplicate.box().getParent() instanceof Pane parent) {
+                        parent.getChildren().remove(duplicate.box());
+                    }
+                }
+            }
+        }
+        for (ReactionBar bar : reactionBars) {
+            bar.confirmed(localId, serverId);
+        }
+    }
+
+    private void closeSubscriptions() {
+        subscriptions.forEach(RealtimeClient.Subscription::close);
+        subscriptions.clear();
+        Outbox.getInstance().removeListener(outboxListener);
+    }
+
+    private HBox createSyncStatus(String localId) {
+        Outbox outbox = Outbox.getInstance();
+        Label status = new Label();
+        status.setStyle("-fx-font-size: 11px; -fx-text-fill: #888;");
+        Button retryBtn = new Button("Retry");
+        retryBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #297373; -fx-font-size: 11px;");
+        retryBtn.setOnAction(e -> outbox.retry(localId));
+        Button discardBtn = new Button("Discard");
+        discardBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #dc3545; -fx-font-size: 11px;");
+        discardBtn.setOnAction(e -> outbox.discard(localId));
+        HBox bar = new HBox(6, status, retryBtn, discardBtn);
         bar.setAlignment(Pos.CENTER_LEFT);
-        String[] emojis = {"✅", "😟", "🔁", "👍", "👎", "❤️"};
-        Map<String, Integer> reactionCounts = new HashMap<>();
+
+        Consumer<Outbox.Entry> listener = new Consumer<>() {
+            @Override
+            public void accept(Outbox.Entry entry) {
+                if (!entry.getLocalId().equals(localId)) {
+                    return;
+                }
+                Outbox.State state = entry.getState();
+                if (state == Outbox.State.SENT || state == Outbox.State.DISCARDED) {
+                    outbox.removeListener(this);
+                }
+                javafx.application.Platform.runLater(Tracer.wrap("fx.outbox.sync_state",
+                        () -> showSyncState(status, retryBtn, discardBtn, state)));
+            }
+        };
+        outbox.addListener(listener);
+        // Read the state after registering, so a change in between is not missed
+        Outbox.State state = outbox.getState(localId);
+        showSyncState(status, retryBtn, discardBtn, state == null ? Outbox.State.SENT : state);
+        return bar;
+    }
+
+    private void showSyncState(Label status, Button retryBtn, Button discardBtn, Outbox.State state) {
+        boolean failed = state == Outbox.State.FAILED;
+        status.setText(switch (state) {
+            case PENDING -> "Sending…";
+            case FAILED -> "Not sent";
+            case SENT -> "Sent";
+            case DISCARDED -> "Discarded";
+        });
+        status.setStyle("-fx-font-size: 11px; -fx-text-fill: " + (failed ? "#dc3545" : "#888") + ";");
+        retryBtn.setVisible(failed);
+        retryBtn.setManaged(failed);
+        discardBtn.setVisible(failed);
+        discardBtn.setManaged(failed);
+    }
+
+    private ReactionBar createReactionBar(String commentId, String evaluationId, String userId) {
+        ReactionBar bar = new ReactionBar(commentId, evaluationId, userId);
+        reactionBars.add(bar);
         // Fetch reaction counts asynchronously
-        new Thread(() -> {
+        new Thread(Tracer.wrap(() -> {
             try {
                 List<Reaction> reactions;
                 if (commentId == null) {
@@ -490,60 +664,137 @@ public class FacultyCalendarView {
                 } else {
                     reactions = commentService.getReactionsForComment(commentId);
                 }
-                for (String emoji : emojis) {
-                    int count = (int) reactions.stream().filter(r -> emoji.equals(r.reactionType)).count();
-                    reactionCounts.put(emoji, count);
-                }
-                javafx.application.Platform.runLater(() -> {
-                    bar.getChildren().clear();
-                    for (String emoji : emojis) {
-                        int count = reactionCounts.getOrDefault(emoji, 0);
-                        Button btn = new Button(emoji + " " + count);
-                        btn.setStyle("-fx-background-color: #f8f9fa; -fx-border-radius: 5; -fx-background-radius: 5;");
-                        btn.setOnAction(e -> {
-                            // Post reaction and refresh counts
-                            Reaction reaction = new Reaction();
-                            reaction.evaluationId = evaluationId;
-                            reaction.userId = userId;
-                            reaction.commentId = commentId;
-                            reaction.reactionType = emoji;
-                            new Thread(() -> {
-                                try {
-                                    commentService.addReaction(reaction);
-                                    // Refresh reaction counts
-                                    List<Reaction> updatedReactions;
-                                    if (commentId == null) {
-                                        updatedReactions = commentService.getReactionsForEvaluation(evaluationId);
-                                    } else {
-                                        updatedReactions = commentService.getReactionsForComment(commentId);
-                                    }
-                                    Map<String, Integer> updatedCounts = new HashMap<>();
-                                    for (String em : emojis) {
-                                        int c = (int) updatedReactions.stream().filter(r -> em.equals(r.reactionType)).count();
-                                        updatedCounts.put(em, c);
-                                    }
-                                    javafx.application.Platform.runLater(() -> {
-                                        bar.getChildren().clear();
-                                        for (String em : emojis) {
-                                            int c = updatedCounts.getOrDefault(em, 0);
-                                            Button b = new Button(em + " " + c);
-                                            b.setStyle("-fx-background-color: #f8f9fa; -fx-border-radius: 5; -fx-background-radius: 5;");
-                                            b.setOnAction(btn.getOnAction()); // reuse handler
-                                            bar.getChildren().add(b);
-                                        }
-                                    });
-                                } catch (Exception ex) {
-                                    // Optionally show error
-                                }
-                            }).start();
-                        });
-                        bar.getChildren().add(btn);
+                javafx.application.Platform.runLater(Tracer.wrap("fx.reactions.render", () -> {
+                    for (Reaction reaction : reactions) {
+                        bar.put(reaction);
                     }
-                });
+                    bar.render();
+                }));
             } catch (Exception ex) {
                 // Optionally show error
             }
-        }).start();
+        })).start();
         return bar;
     }
+
+    /**
+     * A comment on screen.
+     */
+    private record CommentNode(Comment comment, VBox box, Label text, ReactionBar reactions, int depth) {
+    }
+
+    /**
+     * The reaction buttons of the evaluation or of one of its comments. Reactions are counted by ID, so a reaction
+     * is counted once whether it was clicked here, loaded or received as a realtime change. A reaction Supabase
+     * refused is not counted; it is listed after the buttons with Retry and Discard instead. Used on the FX thread.
+     */
+    private final class ReactionBar {
+        private static final String[] EMOJIS = {"✅", "😟", "🔁", "👍", "👎", "❤️"};
+
+        private final HBox box = new HBox(6);
+        private final String evaluationId;
+        private final String userId;
+        private String commentId;
+        // Reaction ID to emoji
+        private final Map<String, String> reactions = new HashMap<>();
+        // Local ID of each refused reaction to its Retry and Discard bar
+        private final Map<String, HBox> failed = new LinkedHashMap<>();
+        private Label error;
+
+        ReactionBar(String commentId, String evaluationId, String userId) {
+            this.commentId = commentId;
+            this.evaluationId = evaluationId;
+            this.userId = userId;
+            box.setAlignment(Pos.CENTER_LEFT);
+        }
+
+        void put(Reaction reaction) {
+            if (evaluationId.equals(reaction.evaluationId) && Objects.equals(commentId, reaction.commentId)) {
+                if (Objects.equals(reactions.put(reaction.reactionId, reaction.reactionType), reaction.reactionType)) {
+                    return;
+                }
+            } else if (reactions.remove(reaction.reactionId) == null) {
+                // Neither is nor was one of this bar's reactions
+                return;
+            }
+            syncStateChanged(reaction.reactionId, Outbox.getInstance().getState(reaction.reactionId));
+            render();
+        }
+
+        void remove(String reactionId) {
+            failed.remove(reactionId);
+            if (reactions.remove(reactionId) != null) {
+                render();
+            }
+        }
+
+        void syncStateChanged(String localId, Outbox.State state) {
+            String emoji = reactions.get(localId);
+            if (emoji == null) {
+                return;
+            }
+            if (state == Outbox.State.DISCARDED) {
+                remove(localId);
+            } else if (state == Outbox.State.FAILED && !failed.containsKey(localId)) {
+                HBox status = createSyncStatus(localId);
+                status.getChildren().add(0, new Label(emoji));
+                failed.put(localId, status);
+                render();
+            } else if (state == Outbox.State.PENDING && failed.remove(localId) != null) {
+                render();
+            }
+        }
+
+        void confirmed(String localId, String serverId) {
+            if (localId.equals(commentId)) {
+                commentId = serverId;
+            }
+            failed.remove(localId);
+            String type = reactions.remove(localId);
+            if (type != null) {
+                reactions.putIfAbsent(serverId, type);
+                render();
+            }
+        }
+
+        void render() {
+            box.getChildren().clear();
+            for (String emoji : EMOJIS) {
+                long count = reactions.entrySet().stream()
+                        .filter(reaction -> emoji.equals(reaction.getValue()) && !failed.containsKey(reaction.getKey()))
+                        .count();
+                Button btn = new Button(emoji + " " + count);
+                btn.setStyle("-fx-background-color: #f8f9fa; -fx-border-radius: 5; -fx-background-radius: 5;");
+                btn.setOnAction(e -> react(emoji));
+                box.getChildren().add(btn);
+            }
+            box.getChildren().addAll(failed.values());
+            if (error != null) {
+                box.getChildren().add(error);
+            }
+        }
+
+        private void react(String emoji) {
+            Reaction reaction = new Reaction();
+            reaction.evaluationId = evaluationId;
+            reaction.userId = userId;
+            reaction.commentId = commentId;
+            reaction.reactionType = emoji;
+            new Thread(Tracer.wrap("ui.reaction.add", () -> {
+                try {
+                    commentService.addReaction(reaction);
+                    javafx.application.Platform.runLater(Tracer.wrap("fx.reactions.render", () -> {
+                        error = null;
+                        put(reaction);
+                    }));
+                } catch (Exception ex) {
+                    javafx.application.Platform.runLater(Tracer.wrap("fx.reactions.error", () -> {
+                        error = new Label("Failed to react.");
+                        error.setStyle("-fx-font-size: 11px; -fx-text-fill: #dc3545;");
+                        render();
+                    }));
+                }
+            })).start();
+        }
+    }
 }
@@ -26,6 +26,8 @@ package com.unival.facultyscheduling.view;
  * Note: This class is tightly coupled with the JavaFX platform and expects proper initialization of the JavaFX runtime.
  */
 import com.unival.facultyscheduling.util.WindowStateManager;
+import com.unival.facultyscheduling.tracing.Tracer;
+import com.unival.facultyscheduling.service.SessionCache;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -140,6 +142,7 @@ public class FacultyDashboardView {
         logoutBtn.setOnMouseEntered(e -> logoutBtn.setStyle("-fx-background-color: #297373; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand; -fx-font-weight: bold;"));
         logoutBtn.setOnMouseExited(e -> logoutBtn.setStyle("-fx-background-color: #FF8552; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand; -fx-font-weight: bold;"));
         logoutBtn.setOnAction(e -> {
+            SessionCache.end();
             LoginView loginView = new LoginView(stage);
             loginView.show();
         });
@@ -244,19 +247,22 @@ public class FacultyDashboardView {
     }
 
     private void handleNavigation(String section) {
-        switch (section) {
-            case "Dashboard":
-                showDashboardContent();
-                break;
-            case "Schedule":
-                showScheduleContent();
-                break;
-            case "Courses":
-                showCoursesContent();
-                break;
-            case "Profile":
-                showProfileContent();
-                break;
-        }
+        // Requests and FX updates started while building the section are traced as children of this span
+        Tracer.run("ui.navigate", () -> {
+            switch (section) {
+                case "Dashboard":
+                    showDashboardContent();
+                    break;
+                case "Schedule":
+                    showScheduleContent();
+                    break;
+                case "Courses":
+                    showCoursesContent();
+                    break;
+                case "Profile":
+                    showProfileContent();
+                    break;
+            }
+        }, "view", "faculty", "section", section);
     }
 }
\ No newline at end of file
@@ -22,12 +22,16 @@ package com.unival.facultyscheduling.view;
  * <ul>
  *     <li>initialize: Sets up the login UI, form fields, and event handlers.</li>
  *     <li>createInputField: Helper to create styled input fields for email and password.</li>
- *     <li>handleLogin: Handles authentication logic and dashboard redirection.</li>
+ *     <li>handleLogin: Authenticates off the JavaFX Application Thread and starts the post-login prefetch.</li>
+ *     <li>showLoginResult: Redirects to the dashboard, or shows why the login failed.</li>
  *     <li>show: Displays the login window.</li>
  * </ul>
  * <p>
  * Note: This class is tightly coupled with the JavaFX platform and expects proper initialization of the JavaFX runtime.
  */
+import com.unival.facultyscheduling.logging.Log;
+import com.unival.facultyscheduling.model.User;
+import com.unival.facultyscheduling.service.SessionPrefetch;
 import com.unival.facultyscheduling.service.SupabaseClient;
 import com.unival.facultyscheduling.util.WindowStateManager;
 import javafx.geometry.Insets;
@@ -40,9 +44,10 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.scene.image.ImageView;
 import javafx.scene.effect.DropShadow;
-import java.io.IOException;
+import java.util.concurrent.CompletionException;
 
 public class LoginView {
+    private static final Log LOG = Log.get(LoginView.class);
     private Stage stage;
     private Scene scene;
     private Text actiontarget;
@@ -154,7 +159,7 @@ public class LoginView {
         mainContainer.getChildren().add(loginCard);
 
         // Handle login
-        loginButton.setOnAction(e -> handleLogin(emailField.getText(), passwordField.getText()));
+        loginButton.setOnAction(e -> handleLogin(loginButton, emailField.getText(), passwordField.getText()));
 
         // Handle register link
         registerLink.setOnAction(e -> {
@@ -197,13 +202,14 @@ public class LoginView {
 
     /**
      * Handles user authentication and dashboard redirection.
-     * Validates input, performs offline admin login, or authenticates via SupabaseClient.
-     * Redirects users to their respective dashboards based on role.
+     * Validates input, performs offline admin login, or authenticates via SupabaseClient on a background thread;
+     * {@link #showLoginResult} then redirects users to their respective dashboards based on role.
      *
+     * @param button   The sign-in button, disabled while the login runs so it cannot be submitted twice.
      * @param email    The user's email address.
      * @param password The user's password.
      */
-    private void handleLogin(String email, String password) {
+    private void handleLogin(Button button, String email, String password) {
         if (email.isEmpty() || password.isEmpty()) {
             actiontarget.setText("Please fill in all fields");
             return;
@@ -225,44 +231,60 @@ public class LoginView {
             return;
         }
 
-        try {
-            String response = SupabaseClient.authenticateUser(email, password);
-            if (response != null && !response.isEmpty()) {
-                // Parse user info from response (name,role,department)
-                String[] userInfo = response.split(",");
-                if (userInfo.length != 3) {
-                    actiontarget.setText("Error: Invalid user data received");
-                    return;
-                }
+        // Password hashing and the user lookup run off the JavaFX Application Thread
+        button.setDisable(true);
+        actiontarget.setText("Signing in...");
+        SupabaseClient.authenticateUserAsync(email, password).whenComplete((user, error) -> {
+            if (user != null && !user.getRoles().isEmpty()) {
+                // Load the dashboard's data while its scene is being built
+                SessionPrefetch.start(user);
+            }
+            javafx.application.Platform.runLater(() -> {
+                button.setDisable(false);
+                showLoginResult(user, error);
+            });
+        });
+    }
+
+    /**
+     * Shows the dashboard of an authenticated user, or why the login failed. Runs on the JavaFX Application Thread.
+     *
+     * @param user  The authenticated user, or null if the credentials were rejected or the login failed.
+     * @param error The reason the login failed, or null.
+     */
+    private void showLoginResult(User user, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            actiontarget.setText("Error: " + cause.getMessage());
+            LOG.warn("login.failed", cause);
+            return;
+        }
+        if (user == null) {
+            actiontarget.setText("Invalid email or password");
+            return;
+        }
+        if (user.getRoles().isEmpty()) {
+            actiontarget.setText("Error: Invalid user data received");
+            return;
+        }
 
-                String userName = userInfo[0];
-                String userRole = userInfo[1];
-                String userDepartment = userInfo[2];
-
-                // Ensure UI updates happen on the JavaFX Application Thread
-                javafx.application.Platform.runLater(() -> {
-                    try {
-                        // Redirect to appropriate dashboard
-                        if ("faculty".equalsIgnoreCase(userRole)) {
-                            FacultyDashboardView dashboard = new FacultyDashboardView(stage, userName, userRole, userDepartment);
-                            dashboard.show();
-                        } else if ("student".equalsIgnoreCase(userRole)) {
-                            StudentDashboardView dashboard = new StudentDashboardView(stage, userName, userRole, userDepartment);
-                            dashboard.show();
-                        } else {
-                            actiontarget.setText("Error: Unknown user role - " + userRole);
-                        }
-                    } catch (Exception e) {
-                        actiontarget.setText("Error loading dashboard: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                });
+        String userName = user.getName();
+        String userRole = user.getRoles().get(0);
+        String userDepartment = user.getDepartment();
+        try {
+            // Redirect to appropriate dashboard
+            if ("faculty".equalsIgnoreCase(userRole)) {
+                FacultyDashboardView dashboard = new FacultyDashboardView(stage, userName, userRole, userDepartment);
+                dashboard.show();
+            } else if ("student".equalsIgnoreCase(userRole)) {
+                StudentDashboardView dashboard = new StudentDashboardView(stage, userName, userRole, userDepartment);
+                dashboard.show();
             } else {
-                actiontarget.setText("Invalid email or password");
+                actiontarget.setText("Error: Unknown user role - " + userRole);
             }
-        } catch (IOException ex) {
-            actiontarget.setText("Error: " + ex.getMessage());
-            ex.printStackTrace();
+        } catch (Exception e) {
+            actiontarget.setText("Error loading dashboard: " + e.getMessage());
+            LOG.error("dashboard.load_failed", e, "role", userRole);
         }
     }
 
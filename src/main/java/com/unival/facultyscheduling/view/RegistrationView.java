@@ -2,6 +2,7 @@ package com.unival.facultyscheduling.view;
 
 import com.unival.facultyscheduling.service.SupabaseClient;
 import com.unival.facultyscheduling.util.WindowStateManager;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -11,11 +12,11 @@ import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import java.io.IOException;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 public class RegistrationView {
     private Stage stage;
@@ -167,36 +168,42 @@ public class RegistrationView {
 
         // Handle registration
         registerButton.setOnAction(e -> {
-            try {
-                String name = nameField.getText();
-                String email = emailField.getText();
-                String password = passwordField.getText();
-                String department = departmentComboBox.getValue();
-                int year = 0;
-
-                if (selectedRole.equals("student")) {
-                    String yearStr = yearComboBox.getValue();
-                    if (yearStr != null) {
-                        year = Integer.parseInt(yearStr.substring(0, 1));
-                    }
-                }
-
-                if (name.isEmpty() || email.isEmpty() || password.isEmpty() || department == null ||
-                    (selectedRole.equals("student") && yearComboBox.getValue() == null)) {
-                    actiontarget.setText("Please fill in all required fields");
-                    return;
+            String name = nameField.getText();
+            String email = emailField.getText();
+            String password = passwordField.getText();
+            String department = departmentComboBox.getValue();
+            int year = 0;
+
+            if (selectedRole.equals("student")) {
+                String yearStr = yearComboBox.getValue();
+                if (yearStr != null) {
+                    year = Integer.parseInt(yearStr.substring(0, 1));
                 }
+            }
 
-                String response = SupabaseClient.registerUser(name, email, password, selectedRole, department, year);
-
-                if (response != null && !response.isEmpty()) {
-                    showSuccessDialog();
-                } else {
-                    actiontarget.setText("Registration failed");
-                }
-            } catch (IOException ex) {
-                actiontarget.setText("Error: " + ex.getMessage());
+            if (name.isEmpty() || email.isEmpty() || password.isEmpty() || department == null ||
+                (selectedRole.equals("student") && yearComboBox.getValue() == null)) {
+                actiontarget.setText("Please fill in all required fields");
+                return;
             }
+
+            // Password hashing and the inserts run off the JavaFX Application Thread; the button stays
+            // disabled until they finish so a second click cannot register the user twice
+            registerButton.setDisable(true);
+            actiontarget.setText("Registering...");
+            SupabaseClient.registerUserAsync(name, email, password, selectedRole, department, year)
+                .whenComplete((user, error) -> Platform.runLater(() -> {
+                    registerButton.setDisable(false);
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                        actiontarget.setText("Error: " + cause.getMessage());
+                    } else if (user != null) {
+                        showSuccessDialog();
+                    } else {
+                        actiontarget.setText("Registration failed");
+                    }
+                }));
         });
 
         backButton.setOnAction(e -> showRoleSelectionDialog());
@@ -33,6 +33,7 @@ package com.unival.facultyscheduling.view;
  * Note: This class is tightly coupled with the JavaFX platform and expects proper initialization of the JavaFX runtime.
  */
 import com.unival.facultyscheduling.util.WindowStateManager;
+import com.unival.facultyscheduling.service.SessionCache;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -103,6 +104,7 @@ public class StudentDashboardView {
         logoutBtn.setOnMouseEntered(e -> logoutBtn.setStyle("-fx-background-color: #297373; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand; -fx-font-weight: bold;"));
         logoutBtn.setOnMouseExited(e -> logoutBtn.setStyle("-fx-background-color: #FF8552; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8px 16px; -fx-background-radius: 8; -fx-cursor: hand; -fx-font-weight: bold;"));
         logoutBtn.setOnAction(e -> {
+            SessionCache.end();
             LoginView loginView = new LoginView(stage);
             loginView.show();
         });
@@ -0,0 +1,101 @@
+package com.unival.facultyscheduling.view;
+
+import com.unival.facultyscheduling.service.Outbox;
+import com.unival.facultyscheduling.tracing.Tracer;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import org.json.JSONObject;
+
+/**
+ * UnsentWritesBox lists the writes of some tables that Supabase refused, or whose outcome is unknown, with Retry and
+ * Discard buttons for each; it is hidden while there are none. Writes of other tables are not held back by these,
+ * so they wait here until the user decides.
+ * <p>
+ * The box follows the {@link Outbox} only while it is part of a scene, so a view that is replaced does not leave a
+ * listener behind. Used on the JavaFX Application Thread.
+ */
+final class UnsentWritesBox extends VBox {
+    private final Set<String> tables;
+    private final VBox rows = new VBox(4);
+    private final Consumer<Outbox.Entry> listener;
+
+    /**
+     * @param title  The heading, e.g. "Unsent schedules and evaluations".
+     * @param tables The tables whose failed writes are listed, e.g. "schedules".
+     */
+    UnsentWritesBox(String title, Set<String> tables) {
+        super(6);
+        this.tables = tables;
+        this.listener = entry -> {
+            if (tables.contains(entry.getTable())) {
+                Platform.runLater(Tracer.wrap("fx.outbox.unsent", this::refresh));
+            }
+        };
+        setPadding(new Insets(10));
+        setStyle("-fx-background-color: #fff5f5; -fx-background-radius: 6;");
+        Label heading = new Label(title);
+        heading.setStyle("-fx-font-weight: bold; -fx-text-fill: #dc3545;");
+        getChildren().addAll(heading, rows);
+        sceneProperty().addListener((observable, before, after) -> {
+            if (after == null) {
+                Outbox.getInstance().removeListener(listener);
+            } else if (before == null) {
+                Outbox.getInstance().addListener(listener);
+                refresh();
+            }
+        });
+        refresh();
+    }
+
+    private void refresh() {
+        List<Outbox.Entry> failed = Outbox.getInstance().getUnsent().stream()
+                .filter(entry -> entry.getState() == Outbox.State.FAILED && tables.contains(entry.getTable()))
+                .toList();
+        rows.getChildren().clear();
+        for (Outbox.Entry entry : failed) {
+            rows.getChildren().add(createRow(entry));
+        }
+        setVisible(!failed.isEmpty());
+        setManaged(!failed.isEmpty());
+    }
+
+    private HBox createRow(Outbox.Entry entry) {
+        Label description = new Label(describe(entry));
+        description.setStyle("-fx-font-size: 11px;");
+        description.setTooltip(new Tooltip(entry.getError()));
+        Button retryBtn = new Button("Retry");
+        retryBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #297373; -fx-font-size: 11px;");
+        retryBtn.setOnAction(e -> Outbox.getInstance().retry(entry.getLocalId()));
+        Button discardBtn = new Button("Discard");
+        discardBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #dc3545; -fx-font-size: 11px;");
+        discardBtn.setOnAction(e -> Outbox.getInstance().discard(entry.getLocalId()));
+        HBox row = new HBox(6, description, retryBtn, discardBtn);
+        row.setAlignment(Pos.CENTER_LEFT);
+        return row;
+    }
+
+    private static String describe(Outbox.Entry entry) {
+        JSONObject row = entry.getRow();
+        String what = switch (entry.getTable()) {
+            case "schedules" -> "Schedule in slot " + row.optString("slot_id", "?") + ", room " + row.optString("room_id", "?");
+            case "evaluations" -> "Evaluation \"" + row.optString("title", "") + "\"";
+            case "comments" -> "Comment \"" + abbreviate(row.optString("text", "")) + "\"";
+            case "reactions" -> "Reaction " + row.optString("reaction_type", "");
+            default -> entry.getTable();
+        };
+        return what + " not sent: " + abbreviate(entry.getError() == null ? "" : entry.getError());
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() > 60 ? text.substring(0, 60) + "…" : text;
+    }
+}
@@ -0,0 +1,105 @@
+package com.unival.facultyscheduling.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+class GzipBodySubscriberTest {
+    private static final String BODY = "[" + "{\"course_id\":\"c1\",\"name\":\"Algorithms\"},".repeat(200) + "{}]";
+
+    @Test
+    void inflatesBodySplitAtEveryByte() throws Exception {
+        // A file name in the header, so that the header itself arrives in many pieces
+        byte[] gzip = gzipWithName(BODY.getBytes(StandardCharsets.UTF_8), "courses.json");
+        GzipBodySubscriber<String> subscriber = subscribe();
+
+        for (byte b : gzip) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(new byte[] {b})));
+        }
+        subscriber.onComplete();
+
+        assertEquals(BODY, subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsOnBodyCutOffBeforeTrailer() {
+        byte[] gzip = SupabaseStandIn.gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        GzipBodySubscriber<String> subscriber = subscribe();
+
+        subscriber.onNext(List.of(ByteBuffer.wrap(Arrays.copyOf(gzip, gzip.length - 4))));
+        subscriber.onComplete();
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertInstanceOf(EOFException.class, error.getCause());
+    }
+
+    @Test
+    void decodesGzipResponseStreamedInPieces() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(200, BODY, Map.of("Content-Encoding", "gzip")));
+
+        HttpResponse<String> response = SupabaseTransport.getInstance().get("/rest/v1/courses?select=*");
+
+        assertEquals(BODY, response.body());
+        assertEquals("gzip", supabase.requests().get(0).header("Accept-Encoding"));
+    }
+
+    private static GzipBodySubscriber<String> subscribe() {
+        GzipBodySubscriber<String> subscriber = new GzipBodySubscriber<>(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        return subscriber;
+    }
+
+    /**
+     * Builds a gzip stream whose header carries the FNAME field, which GZIPOutputStream never writes.
+     */
+    private static byte[] gzipWithName(byte[] data, String name) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {0x1f, (byte) 0x8b, 8, 0x08, 0, 0, 0, 0, 0, (byte) 0xff});
+        out.writeBytes(name.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(0);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        writeInt(out, crc.getValue());
+        writeInt(out, data.length);
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.unival.facultyscheduling.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HedgePolicyTest {
+    private static final String BASE_URL = "http://127.0.0.1:" + Integer.getInteger("standin.port", 18549);
+    private static final String ENDPOINT = "/rest/v1/courses?select=*";
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private final List<CompletableFuture<HttpResponse<String>>> attempts = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService executor;
+    private HedgePolicy hedging;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        Map<String, String> settings = new HashMap<>(Map.of(
+                "supabase.hedging.minSamples", "2",
+                "supabase.hedging.minDelayMillis", "50"));
+        settings.forEach(System::setProperty);
+        try {
+            hedging = new HedgePolicy(executor);
+        } finally {
+            settings.keySet().forEach(System::clearProperty);
+        }
+        // Fast reads, so the hedge delay is the 50 ms minimum
+        SupabaseStandIn.get().respond(request -> new SupabaseStandIn.Response(200, "[]"));
+        for (int i = 0; i < 2; i++) {
+            read().get(5, TimeUnit.SECONDS);
+        }
+        attempts.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void cancelsStalledOriginalWhenHedgeAnswers() throws Exception {
+        AtomicInteger arrivals = new AtomicInteger();
+        SupabaseStandIn.get().respond(request -> {
+            if (arrivals.incrementAndGet() == 1) {
+                await(release);
+                return new SupabaseStandIn.Response(200, "[\"original\"]");
+            }
+            return new SupabaseStandIn.Response(200, "[\"hedge\"]");
+        });
+
+        HttpResponse<String> response = read().get(5, TimeUnit.SECONDS);
+
+        assertEquals("[\"hedge\"]", response.body());
+        assertEquals(2, attempts.size());
+        assertCancelled(attempts.get(0));
+        assertEquals(new HedgePolicy.Stats(3, 1, 1), hedging.getStats());
+    }
+
+    @Test
+    void cancelsHedgeWhenOriginalAnswersFirst() throws Exception {
+        AtomicInteger arrivals = new AtomicInteger();
+        SupabaseStandIn.get().respond(request -> {
+            if (arrivals.incrementAndGet() == 1) {
+                pause(200);
+                return new SupabaseStandIn.Response(200, "[\"original\"]");
+            }
+            await(release);
+            return new SupabaseStandIn.Response(200, "[\"hedge\"]");
+        });
+
+        HttpResponse<String> response = read().get(5, TimeUnit.SECONDS);
+
+        assertEquals("[\"original\"]", response.body());
+        assertEquals(2, attempts.size());
+        assertFalse(attempts.get(0).isCancelled());
+        assertCancelled(attempts.get(1));
+        assertEquals(new HedgePolicy.Stats(3, 1, 0), hedging.getStats());
+    }
+
+    @Test
+    void doesNotHedgeReadThatAnswersInTime() throws Exception {
+        HttpResponse<String> response = read().get(5, TimeUnit.SECONDS);
+
+        assertEquals("[]", response.body());
+        assertEquals(1, attempts.size());
+        assertEquals(new HedgePolicy.Stats(3, 0, 0), hedging.getStats());
+    }
+
+    private CompletableFuture<HttpResponse<String>> read() {
+        return hedging.execute(Endpoints.template(ENDPOINT), () -> {
+            CompletableFuture<HttpResponse<String>> attempt = CLIENT.sendAsync(
+                    HttpRequest.newBuilder(URI.create(BASE_URL + ENDPOINT)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            synchronized (attempts) {
+                attempts.add(attempt);
+            }
+            return attempt;
+        });
+    }
+
+    /**
+     * Asserts that an attempt ends cancelled; the client may get there first, failing the aborted exchange with a
+     * CancellationException of its own.
+     */
+    private static void assertCancelled(CompletableFuture<?> attempt) {
+        Exception error = assertThrows(Exception.class, () -> attempt.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, error instanceof ExecutionException ? error.getCause() : error);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
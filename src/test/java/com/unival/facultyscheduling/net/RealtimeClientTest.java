@@ -0,0 +1,148 @@
+package com.unival.facultyscheduling.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RealtimeClientTest {
+    private static final long TIMEOUT = 5_000;
+
+    private RealtimeStandIn realtime;
+
+    @BeforeEach
+    void start() throws Exception {
+        realtime = new RealtimeStandIn();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        realtime.close();
+    }
+
+    @Test
+    void joinsOneChannelPerTable() throws Exception {
+        RealtimeClient client = new RealtimeClient(realtime.url(), "test-key", 60_000);
+
+        client.subscribe("comments", change -> { });
+        JSONObject join = realtime.await("phx_join", TIMEOUT);
+        client.subscribe("comments", change -> { });
+        client.subscribe("rooms", change -> { });
+        JSONObject second = realtime.await("phx_join", TIMEOUT);
+
+        assertEquals("/realtime/v1/websocket?apikey=test-key&vsn=1.0.0", realtime.connections().get(0));
+        assertEquals("realtime:comments", join.getString("topic"));
+        assertEquals("test-key", join.getJSONObject("payload").getString("access_token"));
+        assertEquals("comments", join.getJSONObject("payload").getJSONObject("config")
+                .getJSONArray("postgres_changes").getJSONObject(0).getString("table"));
+        // The second listener of a table shares its channel
+        assertEquals("realtime:rooms", second.getString("topic"));
+        assertEquals(1, realtime.connections().size());
+    }
+
+    @Test
+    void dispatchesChangesToListenersOfTheirTable() throws Exception {
+        RealtimeClient client = new RealtimeClient(realtime.url(), "test-key", 60_000);
+        BlockingQueue<RealtimeClient.Change> comments = new LinkedBlockingQueue<>();
+        BlockingQueue<RealtimeClient.Change> rooms = new LinkedBlockingQueue<>();
+        client.subscribe("comments", comments::add);
+        client.subscribe("rooms", rooms::add);
+        realtime.await("phx_join", TIMEOUT);
+        realtime.await("phx_join", TIMEOUT);
+
+        realtime.push(change("comments", "INSERT", new JSONObject().put("comment_id", "1").put("text", "hi"), null));
+        realtime.push(change("comments", "TRUNCATE", null, null));
+        realtime.push(change("comments", "DELETE", null, new JSONObject().put("comment_id", "1")));
+
+        RealtimeClient.Change inserted = comments.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(inserted);
+        assertEquals(RealtimeClient.ChangeType.INSERT, inserted.type());
+        assertEquals("hi", inserted.row().getString("text"));
+        assertEquals("2026-10-16T12:00:00Z", inserted.commitTimestamp());
+        // The unknown change type is skipped, and a delete carries the old row's key
+        RealtimeClient.Change deleted = comments.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(deleted);
+        assertEquals(RealtimeClient.ChangeType.DELETE, deleted.type());
+        assertEquals("1", deleted.row().getString("comment_id"));
+        assertTrue(rooms.isEmpty());
+    }
+
+    @Test
+    void leavesChannelWhenLastListenerGoes() throws Exception {
+        RealtimeClient client = new RealtimeClient(realtime.url(), "test-key", 60_000);
+        RealtimeClient.Subscription first = client.subscribe("comments", change -> { });
+        RealtimeClient.Subscription second = client.subscribe("comments", change -> { });
+        realtime.await("phx_join", TIMEOUT);
+
+        first.close();
+        second.close();
+
+        assertEquals("realtime:comments", realtime.await("phx_leave", TIMEOUT).getString("topic"));
+    }
+
+    @Test
+    void reconnectsAndRejoinsAfterServerCloses() throws Exception {
+        RealtimeClient client = new RealtimeClient(realtime.url(), "test-key", 60_000);
+        BlockingQueue<String> reconnects = new LinkedBlockingQueue<>();
+        client.addReconnectListener(() -> reconnects.add("reconnected"));
+        client.subscribe("comments", change -> { });
+        realtime.await("phx_join", TIMEOUT);
+        assertTrue(client.isConnected());
+
+        realtime.closeConnection();
+
+        // Reconnect listeners are told to read their tables again, and the channel is joined again
+        assertEquals("reconnected", reconnects.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("realtime:comments", realtime.await("phx_join", TIMEOUT).getString("topic"));
+        assertEquals(2, realtime.connections().size());
+        assertTrue(client.isConnected());
+    }
+
+    @Test
+    void treatsUnansweredHeartbeatAsDeadConnection() throws Exception {
+        RealtimeClient client = new RealtimeClient(realtime.url(), "test-key", 100);
+        BlockingQueue<String> reconnects = new LinkedBlockingQueue<>();
+        client.addReconnectListener(() -> reconnects.add("reconnected"));
+        client.subscribe("comments", change -> { });
+        realtime.await("phx_join", TIMEOUT);
+
+        // Answered heartbeats keep the connection
+        for (int i = 0; i < 3; i++) {
+            realtime.await("heartbeat", TIMEOUT);
+        }
+        assertNull(reconnects.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, realtime.connections().size());
+
+        realtime.answerHeartbeats(false);
+
+        assertEquals("reconnected", reconnects.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(2, realtime.connections().size());
+    }
+
+    private static JSONObject change(String table, String type, JSONObject record, JSONObject oldRecord) {
+        JSONObject data = new JSONObject()
+                .put("schema", "public")
+                .put("table", table)
+                .put("type", type)
+                .put("commit_timestamp", "2026-10-16T12:00:00Z");
+        if (record != null) {
+            data.put("record", record);
+        }
+        if (oldRecord != null) {
+            data.put("old_record", oldRecord);
+        }
+        return new JSONObject()
+                .put("topic", "realtime:" + table)
+                .put("event", "postgres_changes")
+                .put("payload", new JSONObject().put("data", data))
+                .put("ref", JSONObject.NULL);
+    }
+}
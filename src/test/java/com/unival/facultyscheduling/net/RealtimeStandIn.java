@@ -0,0 +1,224 @@
+package com.unival.facultyscheduling.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+
+/**
+ * RealtimeStandIn is a local WebSocket server that plays Supabase Realtime's Phoenix channel protocol in tests.
+ * <p>
+ * It speaks just enough of RFC 6455 for {@link java.net.http.WebSocket}: the upgrade handshake, unfragmented text
+ * frames, ping and the close handshake. Joins are always accepted and heartbeats are answered until
+ * {@link #answerHeartbeats(boolean)} says otherwise; every message a client sends is kept for the test to inspect.
+ */
+final class RealtimeStandIn implements AutoCloseable {
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket server;
+    private final BlockingQueue<JSONObject> received = new LinkedBlockingQueue<>();
+    private final List<String> targets = new CopyOnWriteArrayList<>();
+    private final Set<Socket> closing = ConcurrentHashMap.newKeySet();
+    private volatile Socket current;
+    private volatile boolean answerHeartbeats = true;
+
+    RealtimeStandIn() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::accept);
+    }
+
+    /**
+     * @return The socket URL to give the client.
+     */
+    String url() {
+        return "ws://127.0.0.1:" + server.getLocalPort() + "/realtime/v1/websocket";
+    }
+
+    /**
+     * @return The request target of every connection so far, oldest first.
+     */
+    List<String> connections() {
+        return List.copyOf(targets);
+    }
+
+    void answerHeartbeats(boolean answer) {
+        this.answerHeartbeats = answer;
+    }
+
+    /**
+     * Waits for the next message with the given event, skipping others.
+     *
+     * @param event   The event, e.g. "phx_join".
+     * @param timeout How long to wait, in milliseconds.
+     * @return The message.
+     * @throws AssertionError if no such message arrives in time.
+     */
+    JSONObject await(String event, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            JSONObject message = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (message == null) {
+                throw new AssertionError("No " + event + " within " + timeout + " ms");
+            }
+            if (message.optString("event").equals(event)) {
+                return message;
+            }
+        }
+    }
+
+    /**
+     * Sends a text message on the latest connection.
+     */
+    void push(JSONObject message) throws IOException {
+        sendFrame(current, 0x1, message.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Closes the latest connection with status 1001 (going away), as Supabase does when it restarts.
+     */
+    void closeConnection() throws IOException {
+        Socket socket = current;
+        closing.add(socket);
+        sendFrame(socket, 0x8, new byte[] {0x03, (byte) 0xE9});
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Socket socket = current;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            String[] request = readHeaders(in).split("\r\n");
+            String key = null;
+            for (String header : request) {
+                if (header.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = header.substring(header.indexOf(':') + 1).trim();
+                }
+            }
+            String accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                    .digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+            OutputStream out = socket.getOutputStream();
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            current = socket;
+            targets.add(request[0].split(" ")[1]);
+            readFrames(socket, in);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            // The client or the test closed the connection
+        }
+    }
+
+    private void readFrames(Socket socket, InputStream in) throws IOException {
+        while (true) {
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            int second = in.read();
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = (in.read() << 8) | in.read();
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | in.read();
+                }
+            }
+            byte[] mask = (second & 0x80) != 0 ? in.readNBytes(4) : new byte[4];
+            byte[] payload = in.readNBytes((int) length);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            switch (first & 0x0F) {
+                case 0x1 -> received(socket, new JSONObject(new String(payload, StandardCharsets.UTF_8)));
+                case 0x8 -> {
+                    if (!closing.contains(socket)) {
+                        sendFrame(socket, 0x8, payload);
+                    }
+                    return;
+                }
+                case 0x9 -> sendFrame(socket, 0xA, payload);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void received(Socket socket, JSONObject message) throws IOException {
+        received.add(message);
+        String event = message.optString("event");
+        if (event.equals("phx_join") || (event.equals("heartbeat") && answerHeartbeats)) {
+            JSONObject reply = new JSONObject()
+                    .put("topic", message.optString("topic"))
+                    .put("event", "phx_reply")
+                    .put("payload", new JSONObject().put("status", "ok").put("response", new JSONObject()))
+                    .put("ref", message.optString("ref"));
+            sendFrame(socket, 0x1, reply.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void sendFrame(Socket socket, int opcode, byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x80 | opcode);
+        if (payload.length < 126) {
+            frame.write(payload.length);
+        } else {
+            frame.write(126);
+            frame.write(payload.length >> 8);
+            frame.write(payload.length);
+        }
+        frame.write(payload);
+        synchronized (socket) {
+            OutputStream out = socket.getOutputStream();
+            frame.writeTo(out);
+            out.flush();
+        }
+    }
+
+    private static String readHeaders(InputStream in) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed during the handshake");
+            }
+            headers.write(b);
+            matched = (b == '\r' && matched % 2 == 0) || (b == '\n' && matched % 2 == 1) ? matched + 1 : 0;
+        }
+        return headers.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,175 @@
+package com.unival.facultyscheduling.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ResilienceTest {
+    private static final String BASE_URL = "http://127.0.0.1:" + Integer.getInteger("standin.port", 18549);
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @Test
+    void retriesIdempotentReadUntilServerRecovers() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        AtomicInteger calls = new AtomicInteger();
+        supabase.respond(request -> calls.incrementAndGet() < 3
+                ? new SupabaseStandIn.Response(503, "{}")
+                : new SupabaseStandIn.Response(200, "[]"));
+        Resilience resilience = resilience(Map.of());
+
+        HttpResponse<String> response = send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+        assertEquals(3, supabase.requests().size());
+    }
+
+    @Test
+    void doesNotResendInsertThatReachedServer() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(503, "{}"));
+        Resilience resilience = resilience(Map.of());
+
+        HttpResponse<String> response = send(resilience, post("/rest/v1/comments"), RequestPriority.INTERACTIVE);
+
+        assertEquals(503, response.statusCode());
+        assertEquals(1, supabase.requests().size());
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndClosesAfterSuccessfulProbe() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(500, "{}"));
+        Resilience resilience = resilience(Map.of("supabase.breaker.failureThreshold", "2"));
+
+        send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE);
+        send(resilience, get("/rest/v1/rooms?room_id=eq.r1"), RequestPriority.INTERACTIVE);
+        assertThrows(CircuitOpenException.class, () -> send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE));
+
+        // Open per family: other tables are still served
+        assertEquals(2, supabase.requests().size());
+        assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitStates().get("/rest/v1/rooms"));
+        assertEquals(500, send(resilience, get("/rest/v1/courses"), RequestPriority.INTERACTIVE).statusCode());
+
+        Thread.sleep(1100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, resilience.getCircuitStates().get("/rest/v1/rooms"));
+        CountDownLatch probeArrived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        supabase.respond(request -> {
+            probeArrived.countDown();
+            await(release);
+            return new SupabaseStandIn.Response(200, "[]");
+        });
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<HttpResponse<String>> probe = executor.submit(() -> send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE));
+            assertTrue(probeArrived.await(5, TimeUnit.SECONDS));
+
+            // One probe at a time
+            assertThrows(CircuitOpenException.class, () -> send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE));
+
+            release.countDown();
+            assertEquals(200, probe.get(5, TimeUnit.SECONDS).statusCode());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.getCircuitStates().get("/rest/v1/rooms"));
+        assertEquals(1, supabase.requests().size());
+    }
+
+    @Test
+    void failedProbeOpensCircuitAgain() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(500, "{}"));
+        Resilience resilience = resilience(Map.of("supabase.breaker.failureThreshold", "1"));
+
+        send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE);
+        Thread.sleep(1100);
+        send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE);
+
+        assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitStates().get("/rest/v1/rooms"));
+        assertThrows(CircuitOpenException.class, () -> send(resilience, get("/rest/v1/rooms"), RequestPriority.INTERACTIVE));
+        assertEquals(2, supabase.requests().size());
+    }
+
+    @Test
+    void rejectsRequestWhenItsBulkheadStaysFull() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        CountDownLatch arrived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        supabase.respond(request -> {
+            arrived.countDown();
+            await(release);
+            return new SupabaseStandIn.Response(200, "[]");
+        });
+        Resilience resilience = resilience(Map.of(
+                "supabase.bulkhead.background", "1",
+                "supabase.bulkhead.maxWaitMillis", "100"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<HttpResponse<String>> sync = executor.submit(() -> send(resilience, get("/rest/v1/rooms"), RequestPriority.BACKGROUND));
+            assertTrue(arrived.await(5, TimeUnit.SECONDS));
+
+            BulkheadFullException full = assertThrows(BulkheadFullException.class,
+                    () -> send(resilience, get("/rest/v1/courses"), RequestPriority.BACKGROUND));
+            assertTrue(Resilience.neverSent(full));
+            // Interactive requests have their own permits
+            Future<HttpResponse<String>> click = executor.submit(() -> send(resilience, get("/rest/v1/users"), RequestPriority.INTERACTIVE));
+
+            release.countDown();
+            assertEquals(200, sync.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, click.get(5, TimeUnit.SECONDS).statusCode());
+        }
+        assertEquals(2, supabase.requests().size());
+    }
+
+    /**
+     * Creates a Resilience with short delays and the given settings, which are only visible while it is created.
+     */
+    private static Resilience resilience(Map<String, String> settings) {
+        Map<String, String> all = new HashMap<>(Map.of(
+                "supabase.retry.baseDelayMillis", "10",
+                "supabase.retry.maxDelayMillis", "20",
+                "supabase.breaker.openSeconds", "1"));
+        all.putAll(settings);
+        all.forEach(System::setProperty);
+        try {
+            return new Resilience();
+        } finally {
+            all.keySet().forEach(System::clearProperty);
+        }
+    }
+
+    private static HttpResponse<String> send(Resilience resilience, HttpRequest request, RequestPriority priority) throws Exception {
+        return resilience.execute(request, HttpResponse.BodyHandlers.ofString(), priority, CLIENT::send);
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(BASE_URL + path)).GET().build();
+    }
+
+    private static HttpRequest post(String path) {
+        return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"text\":\"hello\"}"))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.unival.facultyscheduling.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SupabaseStandIn is a local HTTP server that plays Supabase's REST API in tests.
+ * <p>
+ * The build points SUPABASE_URL at the port in the standin.port system property, so the one server of a test run
+ * is shared by every test. Each test installs the responses it needs with {@link #respond(Function)}, which also
+ * forgets the requests of earlier tests.
+ */
+public final class SupabaseStandIn {
+    /**
+     * A request as the stand-in received it.
+     *
+     * @param method  The HTTP method.
+     * @param target  The path and query, e.g. "/rest/v1/comments?select=*".
+     * @param body    The request body, empty for reads.
+     * @param headers The first value of each request header, by lower-case name.
+     */
+    public record Request(String method, String target, String body, Map<String, String> headers) {
+        /**
+         * @return The value of a request header, or null.
+         */
+        public String header(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The answer to a request. With a Content-Encoding: gzip header the body is compressed and sent in small
+     * pieces, so that the client receives the gzip stream split at arbitrary points.
+     *
+     * @param status  The HTTP status.
+     * @param body    The JSON body.
+     * @param headers Response headers, e.g. ETag.
+     */
+    public record Response(int status, String body, Map<String, String> headers) {
+        public Response(int status, String body) {
+            this(status, body, Map.of());
+        }
+    }
+
+    /**
+     * Answering with this closes the connection after the request has been read, as when a response is lost on its
+     * way back.
+     */
+    public static final Response NO_RESPONSE = new Response(0, "");
+    private static final int PIECE_SIZE = 7;
+
+    private static SupabaseStandIn instance;
+
+    private final List<Request> requests = new ArrayList<>();
+    private volatile Function<Request, Response> handler = request -> new Response(404, "{}");
+
+    private SupabaseStandIn(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    /**
+     * Returns the shared stand-in, starting it on first use.
+     *
+     * @return The stand-in listening on standin.port.
+     */
+    public static synchronized SupabaseStandIn get() {
+        if (instance == null) {
+            try {
+                instance = new SupabaseStandIn(Integer.getInteger("standin.port", 18549));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces how the stand-in answers, and clears the recorded requests.
+     *
+     * @param handler Answers each request; called on the server's threads.
+     */
+    public void respond(Function<Request, Response> handler) {
+        synchronized (requests) {
+            requests.clear();
+        }
+        this.handler = handler;
+    }
+
+    /**
+     * Gets the requests received since the last {@link #respond(Function)}.
+     *
+     * @return The requests, oldest first.
+     */
+    public List<Request> requests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String target = exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() == null ? "" : "?" + exchange.getRequestURI().getRawQuery());
+            Map<String, String> headers = new HashMap<>();
+            exchange.getRequestHeaders().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values.get(0)));
+            Request request = new Request(exchange.getRequestMethod(), target,
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), Map.copyOf(headers));
+            synchronized (requests) {
+                requests.add(request);
+            }
+            Response response = handler.apply(request);
+            if (response == NO_RESPONSE) {
+                throw new IOException("Response dropped by the stand-in");
+            }
+            byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            response.headers().forEach(exchange.getResponseHeaders()::set);
+            if ("gzip".equals(response.headers().get("Content-Encoding"))) {
+                byte[] compressed = gzip(body);
+                // Chunked, flushed piece by piece
+                exchange.sendResponseHeaders(response.status(), 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    for (int i = 0; i < compressed.length; i += PIECE_SIZE) {
+                        out.write(compressed, i, Math.min(PIECE_SIZE, compressed.length - i));
+                        out.flush();
+                    }
+                }
+                return;
+            }
+            exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compresses bytes into a gzip stream.
+     *
+     * @param bytes The uncompressed bytes.
+     * @return The gzip stream.
+     */
+    public static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
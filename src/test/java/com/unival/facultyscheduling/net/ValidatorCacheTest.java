@@ -0,0 +1,79 @@
+package com.unival.facultyscheduling.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class ValidatorCacheTest {
+    private static final String ROOMS = "[{\"room_id\":\"r1\",\"name\":\"Lab 1\"}]";
+
+    @Test
+    void servesCachedBodyWhenServerConfirmsEtag() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+        AtomicReference<String> body = new AtomicReference<>(ROOMS);
+        supabase.respond(request -> etag.get().equals(request.header("If-None-Match"))
+                ? new SupabaseStandIn.Response(304, "", Map.of("ETag", etag.get()))
+                : new SupabaseStandIn.Response(200, body.get(), Map.of("ETag", etag.get())));
+        SupabaseTransport transport = SupabaseTransport.getInstance();
+        ValidatorCache.Stats before = transport.getCacheStats();
+
+        HttpResponse<String> first = transport.get("/rest/v1/rooms?select=*&building=eq.E");
+        // Same query, parameters in another order
+        HttpResponse<String> second = transport.get("/rest/v1/rooms?building=eq.E&select=*");
+
+        assertEquals(ROOMS, first.body());
+        assertEquals(200, second.statusCode());
+        assertEquals(ROOMS, second.body());
+        List<SupabaseStandIn.Request> requests = supabase.requests();
+        assertNull(requests.get(0).header("If-None-Match"));
+        assertEquals("\"v1\"", requests.get(1).header("If-None-Match"));
+        ValidatorCache.Stats after = transport.getCacheStats();
+        assertEquals(1, after.hits() - before.hits());
+        assertEquals(1, after.revalidations() - before.revalidations());
+
+        // A changed row comes with a new ETag, which the next revalidation uses
+        String changed = ROOMS.replace("Lab 1", "Lab 2");
+        body.set(changed);
+        etag.set("\"v2\"");
+        assertEquals(changed, transport.get("/rest/v1/rooms?select=*&building=eq.E").body());
+        assertEquals(changed, transport.getAsync("/rest/v1/rooms?select=*&building=eq.E").get(5, TimeUnit.SECONDS).body());
+        assertEquals("\"v2\"", supabase.requests().get(3).header("If-None-Match"));
+        assertEquals(2, transport.getCacheStats().hits() - before.hits());
+    }
+
+    @Test
+    void revalidatesWithLastModified() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        String lastModified = "Fri, 16 Oct 2026 08:00:00 GMT";
+        supabase.respond(request -> lastModified.equals(request.header("If-Modified-Since"))
+                ? new SupabaseStandIn.Response(304, "")
+                : new SupabaseStandIn.Response(200, ROOMS, Map.of("Last-Modified", lastModified)));
+        SupabaseTransport transport = SupabaseTransport.getInstance();
+
+        transport.get("/rest/v1/rooms?select=*&building=eq.L");
+        HttpResponse<String> revalidated = transport.get("/rest/v1/rooms?select=*&building=eq.L");
+
+        assertEquals(ROOMS, revalidated.body());
+        assertEquals(lastModified, supabase.requests().get(1).header("If-Modified-Since"));
+    }
+
+    @Test
+    void doesNotRevalidateResponseWithoutValidators() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(200, ROOMS));
+        SupabaseTransport transport = SupabaseTransport.getInstance();
+
+        transport.get("/rest/v1/rooms?select=*&building=eq.N");
+        transport.get("/rest/v1/rooms?select=*&building=eq.N");
+
+        assertNull(supabase.requests().get(1).header("If-None-Match"));
+        assertNull(supabase.requests().get(1).header("If-Modified-Since"));
+    }
+}
@@ -0,0 +1,236 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.unival.facultyscheduling.model.Schedule;
+import com.unival.facultyscheduling.net.SupabaseStandIn;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CreateScheduleCheckedTest {
+    private static final String RPC = "/rest/v1/rpc/create_schedule_checked";
+
+    private final SupabaseStandIn supabase = SupabaseStandIn.get();
+
+    @BeforeEach
+    void insertEverything() {
+        respond(200, new JSONObject().put("schedule", row("9", "f2", "h2", "r1")));
+    }
+
+    @AfterEach
+    void discardPendingWrites() {
+        for (Outbox.Entry entry : Outbox.getInstance().getUnsent()) {
+            Outbox.getInstance().discard(entry.getLocalId());
+        }
+    }
+
+    @Test
+    void returnsScheduleInsertedByFunction() throws Exception {
+        ScheduleInsertResult result = SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027");
+
+        assertTrue(result.isSuccess());
+        assertEquals(new Schedule("9", "c1", "f2", "h2", "r1", "s1", "1", "2026-2027", true), result.schedule());
+        assertTrue(result.conflicts().isEmpty());
+        SupabaseStandIn.Request request = supabase.requests().get(0);
+        assertEquals("POST", request.method());
+        assertEquals(RPC, request.target());
+        JSONObject params = new JSONObject(request.body());
+        assertEquals("c1", params.getString("p_course_id"));
+        assertEquals("r1", params.getString("p_room_id"));
+        assertEquals("2026-2027", params.getString("p_academic_year"));
+    }
+
+    @Test
+    void returnsConflictsReportedByFunction() throws Exception {
+        respond(200, new JSONObject().put("conflicts", new JSONArray()
+                .put(new JSONObject().put("kind", "room").put("schedule", row("4", "f7", "h7", "r1")))
+                .put(new JSONObject().put("kind", "cohort").put("schedule", row("6", "f8", "h2", "r8")))));
+
+        ScheduleInsertResult result = SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027");
+
+        assertFalse(result.isSuccess());
+        assertNull(result.schedule());
+        assertEquals(2, result.conflicts().size());
+        assertEquals(ScheduleInsertResult.Kind.ROOM, result.conflicts().get(0).kind());
+        assertEquals("4", result.conflicts().get(0).existing().scheduleId());
+        assertEquals(ScheduleInsertResult.Kind.COHORT, result.conflicts().get(1).kind());
+        assertEquals("h2", result.conflicts().get(1).existing().cohortId());
+    }
+
+    @Test
+    void failsEveryCallWhileMigrationIsNotApplied() {
+        respond(404, new JSONObject().put("code", "PGRST202").put("message", "Could not find the function"));
+
+        for (int i = 0; i < 2; i++) {
+            IOException error = assertThrows(IOException.class,
+                    () -> SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027"));
+            assertTrue(error.getMessage().contains("20261016000000_create_schedule_checked.sql"), error.getMessage());
+        }
+        // No silent switch to the non-atomic check: both calls went to the function, and nothing else was read
+        assertEquals(List.of(RPC, RPC), supabase.requests().stream().map(SupabaseStandIn.Request::target).toList());
+    }
+
+    @Test
+    void failsOnResponseWithNeitherShape() {
+        respond(200, new JSONObject());
+
+        assertThrows(IOException.class,
+                () -> SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027"));
+    }
+
+    @Test
+    void rejectsClashWithScheduleStillInOutbox() throws Exception {
+        // The test build never flushes the shared outbox, so this booking stays pending
+        Schedule pending = SupabaseClient.createSchedule("c1", "f1", "h1", "r1", "s1", "1", "2026-2027");
+
+        ScheduleInsertResult result = SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027");
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.conflicts().size());
+        assertEquals(ScheduleInsertResult.Kind.ROOM, result.conflicts().get(0).kind());
+        assertEquals(pending.scheduleId(), result.conflicts().get(0).existing().scheduleId());
+        assertTrue(pending.scheduleId().startsWith(Outbox.LOCAL_ID_PREFIX));
+        assertTrue(supabase.requests().isEmpty());
+    }
+
+    @Test
+    void ignoresPendingScheduleOfAnotherSlot() throws Exception {
+        SupabaseClient.createSchedule("c1", "f1", "h1", "r1", "s2", "1", "2026-2027");
+
+        ScheduleInsertResult result = SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027");
+
+        assertTrue(result.isSuccess());
+        assertEquals("9", result.schedule().scheduleId());
+        assertEquals(List.of(RPC),
+                supabase.requests().stream().map(SupabaseStandIn.Request::target).toList());
+    }
+
+    @Test
+    void functionRejectsDoubleBookingOfRoomFacultyOrCohort() throws Exception {
+        SchedulesStandIn schedules = new SchedulesStandIn(0);
+        schedules.add("f1", "h1", "r1", "s1");
+        supabase.respond(schedules);
+
+        ScheduleInsertResult sameFaculty = SupabaseClient.createScheduleChecked("c2", "f1", "h2", "r2", "s1", "1", "2026-2027");
+        ScheduleInsertResult sameCohortAndRoom = SupabaseClient.createScheduleChecked("c2", "f2", "h1", "r1", "s1", "1", "2026-2027");
+        ScheduleInsertResult otherSlot = SupabaseClient.createScheduleChecked("c2", "f1", "h1", "r1", "s2", "1", "2026-2027");
+
+        assertEquals(List.of(ScheduleInsertResult.Kind.FACULTY), kinds(sameFaculty));
+        assertEquals(List.of(ScheduleInsertResult.Kind.ROOM, ScheduleInsertResult.Kind.COHORT), kinds(sameCohortAndRoom));
+        assertEquals("1", sameCohortAndRoom.conflicts().get(0).existing().scheduleId());
+        assertTrue(otherSlot.isSuccess());
+        assertEquals("s2", otherSlot.schedule().slotId());
+        assertEquals(2, schedules.rows().size());
+    }
+
+    @Test
+    void checkWithoutFunctionRejectsDoubleBooking() throws Exception {
+        SchedulesStandIn schedules = new SchedulesStandIn(0);
+        schedules.add("f1", "h1", "r1", "s1");
+        supabase.respond(schedules);
+
+        ScheduleInsertResult clash = SupabaseClient.insertScheduleChecked(
+                Schedule.draft("c2", "f2", "h2", "r1", "s1", "1", "2026-2027"), false);
+        ScheduleInsertResult free = SupabaseClient.insertScheduleChecked(
+                Schedule.draft("c2", "f2", "h2", "r2", "s1", "1", "2026-2027"), false);
+
+        assertEquals(List.of(ScheduleInsertResult.Kind.ROOM), kinds(clash));
+        assertTrue(free.isSuccess());
+        assertEquals(2, schedules.rows().size());
+        // The clash was found by reading the slot; only the free booking was inserted
+        assertEquals(List.of("GET", "GET", "POST"), supabase.requests().stream().map(SupabaseStandIn.Request::method).toList());
+    }
+
+    @Test
+    void functionAdmitsOneOfConcurrentBookingsOfARoom() throws Exception {
+        assertOneOfConcurrentBookingsAdmitted(true);
+    }
+
+    @Test
+    void checkWithoutFunctionAdmitsOneOfConcurrentBookingsOfARoom() throws Exception {
+        assertOneOfConcurrentBookingsAdmitted(false);
+    }
+
+    @Test
+    void failedPendingScheduleDoesNotBlockItsSlot() throws Exception {
+        Schedule refused = SupabaseClient.createSchedule("c1", "f1", "h1", "r1", "s1", "1", "2026-2027");
+        supabase.respond(request -> new SupabaseStandIn.Response(400, "{\"code\":\"23503\"}"));
+        Outbox.getInstance().flush();
+        assertEquals(Outbox.State.FAILED, Outbox.getInstance().getState(refused.scheduleId()));
+        supabase.respond(new SchedulesStandIn(0));
+
+        ScheduleInsertResult result = SupabaseClient.createScheduleChecked("c1", "f2", "h2", "r1", "s1", "1", "2026-2027");
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of(RPC), supabase.requests().stream().map(SupabaseStandIn.Request::target).toList());
+    }
+
+    /**
+     * Books one room and slot from several threads at once, each for another faculty member and cohort.
+     */
+    private void assertOneOfConcurrentBookingsAdmitted(boolean rpc) throws Exception {
+        // Reads are slow, so without a lock or transaction every booking would see an empty slot
+        SchedulesStandIn schedules = new SchedulesStandIn(50);
+        supabase.respond(schedules);
+        int bookings = 6;
+        CountDownLatch start = new CountDownLatch(1);
+        List<ScheduleInsertResult> done = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ScheduleInsertResult>> results = new ArrayList<>();
+            for (int i = 0; i < bookings; i++) {
+                Schedule draft = Schedule.draft("c1", "f" + i, "h" + i, "r1", "s1", "1", "2026-2027");
+                results.add(clients.submit(() -> {
+                    start.await();
+                    return SupabaseClient.insertScheduleChecked(draft, rpc);
+                }));
+            }
+            start.countDown();
+            for (Future<ScheduleInsertResult> result : results) {
+                done.add(result.get(30, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, done.stream().filter(ScheduleInsertResult::isSuccess).count());
+        for (ScheduleInsertResult result : done) {
+            if (!result.isSuccess()) {
+                assertEquals(List.of(ScheduleInsertResult.Kind.ROOM), kinds(result));
+            }
+        }
+        assertEquals(1, schedules.rows().size());
+    }
+
+    private static List<ScheduleInsertResult.Kind> kinds(ScheduleInsertResult result) {
+        return result.conflicts().stream().map(ScheduleInsertResult.Conflict::kind).toList();
+    }
+
+    private void respond(int status, JSONObject body) {
+        supabase.respond(request -> new SupabaseStandIn.Response(status, body.toString()));
+    }
+
+    private static JSONObject row(String id, String facultyId, String cohortId, String roomId) {
+        return new JSONObject()
+                .put("schedule_id", id)
+                .put("course_id", "c1")
+                .put("faculty_id", facultyId)
+                .put("cohort_id", cohortId)
+                .put("room_id", roomId)
+                .put("slot_id", "s1")
+                .put("semester", "1")
+                .put("academic_year", "2026-2027")
+                .put("is_active", true);
+    }
+}
@@ -0,0 +1,157 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class EntityCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        EntityCache cache = new EntityCache(100, Duration.ofMinutes(5));
+
+        assertEquals("room r1", get(cache, "rooms", "r1"));
+        assertEquals("room r1", get(cache, "rooms", "r1"));
+        assertEquals("course r1", get(cache, "courses", "r1"));
+
+        assertEquals(2, loads.get());
+        EntityCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    void doesNotCacheMissingRows() {
+        EntityCache cache = new EntityCache(100, Duration.ofMinutes(5));
+
+        assertNull(cache.getAsync("rooms", "gone", () -> load(null)).join());
+        assertNull(cache.getAsync("rooms", "gone", () -> load(null)).join());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void expiresEntriesAfterTimeToLive() {
+        EntityCache cache = new EntityCache(100, Duration.ZERO);
+
+        get(cache, "rooms", "r1");
+        get(cache, "rooms", "r1");
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().expirations());
+    }
+
+    @Test
+    void invalidatesByKeyTableOrAll() {
+        EntityCache cache = new EntityCache(100, Duration.ofMinutes(5));
+        get(cache, "rooms", "r1");
+        get(cache, "rooms", "r2");
+        get(cache, "courses", "c1");
+
+        cache.invalidate("rooms", "r1");
+        assertEquals(2, cache.getStats().size());
+        get(cache, "rooms", "r1");
+        assertEquals(4, loads.get());
+
+        cache.invalidateTable("rooms");
+        assertEquals(1, cache.getStats().size());
+        get(cache, "courses", "c1");
+        assertEquals(4, loads.get());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void doesNotCacheLoadThatStartedBeforeInvalidation() {
+        EntityCache cache = new EntityCache(100, Duration.ofMinutes(5));
+        CompletableFuture<String> stale = new CompletableFuture<>();
+        CompletableFuture<String> lookup = cache.getAsync("rooms", "r1", () -> stale);
+
+        // The row changes while it is being read
+        cache.invalidate("rooms", "r1");
+        stale.complete("old room");
+
+        assertEquals("old room", lookup.join());
+        assertEquals("room r1", get(cache, "rooms", "r1"));
+        assertEquals("room r1", get(cache, "rooms", "r1"));
+    }
+
+    @Test
+    void keepsFrequentlyUsedRowsThroughScanOfNewOnes() {
+        EntityCache cache = new EntityCache(100, Duration.ofMinutes(5));
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 50; i++) {
+                get(cache, "rooms", "hot" + i);
+            }
+        }
+        assertEquals(50, loads.get());
+
+        // A one-off scan ten times the capacity, e.g. listing every schedule of a year
+        for (int i = 0; i < 1_000; i++) {
+            get(cache, "cohorts", "cold" + i);
+        }
+        int loadsAfterScan = loads.get();
+        for (int i = 0; i < 50; i++) {
+            get(cache, "rooms", "hot" + i);
+        }
+
+        // Plain LRU would have lost every hot row; the sketch is an estimate, so a collision may cost one or two
+        assertTrue(loads.get() - loadsAfterScan <= 2, "hot rows reloaded: " + (loads.get() - loadsAfterScan));
+        assertTrue(cache.getStats().size() <= 100);
+        assertTrue(cache.getStats().evictions() >= 900);
+    }
+
+    @Test
+    void servesLatestRowAfterConcurrentLoadsAndInvalidations() throws Exception {
+        EntityCache cache = new EntityCache(16, Duration.ofMinutes(5));
+        AtomicLong version = new AtomicLong();
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Long>> lookups = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                // Loads read the current version on another thread and finish while later updates are made
+                lookups.add(cache.getAsync("rooms", "r" + ThreadLocalRandom.current().nextInt(4),
+                        () -> CompletableFuture.supplyAsync(version::get, readers)));
+                if (i % 10 == 0) {
+                    // An update: write first, then invalidate, as SupabaseClient does
+                    version.incrementAndGet();
+                    cache.invalidateTable("rooms");
+                }
+            }
+            CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 4; i++) {
+                Long cached = cache.<Long>getAsync("rooms", "r" + i, () -> CompletableFuture.completedFuture(version.get())).join();
+                assertEquals(version.get(), cached);
+            }
+            assertTrue(cache.getStats().size() <= 16);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private String get(EntityCache cache, String table, String id) {
+        return cache.<String>getAsync(table, id, () -> load(table.substring(0, table.length() - 1) + " " + id)).join();
+    }
+
+    private CompletableFuture<String> load(String value) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+}
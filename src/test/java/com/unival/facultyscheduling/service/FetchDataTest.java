@@ -0,0 +1,74 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.unival.facultyscheduling.net.SupabaseStandIn;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class FetchDataTest {
+
+    @Test
+    void sharesOneRequestBetweenConcurrentIdenticalReads() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        CountDownLatch release = new CountDownLatch(1);
+        supabase.respond(request -> {
+            awaitQuietly(release);
+            return new SupabaseStandIn.Response(200, request.target().contains("is_active=eq.true") ? "[\"active\"]" : "[\"all\"]");
+        });
+
+        List<CompletableFuture<String>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(SupabaseClient.fetchDataAsync("/rest/v1/schedules?select=*&faculty_id=eq.f1&is_active=eq.true"));
+        }
+        // The same query with its parameters in another order
+        reads.add(SupabaseClient.fetchDataAsync("/rest/v1/schedules?is_active=eq.true&faculty_id=eq.f1&select=*"));
+        CompletableFuture<String> other = SupabaseClient.fetchDataAsync("/rest/v1/schedules?select=*&faculty_id=eq.f1");
+        release.countDown();
+
+        for (CompletableFuture<String> read : reads) {
+            assertEquals("[\"active\"]", read.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("[\"all\"]", other.get(5, TimeUnit.SECONDS));
+        assertEquals(2, supabase.requests().size());
+    }
+
+    @Test
+    void startsNewRequestOnceReadHasCompleted() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        supabase.respond(request -> new SupabaseStandIn.Response(200, "[" + supabase.requests().size() + "]"));
+
+        assertEquals("[1]", SupabaseClient.fetchData("/rest/v1/rooms?select=*&building=eq.S"));
+        assertEquals("[2]", SupabaseClient.fetchData("/rest/v1/rooms?select=*&building=eq.S"));
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelSharedRead() throws Exception {
+        SupabaseStandIn supabase = SupabaseStandIn.get();
+        CountDownLatch release = new CountDownLatch(1);
+        supabase.respond(request -> {
+            awaitQuietly(release);
+            return new SupabaseStandIn.Response(200, "[\"rooms\"]");
+        });
+
+        CompletableFuture<String> abandoned = SupabaseClient.fetchDataAsync("/rest/v1/rooms?select=*&building=eq.C");
+        CompletableFuture<String> waiting = SupabaseClient.fetchDataAsync("/rest/v1/rooms?select=*&building=eq.C");
+        abandoned.cancel(true);
+        release.countDown();
+
+        assertEquals("[\"rooms\"]", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(1, supabase.requests().size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
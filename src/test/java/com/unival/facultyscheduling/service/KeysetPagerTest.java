@@ -0,0 +1,38 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class KeysetPagerTest {
+
+    @Test
+    void pagesByLastKeyAndStopsAfterShortPage() {
+        List<String> requested = new ArrayList<>();
+        List<String> table = IntStream.rangeClosed(1, 7).mapToObj(i -> "k" + i).toList();
+        KeysetPager<String> pager = new KeysetPager<>("rooms", "room_id", "building=eq.A", 3, endpoint -> {
+            requested.add(endpoint);
+            String after = endpoint.contains("room_id=gt.") ? endpoint.substring(endpoint.indexOf("room_id=gt.") + 11) : "";
+            return table.stream().filter(key -> key.compareTo(after) > 0).limit(3).toList();
+        }, key -> key);
+
+        List<String> rows = new ArrayList<>();
+        pager.forEach(rows::add);
+
+        assertEquals(table, rows);
+        assertEquals(List.of(
+                "/rest/v1/rooms?building=eq.A&order=room_id.asc&limit=3",
+                "/rest/v1/rooms?building=eq.A&order=room_id.asc&limit=3&room_id=gt.k3",
+                "/rest/v1/rooms?building=eq.A&order=room_id.asc&limit=3&room_id=gt.k6"), requested);
+    }
+
+    @Test
+    void probesJustPastRowLimitBeforeReading() {
+        KeysetPager<String> pager = new KeysetPager<>("schedules", "schedule_id", null, 100, endpoint -> List.of(), key -> key);
+
+        assertEquals("/rest/v1/schedules?order=schedule_id.asc&limit=1&offset=5000", pager.rowAfterLimitEndpoint());
+    }
+}
@@ -0,0 +1,119 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.net.LatencyHistogram;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoginBenchmark measures how many logins per second this machine sustains and at what latency, with many users
+ * logging in at once.
+ * <p>
+ * It lives with the tests so it is not shipped in the application; surefire does not pick it up as a test. Usage,
+ * after {@code mvn test-compile}:
+ * <pre>
+ *     java -cp target/test-classes:target/classes:... com.unival.facultyscheduling.service.LoginBenchmark [hash] [--clients N] [--seconds S]
+ *     java -cp target/test-classes:target/classes:... com.unival.facultyscheduling.service.LoginBenchmark login EMAIL PASSWORD [--clients N] [--seconds S]
+ * </pre>
+ * The hash mode verifies a password with the calibrated {@link PasswordHasher} settings and no network, which is the
+ * CPU capacity for logins. The login mode runs {@link SupabaseClient#authenticateUser} against the configured
+ * Supabase project with an existing account, which adds the user lookup. Each of N clients (default 50) logs in
+ * back to back for S seconds (default 10) after a short warm-up; rejected or failed logins are counted separately
+ * and excluded from the latencies. The auth.hash.* settings apply, e.g. -Dauth.hash.threads=4.
+ */
+public final class LoginBenchmark {
+
+    @FunctionalInterface
+    private interface Login {
+        boolean run() throws IOException;
+    }
+
+    private LoginBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 50;
+        int seconds = 10;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                default -> positional.add(args[i]);
+            }
+        }
+        String mode = positional.isEmpty() ? "hash" : positional.get(0);
+
+        int iterations = PasswordHasher.await(PasswordHasher.calibrate());
+        Login login;
+        if (mode.equals("login") && positional.size() == 3) {
+            String email = positional.get(1);
+            String password = positional.get(2);
+            login = () -> SupabaseClient.authenticateUser(email, password) != null;
+        } else if (mode.equals("hash")) {
+            String stored = PasswordHasher.await(PasswordHasher.hashAsync("benchmark-password"));
+            login = () -> PasswordHasher.await(PasswordHasher.verifyAsync("benchmark-password", stored));
+        } else {
+            System.err.println("Usage: LoginBenchmark [hash | login EMAIL PASSWORD] [--clients N] [--seconds S]");
+            System.exit(2);
+            return;
+        }
+
+        System.out.printf("mode=%s clients=%d seconds=%d iterations=%d processors=%d%n", mode, clients, seconds,
+                iterations, Runtime.getRuntime().availableProcessors());
+        run(login, clients, Math.max(1, seconds / 5), null, null, null);
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long elapsed = run(login, clients, seconds, latencies, rejected, failed);
+
+        LatencyHistogram.Summary summary = latencies.snapshot();
+        System.out.printf("logins=%d (%.1f/s) rejected=%d failed=%d%n", summary.count(),
+                summary.count() * 1e9 / elapsed, rejected.get(), failed.get());
+        System.out.printf("latency ms: mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", summary.mean(), summary.p50(),
+                summary.p90(), summary.p99(), summary.max());
+        System.exit(0);
+    }
+
+    /**
+     * Runs the clients for a while; with null counters the run is a warm-up and nothing is recorded.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    private static long run(Login login, int clients, int seconds, LatencyHistogram latencies, AtomicLong rejected,
+                            AtomicLong failed) throws InterruptedException {
+        long started = System.nanoTime();
+        long deadline = started + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        try {
+                            boolean accepted = login.run();
+                            if (latencies == null) {
+                                continue;
+                            }
+                            if (accepted) {
+                                latencies.record(System.nanoTime() - begin);
+                            } else {
+                                rejected.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            if (failed != null) {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return System.nanoTime() - started;
+    }
+}
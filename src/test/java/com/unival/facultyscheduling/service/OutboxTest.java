@@ -0,0 +1,284 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.unival.facultyscheduling.net.SupabaseStandIn;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutboxTest {
+    private final SupabaseStandIn supabase = SupabaseStandIn.get();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void storeCommentsUnlessBad() {
+        // Like a check constraint: a batch holding any "bad" row is rejected as a whole
+        supabase.respond(request -> {
+            JSONArray rows = new JSONArray(request.body());
+            JSONArray stored = new JSONArray();
+            for (int i = 0; i < rows.length(); i++) {
+                JSONObject row = rows.getJSONObject(i);
+                if (row.getString("text").startsWith("bad")) {
+                    return new SupabaseStandIn.Response(400, "{\"code\":\"23514\"}");
+                }
+                stored.put(new JSONObject(row.toString()).put("comment_id", String.valueOf(nextId.getAndIncrement())));
+            }
+            return new SupabaseStandIn.Response(201, stored.toString());
+        });
+    }
+
+    @Test
+    void coalescesPendingWritesIntoOneInsert() throws Exception {
+        Outbox outbox = open();
+        Outbox.Entry first = enqueue(outbox, "first");
+        Outbox.Entry second = enqueue(outbox, "second");
+        Outbox.Entry third = enqueue(outbox, "third");
+
+        outbox.flush();
+
+        assertEquals(1, supabase.requests().size());
+        assertEquals(3, new JSONArray(supabase.requests().get(0).body()).length());
+        assertEquals("1", first.getServerId());
+        assertEquals("2", second.getServerId());
+        assertEquals("3", third.getServerId());
+        assertEquals("third", third.getCompletion().get(1, TimeUnit.SECONDS).getString("text"));
+        assertTrue(outbox.getUnsent().isEmpty());
+    }
+
+    @Test
+    void bisectsRejectedBatchSoOnlyTheOffendingRowFails() throws Exception {
+        Outbox outbox = open();
+        Outbox.Entry good = enqueue(outbox, "good");
+        Outbox.Entry bad = enqueue(outbox, "bad");
+        Outbox.Entry alsoGood = enqueue(outbox, "also good");
+
+        outbox.flush();
+
+        // The whole batch, then one row at a time
+        List<SupabaseStandIn.Request> requests = supabase.requests();
+        assertEquals(4, requests.size());
+        assertEquals(3, new JSONArray(requests.get(0).body()).length());
+        assertEquals(Outbox.State.SENT, good.getState());
+        assertEquals(Outbox.State.FAILED, bad.getState());
+        assertTrue(bad.getError().startsWith("HTTP 400"));
+        assertTrue(bad.getCompletion().isCompletedExceptionally());
+        assertEquals(Outbox.State.SENT, alsoGood.getState());
+        assertEquals(List.of(bad), outbox.getUnsent());
+    }
+
+    @Test
+    void sendsReplyAfterItsParentWithTheParentsRealId() throws Exception {
+        Outbox outbox = open();
+        Outbox.Entry parent = enqueue(outbox, "parent");
+        Outbox.Entry reply = reply(outbox, parent, "reply");
+
+        outbox.flush();
+        assertEquals(Outbox.State.SENT, parent.getState());
+        assertEquals(Outbox.State.PENDING, reply.getState());
+        outbox.flush();
+
+        List<SupabaseStandIn.Request> requests = supabase.requests();
+        assertEquals(2, requests.size());
+        assertEquals("parent", new JSONArray(requests.get(0).body()).getJSONObject(0).getString("text"));
+        assertEquals(parent.getServerId(),
+                new JSONArray(requests.get(1).body()).getJSONObject(0).getString("parent_comment_id"));
+        assertEquals(Outbox.State.SENT, reply.getState());
+    }
+
+    @Test
+    void failedWriteHoldsBackOnlyWritesThatReferToIt() throws Exception {
+        Outbox outbox = open();
+        Outbox.Entry bad = enqueue(outbox, "bad");
+        outbox.flush();
+        assertEquals(Outbox.State.FAILED, bad.getState());
+
+        Outbox.Entry replyToBad = reply(outbox, bad, "reply to bad");
+        Outbox.Entry unrelated = enqueue(outbox, "unrelated");
+        outbox.flush();
+
+        assertEquals(Outbox.State.SENT, unrelated.getState());
+        assertEquals(Outbox.State.PENDING, replyToBad.getState());
+        // Only the unrelated write went out in the second round
+        List<SupabaseStandIn.Request> requests = supabase.requests();
+        assertEquals(2, requests.size());
+        assertEquals("unrelated", new JSONArray(requests.get(1).body()).getJSONObject(0).getString("text"));
+
+        // Discarding the failed write discards the reply that depends on it
+        outbox.discard(bad.getLocalId());
+        assertEquals(Outbox.State.DISCARDED, replyToBad.getState());
+        assertTrue(outbox.getUnsent().isEmpty());
+    }
+
+    @Test
+    void replaysUnsentWritesAfterRestart() throws Exception {
+        Outbox before = open();
+        Outbox.Entry rejected = enqueue(before, "bad");
+        before.flush();
+        Outbox.Entry pending = enqueue(before, "pending");
+        // A crash while appending leaves a torn last record
+        Files.writeString(journal(), "{\"op\":\"add\",\"key\":", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Outbox after = open();
+
+        List<Outbox.Entry> unsent = after.getUnsent();
+        assertEquals(2, unsent.size());
+        assertEquals(rejected.getKey(), unsent.get(0).getKey());
+        assertEquals(Outbox.State.FAILED, unsent.get(0).getState());
+        assertEquals(rejected.getError(), unsent.get(0).getError());
+        assertEquals(pending.getKey(), unsent.get(1).getKey());
+        assertEquals(Outbox.State.PENDING, after.getState(pending.getLocalId()));
+
+        after.flush();
+
+        assertEquals(Outbox.State.SENT, unsent.get(1).getState());
+        assertEquals("pending", new JSONArray(supabase.requests().get(supabase.requests().size() - 1).body())
+                .getJSONObject(0).getString("text"));
+        assertEquals(Outbox.State.FAILED, unsent.get(0).getState());
+    }
+
+    @Test
+    void compactsJournalToUnsentWrites() throws Exception {
+        Outbox before = open();
+        enqueue(before, "sent");
+        Outbox.Entry rejected = enqueue(before, "bad");
+        before.flush();
+        // add, add, sent, failed
+        assertEquals(4, Files.readAllLines(journal()).size());
+
+        // Replay rewrites the journal with only the write that is still unsent
+        Outbox after = open();
+        List<String> records = Files.readAllLines(journal());
+        assertEquals(2, records.size());
+        assertEquals("add", new JSONObject(records.get(0)).getString("op"));
+        assertEquals("failed", new JSONObject(records.get(1)).getString("op"));
+        assertEquals(rejected.getKey(), new JSONObject(records.get(1)).getString("key"));
+
+        after.discard(rejected.getLocalId());
+        assertTrue(after.getUnsent().isEmpty());
+        // Nothing is left to send, so the next flush empties the journal
+        enqueue(after, "last");
+        after.flush();
+        assertTrue(after.getUnsent().isEmpty());
+        assertFalse(Files.readString(journal()).contains("\"op\""));
+    }
+
+    @Test
+    void resendsWriteWhoseResponseWasLostWithoutStoringItTwice() throws Exception {
+        // A unique idempotency_key column with ignore-duplicates, as the migration sets it up
+        Map<String, JSONObject> table = new ConcurrentHashMap<>();
+        AtomicInteger posts = new AtomicInteger();
+        supabase.respond(request -> {
+            if (request.method().equals("GET")) {
+                String keys = URLDecoder.decode(request.target().replaceAll(".*in\\.\\((.*)\\)$", "$1"), StandardCharsets.UTF_8);
+                JSONArray found = new JSONArray();
+                Arrays.stream(keys.split(",")).map(table::get).filter(Objects::nonNull).forEach(found::put);
+                return new SupabaseStandIn.Response(200, found.toString());
+            }
+            JSONArray inserted = new JSONArray();
+            JSONArray rows = new JSONArray(request.body());
+            for (int i = 0; i < rows.length(); i++) {
+                JSONObject row = rows.getJSONObject(i);
+                if (!table.containsKey(row.getString("idempotency_key"))) {
+                    JSONObject stored = new JSONObject(row.toString()).put("comment_id", String.valueOf(nextId.getAndIncrement()));
+                    table.put(row.getString("idempotency_key"), stored);
+                    inserted.put(stored);
+                }
+            }
+            // The first insert is committed, but its response never arrives
+            return posts.incrementAndGet() == 1 ? SupabaseStandIn.NO_RESPONSE : new SupabaseStandIn.Response(201, inserted.toString());
+        });
+        Outbox outbox = open();
+        Outbox.Entry entry = enqueue(outbox, "once");
+
+        outbox.flush();
+        assertEquals(Outbox.State.PENDING, entry.getState());
+        // Past the first backoff
+        Thread.sleep(700);
+        outbox.flush();
+
+        assertEquals(Outbox.State.SENT, entry.getState());
+        assertEquals(1, table.size());
+        assertEquals("1", entry.getServerId());
+        List<SupabaseStandIn.Request> requests = supabase.requests();
+        assertEquals(3, requests.size());
+        assertEquals("/rest/v1/comments?on_conflict=idempotency_key", requests.get(1).target());
+        assertEquals(entry.getKey(), new JSONArray(requests.get(1).body()).getJSONObject(0).getString("idempotency_key"));
+        assertEquals("GET", requests.get(2).method());
+    }
+
+    @Test
+    void failsWriteWhoseOutcomeIsUnknownWithoutKeyColumn() throws Exception {
+        supabase.respond(request -> SupabaseStandIn.NO_RESPONSE);
+        Outbox outbox = openWithoutKeyColumn();
+        Outbox.Entry entry = enqueue(outbox, "maybe stored");
+
+        outbox.flush();
+
+        assertEquals(Outbox.State.FAILED, entry.getState());
+        assertTrue(entry.getError().startsWith("Outcome unknown"), entry.getError());
+        assertTrue(entry.getCompletion().isCompletedExceptionally());
+        // Not resent behind the user's back, now or after a restart
+        outbox.flush();
+        assertEquals(1, supabase.requests().size());
+        assertEquals(Outbox.State.FAILED, openWithoutKeyColumn().getUnsent().get(0).getState());
+    }
+
+    @Test
+    void failsWriteThatWasBeingSentWhenApplicationStopped() throws Exception {
+        Outbox before = openWithoutKeyColumn();
+        Outbox.Entry entry = enqueue(before, "in flight");
+        // The journal as a crash during the insert leaves it
+        Files.writeString(journal(), new JSONObject().put("op", "sending").put("key", entry.getKey()) + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Outbox after = openWithoutKeyColumn();
+        after.flush();
+
+        Outbox.Entry replayed = after.getUnsent().get(0);
+        assertEquals(Outbox.State.FAILED, replayed.getState());
+        assertTrue(replayed.getError().startsWith("Outcome unknown"), replayed.getError());
+        assertTrue(supabase.requests().isEmpty());
+    }
+
+    private Outbox open() {
+        // Long delays keep the worker from flushing behind the test's back
+        return new Outbox(journal(), 100, 3_600_000, "idempotency_key", 3_600);
+    }
+
+    private Outbox openWithoutKeyColumn() {
+        return new Outbox(journal(), 100, 3_600_000, null, 3_600);
+    }
+
+    private Path journal() {
+        return dir.resolve("outbox.jsonl");
+    }
+
+    private static Outbox.Entry enqueue(Outbox outbox, String text) throws Exception {
+        return outbox.enqueue("comments", "comment_id", new JSONObject().put("text", text));
+    }
+
+    private static Outbox.Entry reply(Outbox outbox, Outbox.Entry parent, String text) throws Exception {
+        return outbox.enqueue("comments", "comment_id",
+                new JSONObject().put("text", text).put("parent_comment_id", parent.getLocalId()));
+    }
+}
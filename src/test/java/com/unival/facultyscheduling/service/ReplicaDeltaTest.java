@@ -0,0 +1,131 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.unival.facultyscheduling.net.SupabaseStandIn;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplicaDeltaTest {
+    private static final String BEFORE_FIRST_SYNC = "2026-10-16T07:00:10Z";
+    private static final String RECREATED = "2026-10-16T07:30:10Z";
+    private static final String FIRST_SYNC = "2026-10-16T08:00:10Z";
+    private static final String SECOND_SYNC = "2026-10-16T09:00:10Z";
+
+    @TempDir
+    Path dir;
+
+    private final Map<String, List<JSONObject>> tables = new HashMap<>();
+    private SupabaseStandIn supabase;
+
+    @BeforeEach
+    void setUp() {
+        supabase = SupabaseStandIn.get();
+        supabase.respond(this::read);
+    }
+
+    @Test
+    void appliesTombstonesOfDeletesSinceLastSynchronization() throws Exception {
+        put("rooms", room("R101", "Lab 1", RECREATED), room("R102", "Lab 2", FIRST_SYNC), room("R103", "Hall", FIRST_SYNC));
+        // R101 was deleted, then created again, before the first synchronization
+        put("tombstones", tombstone(1, "rooms", "R101", BEFORE_FIRST_SYNC));
+        LocalReplica replica = new LocalReplica(dir);
+        replica.syncAll();
+        assertEquals(List.of("R101", "R102", "R103"), roomIds(replica));
+
+        // R102 is deleted and R103 renamed; a course whose key happens to be R101 is deleted too
+        remove("rooms", "R102");
+        remove("rooms", "R103");
+        put("rooms", room("R103", "Auditorium", SECOND_SYNC));
+        put("tombstones", tombstone(2, "rooms", "R102", SECOND_SYNC), tombstone(3, "courses", "R101", SECOND_SYNC));
+        int before = supabase.requests().size();
+        replica.syncAll();
+
+        assertEquals(List.of("R101", "R103"), roomIds(replica));
+        assertEquals("Auditorium", new JSONArray(replica.query("/rest/v1/rooms?room_id=eq.R103")).getJSONObject(0).getString("name"));
+        List<String> targets = supabase.requests().subList(before, supabase.requests().size()).stream()
+                .map(SupabaseStandIn.Request::target).toList();
+        // Read as deltas: the tombstones and rows of the rooms table since the first synchronization, nothing in full
+        assertTrue(targets.stream().anyMatch(target -> target.startsWith("/rest/v1/tombstones?")
+                && target.contains("table_name=eq.rooms") && target.contains("deleted_at=gte.")), targets::toString);
+        assertTrue(targets.stream().anyMatch(target -> target.startsWith("/rest/v1/rooms?")
+                && target.contains("updated_at=gte.")), targets::toString);
+        assertTrue(targets.stream().noneMatch(target -> target.startsWith("/rest/v1/rooms?order=room_id")), targets::toString);
+
+        // The overlap reads the same tombstones again, which changes nothing, and the result survives a restart
+        replica.syncAll();
+        assertEquals(List.of("R101", "R103"), roomIds(replica));
+        assertEquals(List.of("R101", "R103"), roomIds(new LocalReplica(dir)));
+    }
+
+    /**
+     * Answers reads of the tables like PostgREST, as far as {@link ReplicaQuery} and not.is.null go.
+     */
+    private SupabaseStandIn.Response read(SupabaseStandIn.Request request) {
+        if (!request.method().equals("GET") || !request.target().startsWith("/rest/v1/")) {
+            return new SupabaseStandIn.Response(404, "{\"code\":\"PGRST205\"}");
+        }
+        List<String> notNull = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        String target = request.target();
+        int queryStart = target.indexOf('?');
+        for (String param : queryStart < 0 ? new String[0] : target.substring(queryStart + 1).split("&")) {
+            if (param.endsWith("=not.is.null")) {
+                notNull.add(param.substring(0, param.indexOf('=')));
+            } else {
+                params.add(param);
+            }
+        }
+        ReplicaQuery query = ReplicaQuery.parse((queryStart < 0 ? target : target.substring(0, queryStart)) + "?" + String.join("&", params));
+        if (query == null) {
+            return new SupabaseStandIn.Response(400, "{\"code\":\"PGRST100\",\"message\":\"" + target + "\"}");
+        }
+        List<JSONObject> matching = new ArrayList<>();
+        synchronized (tables) {
+            for (JSONObject row : tables.getOrDefault(query.table(), List.of())) {
+                if (notNull.stream().noneMatch(row::isNull) && query.filters().stream().allMatch(filter -> filter.matches(row))) {
+                    matching.add(row);
+                }
+            }
+        }
+        return new SupabaseStandIn.Response(200, new JSONArray(query.shape(matching)).toString());
+    }
+
+    private void put(String table, JSONObject... rows) {
+        synchronized (tables) {
+            tables.computeIfAbsent(table, t -> new ArrayList<>()).addAll(List.of(rows));
+        }
+    }
+
+    private void remove(String table, String roomId) {
+        synchronized (tables) {
+            tables.get(table).removeIf(row -> row.getString("room_id").equals(roomId));
+        }
+    }
+
+    private static List<String> roomIds(LocalReplica replica) {
+        List<String> ids = new ArrayList<>();
+        JSONArray rows = new JSONArray(replica.query("/rest/v1/rooms?order=room_id"));
+        for (int i = 0; i < rows.length(); i++) {
+            ids.add(rows.getJSONObject(i).getString("room_id"));
+        }
+        return ids;
+    }
+
+    private static JSONObject room(String roomId, String name, String updatedAt) {
+        return new JSONObject().put("room_id", roomId).put("name", name).put("updated_at", updatedAt);
+    }
+
+    private static JSONObject tombstone(long id, String table, String key, String deletedAt) {
+        return new JSONObject().put("tombstone_id", id).put("table_name", table).put("row_key", key).put("deleted_at", deletedAt);
+    }
+}
@@ -0,0 +1,108 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class ReplicaQueryTest {
+    private static final List<JSONObject> ROOMS = List.of(
+            room("r1", "Lab 1", 30, "A", true),
+            room("r2", "Hall, East", 120, "B", false),
+            room("r3", "Lab 2", 9, null, true),
+            room("r4", "Seminar", 30, "A", null));
+
+    @Test
+    void comparesNumbersAsNumbersAndTextAsText() {
+        assertEquals(List.of("r1", "r2", "r4"), keys("/rest/v1/rooms?capacity=gte.10&order=room_id"));
+        assertEquals(List.of("r3"), keys("/rest/v1/rooms?capacity=lt.10"));
+        assertEquals(List.of("r2"), keys("/rest/v1/rooms?capacity=gt.30"));
+        assertEquals(List.of("r1", "r4"), keys("/rest/v1/rooms?capacity=lte.30&capacity=gte.30"));
+        assertEquals(List.of("r3", "r4"), keys("/rest/v1/rooms?name=gt.Lab%201"));
+    }
+
+    @Test
+    void neverMatchesNullWithComparisonOperators() {
+        // As in SQL, a null building is neither equal nor unequal to "A"
+        assertEquals(List.of("r1", "r4"), keys("/rest/v1/rooms?building=eq.A"));
+        assertEquals(List.of("r2"), keys("/rest/v1/rooms?building=neq.A"));
+        assertEquals(List.of("r1", "r2", "r4"), keys("/rest/v1/rooms?building=in.(A,B)"));
+        assertEquals(List.of("r3"), keys("/rest/v1/rooms?building=is.null"));
+    }
+
+    @Test
+    void matchesBooleansOnlyWithIs() {
+        assertEquals(List.of("r1", "r3"), keys("/rest/v1/rooms?is_active=is.true"));
+        assertEquals(List.of("r2"), keys("/rest/v1/rooms?is_active=is.false"));
+        assertEquals(List.of("r4"), keys("/rest/v1/rooms?is_active=is.null"));
+        assertEquals(List.of("r1", "r3"), keys("/rest/v1/rooms?is_active=eq.true"));
+    }
+
+    @Test
+    void keepsCommasInsideQuotedListItems() {
+        assertEquals(List.of("r2", "r4"), keys("/rest/v1/rooms?name=in.(%22Hall,%20East%22,Seminar)"));
+        assertEquals(List.of("r1", "r3"), keys("/rest/v1/rooms?name=in.(%22Lab 1%22, Lab 2)"));
+    }
+
+    @Test
+    void sortsNullsLastAscendingAndFirstDescending() {
+        assertEquals(List.of("r1", "r4", "r2", "r3"), keys("/rest/v1/rooms?order=building.asc,room_id.asc"));
+        assertEquals(List.of("r3", "r2", "r4", "r1"), keys("/rest/v1/rooms?order=building.desc,room_id.desc"));
+        assertEquals(List.of("r3", "r1", "r4", "r2"), keys("/rest/v1/rooms?order=building.nullsfirst,room_id"));
+        assertEquals(List.of("r2", "r1", "r4", "r3"), keys("/rest/v1/rooms?order=building.desc.nullslast,capacity.desc"));
+        // Numerically, so 120 comes after 30 and 9 before both
+        assertEquals(List.of("r3", "r1", "r4", "r2"), keys("/rest/v1/rooms?order=capacity,room_id"));
+    }
+
+    @Test
+    void pagesAfterSortingAndProjectsSelectedColumns() {
+        List<JSONObject> page = answer("/rest/v1/rooms?select=room_id,floor&order=room_id.desc&limit=2&offset=1");
+
+        assertEquals(2, page.size());
+        assertEquals("r3", page.get(0).getString("room_id"));
+        assertEquals("r2", page.get(1).getString("room_id"));
+        // A column the row lacks is returned as null, and other columns are left out
+        assertEquals(JSONObject.NULL, page.get(0).get("floor"));
+        assertEquals(List.of("floor", "room_id"), page.get(0).keySet().stream().sorted().toList());
+        assertEquals(List.of(), keys("/rest/v1/rooms?offset=10"));
+    }
+
+    @Test
+    void leavesUnsupportedQueriesToSupabase() {
+        assertNull(ReplicaQuery.parse("/rest/v1/rooms?or=(building.eq.A,building.eq.B)"));
+        assertNull(ReplicaQuery.parse("/rest/v1/rooms?name=like.Lab*"));
+        assertNull(ReplicaQuery.parse("/rest/v1/rooms?building=not.eq.A"));
+        assertNull(ReplicaQuery.parse("/rest/v1/rooms?order=capacity.sideways"));
+        assertNull(ReplicaQuery.parse("/rest/v1/schedules?select=*,course:courses(name)"));
+        assertNull(ReplicaQuery.parse("/rest/v1/rpc/create_schedule_checked"));
+        assertNotNull(ReplicaQuery.parse("/rest/v1/schedules?select=*,course:courses(*)"));
+    }
+
+    private static List<String> keys(String endpoint) {
+        return answer(endpoint).stream().map(row -> row.getString("room_id")).toList();
+    }
+
+    private static List<JSONObject> answer(String endpoint) {
+        ReplicaQuery query = ReplicaQuery.parse(endpoint);
+        List<JSONObject> matching = new ArrayList<>();
+        for (JSONObject row : ROOMS) {
+            if (query.filters().stream().allMatch(filter -> filter.matches(row))) {
+                matching.add(row);
+            }
+        }
+        return query.shape(matching);
+    }
+
+    private static JSONObject room(String roomId, String name, int capacity, String building, Boolean active) {
+        return new JSONObject()
+                .put("room_id", roomId)
+                .put("name", name)
+                .put("capacity", capacity)
+                .put("building", building == null ? JSONObject.NULL : building)
+                .put("is_active", active == null ? JSONObject.NULL : active);
+    }
+}
@@ -0,0 +1,92 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.unival.facultyscheduling.model.Schedule;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ScheduleConflictsTest {
+    private static final Schedule DRAFT = Schedule.draft("c1", "f1", "h1", "r1", "s1", "1", "2026-2027");
+
+    @Test
+    void findsClashOnEachSharedResource() {
+        List<ScheduleInsertResult.Conflict> conflicts = ScheduleConflicts.find(DRAFT, List.of(
+                schedule("3", "f9", "h9", "r1", "s1", "1", "2026-2027", true),
+                schedule("2", "f1", "h9", "r9", "s1", "1", "2026-2027", true),
+                schedule("1", "f9", "h1", "r9", "s1", "1", "2026-2027", true)));
+
+        assertEquals(List.of(
+                conflict(ScheduleInsertResult.Kind.ROOM, "3"),
+                conflict(ScheduleInsertResult.Kind.FACULTY, "2"),
+                conflict(ScheduleInsertResult.Kind.COHORT, "1")), summary(conflicts));
+    }
+
+    @Test
+    void listsScheduleOncePerClashingResourceInKindThenIdOrder() {
+        List<ScheduleInsertResult.Conflict> conflicts = ScheduleConflicts.find(DRAFT, List.of(
+                schedule("7", "f1", "h9", "r1", "s1", "1", "2026-2027", true),
+                schedule("5", "f9", "h1", "r1", "s1", "1", "2026-2027", true)));
+
+        assertEquals(List.of(
+                conflict(ScheduleInsertResult.Kind.ROOM, "5"),
+                conflict(ScheduleInsertResult.Kind.ROOM, "7"),
+                conflict(ScheduleInsertResult.Kind.FACULTY, "7"),
+                conflict(ScheduleInsertResult.Kind.COHORT, "5")), summary(conflicts));
+    }
+
+    @Test
+    void ignoresInactiveSchedulesOtherSlotsAndOtherTerms() {
+        List<ScheduleInsertResult.Conflict> conflicts = ScheduleConflicts.find(DRAFT, List.of(
+                schedule("1", "f1", "h1", "r1", "s1", "1", "2026-2027", false),
+                schedule("2", "f1", "h1", "r1", "s2", "1", "2026-2027", true),
+                schedule("3", "f1", "h1", "r1", "s1", "2", "2026-2027", true),
+                schedule("4", "f1", "h1", "r1", "s1", "1", "2025-2026", true),
+                schedule("5", "f9", "h9", "r9", "s1", "1", "2026-2027", true)));
+
+        assertTrue(conflicts.isEmpty());
+    }
+
+    @Test
+    void doesNotTreatMissingResourcesAsShared() {
+        Schedule unassigned = Schedule.draft("c1", null, null, null, "s1", "1", "2026-2027");
+
+        assertTrue(ScheduleConflicts.find(unassigned, List.of(
+                schedule("1", null, null, null, "s1", "1", "2026-2027", true))).isEmpty());
+    }
+
+    @Test
+    void matchesMissingTermOnlyToMissingTerm() {
+        Schedule noTerm = Schedule.draft("c1", "f1", "h1", "r1", "s1", null, null);
+
+        List<ScheduleInsertResult.Conflict> conflicts = ScheduleConflicts.find(noTerm, List.of(
+                schedule("1", "f1", "h9", "r9", "s1", null, null, true),
+                schedule("2", "f1", "h9", "r9", "s1", "1", "2026-2027", true)));
+
+        assertEquals(List.of(conflict(ScheduleInsertResult.Kind.FACULTY, "1")), summary(conflicts));
+        assertEquals("/rest/v1/schedules?slot_id=eq.s1&semester=is.null&academic_year=is.null&is_active=eq.true",
+                ScheduleConflicts.candidatesEndpoint(noTerm));
+    }
+
+    @Test
+    void encodesCandidateFilterValues() {
+        Schedule draft = Schedule.draft("c1", "f1", "h1", "r1", "s 1", "1st", "2026/2027");
+
+        assertEquals("/rest/v1/schedules?slot_id=eq.s+1&semester=eq.1st&academic_year=eq.2026%2F2027&is_active=eq.true",
+                ScheduleConflicts.candidatesEndpoint(draft));
+    }
+
+    private static Schedule schedule(String id, String facultyId, String cohortId, String roomId, String slotId,
+                                     String semester, String academicYear, boolean active) {
+        return new Schedule(id, "c9", facultyId, cohortId, roomId, slotId, semester, academicYear, active);
+    }
+
+    private static String conflict(ScheduleInsertResult.Kind kind, String scheduleId) {
+        return kind + ":" + scheduleId;
+    }
+
+    private static List<String> summary(List<ScheduleInsertResult.Conflict> conflicts) {
+        return conflicts.stream().map(c -> conflict(c.kind(), c.existing().scheduleId())).toList();
+    }
+}
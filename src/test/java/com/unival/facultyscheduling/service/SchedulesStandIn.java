@@ -0,0 +1,146 @@
+package com.unival.facultyscheduling.service;
+
+import com.unival.facultyscheduling.model.Schedule;
+import com.unival.facultyscheduling.net.JsonCodec;
+import com.unival.facultyscheduling.net.SupabaseStandIn;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * SchedulesStandIn plays the schedules table of Supabase on {@link SupabaseStandIn}, holding the rows in memory.
+ * <p>
+ * It answers the three requests a checked schedule insert can make:
+ * <ul>
+ *     <li>POST /rest/v1/rpc/create_schedule_checked: the rule of the migration, via {@link ScheduleConflicts}, checked
+ *     and inserted atomically as the database function's transaction does.</li>
+ *     <li>GET /rest/v1/schedules?...: the rows matching the filters. The rows are read, then the answer is held back
+ *     for a while, so that a booking made in between is not seen, as with a real read.</li>
+ *     <li>POST /rest/v1/schedules: a plain insert, which checks nothing, like the table itself.</li>
+ * </ul>
+ */
+final class SchedulesStandIn implements Function<SupabaseStandIn.Request, SupabaseStandIn.Response> {
+    private static final String RPC = "/rest/v1/rpc/create_schedule_checked";
+    private static final String TABLE = "/rest/v1/schedules";
+
+    private final long readDelayMillis;
+    private final List<JSONObject> rows = new ArrayList<>();
+    private int nextId = 1;
+
+    /**
+     * @param readDelayMillis How long each read of the table takes after it has seen the rows.
+     */
+    SchedulesStandIn(long readDelayMillis) {
+        this.readDelayMillis = readDelayMillis;
+    }
+
+    /**
+     * Stores a schedule, as if it had been booked earlier.
+     *
+     * @return The stored row, with its schedule_id.
+     */
+    synchronized JSONObject add(String facultyId, String cohortId, String roomId, String slotId) {
+        return insert(new JSONObject()
+                .put("course_id", "c1")
+                .put("faculty_id", facultyId)
+                .put("cohort_id", cohortId)
+                .put("room_id", roomId)
+                .put("slot_id", slotId)
+                .put("semester", "1")
+                .put("academic_year", "2026-2027")
+                .put("is_active", true));
+    }
+
+    /**
+     * @return The stored rows, in the order they were inserted.
+     */
+    synchronized List<JSONObject> rows() {
+        return new ArrayList<>(rows);
+    }
+
+    @Override
+    public SupabaseStandIn.Response apply(SupabaseStandIn.Request request) {
+        if (request.method().equals("POST") && request.target().equals(RPC)) {
+            return createChecked(new JSONObject(request.body()));
+        }
+        if (request.method().equals("POST") && request.target().startsWith(TABLE)) {
+            JSONArray inserted = new JSONArray();
+            String body = request.body().trim();
+            JSONArray input = body.startsWith("[") ? new JSONArray(body) : new JSONArray().put(new JSONObject(body));
+            synchronized (this) {
+                for (int i = 0; i < input.length(); i++) {
+                    inserted.put(insert(input.getJSONObject(i)));
+                }
+            }
+            return new SupabaseStandIn.Response(201, inserted.toString());
+        }
+        if (request.method().equals("GET") && request.target().startsWith(TABLE)) {
+            ReplicaQuery query = ReplicaQuery.parse(request.target());
+            List<JSONObject> matching = new ArrayList<>();
+            for (JSONObject row : rows()) {
+                if (query.filters().stream().allMatch(filter -> filter.matches(row))) {
+                    matching.add(row);
+                }
+            }
+            pause();
+            return new SupabaseStandIn.Response(200, new JSONArray(query.shape(matching)).toString());
+        }
+        return new SupabaseStandIn.Response(404, "{\"code\":\"PGRST205\"}");
+    }
+
+    private synchronized SupabaseStandIn.Response createChecked(JSONObject params) {
+        JSONObject draft = new JSONObject();
+        for (String column : List.of("course_id", "faculty_id", "cohort_id", "room_id", "slot_id", "semester", "academic_year")) {
+            draft.put(column, params.opt("p_" + column));
+        }
+        draft.put("is_active", true);
+        List<ScheduleInsertResult.Conflict> conflicts = ScheduleConflicts.find(decode(draft), rows.stream().map(SchedulesStandIn::decode).toList());
+        JSONObject result = new JSONObject();
+        if (conflicts.isEmpty()) {
+            result.put("schedule", insert(draft)).put("conflicts", new JSONArray());
+        } else {
+            JSONArray rejected = new JSONArray();
+            for (ScheduleInsertResult.Conflict conflict : conflicts) {
+                rejected.put(new JSONObject()
+                        .put("kind", conflict.kind().name().toLowerCase(Locale.ROOT))
+                        .put("schedule", row(conflict.existing().scheduleId())));
+            }
+            result.put("schedule", JSONObject.NULL).put("conflicts", rejected);
+        }
+        return new SupabaseStandIn.Response(200, result.toString());
+    }
+
+    private JSONObject insert(JSONObject row) {
+        JSONObject stored = new JSONObject(row.toString()).put("schedule_id", String.valueOf(nextId++));
+        if (!stored.has("is_active")) {
+            stored.put("is_active", true);
+        }
+        rows.add(stored);
+        return stored;
+    }
+
+    private JSONObject row(String scheduleId) {
+        return rows.stream().filter(row -> row.getString("schedule_id").equals(scheduleId)).findFirst().orElseThrow();
+    }
+
+    private static Schedule decode(JSONObject row) {
+        try {
+            return JsonCodec.readList("[" + row + "]", Codecs.SCHEDULE).get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(readDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.unival.facultyscheduling.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class StaleWhileRevalidateTest {
+
+    @Test
+    void doesNotPublishRefreshThatStartedBeforeWrite() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        StaleWhileRevalidate<String> courses = new StaleWhileRevalidate<>("test", () -> {
+            if (reads.incrementAndGet() == 1) {
+                awaitQuietly(release);
+                return "before delete";
+            }
+            return "after delete";
+        });
+        BlockingQueue<String> shown = new LinkedBlockingQueue<>();
+
+        assertNull(courses.get(shown::add));
+        courses.invalidate();
+        assertNull(courses.get(shown::add));
+
+        // The second read did not join the first, and only its result reaches the screen
+        assertEquals("after delete", shown.poll(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertNull(shown.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(2, reads.get());
+        assertEquals("after delete", courses.peek());
+    }
+
+    @Test
+    void sharesRefreshBetweenCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        StaleWhileRevalidate<String> courses = new StaleWhileRevalidate<>("test", () -> {
+            reads.incrementAndGet();
+            awaitQuietly(release);
+            return "courses";
+        });
+        BlockingQueue<String> shown = new LinkedBlockingQueue<>();
+
+        courses.get(shown::add);
+        courses.get(shown::add);
+        release.countDown();
+
+        assertEquals("courses", shown.poll(5, TimeUnit.SECONDS));
+        assertEquals("courses", shown.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, reads.get());
+        // Fresh results are served without another read; the result is kept just after it is handed out
+        for (int i = 0; i < 50 && courses.peek() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("courses", courses.get(shown::add));
+        assertTrue(shown.isEmpty());
+        assertEquals(1, reads.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+-- replica_delta: lets LocalReplica fetch only the rows changed since its last synchronization, and the rows
+-- deleted since then, instead of reading every replicated table in full.
+--
+-- Each replicated table gets an updated_at column (replica.delta.changedColumn) that is set on insert and moved on
+-- every update. Deletes are recorded in the tombstones table (replica.delta.tombstoneTable) by an after delete
+-- trigger, with the row's key as text; LocalReplica reads them with
+--   GET /rest/v1/tombstones?table_name=eq.<table>&order=deleted_at.asc,tombstone_id.asc
+-- Tables without the column are read in full, and without the tombstones table deletes are picked up by realtime
+-- changes and the periodic full read, so applying this migration is optional.
+
+create extension if not exists moddatetime schema extensions;
+
+create table if not exists public.tombstones (
+    tombstone_id bigserial primary key,
+    table_name text not null,
+    row_key text not null,
+    deleted_at timestamptz not null default now()
+);
+
+create index if not exists tombstones_table_deleted_idx on public.tombstones (table_name, deleted_at, tombstone_id);
+
+-- Records the deleted row's key; the key column is the trigger's only argument
+create or replace function public.record_tombstone()
+returns trigger
+language plpgsql
+security definer
+set search_path = public
+as $$
+begin
+    insert into public.tombstones (table_name, row_key)
+    values (tg_table_name, to_jsonb(old) ->> tg_argv[0]);
+    return old;
+end;
+$$;
+
+-- Adds updated_at, its moddatetime trigger and the tombstone trigger to each replicated table
+do $$
+declare
+    v_table record;
+begin
+    for v_table in
+        select * from (values
+            ('users', 'id'),
+            ('departments', 'department_id'),
+            ('courses', 'id'),
+            ('rooms', 'room_id'),
+            ('time_slots', 'slot_id'),
+            ('cohorts', 'cohort_id'),
+            ('schedules', 'schedule_id'),
+            ('evaluations', 'evaluation_id'),
+            ('comments', 'comment_id'),
+            ('reactions', 'reaction_id'),
+            ('faculty', 'faculty_id')) as t(name, key_column)
+    loop
+        execute format('alter table public.%I add column if not exists updated_at timestamptz not null default now()',
+            v_table.name);
+        execute format('create index if not exists %I on public.%I (updated_at)', v_table.name || '_updated_at_idx',
+            v_table.name);
+        execute format('drop trigger if exists %I on public.%I', v_table.name || '_updated_at', v_table.name);
+        execute format('create trigger %I before update on public.%I for each row '
+            || 'execute procedure extensions.moddatetime(updated_at)', v_table.name || '_updated_at', v_table.name);
+        execute format('drop trigger if exists %I on public.%I', v_table.name || '_tombstone', v_table.name);
+        execute format('create trigger %I after delete on public.%I for each row '
+            || 'execute function public.record_tombstone(%L)', v_table.name || '_tombstone', v_table.name,
+            v_table.key_column);
+    end loop;
+end;
+$$;
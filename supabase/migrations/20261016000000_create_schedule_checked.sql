@@ -0,0 +1,70 @@
+-- create_schedule_checked: inserts a schedule unless its room, faculty member or cohort is already booked in the
+-- same time slot of the same semester and academic year, in one transaction and one round trip.
+--
+-- Called by SupabaseClient.createScheduleChecked as POST /rest/v1/rpc/create_schedule_checked. Returns
+--   {"schedule": <inserted row>, "conflicts": []}
+-- or, when nothing was inserted,
+--   {"schedule": null, "conflicts": [{"kind": "room" | "faculty" | "cohort", "schedule": <existing row>}, ...]}
+-- with one entry per clashing resource of each existing schedule, ordered by kind (room, faculty, cohort) and
+-- schedule ID. ScheduleConflicts in the application implements the same rule for stand-ins without this function.
+--
+-- Parameters are text so the function does not depend on the ID column types; the row is cast to the table's
+-- types by jsonb_populate_record.
+
+create index if not exists schedules_slot_term_idx on public.schedules (slot_id, semester, academic_year);
+
+create or replace function public.create_schedule_checked(
+    p_course_id text,
+    p_faculty_id text,
+    p_cohort_id text,
+    p_room_id text,
+    p_slot_id text,
+    p_semester text,
+    p_academic_year text)
+returns jsonb
+language plpgsql
+security invoker
+as $$
+declare
+    v_conflicts jsonb;
+    v_row public.schedules;
+begin
+    -- Two bookings of the same slot must not both pass the check before either has inserted
+    perform pg_advisory_xact_lock(hashtextextended(
+        'schedules|' || coalesce(p_slot_id, '') || '|' || coalesce(p_semester, '') || '|' || coalesce(p_academic_year, ''), 0));
+
+    select coalesce(jsonb_agg(jsonb_build_object('kind', k.kind, 'schedule', to_jsonb(s))
+                              order by k.ord, s.schedule_id::text collate "C"), '[]'::jsonb)
+    into v_conflicts
+    from public.schedules s
+    cross join lateral (values
+        (1, 'room', s.room_id::text = p_room_id),
+        (2, 'faculty', s.faculty_id::text = p_faculty_id),
+        (3, 'cohort', s.cohort_id::text = p_cohort_id)) as k(ord, kind, clash)
+    where s.slot_id::text = p_slot_id
+      and s.semester::text is not distinct from p_semester
+      and s.academic_year::text is not distinct from p_academic_year
+      and coalesce(s.is_active, true)
+      and k.clash;
+
+    if jsonb_array_length(v_conflicts) > 0 then
+        return jsonb_build_object('schedule', null, 'conflicts', v_conflicts);
+    end if;
+
+    insert into public.schedules (course_id, faculty_id, cohort_id, room_id, slot_id, semester, academic_year, is_active)
+    select r.course_id, r.faculty_id, r.cohort_id, r.room_id, r.slot_id, r.semester, r.academic_year, true
+    from jsonb_populate_record(null::public.schedules, jsonb_build_object(
+        'course_id', p_course_id,
+        'faculty_id', p_faculty_id,
+        'cohort_id', p_cohort_id,
+        'room_id', p_room_id,
+        'slot_id', p_slot_id,
+        'semester', p_semester,
+        'academic_year', p_academic_year)) r
+    returning * into v_row;
+
+    return jsonb_build_object('schedule', to_jsonb(v_row), 'conflicts', '[]'::jsonb);
+end;
+$$;
+
+grant execute on function public.create_schedule_checked(text, text, text, text, text, text, text) to anon, authenticated;
@@ -0,0 +1,25 @@
+-- outbox_idempotency_key: gives each table written through the Outbox a unique idempotency_key column.
+--
+-- The Outbox stores every write's key in it (outbox.idempotencyColumn) and inserts with
+--   POST /rest/v1/<table>?on_conflict=idempotency_key
+--   Prefer: return=representation,resolution=ignore-duplicates
+-- so a write resent after its response was lost is not stored twice; rows that already existed are read back by
+-- key. Rows written before this migration keep a null key, which the unique constraint allows any number of.
+
+do $$
+declare
+    v_table text;
+begin
+    foreach v_table in array array['schedules', 'evaluations', 'comments', 'reactions']
+    loop
+        execute format('alter table public.%I add column if not exists idempotency_key text', v_table);
+        if not exists (
+            select 1 from pg_constraint
+            where conrelid = format('public.%I', v_table)::regclass and conname = v_table || '_idempotency_key_key'
+        ) then
+            execute format('alter table public.%I add constraint %I unique (idempotency_key)', v_table,
+                v_table || '_idempotency_key_key');
+        end if;
+    end loop;
+end;
+$$;